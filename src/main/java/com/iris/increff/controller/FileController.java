@@ -4,30 +4,41 @@ import com.iris.increff.dao.TaskDao;
 import com.iris.increff.model.Task;
 import com.iris.increff.service.AsyncUploadService;
 import com.iris.increff.service.AsyncDownloadService;
+import com.iris.increff.service.ExportService;
 import com.iris.increff.service.StyleService;
 import com.iris.increff.service.StoreService;
 import com.iris.increff.service.SkuService;
 import com.iris.increff.service.SalesService;
 import com.iris.increff.service.FileProcessingService;
+import com.iris.increff.service.TaskLeaseService;
 import com.iris.increff.config.TsvProperties;
 import com.iris.increff.util.ProcessTsv;
+import com.iris.increff.util.ResultFileResponse;
+import com.iris.increff.util.TaskPayload;
+import com.iris.increff.util.TsvExportWriter;
+import com.iris.increff.util.TsvRowReader;
 import com.iris.increff.exception.ApiException;
+import com.iris.increff.spring.FairTaskExecutor;
 import io.swagger.annotations.Api;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import io.swagger.annotations.ApiOperation;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.function.Consumer;
 
 
 @Api
@@ -59,12 +70,18 @@ public class FileController {
     @Autowired
     private AsyncDownloadService asyncDownloadService;
 
+    @Autowired
+    private ExportService exportService;
+
     @Autowired
     private TaskDao taskDao;
 
     @Autowired
     private com.iris.increff.service.TaskService taskService;
 
+    @Autowired
+    private TaskLeaseService taskLeaseService;
+
     @Autowired
     private com.iris.increff.service.DataClearingService dataClearingService;
 
@@ -74,12 +91,9 @@ public class FileController {
     @ApiOperation(value = "Upload Styles TSV")
     @RequestMapping(value = "/api/file/upload/styles", method = RequestMethod.POST)
     public ResponseEntity<?> uploadStylesTsv(@RequestPart("file") MultipartFile file) {
-        try {
-            // Parse TSV using existing utility
-            ArrayList<HashMap<String, String>> tsvData = fileProcessingService.processTsv(file, tsvProperties.getStylesHeaders());
-            
-            // Process and save via service
-            UploadResponse result = styleService.processAndSaveStyles(tsvData);
+        try (TsvRowReader reader = fileProcessingService.openTsv(file, tsvProperties.getStylesHeaders())) {
+            // Stream rows straight into the service
+            UploadResponse result = styleService.processAndSaveStyles(reader);
 
             if (result.isSuccess()) {
                 result.setMessage("Styles uploaded successfully");
@@ -103,9 +117,8 @@ public class FileController {
     @ApiOperation(value = "Upload Stores TSV")
     @RequestMapping(value = "/api/file/upload/stores", method = RequestMethod.POST)
     public ResponseEntity<?> uploadStoresTsv(@RequestPart("file") MultipartFile file) {
-        try {
-            ArrayList<HashMap<String, String>> tsvData = fileProcessingService.processTsv(file, tsvProperties.getStoreHeaders());
-            UploadResponse result = storeService.processAndSaveStores(tsvData);
+        try (TsvRowReader reader = fileProcessingService.openTsv(file, tsvProperties.getStoreHeaders())) {
+            UploadResponse result = storeService.processAndSaveStores(reader);
 
             if (result.isSuccess()) {
                 result.setMessage("Stores uploaded successfully");
@@ -129,9 +142,8 @@ public class FileController {
     @ApiOperation(value = "Upload SKUs TSV")
     @RequestMapping(value = "/api/file/upload/skus", method = RequestMethod.POST)
     public ResponseEntity<?> uploadSkusTsv(@RequestPart("file") MultipartFile file) {
-        try {
-            ArrayList<HashMap<String, String>> tsvData = fileProcessingService.processTsv(file, tsvProperties.getSkuHeaders());
-            UploadResponse result = skuService.processAndSaveSKUs(tsvData);
+        try (TsvRowReader reader = fileProcessingService.openTsv(file, tsvProperties.getSkuHeaders())) {
+            UploadResponse result = skuService.processAndSaveSKUs(reader);
 
             if (result.isSuccess()) {
                 result.setMessage("SKUs uploaded successfully");
@@ -155,9 +167,8 @@ public class FileController {
     @ApiOperation(value = "Upload Sales TSV")
     @RequestMapping(value = "/api/file/upload/sales", method = RequestMethod.POST)
     public ResponseEntity<?> uploadSalesTsv(@RequestPart("file") MultipartFile file) {
-        try {
-            ArrayList<HashMap<String, String>> tsvData = fileProcessingService.processTsv(file, tsvProperties.getSalesHeaders());
-            UploadResponse result = salesService.processAndSaveSales(tsvData);
+        try (TsvRowReader reader = fileProcessingService.openTsv(file, tsvProperties.getSalesHeaders())) {
+            UploadResponse result = salesService.processAndSaveSales(reader);
 
             if (result.isSuccess()) {
                 result.setMessage("Sales uploaded successfully");
@@ -313,29 +324,33 @@ public class FileController {
     @ApiOperation(value = "Download Styles data as TSV")
     @RequestMapping(path = "/api/file/download/styles", method = RequestMethod.GET)
     public void downloadStylesData(HttpServletResponse response) throws IOException {
-        List<com.iris.increff.model.Style> styles = styleService.getAllStyles();
-        ProcessTsv.createStylesDataResponse(styles, response, tsvProperties.getStylesHeaders());
+        try (TsvExportWriter writer = ProcessTsv.openTsvResponse("styles_data.tsv", response)) {
+            exportService.writeStyles(writer);
+        }
     }
 
     @ApiOperation(value = "Download Stores data as TSV")
     @RequestMapping(path = "/api/file/download/stores", method = RequestMethod.GET)
     public void downloadStoresData(HttpServletResponse response) throws IOException {
-        List<com.iris.increff.model.Store> stores = storeService.getAllStores();
-        ProcessTsv.createStoresDataResponse(stores, response, tsvProperties.getStoreHeaders());
+        try (TsvExportWriter writer = ProcessTsv.openTsvResponse("stores_data.tsv", response)) {
+            exportService.writeStores(writer);
+        }
     }
 
     @ApiOperation(value = "Download SKUs data as TSV")
     @RequestMapping(path = "/api/file/download/skus", method = RequestMethod.GET)
     public void downloadSkusData(HttpServletResponse response) throws IOException {
-        List<com.iris.increff.model.SKU> skus = skuService.getAllSKUs();
-        ProcessTsv.createSkusDataResponse(skus, response, tsvProperties.getSkuHeaders());
+        try (TsvExportWriter writer = ProcessTsv.openTsvResponse("skus_data.tsv", response)) {
+            exportService.writeSkus(writer);
+        }
     }
 
     @ApiOperation(value = "Download Sales data as TSV")
     @RequestMapping(path = "/api/file/download/sales", method = RequestMethod.GET)
     public void downloadSalesData(HttpServletResponse response) throws IOException {
-        List<com.iris.increff.model.Sales> sales = salesService.getAllSales();
-        ProcessTsv.createSalesDataResponse(sales, response, tsvProperties.getSalesHeaders());
+        try (TsvExportWriter writer = ProcessTsv.openTsvResponse("sales_data.tsv", response)) {
+            exportService.writeSales(writer);
+        }
     }
 
     /**
@@ -352,7 +367,6 @@ public class FileController {
 
     @ApiOperation(value = "Upload Styles TSV (Async)")
     @RequestMapping(value = "/api/file/upload/styles/async", method = RequestMethod.POST)
-    @Transactional
     public ResponseEntity<Task> uploadStylesTsvAsync(@RequestPart("file") MultipartFile file) {
         logger.info("Async Styles upload requested: {}", file.getOriginalFilename());
         return processAsyncUpload(file, "STYLES_UPLOAD", 
@@ -361,7 +375,6 @@ public class FileController {
 
     @ApiOperation(value = "Upload Stores TSV (Async)")
     @RequestMapping(value = "/api/file/upload/stores/async", method = RequestMethod.POST)
-    @Transactional
     public ResponseEntity<Task> uploadStoresTsvAsync(@RequestPart("file") MultipartFile file) {
         logger.info("Async Stores upload requested: {}", file.getOriginalFilename());
         return processAsyncUpload(file, "STORES_UPLOAD",
@@ -370,7 +383,6 @@ public class FileController {
 
     @ApiOperation(value = "Upload SKUs TSV (Async)")
     @RequestMapping(value = "/api/file/upload/skus/async", method = RequestMethod.POST)
-    @Transactional
     public ResponseEntity<Task> uploadSkusTsvAsync(@RequestPart("file") MultipartFile file) {
         logger.info("Async SKUs upload requested: {}", file.getOriginalFilename());
         
@@ -392,7 +404,6 @@ public class FileController {
 
     @ApiOperation(value = "Upload Sales TSV (Async)")
     @RequestMapping(value = "/api/file/upload/sales/async", method = RequestMethod.POST)
-    @Transactional
     public ResponseEntity<Task> uploadSalesTsvAsync(@RequestPart("file") MultipartFile file) {
         logger.info("Async Sales upload requested: {}", file.getOriginalFilename());
         
@@ -443,23 +454,23 @@ public class FileController {
             task.setParameters("fileName=" + fileName + ", fileSize=" + fileContent.length);
             task.updateProgress(0.0, "PENDING: Upload task created, waiting to start...");
             
-            // Save task to get ID
-            taskDao.insert(task);
+            // Commit the task before the worker starts; the file content only exists on this
+            // node, so the task is leased here from the start and never taken by another node
+            taskService.createTaskInNewTransaction(task);
+            taskLeaseService.acquire(task.getId());
             
-            // Start async processing with pre-read content
+            // Start async processing with pre-read content; queued by task type if workers are busy
             try {
-                processor.process(task.getId(), fileContent, fileName);
+                FairTaskExecutor.submitAs(taskType, () -> processor.process(task.getId(), fileContent, fileName));
                 logger.info("Async upload started with task ID: {}", task.getId());
                 return ResponseEntity.accepted().body(task); // HTTP 202 Accepted
-            } catch (RuntimeException e) {
-                // Handle thread pool rejection
-                if (e.getMessage().contains("Thread pool queue is full")) {
-                    task.setStatus("FAILED");
-                    task.setErrorMessage("System is busy. Too many concurrent uploads. Please try again later.");
-                    taskDao.update(task);
-                    return ResponseEntity.status(429).body(task); // HTTP 429 Too Many Requests
-                }
-                throw e;
+            } catch (TaskRejectedException e) {
+                // Queue limit reached
+                task.setStatus("FAILED");
+                task.setErrorMessage("System is busy. Too many concurrent uploads. Please try again later.");
+                taskService.updateTask(task);
+                taskLeaseService.release(task.getId());
+                return ResponseEntity.status(429).body(task); // HTTP 429 Too Many Requests
             }
             
         } catch (Exception e) {
@@ -492,10 +503,7 @@ public class FileController {
         logger.info("Task created and committed with ID: {}", task.getId());
         
         // Now call async service - task is already visible in database
-        asyncDownloadService.downloadStylesAsync(task.getId());
-        logger.info("Async service called, returning task");
-        
-        return ResponseEntity.accepted().body(task);
+        return startDownload(task, taskId -> asyncDownloadService.downloadStylesAsync(taskId));
     }
 
     @ApiOperation(value = "Download Stores TSV (Async)")
@@ -503,8 +511,7 @@ public class FileController {
     public ResponseEntity<Task> downloadStoresAsync() {
         Task task = createDownloadTask("STORES_DOWNLOAD");
         task = taskService.createTaskInNewTransaction(task);
-        asyncDownloadService.downloadStoresAsync(task.getId());
-        return ResponseEntity.accepted().body(task);
+        return startDownload(task, taskId -> asyncDownloadService.downloadStoresAsync(taskId));
     }
 
     @ApiOperation(value = "Download SKUs TSV (Async)")
@@ -512,8 +519,7 @@ public class FileController {
     public ResponseEntity<Task> downloadSkusAsync() {
         Task task = createDownloadTask("SKUS_DOWNLOAD");
         task = taskService.createTaskInNewTransaction(task);
-        asyncDownloadService.downloadSkusAsync(task.getId());
-        return ResponseEntity.accepted().body(task);
+        return startDownload(task, taskId -> asyncDownloadService.downloadSkusAsync(taskId));
     }
 
     @ApiOperation(value = "Download Sales TSV (Async)")
@@ -521,22 +527,21 @@ public class FileController {
     public ResponseEntity<Task> downloadSalesAsync() {
         Task task = createDownloadTask("SALES_DOWNLOAD");
         task = taskService.createTaskInNewTransaction(task);
-        asyncDownloadService.downloadSalesAsync(task.getId());
-        return ResponseEntity.accepted().body(task);
+        return startDownload(task, taskId -> asyncDownloadService.downloadSalesAsync(taskId));
     }
 
     @ApiOperation(value = "Download NOOS Results TSV (Async)")
     @RequestMapping(value = "/api/file/download/noos/async", method = RequestMethod.POST)
     public ResponseEntity<Task> downloadNoosAsync(@RequestParam(required = false) Long runId) {
         Task task = createDownloadTask("NOOS_DOWNLOAD");
+        task.setPayload(TaskPayload.write(Collections.singletonMap("runId", runId)));
         task = taskService.createTaskInNewTransaction(task);
-        asyncDownloadService.downloadNoosResultsAsync(task.getId(), runId);
-        return ResponseEntity.accepted().body(task);
+        return startDownload(task, taskId -> asyncDownloadService.downloadNoosResultsAsync(taskId, runId));
     }
 
-    @ApiOperation(value = "Stream async task result TSV")
+    @ApiOperation(value = "Stream async task result TSV (gzip, resumable)")
     @RequestMapping(value = "/api/tasks/{taskId}/result", method = RequestMethod.GET)
-    public ResponseEntity<?> streamTaskResult(@PathVariable Long taskId, HttpServletResponse response) {
+    public ResponseEntity<?> streamTaskResult(@PathVariable Long taskId, HttpServletRequest request, HttpServletResponse response) {
         Task task = taskDao.select(taskId);
         if (task == null) {
             return ResponseEntity.notFound().build();
@@ -549,13 +554,33 @@ public class FileController {
             if (!file.exists()) {
                 return ResponseEntity.notFound().build();
             }
-            ProcessTsv.createFileResponse(file, response);
+            ResultFileResponse.send(file, request, response);
             return null; // Response handled via HttpServletResponse
         } catch (Exception e) {
             return ResponseEntity.status(500).body("Failed to stream result: " + e.getMessage());
         }
     }
 
+    /**
+     * Hand a committed download task to the file executor
+     * 
+     * @param task Persisted download task
+     * @param starter Calls the async download method for the task ID
+     * @return HTTP 202 with the task, or 429 if the executor queue is full
+     */
+    private ResponseEntity<Task> startDownload(Task task, Consumer<Long> starter) {
+        try {
+            FairTaskExecutor.submitAs(task.getTaskType(), () -> starter.accept(task.getId()));
+            return ResponseEntity.accepted().body(task);
+        } catch (TaskRejectedException e) {
+            task.setStatus("FAILED");
+            task.setEndTime(new java.util.Date());
+            task.setErrorMessage("System is busy. Too many concurrent downloads. Please try again later.");
+            taskService.updateTask(task);
+            return ResponseEntity.status(429).body(task);
+        }
+    }
+
     /**
      * Create download task object (does not persist)
      * Caller is responsible for persisting the task
@@ -567,6 +592,7 @@ public class FileController {
         task.setStartTime(new java.util.Date());
         task.setUserId("system");
         task.updateProgress(0.0, "PENDING: Download task created, waiting to start...");
+        task.setPayload(TaskPayload.write(Collections.emptyMap())); // Any node can generate it
         return task;
     }
 
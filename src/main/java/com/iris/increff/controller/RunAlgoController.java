@@ -4,22 +4,37 @@ import com.iris.increff.dao.TaskDao;
 import com.iris.increff.model.AlgoParametersData;
 import com.iris.increff.model.DashBoardData;
 import com.iris.increff.model.NoosResult;
+import com.iris.increff.model.NoosResultPage;
 import com.iris.increff.model.Task;
 import com.iris.increff.service.NoosAlgorithmService;
 import com.iris.increff.service.DashboardMetricsService;
+import com.iris.increff.service.ExportService;
+import com.iris.increff.service.TaskLeaseService;
+import com.iris.increff.service.TaskService;
 import com.iris.increff.exception.ApiException;
+import com.iris.increff.spring.FairTaskExecutor;
 import com.iris.increff.util.ProcessTsv;
+import com.iris.increff.util.TaskPayload;
+import com.iris.increff.util.TsvExportWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
 import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -31,18 +46,39 @@ public class RunAlgoController {
 
     private static final Logger logger = LoggerFactory.getLogger(RunAlgoController.class);
 
+    /**
+     * Upper bound on variants per sweep request
+     */
+    private static final int MAX_SWEEP_VARIANTS = 100;
+
+    /**
+     * Results per page of /api/results/noos unless the client asks otherwise, and the most it may ask for
+     */
+    private static final int DEFAULT_PAGE_SIZE = 500;
+    private static final int MAX_PAGE_SIZE = 5000;
+
+    private static final ObjectMapper NDJSON_MAPPER = new ObjectMapper();
+
     @Autowired
     private NoosAlgorithmService noosAlgorithmService;
 
     @Autowired
     private TaskDao taskDao;
 
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private TaskLeaseService taskLeaseService;
+
     @Autowired
     private DashboardMetricsService dashboardMetricsService;
 
+    @Autowired
+    private ExportService exportService;
+
     @ApiOperation(value = "Run NOOS Algorithm (Async)")
     @RequestMapping(path = "/api/run/noos/async", method = RequestMethod.POST)
-    @Transactional
     public ResponseEntity<Task> runNoosAlgorithmAsync(@RequestBody AlgoParametersData parameters) {
         logger.info("Async NOOS Algorithm execution requested with parameters: {}", parameters);
         
@@ -54,25 +90,24 @@ public class RunAlgoController {
             task.setStartTime(new Date());
             task.setUserId("system");
             task.setParameters(formatParameters(parameters));
+            task.setPayload(TaskPayload.write(parameters)); // Lets any node run it
             task.updateProgress(0.0, "PENDING: Task created, waiting to start...");
             
-            // Save task to get ID
-            taskDao.insert(task);
+            // Commit the task before the worker (on this or another node) looks for it
+            taskService.createTaskInNewTransaction(task);
             
-            // Start async execution
+            // Start async execution; queued behind other runs if workers are busy
             try {
-                noosAlgorithmService.runNoosAlgorithmAsync(task.getId(), parameters);
+                FairTaskExecutor.submitAs(task.getTaskType(),
+                        () -> noosAlgorithmService.runNoosAlgorithmAsync(task.getId(), parameters));
                 logger.info("✅ Async NOOS algorithm started with task ID: {}", task.getId());
                 return ResponseEntity.accepted().body(task); // HTTP 202 Accepted
-            } catch (RuntimeException e) {
-                // Handle thread pool rejection
-                if (e.getMessage().contains("Thread pool queue is full")) {
-                    task.setStatus("FAILED");
-                    task.setErrorMessage("System is busy. Too many concurrent tasks. Please try again later.");
-                    taskDao.update(task);
-                    return ResponseEntity.status(429).body(task); // HTTP 429 Too Many Requests
-                }
-                throw e;
+            } catch (TaskRejectedException e) {
+                // Queue limit reached
+                task.setStatus("FAILED");
+                task.setErrorMessage("System is busy. Too many concurrent tasks. Please try again later.");
+                taskService.updateTask(task);
+                return ResponseEntity.status(429).body(task); // HTTP 429 Too Many Requests
             }
             
         } catch (Exception e) {
@@ -91,6 +126,61 @@ public class RunAlgoController {
         }
     }
 
+    @ApiOperation(value = "Run NOOS Parameter Sweep (Async)")
+    @RequestMapping(path = "/api/run/noos/sweep", method = RequestMethod.POST)
+    public ResponseEntity<Task> runNoosSweepAsync(@RequestBody List<AlgoParametersData> variants) {
+        logger.info("NOOS parameter sweep requested with {} variants", variants != null ? variants.size() : 0);
+
+        if (variants == null || variants.isEmpty() || variants.size() > MAX_SWEEP_VARIANTS) {
+            Task errorTask = new Task();
+            errorTask.setTaskType("ALGORITHM_SWEEP");
+            errorTask.setStatus("FAILED");
+            errorTask.setErrorMessage("A sweep needs between 1 and " + MAX_SWEEP_VARIANTS + " parameter variants");
+            return ResponseEntity.badRequest().body(errorTask);
+        }
+
+        // Parent task; each variant gets its own ALGORITHM_RUN child task (its run id)
+        Task task = new Task();
+        task.setTaskType("ALGORITHM_SWEEP");
+        task.setStatus("PENDING");
+        task.setStartTime(new Date());
+        task.setUserId("system");
+        task.setParameters("variants=" + variants.size());
+        task.updateProgress(0.0, "PENDING: Task created, waiting to start...");
+        // Variants are not stored, so the sweep stays leased to this node
+        taskService.createTaskInNewTransaction(task);
+        taskLeaseService.acquire(task.getId());
+
+        try {
+            FairTaskExecutor.submitAs(task.getTaskType(), () -> noosAlgorithmService.runNoosSweepAsync(task.getId(), variants));
+            logger.info("✅ Async NOOS sweep started with task ID: {}", task.getId());
+            return ResponseEntity.accepted().body(task);
+        } catch (RuntimeException e) {
+            logger.error("❌ Failed to start NOOS sweep: {}", e.getMessage(), e);
+            task.setStatus("FAILED");
+            task.setEndTime(new Date());
+            taskLeaseService.release(task.getId());
+            if (e instanceof TaskRejectedException) {
+                task.setErrorMessage("System is busy. Too many concurrent tasks. Please try again later.");
+                taskService.updateTask(task);
+                return ResponseEntity.status(429).body(task);
+            }
+            task.setErrorMessage("Failed to start sweep: " + e.getMessage());
+            taskService.updateTask(task);
+            return ResponseEntity.status(500).body(task);
+        }
+    }
+
+    @ApiOperation(value = "Get runs of a NOOS parameter sweep")
+    @RequestMapping(path = "/api/run/noos/sweep/{taskId}/runs", method = RequestMethod.GET)
+    public ResponseEntity<List<Task>> getNoosSweepRuns(@PathVariable Long taskId) {
+        Task sweepTask = taskDao.select(taskId);
+        if (sweepTask == null || !"ALGORITHM_SWEEP".equals(sweepTask.getTaskType())) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(taskDao.getChildTasks(taskId));
+    }
+
     @ApiOperation(value = "Run NOOS Algorithm (Sync - Legacy)")
     @RequestMapping(path = "/api/run/noos", method = RequestMethod.POST)
     @Transactional
@@ -107,21 +197,59 @@ public class RunAlgoController {
         }
     }
 
-    @ApiOperation(value = "Get NOOS Results")
+    @ApiOperation(value = "Get NOOS Results (keyset pages, latest run by default)")
     @RequestMapping(path = "/api/results/noos", method = RequestMethod.GET)
-    public ResponseEntity<List<NoosResult>> getNoosResults() {
-        logger.info("Fetching NOOS results");
-        
+    public ResponseEntity<NoosResultPage> getNoosResults(@RequestParam(required = false) Long runId,
+                                                         @RequestParam(required = false) String type,
+                                                         @RequestParam(required = false) String category,
+                                                         @RequestParam(required = false) Long afterId,
+                                                         @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        logger.info("Fetching NOOS results page (run={}, type={}, category={}, afterId={}, limit={})",
+                runId, type, category, afterId, limit);
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+
         try {
-            List<NoosResult> results = noosAlgorithmService.getLatestResults();
-            logger.info("✅ Retrieved {} NOOS results", results.size());
-            return ResponseEntity.ok(results);
+            NoosResultPage page = noosAlgorithmService.getResultsPage(runId, type, category, afterId, limit);
+            logger.info("✅ Retrieved {} NOOS results", page.getResults().size());
+            return ResponseEntity.ok(page);
         } catch (Exception e) {
             logger.error("❌ Failed to fetch NOOS results: {}", e.getMessage(), e);
             return ResponseEntity.status(500).build();
         }
     }
 
+    @ApiOperation(value = "Stream NOOS Results as NDJSON (latest run by default)")
+    @RequestMapping(path = "/api/results/noos/stream", method = RequestMethod.GET)
+    public void streamNoosResults(@RequestParam(required = false) Long runId,
+                                  @RequestParam(required = false) String type,
+                                  @RequestParam(required = false) String category,
+                                  @RequestParam(required = false) Long afterId,
+                                  HttpServletResponse response) throws IOException {
+        logger.info("Streaming NOOS results (run={}, type={}, category={}, afterId={})", runId, type, category, afterId);
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        Writer out = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+        long rows = 0;
+        // Walk the keyset pages so only one page is held at a time; each is flushed as soon as it is written
+        NoosResultPage page = noosAlgorithmService.getResultsPage(runId, type, category, afterId, MAX_PAGE_SIZE);
+        while (true) {
+            for (NoosResult result : page.getResults()) {
+                out.write(NDJSON_MAPPER.writeValueAsString(result));
+                out.write('\n');
+            }
+            rows += page.getResults().size();
+            out.flush();
+            if (page.getNextAfterId() == null) {
+                break;
+            }
+            page = noosAlgorithmService.getResultsPage(page.getRunId(), type, category, page.getNextAfterId(), MAX_PAGE_SIZE);
+        }
+        out.close();
+        logger.info("✅ Streamed {} NOOS results", rows);
+    }
+
     @ApiOperation(value = "Get NOOS Results by Type (latest run)")
     @RequestMapping(path = "/api/results/noos/{type}", method = RequestMethod.GET)
     public ResponseEntity<List<NoosResult>> getNoosResultsByType(@PathVariable String type) {
@@ -158,15 +286,29 @@ public class RunAlgoController {
         logger.info("NOOS results download requested");
         
         try {
-            List<NoosResult> results = noosAlgorithmService.getLatestResults();
-            ProcessTsv.createNoosResultsTsv(results, response);
-            logger.info("✅ NOOS results download completed: {} results", results.size());
+            Long runId = noosAlgorithmService.getLatestRunId();
+            if (runId == null) {
+                ProcessTsv.createNoosResultsTsv(Collections.emptyList(), response);
+                return;
+            }
+            String fileName = "noos_results_" + new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date()) + ".tsv";
+            long rows;
+            try (TsvExportWriter writer = ProcessTsv.openTsvResponse(fileName, response)) {
+                rows = exportService.writeNoosResults(writer, runId);
+            }
+            logger.info("✅ NOOS results download completed: {} results", rows);
         } catch (Exception e) {
             logger.error("❌ Failed to download NOOS results: {}", e.getMessage(), e);
             throw new IOException("Failed to download NOOS results: " + e.getMessage());
         }
     }
 
+    @ApiOperation(value = "Get NOOS run cache statistics")
+    @RequestMapping(path = "/api/run/noos/cache/stats", method = RequestMethod.GET)
+    public ResponseEntity<Map<String, Object>> getNoosRunCacheStats() {
+        return ResponseEntity.ok(noosAlgorithmService.getRunCacheStats());
+    }
+
     @ApiOperation(value = "Get NOOS Dashboard Data")
     @RequestMapping(path = "/api/results/noos/dashboard", method = RequestMethod.GET)
     public ResponseEntity<Map<String, Object>> getNoosDashboardData() {
@@ -184,10 +326,10 @@ public class RunAlgoController {
             dashboardData.put("totalResults", totalResults);
             
             // Get latest run info
-            List<NoosResult> latestResults = noosAlgorithmService.getLatestResults();
-            if (!latestResults.isEmpty()) {
-                NoosResult latest = latestResults.get(0);
-                dashboardData.put("lastRunDate", latest.getCalculatedDate());
+            Long latestRunId = noosAlgorithmService.getLatestRunId();
+            Date lastRunDate = latestRunId != null ? noosAlgorithmService.getRunDate(latestRunId) : null;
+            if (lastRunDate != null) {
+                dashboardData.put("lastRunDate", lastRunDate);
                 dashboardData.put("hasResults", true);
             } else {
                 dashboardData.put("hasResults", false);
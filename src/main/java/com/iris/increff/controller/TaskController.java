@@ -2,22 +2,34 @@ package com.iris.increff.controller;
 
 import com.iris.increff.dao.TaskDao;
 import com.iris.increff.model.Task;
+import com.iris.increff.service.CancellationRegistry;
+import com.iris.increff.service.TaskEventService;
+import com.iris.increff.service.TaskProgressRegistry;
+import com.iris.increff.spring.FairTaskExecutor;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Task Management Controller
  * 
  * Provides endpoints for monitoring and managing asynchronous tasks:
  * - Get task status and progress
+ * - Stream task progress as Server-Sent Events
  * - Cancel running tasks
+ * - Report executor queue depth and wait times
  * - List recent tasks for audit
  * 
  * PRD Requirement: "Maintaining Task and Audit Tables"
@@ -35,6 +47,23 @@ public class TaskController {
     @Autowired
     private TaskDao taskDao;
 
+    @Autowired
+    private TaskProgressRegistry taskProgressRegistry;
+
+    @Autowired
+    private CancellationRegistry cancellationRegistry;
+
+    @Autowired
+    private TaskEventService taskEventService;
+
+    @Autowired
+    @Qualifier("noosExecutor")
+    private FairTaskExecutor noosExecutor;
+
+    @Autowired
+    @Qualifier("fileExecutor")
+    private FairTaskExecutor fileExecutor;
+
     /**
      * Get task status and progress
      * 
@@ -49,7 +78,7 @@ public class TaskController {
         logger.debug("📊 Getting status for task: {}", taskId);
         
         try {
-            Task task = taskDao.select(taskId);
+            Task task = findTask(taskId);
             
             if (task == null) {
                 logger.warn("⚠️ Task not found: {}", taskId);
@@ -67,6 +96,55 @@ public class TaskController {
         }
     }
 
+    /**
+     * Stream a task's progress as Server-Sent Events
+     * 
+     * Sends the current state first, then a "task" event whenever progress
+     * changes; the stream ends after the terminal state. Replaces polling
+     * GET /api/tasks/{taskId}.
+     * 
+     * @param taskId Task ID to follow
+     * @return Event stream, 404 if task not found, 503 if too many streams are open
+     */
+    @ApiOperation(value = "Stream task progress events")
+    @RequestMapping(path = "/api/tasks/{taskId}/events", method = RequestMethod.GET,
+                    produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamTaskEvents(@PathVariable Long taskId) {
+        if (findTask(taskId) == null) {
+            logger.warn("⚠️ Task not found: {}", taskId);
+            return ResponseEntity.notFound().build();
+        }
+
+        // State is re-read after subscribing so a task finishing in between is not missed
+        SseEmitter emitter = taskEventService.subscribe(taskId, () -> findTask(taskId));
+        if (emitter == null) {
+            logger.warn("🚫 Too many task event streams open, rejecting stream for task {}", taskId);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
+    /**
+     * Stream progress of all tasks as Server-Sent Events
+     * 
+     * Sends the tasks currently running, then a "task" event whenever any task
+     * changes, so one connection can follow every upload, download and run.
+     * 
+     * @param userId Optional: only stream this user's tasks
+     * @return Event stream, 503 if too many streams are open
+     */
+    @ApiOperation(value = "Stream progress events of all tasks")
+    @RequestMapping(path = "/api/tasks/events", method = RequestMethod.GET,
+                    produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamAllTaskEvents(@RequestParam(required = false) String userId) {
+        SseEmitter emitter = taskEventService.subscribeAll(userId, taskProgressRegistry.getAll());
+        if (emitter == null) {
+            logger.warn("🚫 Too many task event streams open, rejecting all-tasks stream");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
     /**
      * Request task cancellation
      * 
@@ -99,6 +177,9 @@ public class TaskController {
             task.requestCancellation();
             task.updateProgress(task.getProgressPercentage(), "CANCELLING: Cancellation requested");
             taskDao.update(task);
+            taskProgressRegistry.markCancellationRequested(taskId, task.getProgressMessage());
+            // Running workers poll this token; the flag above covers tasks not yet started
+            cancellationRegistry.cancel(taskId);
             
             logger.info("✅ Cancellation requested for task: {}", taskId);
             return ResponseEntity.accepted().build(); // HTTP 202
@@ -141,6 +222,23 @@ public class TaskController {
         }
     }
 
+    /**
+     * Get executor queue metrics
+     * 
+     * Queue depth, running tasks and wait times per task type, for the NOOS
+     * and file executors. Queued tasks are PENDING in the tasks table.
+     * 
+     * @return Stats keyed by executor ("noos", "file")
+     */
+    @ApiOperation(value = "Get task queue metrics")
+    @RequestMapping(path = "/api/tasks/queue", method = RequestMethod.GET)
+    public ResponseEntity<Map<String, Object>> getQueueStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("noos", noosExecutor.getStats());
+        stats.put("file", fileExecutor.getStats());
+        return ResponseEntity.ok(stats);
+    }
+
     /**
      * Get tasks by status
      * 
@@ -214,6 +312,14 @@ public class TaskController {
         }
     }
 
+    /**
+     * Live tasks are served from in-memory progress, finished ones from the table
+     */
+    private Task findTask(Long taskId) {
+        Task task = taskProgressRegistry.get(taskId);
+        return task != null ? task : taskDao.select(taskId);
+    }
+
     /**
      * Validate task status
      */
@@ -23,6 +23,7 @@ public class UploadResponse {
     private Integer validationErrors;
     private Integer dependencyErrors;
     private Integer duplicateErrors;
+    private Double rowsPerSecond;
 
     // Constructors, getters, and setters
     public UploadResponse() {}
@@ -77,6 +78,9 @@ public class UploadResponse {
 
     public Integer getDuplicateErrors() { return duplicateErrors; }
     public void setDuplicateErrors(Integer duplicateErrors) { this.duplicateErrors = duplicateErrors; }
+
+    public Double getRowsPerSecond() { return rowsPerSecond; }
+    public void setRowsPerSecond(Double rowsPerSecond) { this.rowsPerSecond = rowsPerSecond; }
     
     /**
      * Set error tracking information from ErrorTracker
@@ -0,0 +1,112 @@
+package com.iris.increff.dao;
+
+import com.iris.increff.model.DataCounter;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Data Access Object for the data_counters table.
+ * Counters are adjusted with single UPDATE statements so concurrent
+ * transactions add to the stored value rather than overwrite it.
+ *
+ * @author Anshuk Kawarry
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Repository
+public class DataCounterDao {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Insert a new counter
+     *
+     * @param counter Counter to insert
+     */
+    public void insert(DataCounter counter) {
+        entityManager.persist(counter);
+    }
+
+    /**
+     * Read every counter. Returned as plain values rather than entities: the
+     * counters are changed with bulk updates, which managed entities would not
+     * see within the same persistence context.
+     *
+     * @return Rows of [name, value, updatedDate]
+     */
+    public List<Object[]> getAll() {
+        TypedQuery<Object[]> query = entityManager.createQuery(
+                "SELECT c.name, c.value, c.updatedDate FROM DataCounter c", Object[].class);
+        return query.getResultList();
+    }
+
+    /**
+     * Read one counter's value
+     *
+     * @param name Counter name
+     * @return Stored value, or null if the counter does not exist yet
+     */
+    public Long getValue(String name) {
+        List<Long> values = entityManager.createQuery(
+                "SELECT c.value FROM DataCounter c WHERE c.name = :name", Long.class)
+                .setParameter("name", name)
+                .getResultList();
+        return values.isEmpty() ? null : values.get(0);
+    }
+
+    /**
+     * Add to a counter's value
+     *
+     * @param name Counter name
+     * @param delta Amount to add (negative to subtract)
+     * @return Number of rows updated (0 if the counter does not exist yet)
+     */
+    public int add(String name, long delta) {
+        return entityManager.createQuery(
+                "UPDATE DataCounter c SET c.value = c.value + :delta, c.updatedDate = :now WHERE c.name = :name")
+                .setParameter("delta", delta)
+                .setParameter("now", new Date())
+                .setParameter("name", name)
+                .executeUpdate();
+    }
+
+    /**
+     * Set a counter's value
+     *
+     * @param name Counter name
+     * @param value New value
+     * @return Number of rows updated (0 if the counter does not exist yet)
+     */
+    public int set(String name, long value) {
+        return entityManager.createQuery(
+                "UPDATE DataCounter c SET c.value = :value, c.updatedDate = :now WHERE c.name = :name")
+                .setParameter("value", value)
+                .setParameter("now", new Date())
+                .setParameter("name", name)
+                .executeUpdate();
+    }
+
+    /**
+     * Set a counter's value only if it still holds the expected value
+     *
+     * @param name Counter name
+     * @param expected Value read before the new one was computed
+     * @param value New value
+     * @return Number of rows updated (0 if the counter changed meanwhile)
+     */
+    public int compareAndSet(String name, long expected, long value) {
+        return entityManager.createQuery(
+                "UPDATE DataCounter c SET c.value = :value, c.updatedDate = :now WHERE c.name = :name AND c.value = :expected")
+                .setParameter("value", value)
+                .setParameter("now", new Date())
+                .setParameter("name", name)
+                .setParameter("expected", expected)
+                .executeUpdate();
+    }
+}
@@ -1,13 +1,18 @@
 package com.iris.increff.dao;
 
 import com.iris.increff.model.NoosResult;
+import com.iris.increff.util.CancellationToken;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
 import javax.persistence.TypedQuery;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Date;
+import java.util.function.Consumer;
 
 
 @Repository
@@ -31,6 +36,7 @@ public class NoosResultDao {
             
             // Flush and clear session every batch to avoid memory issues
             if (i % batchSize == 0) {
+                CancellationToken.checkCurrent();
                 entityManager.flush();
                 entityManager.clear();
             }
@@ -67,6 +73,96 @@ public class NoosResultDao {
         return query.getResultList();
     }
 
+    /**
+     * One keyset page of a run's results in id order, optionally filtered by type and category
+     *
+     * @param algorithmRunId Run ID
+     * @param type Result type, or null for all types
+     * @param category Category, or null for all categories
+     * @param afterId Only results with a larger id; null for the first page
+     * @param limit Maximum number of results
+     * @return Results in ascending id order
+     */
+    public List<NoosResult> getResultsPage(Long algorithmRunId, String type, String category, Long afterId, int limit) {
+        StringBuilder hql = new StringBuilder("FROM NoosResult n WHERE n.algorithmRunId = :runId");
+        if (type != null) {
+            hql.append(" AND n.type = :type");
+        }
+        if (category != null) {
+            hql.append(" AND n.category = :category");
+        }
+        if (afterId != null) {
+            hql.append(" AND n.id > :afterId");
+        }
+        hql.append(" ORDER BY n.id");
+        TypedQuery<NoosResult> query = entityManager.createQuery(hql.toString(), NoosResult.class);
+        query.setParameter("runId", algorithmRunId);
+        if (type != null) {
+            query.setParameter("type", type);
+        }
+        if (category != null) {
+            query.setParameter("category", category);
+        }
+        if (afterId != null) {
+            query.setParameter("afterId", afterId);
+        }
+        query.setMaxResults(limit);
+        return query.getResultList();
+    }
+
+    /**
+     * Visit the export columns of a run's results in the same order as getResultsByRunId
+     * (or, without a run, getLatestResults) without loading entities or a result list
+     *
+     * @param algorithmRunId Run ID, or null for all results
+     * @param fetchSize Rows read per round trip
+     * @param action Called for each [category, styleCode, styleROS, type, styleRevContribution,
+     *               totalQuantitySold, totalRevenue, daysAvailable, daysWithSales, avgDiscount, calculatedDate]
+     * @return Number of rows visited
+     */
+    public long scrollExportRows(Long algorithmRunId, int fetchSize, Consumer<Object[]> action) {
+        String select = "SELECT n.category, n.styleCode, n.styleROS, n.type, n.styleRevContribution, "
+                + "n.totalQuantitySold, n.totalRevenue, n.daysAvailable, n.daysWithSales, n.avgDiscount, "
+                + "n.calculatedDate FROM NoosResult n ";
+        Query query;
+        if (algorithmRunId != null) {
+            query = entityManager.createQuery(select + "WHERE n.algorithmRunId = :runId ORDER BY n.styleRevContribution DESC");
+            query.setParameter("runId", algorithmRunId);
+        } else {
+            query = entityManager.createQuery(select + "ORDER BY n.calculatedDate DESC");
+        }
+        return QueryScroll.forEachRow(entityManager, query, fetchSize, action);
+    }
+
+    /**
+     * Count a run's results per type in one grouped query (for runs saved without a summary row)
+     *
+     * @param algorithmRunId Run ID
+     * @return Result count by type
+     */
+    public Map<String, Long> getCountsByTypeForRun(Long algorithmRunId) {
+        TypedQuery<Object[]> query = entityManager.createQuery(
+                "SELECT n.type, COUNT(n) FROM NoosResult n WHERE n.algorithmRunId = :runId GROUP BY n.type", Object[].class);
+        query.setParameter("runId", algorithmRunId);
+        Map<String, Long> counts = new HashMap<>();
+        for (Object[] row : query.getResultList()) {
+            counts.put((String) row[0], (Long) row[1]);
+        }
+        return counts;
+    }
+
+    /**
+     * Count results saved without a run id per calculated date and type (legacy data)
+     *
+     * @return Rows of [calculatedDate, type, count]
+     */
+    public List<Object[]> getUntrackedCountsByDateAndType() {
+        TypedQuery<Object[]> query = entityManager.createQuery(
+                "SELECT n.calculatedDate, n.type, COUNT(n) FROM NoosResult n WHERE n.algorithmRunId IS NULL "
+                        + "GROUP BY n.calculatedDate, n.type", Object[].class);
+        return query.getResultList();
+    }
+
     /**
      * Get distinct recent run identifiers ordered descending by run id.
      *
@@ -0,0 +1,61 @@
+package com.iris.increff.dao;
+
+import com.iris.increff.model.NoosRunSummary;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.util.List;
+
+/**
+ * Data Access Object for the noos_run_summary table.
+ *
+ * @author Anshuk Kawarry
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Repository
+public class NoosRunSummaryDao {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Save a run's summary, replacing any earlier one for the same run
+     *
+     * @param summary Summary to save
+     */
+    public void save(NoosRunSummary summary) {
+        entityManager.merge(summary);
+    }
+
+    /**
+     * @param algorithmRunId Run ID
+     * @return The run's summary, or null if none was written
+     */
+    public NoosRunSummary select(Long algorithmRunId) {
+        if (algorithmRunId == null) {
+            return null;
+        }
+        return entityManager.find(NoosRunSummary.class, algorithmRunId);
+    }
+
+    /**
+     * @param limit Maximum number of summaries
+     * @return Summaries of the most recent runs, newest first
+     */
+    public List<NoosRunSummary> getRecent(int limit) {
+        TypedQuery<NoosRunSummary> query = entityManager.createQuery(
+                "FROM NoosRunSummary s ORDER BY s.algorithmRunId DESC", NoosRunSummary.class);
+        query.setMaxResults(limit);
+        return query.getResultList();
+    }
+
+    /**
+     * Delete all summaries (with the results they describe)
+     */
+    public void deleteAll() {
+        entityManager.createQuery("DELETE FROM NoosRunSummary").executeUpdate();
+    }
+}
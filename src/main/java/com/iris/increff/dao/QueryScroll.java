@@ -0,0 +1,55 @@
+package com.iris.increff.dao;
+
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.function.Consumer;
+
+/**
+ * Runs a projection query as a forward-only scroll instead of a result list,
+ * so exports can walk a large table one fetch-size chunk at a time.
+ *
+ * Export queries select exactly the columns they write, joining the
+ * referenced tables in the same statement, so each row arrives as a plain
+ * Object[] in select-list order: no entities are hydrated, no lazy
+ * association is touched, and the whole export is one query however many
+ * distinct SKUs, stores or styles it mentions. Nothing is added to the
+ * persistence context, so memory stays flat without clearing it.
+ *
+ * MySQL only fetches in chunks when the connection URL sets
+ * useCursorFetch=true; otherwise the driver buffers the raw rows.
+ *
+ * @author Anshuk Kawarry
+ * @version 1.0
+ * @since 2025-01-01
+ */
+final class QueryScroll {
+
+    private QueryScroll() {
+    }
+
+    /**
+     * @param entityManager Entity manager of the current transaction
+     * @param query Multi-column projection query to scroll
+     * @param fetchSize Rows fetched per round trip
+     * @param action Called for each row, in query order
+     * @return Number of rows visited
+     */
+    static long forEachRow(EntityManager entityManager, Query query, int fetchSize, Consumer<Object[]> action) {
+        org.hibernate.query.Query<?> scrollQuery = query.unwrap(org.hibernate.query.Query.class);
+        scrollQuery.setFetchSize(fetchSize);
+        // Rows written earlier in this transaction must be visible to the export
+        entityManager.unwrap(Session.class).flush();
+        long rows = 0;
+        try (ScrollableResults results = scrollQuery.scroll(ScrollMode.FORWARD_ONLY)) {
+            while (results.next()) {
+                action.accept(results.get());
+                rows++;
+            }
+        }
+        return rows;
+    }
+}
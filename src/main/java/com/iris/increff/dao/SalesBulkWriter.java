@@ -0,0 +1,195 @@
+package com.iris.increff.dao;
+
+import com.iris.increff.model.Sales;
+import com.iris.increff.util.CancellationToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.text.SimpleDateFormat;
+import java.util.List;
+
+/**
+ * Bulk writer for the sales table that bypasses Hibernate persist.
+ *
+ * Sales ids use IDENTITY generation, which makes Hibernate disable JDBC
+ * batching, so inserting through the EntityManager costs one round-trip per
+ * row. This writer issues multi-row INSERT statements (the same shape the
+ * MySQL driver produces with rewriteBatchedStatements) on the connection
+ * bound to the current transaction, so it commits or rolls back together
+ * with the rest of the upload.
+ *
+ * With app.sales.bulk.mode=load-data and a MySQL connection, rows are instead
+ * spooled to a temp file and loaded with LOAD DATA LOCAL INFILE (the JDBC URL
+ * must allow local infile). Other databases (H2 in tests) fall back to the
+ * multi-row INSERT path.
+ *
+ * @author Anshuk Kawarry
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Repository
+public class SalesBulkWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesBulkWriter.class);
+
+    public static final String MODE_BATCH = "batch";
+    public static final String MODE_LOAD_DATA = "load-data";
+
+    private static final String COLUMNS = "(date, sku_id, store_id, quantity, discount, revenue)";
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Rows per multi-row INSERT statement
+     */
+    @Value("${app.sales.bulk.rows-per-statement:200}")
+    private int rowsPerStatement;
+
+    /**
+     * Bulk load strategy: batch (multi-row INSERT) or load-data (MySQL only)
+     */
+    @Value("${app.sales.bulk.mode:batch}")
+    private String mode;
+
+    /**
+     * Insert sales rows using the configured bulk strategy.
+     * Only the scalar columns are written; ids are generated by the database.
+     *
+     * @param salesList Rows to insert
+     * @return Number of rows inserted
+     */
+    public int insertAll(List<Sales> salesList) {
+        if (salesList.isEmpty()) {
+            return 0;
+        }
+        CancellationToken.checkCurrent();
+        // Make pending JPA changes (e.g. the preceding bulk delete) visible to this connection
+        entityManager.flush();
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            if (MODE_LOAD_DATA.equals(mode) && isMySql(connection)) {
+                return loadData(connection, salesList);
+            }
+            return insertMultiRow(connection, salesList);
+        } catch (SQLException | IOException e) {
+            throw new RuntimeException("Bulk insert into sales failed: " + e.getMessage(), e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    private int insertMultiRow(Connection connection, List<Sales> salesList) throws SQLException {
+        int chunk = Math.max(1, rowsPerStatement);
+        int fullStatements = salesList.size() / chunk;
+        int inserted = 0;
+
+        if (fullStatements > 0) {
+            try (PreparedStatement statement = connection.prepareStatement(insertSql(chunk))) {
+                for (int s = 0; s < fullStatements; s++) {
+                    bindRows(statement, salesList, s * chunk, chunk);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                inserted += fullStatements * chunk;
+            }
+        }
+
+        int remaining = salesList.size() - inserted;
+        if (remaining > 0) {
+            try (PreparedStatement statement = connection.prepareStatement(insertSql(remaining))) {
+                bindRows(statement, salesList, inserted, remaining);
+                statement.executeUpdate();
+                inserted += remaining;
+            }
+        }
+        return inserted;
+    }
+
+    private int loadData(Connection connection, List<Sales> salesList) throws SQLException, IOException {
+        File spool = File.createTempFile("iris-sales-", ".tsv");
+        try {
+            SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(spool.toPath()), StandardCharsets.UTF_8))) {
+                for (Sales sales : salesList) {
+                    writer.write(dateFormat.format(sales.getDate()));
+                    writer.write('\t');
+                    writer.write(String.valueOf(sales.getSkuId()));
+                    writer.write('\t');
+                    writer.write(String.valueOf(sales.getStoreId()));
+                    writer.write('\t');
+                    writer.write(String.valueOf(sales.getQuantity()));
+                    writer.write('\t');
+                    writer.write(sales.getDiscount().toPlainString());
+                    writer.write('\t');
+                    writer.write(sales.getRevenue().toPlainString());
+                    writer.write('\n');
+                }
+            }
+            String path = spool.getAbsolutePath().replace("\\", "/").replace("'", "''");
+            try (Statement statement = connection.createStatement()) {
+                return statement.executeUpdate("LOAD DATA LOCAL INFILE '" + path + "' INTO TABLE sales"
+                        + " FIELDS TERMINATED BY '\\t' LINES TERMINATED BY '\\n' " + COLUMNS);
+            }
+        } finally {
+            if (!spool.delete()) {
+                logger.warn("Could not delete sales spool file {}", spool.getAbsolutePath());
+            }
+        }
+    }
+
+    private void bindRows(PreparedStatement statement, List<Sales> salesList, int from, int count) throws SQLException {
+        int p = 1;
+        for (int i = from; i < from + count; i++) {
+            Sales sales = salesList.get(i);
+            statement.setDate(p++, new java.sql.Date(sales.getDate().getTime()));
+            statement.setInt(p++, sales.getSkuId());
+            statement.setInt(p++, sales.getStoreId());
+            statement.setInt(p++, sales.getQuantity());
+            statement.setBigDecimal(p++, sales.getDiscount());
+            statement.setBigDecimal(p++, sales.getRevenue());
+        }
+    }
+
+    private String insertSql(int rows) {
+        StringBuilder sql = new StringBuilder("INSERT INTO sales ").append(COLUMNS).append(" VALUES ");
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(ROW_PLACEHOLDERS);
+        }
+        return sql.toString();
+    }
+
+    private boolean isMySql(Connection connection) throws SQLException {
+        String product = connection.getMetaData().getDatabaseProductName();
+        boolean mySql = product != null && product.toLowerCase().contains("mysql");
+        if (!mySql) {
+            logger.debug("LOAD DATA mode requested but database is {}; using multi-row INSERT", product);
+        }
+        return mySql;
+    }
+}
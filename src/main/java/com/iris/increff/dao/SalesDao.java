@@ -1,13 +1,16 @@
 package com.iris.increff.dao;
 
 import com.iris.increff.model.Sales;
+import com.iris.increff.util.CancellationToken;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.Query;
+import java.math.BigDecimal;
 import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Data Access Object for Sales entity.
@@ -59,6 +62,20 @@ public class SalesDao {
         return query.getResultList();
     }
 
+    /**
+     * Visit the export columns of all sales in id order, as one joined query
+     * without loading entities or a result list
+     *
+     * @param fetchSize Rows read per round trip
+     * @param action Called for each [date, sku, branch, quantity, discount, revenue]; sku and branch are null when missing
+     * @return Number of rows visited
+     */
+    public long scrollExportRows(int fetchSize, Consumer<Object[]> action) {
+        Query query = entityManager.createQuery(
+            "SELECT s.date, k.sku, st.branch, s.quantity, s.discount, s.revenue FROM Sales s LEFT JOIN s.sku k LEFT JOIN s.store st ORDER BY s.id");
+        return QueryScroll.forEachRow(entityManager, query, fetchSize, action);
+    }
+
     /**
      * Find sales by date range (useful for NOOS algorithm)
      * 
@@ -122,6 +139,7 @@ public class SalesDao {
         for (int i = 0; i < salesList.size(); i++) {
             entityManager.persist(salesList.get(i));
             if (i % 20 == 0) {
+                CancellationToken.checkCurrent();
                 entityManager.flush();
                 entityManager.clear();
             }
@@ -130,6 +148,50 @@ public class SalesDao {
         entityManager.clear();
     }
 
+    /**
+     * Aggregate sales per style in a single grouped query (NOOS SQL engine).
+     * Applies the liquidation filter (revenue > 0 and discount / (discount + revenue)
+     * <= threshold, written without division so it is exact on DECIMAL columns) and
+     * the sales → SKU → style join in the database.
+     *
+     * @param startDate Start of the date range (inclusive), or null for all dates
+     * @param endDate End of the date range (inclusive), or null for all dates
+     * @param liquidationThreshold Maximum allowed discount share
+     * @return Rows of [styleCode, category, SUM(quantity), SUM(revenue), SUM(discount), COUNT(DISTINCT date)]
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object[]> aggregateByStyle(Date startDate, Date endDate, BigDecimal liquidationThreshold) {
+        boolean dateRange = startDate != null && endDate != null;
+        Query query = entityManager.createQuery(
+            "SELECT st.styleCode, st.category, SUM(s.quantity), SUM(s.revenue), SUM(s.discount), COUNT(DISTINCT s.date) " +
+            "FROM Sales s, SKU k, Style st " +
+            "WHERE s.skuId = k.id AND k.styleId = st.id " +
+            "AND s.revenue > 0 AND s.discount <= :threshold * (s.discount + s.revenue) " +
+            (dateRange ? "AND s.date BETWEEN :startDate AND :endDate " : "") +
+            "GROUP BY st.styleCode, st.category");
+        query.setParameter("threshold", liquidationThreshold);
+        if (dateRange) {
+            query.setParameter("startDate", startDate);
+            query.setParameter("endDate", endDate);
+        }
+        return query.getResultList();
+    }
+
+    /**
+     * Count sales within a date range without loading them
+     *
+     * @param startDate Start date for the range
+     * @param endDate End date for the range
+     * @return Number of sales within the date range
+     */
+    public Long countByDateBetween(Date startDate, Date endDate) {
+        Query query = entityManager.createQuery(
+            "SELECT COUNT(s) FROM Sales s WHERE s.date BETWEEN :startDate AND :endDate");
+        query.setParameter("startDate", startDate);
+        query.setParameter("endDate", endDate);
+        return (Long) query.getSingleResult();
+    }
+
     /**
      * Get total sales count for NOOS algorithm processing
      * 
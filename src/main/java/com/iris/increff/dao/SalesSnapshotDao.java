@@ -0,0 +1,100 @@
+package com.iris.increff.dao;
+
+import com.iris.increff.util.SalesSnapshot;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Reads the sales table straight into a columnar SalesSnapshot over JDBC,
+ * without hydrating Sales entities.
+ *
+ * Uses the connection bound to the current transaction when there is one, so
+ * rows written earlier in the same transaction are included.
+ *
+ * @author Anshuk Kawarry
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Repository
+public class SalesSnapshotDao {
+
+    private static final String STAMP_SQL = "SELECT COUNT(*), COALESCE(MAX(id), 0) FROM sales";
+    private static final String SCAN_SQL =
+            "SELECT id, date, sku_id, store_id, quantity, revenue, discount FROM sales";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Current row count and highest id of the sales table, used to check
+     * whether a snapshot is still current.
+     *
+     * @return {rowCount, maxId}
+     */
+    public long[] readStamp() {
+        flushPendingChanges();
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try (PreparedStatement statement = connection.prepareStatement(STAMP_SQL);
+             ResultSet rs = statement.executeQuery()) {
+            rs.next();
+            return new long[] {rs.getLong(1), rs.getLong(2)};
+        } catch (SQLException e) {
+            throw new RuntimeException("Reading sales snapshot stamp failed: " + e.getMessage(), e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    /**
+     * Scan the whole sales table into a new snapshot
+     *
+     * @param expectedRows Capacity hint (e.g. the row count from readStamp)
+     * @return Snapshot tagged with the row count and max id actually read
+     */
+    public SalesSnapshot load(int expectedRows) {
+        flushPendingChanges();
+        SalesSnapshot.Builder builder = new SalesSnapshot.Builder(expectedRows);
+        long maxId = 0;
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try (PreparedStatement statement = connection.prepareStatement(SCAN_SQL)) {
+            statement.setFetchSize(10000);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    maxId = Math.max(maxId, rs.getLong(1));
+                    builder.add(
+                            (int) rs.getDate(2).toLocalDate().toEpochDay(),
+                            rs.getInt(3),
+                            rs.getInt(4),
+                            rs.getInt(5),
+                            SalesSnapshot.toCents(rs.getBigDecimal(6)),
+                            SalesSnapshot.toCents(rs.getBigDecimal(7)));
+                }
+            }
+            return builder.build(maxId);
+        } catch (SQLException e) {
+            throw new RuntimeException("Loading sales snapshot failed: " + e.getMessage(), e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    private void flushPendingChanges() {
+        // Make pending JPA writes visible to the JDBC connection; flush needs a transaction
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            entityManager.flush();
+        }
+    }
+}
@@ -1,13 +1,17 @@
 package com.iris.increff.dao;
 
 import com.iris.increff.model.SKU;
+import com.iris.increff.util.CancellationToken;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
 import javax.persistence.PersistenceContext;
 import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Data Access Object for SKU entity.
@@ -77,6 +81,50 @@ public class SkuDao {
         return query.getResultList();
     }
 
+    /**
+     * Visit the export columns of all SKUs in id order, as one joined query
+     * without loading entities or a result list
+     *
+     * @param fetchSize Rows read per round trip
+     * @param action Called for each [sku, styleCode, size]; styleCode is null when the style is missing
+     * @return Number of rows visited
+     */
+    public long scrollExportRows(int fetchSize, Consumer<Object[]> action) {
+        Query query = entityManager.createQuery(
+            "SELECT s.sku, st.styleCode, s.size FROM SKU s LEFT JOIN s.style st ORDER BY s.id");
+        return QueryScroll.forEachRow(entityManager, query, fetchSize, action);
+    }
+
+    /**
+     * Find all SKUs whose key is in the given set (one IN query).
+     * Callers are expected to pass bounded chunks.
+     *
+     * @param skuCodes The SKU codes to look up
+     * @return Matching entities (managed)
+     */
+    @SuppressWarnings("unchecked")
+    public List<SKU> findBySkus(Collection<String> skuCodes) {
+        if (skuCodes.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Query query = entityManager.createQuery(
+            "SELECT s FROM SKU s WHERE s.sku IN :skuCodes", SKU.class);
+        query.setParameter("skuCodes", skuCodes);
+        return query.getResultList();
+    }
+
+    /**
+     * Fetch every (SKU code, id) pair in a single query.
+     * Used to build an in-memory lookup dictionary for bulk sales ingestion.
+     *
+     * @return List of [sku, id] rows ordered by id
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object[]> findAllSkuCodeIds() {
+        Query query = entityManager.createQuery("SELECT s.sku, s.id FROM SKU s ORDER BY s.id");
+        return query.getResultList();
+    }
+
     /**
      * Delete all SKUs (for TSV replacement upload)
      */
@@ -95,6 +143,7 @@ public class SkuDao {
         for (int i = 0; i < skus.size(); i++) {
             entityManager.persist(skus.get(i));
             if (i % 20 == 0) {
+                CancellationToken.checkCurrent();
                 entityManager.flush();
                 entityManager.clear();
             }
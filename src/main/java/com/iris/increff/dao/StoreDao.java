@@ -1,13 +1,17 @@
 package com.iris.increff.dao;
 
 import com.iris.increff.model.Store;
+import com.iris.increff.util.CancellationToken;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
 import javax.persistence.PersistenceContext;
 import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Data Access Object for Store entity.
@@ -77,6 +81,50 @@ public class StoreDao {
         return query.getResultList();
     }
 
+    /**
+     * Visit the export columns of all stores in id order, as one joined query
+     * without loading entities or a result list
+     *
+     * @param fetchSize Rows read per round trip
+     * @param action Called for each [branch, city]
+     * @return Number of rows visited
+     */
+    public long scrollExportRows(int fetchSize, Consumer<Object[]> action) {
+        Query query = entityManager.createQuery(
+            "SELECT s.branch, s.city FROM Store s ORDER BY s.id");
+        return QueryScroll.forEachRow(entityManager, query, fetchSize, action);
+    }
+
+    /**
+     * Find all stores whose key is in the given set (one IN query).
+     * Callers are expected to pass bounded chunks.
+     *
+     * @param branches The branches to look up
+     * @return Matching entities (managed)
+     */
+    @SuppressWarnings("unchecked")
+    public List<Store> findByBranches(Collection<String> branches) {
+        if (branches.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Query query = entityManager.createQuery(
+            "SELECT s FROM Store s WHERE s.branch IN :branches", Store.class);
+        query.setParameter("branches", branches);
+        return query.getResultList();
+    }
+
+    /**
+     * Fetch every (branch, id) pair in a single query.
+     * Used to build an in-memory lookup dictionary for bulk sales ingestion.
+     *
+     * @return List of [branch, id] rows ordered by id
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object[]> findAllBranchIds() {
+        Query query = entityManager.createQuery("SELECT s.branch, s.id FROM Store s ORDER BY s.id");
+        return query.getResultList();
+    }
+
     /**
      * Delete all stores (for TSV replacement upload)
      */
@@ -95,6 +143,7 @@ public class StoreDao {
         for (int i = 0; i < stores.size(); i++) {
             entityManager.persist(stores.get(i));
             if (i % 20 == 0) {
+                CancellationToken.checkCurrent();
                 entityManager.flush();
                 entityManager.clear();
             }
@@ -1,13 +1,17 @@
 package com.iris.increff.dao;
 
 import com.iris.increff.model.Style;
+import com.iris.increff.util.CancellationToken;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
 import javax.persistence.PersistenceContext;
 import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Data Access Object for Style entity.
@@ -77,6 +81,50 @@ public class StyleDao {
         return query.getResultList();
     }
 
+    /**
+     * Visit the export columns of all styles in id order, as one joined query
+     * without loading entities or a result list
+     *
+     * @param fetchSize Rows read per round trip
+     * @param action Called for each [styleCode, brand, category, subCategory, mrp, gender]
+     * @return Number of rows visited
+     */
+    public long scrollExportRows(int fetchSize, Consumer<Object[]> action) {
+        Query query = entityManager.createQuery(
+            "SELECT s.styleCode, s.brand, s.category, s.subCategory, s.mrp, s.gender FROM Style s ORDER BY s.id");
+        return QueryScroll.forEachRow(entityManager, query, fetchSize, action);
+    }
+
+    /**
+     * Find all styles whose key is in the given set (one IN query).
+     * Callers are expected to pass bounded chunks.
+     *
+     * @param styleCodes The style codes to look up
+     * @return Matching entities (managed)
+     */
+    @SuppressWarnings("unchecked")
+    public List<Style> findByStyleCodes(Collection<String> styleCodes) {
+        if (styleCodes.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Query query = entityManager.createQuery(
+            "SELECT s FROM Style s WHERE s.styleCode IN :styleCodes", Style.class);
+        query.setParameter("styleCodes", styleCodes);
+        return query.getResultList();
+    }
+
+    /**
+     * Fetch every (style code, id) pair in a single query.
+     * Used to build an in-memory lookup dictionary for bulk SKU ingestion.
+     *
+     * @return List of [styleCode, id] rows ordered by id
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object[]> findAllStyleCodeIds() {
+        Query query = entityManager.createQuery("SELECT s.styleCode, s.id FROM Style s ORDER BY s.id");
+        return query.getResultList();
+    }
+
     /**
      * Delete all styles (for TSV replacement upload)
      */
@@ -96,6 +144,7 @@ public class StyleDao {
             entityManager.persist(styles.get(i));
             // Flush and clear every 20 entities to manage memory
             if (i % 20 == 0) {
+                CancellationToken.checkCurrent();
                 entityManager.flush();
                 entityManager.clear();
             }
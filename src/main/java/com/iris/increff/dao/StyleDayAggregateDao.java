@@ -0,0 +1,130 @@
+package com.iris.increff.dao;
+
+import com.iris.increff.model.StyleDayAggregate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Data Access Object for the style_day_aggregate table.
+ * Rows are replaced wholesale after each sales upload and written over JDBC
+ * batches (identity ids disable Hibernate insert batching).
+ *
+ * @author Anshuk Kawarry
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Repository
+public class StyleDayAggregateDao {
+
+    private static final String INSERT_SQL = "INSERT INTO style_day_aggregate "
+            + "(style_code, category, sale_date, discount_bucket, quantity, revenue, discount, sales_count) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int BATCH_SIZE = 1000;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Delete all aggregate rows
+     */
+    public void deleteAll() {
+        entityManager.createQuery("DELETE FROM StyleDayAggregate").executeUpdate();
+    }
+
+    /**
+     * Insert aggregate rows in JDBC batches on the transaction's connection
+     *
+     * @param aggregates Rows to insert
+     * @return Number of rows inserted
+     */
+    public int insertAll(List<StyleDayAggregate> aggregates) {
+        if (aggregates.isEmpty()) {
+            return 0;
+        }
+        entityManager.flush();
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+            for (int i = 0; i < aggregates.size(); i++) {
+                StyleDayAggregate aggregate = aggregates.get(i);
+                statement.setString(1, aggregate.getStyleCode());
+                statement.setString(2, aggregate.getCategory());
+                statement.setDate(3, new java.sql.Date(aggregate.getSaleDate().getTime()));
+                statement.setInt(4, aggregate.getDiscountBucket());
+                statement.setLong(5, aggregate.getQuantity());
+                statement.setBigDecimal(6, aggregate.getRevenue());
+                statement.setBigDecimal(7, aggregate.getDiscount());
+                statement.setInt(8, aggregate.getSalesCount());
+                statement.addBatch();
+                if ((i + 1) % BATCH_SIZE == 0) {
+                    statement.executeBatch();
+                }
+            }
+            statement.executeBatch();
+            return aggregates.size();
+        } catch (SQLException e) {
+            throw new RuntimeException("Bulk insert into style_day_aggregate failed: " + e.getMessage(), e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    /**
+     * Number of sales rows the aggregates were built from
+     *
+     * @return Sum of sales_count over all aggregate rows
+     */
+    public long getSourceSalesCount() {
+        Query query = entityManager.createQuery("SELECT COALESCE(SUM(a.salesCount), 0) FROM StyleDayAggregate a");
+        return ((Number) query.getSingleResult()).longValue();
+    }
+
+    /**
+     * SKU id to style code and category mapping used when building aggregates
+     *
+     * @return Rows of [skuId, styleCode, category]
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object[]> findSkuStyleMapping() {
+        return entityManager.createQuery(
+            "SELECT k.id, st.styleCode, st.category FROM SKU k, Style st WHERE k.styleId = st.id")
+            .getResultList();
+    }
+
+    /**
+     * Per-style totals over the kept discount buckets
+     *
+     * @param startDate Start of the date range (inclusive), or null for all dates
+     * @param endDate End of the date range (inclusive), or null for all dates
+     * @param maxBucket Highest discount bucket retained by liquidation cleanup
+     * @return Rows of [styleCode, category, SUM(quantity), SUM(revenue), SUM(discount), COUNT(DISTINCT day)]
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object[]> aggregateByStyle(Date startDate, Date endDate, int maxBucket) {
+        boolean dateRange = startDate != null && endDate != null;
+        Query query = entityManager.createQuery(
+            "SELECT a.styleCode, a.category, SUM(a.quantity), SUM(a.revenue), SUM(a.discount), COUNT(DISTINCT a.saleDate) " +
+            "FROM StyleDayAggregate a WHERE a.discountBucket <= :maxBucket " +
+            (dateRange ? "AND a.saleDate BETWEEN :startDate AND :endDate " : "") +
+            "GROUP BY a.styleCode, a.category");
+        query.setParameter("maxBucket", maxBucket);
+        if (dateRange) {
+            query.setParameter("startDate", startDate);
+            query.setParameter("endDate", endDate);
+        }
+        return query.getResultList();
+    }
+}
@@ -5,7 +5,11 @@ import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import javax.persistence.TemporalType;
 import javax.persistence.TypedQuery;
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
 
@@ -25,6 +29,171 @@ public class TaskDao {
         entityManager.merge(task);
     }
 
+    // Stop tracking a task so in-memory progress changes are not flushed with the caller's transaction
+    public void detach(Task task) {
+        entityManager.detach(task);
+    }
+
+    // Write progress columns only, unless the task already reached a terminal state
+    public int updateProgressIfRunning(Task task) {
+        String hql = "UPDATE Task SET status = :status, progressMessage = :progressMessage, "
+                + "processedRecords = :processedRecords, totalRecords = :totalRecords, lastUpdatedDate = :now "
+                + "WHERE id = :id AND status IN ('PENDING', 'RUNNING')";
+        return entityManager.createQuery(hql)
+                .setParameter("status", task.getStatus())
+                .setParameter("progressMessage", task.getProgressMessage())
+                .setParameter("processedRecords", task.getProcessedRecords())
+                .setParameter("totalRecords", task.getTotalRecords())
+                .setParameter("now", new java.util.Date())
+                .setParameter("id", task.getId())
+                .executeUpdate();
+    }
+
+    // Write a terminal state, unless the task already reached one
+    public int finishIfRunning(Task task) {
+        String hql = "UPDATE Task SET status = :status, progressMessage = :progressMessage, "
+                + "errorMessage = :errorMessage, endTime = :endTime, lastUpdatedDate = :now "
+                + "WHERE id = :id AND status IN ('PENDING', 'RUNNING')";
+        return entityManager.createQuery(hql)
+                .setParameter("status", task.getStatus())
+                .setParameter("progressMessage", task.getProgressMessage())
+                .setParameter("errorMessage", task.getErrorMessage())
+                .setParameter("endTime", task.getEndTime())
+                .setParameter("now", new java.util.Date())
+                .setParameter("id", task.getId())
+                .executeUpdate();
+    }
+
+    // Take the lease of an unfinished task if it is free, expired or already ours; 1 if claimed
+    public int claimLease(Long id, String owner, Date expiresAt) {
+        String hql = "UPDATE Task SET leaseOwner = :owner, leaseExpiresAt = :expiresAt "
+                + "WHERE id = :id AND status IN ('PENDING', 'RUNNING') "
+                + "AND (leaseOwner IS NULL OR leaseOwner = :owner OR leaseExpiresAt < :now)";
+        return entityManager.createQuery(hql)
+                .setParameter("owner", owner)
+                .setParameter("expiresAt", expiresAt)
+                .setParameter("id", id)
+                .setParameter("now", new Date())
+                .executeUpdate();
+    }
+
+    // Extend the leases this node still owns
+    public int renewLeases(Collection<Long> ids, String owner, Date expiresAt) {
+        String hql = "UPDATE Task SET leaseExpiresAt = :expiresAt "
+                + "WHERE id IN (:ids) AND leaseOwner = :owner AND status IN ('PENDING', 'RUNNING')";
+        return entityManager.createQuery(hql)
+                .setParameter("expiresAt", expiresAt)
+                .setParameter("ids", ids)
+                .setParameter("owner", owner)
+                .executeUpdate();
+    }
+
+    // Give up a lease so any node may claim the task
+    public int releaseLease(Long id, String owner) {
+        String hql = "UPDATE Task SET leaseOwner = NULL, leaseExpiresAt = NULL WHERE id = :id AND leaseOwner = :owner";
+        return entityManager.createQuery(hql)
+                .setParameter("id", id)
+                .setParameter("owner", owner)
+                .executeUpdate();
+    }
+
+    // Get the IDs among the given tasks that have a cancellation request
+    public List<Long> getCancellationRequestedIds(Collection<Long> ids) {
+        String hql = "SELECT t.id FROM Task t WHERE t.id IN (:ids) AND t.cancellationRequested = true";
+        TypedQuery<Long> query = entityManager.createQuery(hql, Long.class);
+        query.setParameter("ids", ids);
+        return query.getResultList();
+    }
+
+    // Get unfinished tasks whose owner stopped renewing the lease
+    public List<Task> getExpiredLeases(int limit) {
+        String hql = "FROM Task WHERE status IN ('PENDING', 'RUNNING') AND leaseExpiresAt < :now ORDER BY leaseExpiresAt";
+        TypedQuery<Task> query = entityManager.createQuery(hql, Task.class);
+        query.setParameter("now", new Date());
+        query.setMaxResults(limit);
+        return query.getResultList();
+    }
+
+    // Get replayable PENDING tasks of the given types that no node holds, oldest first
+    public List<Task> getClaimableTasks(Collection<String> taskTypes, Date createdBefore, int limit) {
+        String hql = "FROM Task WHERE status = 'PENDING' AND taskType IN (:taskTypes) AND payload IS NOT NULL "
+                + "AND createdDate < :createdBefore AND (leaseOwner IS NULL OR leaseExpiresAt < :now) "
+                + "AND cancellationRequested = false ORDER BY createdDate";
+        TypedQuery<Task> query = entityManager.createQuery(hql, Task.class);
+        query.setParameter("taskTypes", taskTypes);
+        query.setParameter("createdBefore", createdBefore);
+        query.setParameter("now", new Date());
+        query.setMaxResults(limit);
+        return query.getResultList();
+    }
+
+    // Put a task with an expired lease back to PENDING for another node, unless its owner renewed in the meantime
+    public int requeueExpiredLease(Task task, String progressMessage) {
+        String hql = "UPDATE Task SET status = 'PENDING', leaseOwner = NULL, leaseExpiresAt = NULL, "
+                + "attempts = :attempts, processedRecords = 0, progressMessage = :progressMessage, lastUpdatedDate = :now "
+                + "WHERE id = :id AND leaseOwner = :owner AND leaseExpiresAt < :now AND status IN ('PENDING', 'RUNNING')";
+        return entityManager.createQuery(hql)
+                .setParameter("attempts", (task.getAttempts() != null ? task.getAttempts() : 0) + 1)
+                .setParameter("progressMessage", progressMessage)
+                .setParameter("now", new Date())
+                .setParameter("id", task.getId())
+                .setParameter("owner", task.getLeaseOwner())
+                .executeUpdate();
+    }
+
+    // Fail a task with an expired lease, unless its owner renewed in the meantime
+    public int failExpiredLease(Task task, String errorMessage) {
+        Date now = new Date();
+        String hql = "UPDATE Task SET status = 'FAILED', leaseOwner = NULL, leaseExpiresAt = NULL, "
+                + "errorMessage = :errorMessage, progressMessage = :progressMessage, endTime = :now, lastUpdatedDate = :now "
+                + "WHERE id = :id AND leaseOwner = :owner AND leaseExpiresAt < :now AND status IN ('PENDING', 'RUNNING')";
+        return entityManager.createQuery(hql)
+                .setParameter("errorMessage", errorMessage)
+                .setParameter("progressMessage", "FAILED: " + errorMessage)
+                .setParameter("now", now)
+                .setParameter("id", task.getId())
+                .setParameter("owner", task.getLeaseOwner())
+                .executeUpdate();
+    }
+
+    // Get unfinished tasks created before the given time, in ID order after the given ID
+    public List<Task> getUnfinishedTasks(Date createdBefore, long afterId, int limit) {
+        String hql = "FROM Task WHERE status IN ('PENDING', 'RUNNING') AND createdDate < :createdBefore "
+                + "AND id > :afterId ORDER BY id";
+        TypedQuery<Task> query = entityManager.createQuery(hql, Task.class);
+        query.setParameter("createdBefore", createdBefore);
+        query.setParameter("afterId", afterId);
+        query.setMaxResults(limit);
+        return query.getResultList();
+    }
+
+    // Put a task left unfinished by a restart back to PENDING, unless it finished in the meantime
+    public int requeueOrphaned(Task task, String progressMessage) {
+        String hql = "UPDATE Task SET status = 'PENDING', attempts = :attempts, processedRecords = 0, "
+                + "progressMessage = :progressMessage, lastUpdatedDate = :now "
+                + "WHERE id = :id AND status IN ('PENDING', 'RUNNING')";
+        return entityManager.createQuery(hql)
+                .setParameter("attempts", (task.getAttempts() != null ? task.getAttempts() : 0) + 1)
+                .setParameter("progressMessage", progressMessage)
+                .setParameter("now", new Date())
+                .setParameter("id", task.getId())
+                .executeUpdate();
+    }
+
+    // Fail a task left unfinished by a restart, unless it finished in the meantime
+    public int failOrphaned(Task task, String errorMessage) {
+        Date now = new Date();
+        String hql = "UPDATE Task SET status = 'FAILED', errorMessage = :errorMessage, "
+                + "progressMessage = :progressMessage, endTime = :now, lastUpdatedDate = :now "
+                + "WHERE id = :id AND status IN ('PENDING', 'RUNNING')";
+        return entityManager.createQuery(hql)
+                .setParameter("errorMessage", errorMessage)
+                .setParameter("progressMessage", "FAILED: " + errorMessage)
+                .setParameter("now", now)
+                .setParameter("id", task.getId())
+                .executeUpdate();
+    }
+
     // Get a task by ID
     public Task select(Long id) {
         return entityManager.find(Task.class, id);
@@ -53,6 +222,24 @@ public class TaskDao {
         return query.getResultList();
     }
 
+    // Get runs spawned by a parent (sweep) task, in creation order
+    public List<Task> getChildTasks(Long parentTaskId) {
+        String hql = "FROM Task WHERE parentTaskId = :parentTaskId ORDER BY id";
+        TypedQuery<Task> query = entityManager.createQuery(hql, Task.class);
+        query.setParameter("parentTaskId", parentTaskId);
+        return query.getResultList();
+    }
+
+    // Get the results run of the most recently completed NOOS run task, or null if none
+    public Long getLatestResultRunId() {
+        String hql = "SELECT t.resultRunId FROM Task t WHERE t.taskType = 'ALGORITHM_RUN' "
+                + "AND t.status = 'COMPLETED' AND t.resultRunId IS NOT NULL ORDER BY t.endTime DESC, t.id DESC";
+        TypedQuery<Long> query = entityManager.createQuery(hql, Long.class);
+        query.setMaxResults(1);
+        List<Long> runIds = query.getResultList();
+        return runIds.isEmpty() ? null : runIds.get(0);
+    }
+
     // Get tasks by status
     public List<Task> getTasksByStatus(String status) {
         String hql = "FROM Task WHERE status = :status ORDER BY startTime DESC";
@@ -176,47 +363,23 @@ public class TaskDao {
     }
 
     /**
-     * Get recent task statistics filtered by taskType
-     * @param taskType Task type value (e.g., STYLES_UPLOAD, SALES_UPLOAD, ALGORITHM_RUN)
-     * @param days Number of days to look back
-     * @return Array with [totalTasks, completedTasks, failedTasks]
-     */
-    public long[] getRecentTaskStatsByType(String taskType, int days) {
-        long cutoffTime = System.currentTimeMillis() - (days * 24L * 60L * 60L * 1000L);
-        java.util.Date cutoffDate = new java.util.Date(cutoffTime);
-
-        String totalHql = "SELECT COUNT(t) FROM Task t WHERE t.createdDate >= :cutoffDate AND t.taskType = :taskType";
-        TypedQuery<Long> totalQuery = entityManager.createQuery(totalHql, Long.class);
-        totalQuery.setParameter("cutoffDate", cutoffDate);
-        totalQuery.setParameter("taskType", taskType);
-        long totalTasks = totalQuery.getSingleResult();
-
-        String completedHql = "SELECT COUNT(t) FROM Task t WHERE t.createdDate >= :cutoffDate AND t.taskType = :taskType AND t.status = 'COMPLETED'";
-        TypedQuery<Long> completedQuery = entityManager.createQuery(completedHql, Long.class);
-        completedQuery.setParameter("cutoffDate", cutoffDate);
-        completedQuery.setParameter("taskType", taskType);
-        long completedTasks = completedQuery.getSingleResult();
-
-        String failedHql = "SELECT COUNT(t) FROM Task t WHERE t.createdDate >= :cutoffDate AND t.taskType = :taskType AND t.status = 'FAILED'";
-        TypedQuery<Long> failedQuery = entityManager.createQuery(failedHql, Long.class);
-        failedQuery.setParameter("cutoffDate", cutoffDate);
-        failedQuery.setParameter("taskType", taskType);
-        long failedTasks = failedQuery.getSingleResult();
-
-        return new long[]{totalTasks, completedTasks, failedTasks};
-    }
-
-    /**
-     * Get tasks by type in last N days
+     * One pass over the tasks behind the dashboard and health report: every task
+     * created since the cutoff, plus any older task still PENDING or RUNNING.
+     * Written as a UNION ALL so each branch reads its own index
+     * (idx_tasks_created, idx_tasks_status) instead of scanning on an OR.
+     *
+     * @param cutoffDate Window start
+     * @return Rows of [taskType, status, createdDate, startTime, endTime]
      */
-    public List<Task> getTasksByTypeSince(String taskType, int days) {
-        long cutoffTime = System.currentTimeMillis() - (days * 24L * 60L * 60L * 1000L);
-        java.util.Date cutoffDate = new java.util.Date(cutoffTime);
-
-        String hql = "FROM Task t WHERE t.createdDate >= :cutoffDate AND t.taskType = :taskType ORDER BY t.startTime DESC";
-        TypedQuery<Task> query = entityManager.createQuery(hql, Task.class);
-        query.setParameter("cutoffDate", cutoffDate);
-        query.setParameter("taskType", taskType);
+    @SuppressWarnings("unchecked")
+    public List<Object[]> getTaskStatRows(Date cutoffDate) {
+        String sql = "SELECT task_type, status, created_date, start_time, end_time FROM tasks "
+                + "WHERE created_date >= :cutoffDate "
+                + "UNION ALL "
+                + "SELECT task_type, status, created_date, start_time, end_time FROM tasks "
+                + "WHERE status IN ('PENDING', 'RUNNING') AND created_date < :cutoffDate";
+        Query query = entityManager.createNativeQuery(sql);
+        query.setParameter("cutoffDate", cutoffDate, TemporalType.TIMESTAMP);
         return query.getResultList();
     }
 }
@@ -0,0 +1,16 @@
+package com.iris.increff.exception;
+
+/**
+ * Thrown from inside long-running work when the task it belongs to was
+ * cancelled. Unchecked so batch loops in DAOs and readers can stop without
+ * every caller declaring it; task workers catch it and mark the task CANCELLED.
+ */
+public class TaskCancelledException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public TaskCancelledException(Long taskId) {
+		super("Task " + taskId + " was cancelled");
+	}
+
+}
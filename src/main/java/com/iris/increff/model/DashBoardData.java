@@ -3,6 +3,8 @@ package com.iris.increff.model;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.util.Date;
+
 /**
  * Dashboard Data Model for System Metrics
  * 
@@ -40,6 +42,9 @@ public class DashBoardData {
     private int pendingTasks;
     private String processingStatus;
 
+    // When the record counts last changed (null before the first upload)
+    private Date countsUpdatedDate;
+
     /**
      * Constructor for modern dashboard with real metrics
      */
@@ -0,0 +1,46 @@
+package com.iris.increff.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * Maintained row count of one table, shown on the dashboard.
+ *
+ * Upload and clearing paths adjust the count in the same transaction as the
+ * rows they write, so reading it costs one primary-key lookup however large
+ * the table grows. A reconciliation job corrects any drift.
+ *
+ * The same table holds the NOOS data version (see DataVersionService), which
+ * counts writes to the algorithm's input rather than rows, and the version the
+ * style day aggregates were built from.
+ *
+ * @author Anshuk Kawarry
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Entity
+@Table(name = "data_counters")
+@Data
+@NoArgsConstructor
+public class DataCounter {
+
+    @Id
+    @Column(name = "name", length = 50)
+    private String name; // "sales", "skus", "stores", "styles", "data_version", "style_day_aggregate_version"
+
+    @Column(name = "counter_value", nullable = false)
+    private Long value;
+
+    @Column(name = "updated_date", nullable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date updatedDate;
+
+    public DataCounter(String name, long value) {
+        this.name = name;
+        this.value = value;
+        this.updatedDate = new Date();
+    }
+}
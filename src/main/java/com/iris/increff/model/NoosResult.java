@@ -16,7 +16,11 @@ import java.util.Date;
  * | Category | Style Code | Style ROS | Type | Style Rev Contri |
  */
 @Entity
-@Table(name = "noos_results")
+@Table(name = "noos_results",
+       indexes = {
+           // Per-run reads and counts (by type), and MAX(algorithm_run_id) for the latest run
+           @Index(name = "idx_noos_results_run_type", columnList = "algorithm_run_id, type")
+       })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,26 @@
+package com.iris.increff.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * One keyset page of NOOS results.
+ *
+ * Pass nextAfterId back as afterId to get the following page; it is null on
+ * the last page.
+ *
+ * @author Anshuk Kawarry
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Getter
+@Setter
+public class NoosResultPage {
+
+    private Long runId;
+    private List<NoosResult> results;
+    private Long nextAfterId;
+    private int limit;
+}
@@ -0,0 +1,52 @@
+package com.iris.increff.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * Per-run totals of a NOOS run, written once with the run's results.
+ *
+ * Report 1 and the latest-run counts read these rows instead of counting
+ * noos_results, so they cost one row per run however many styles a run
+ * classified.
+ *
+ * @author Anshuk Kawarry
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Entity
+@Table(name = "noos_run_summary")
+@Data
+@NoArgsConstructor
+public class NoosRunSummary {
+
+    @Id
+    @Column(name = "algorithm_run_id")
+    private Long algorithmRunId;
+
+    @Column(name = "run_date", nullable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date runDate;
+
+    @Column(name = "total_results", nullable = false)
+    private Integer totalResults;
+
+    @Column(name = "core_count", nullable = false)
+    private Integer coreCount;
+
+    @Column(name = "bestseller_count", nullable = false)
+    private Integer bestsellerCount;
+
+    @Column(name = "fashion_count", nullable = false)
+    private Integer fashionCount;
+
+    @Lob
+    @Column(name = "category_totals")
+    private String categoryTotals; // JSON: category -> {styles, core, bestseller, fashion, revenue}
+
+    @Column(name = "parameters", length = 4000)
+    private String parameters; // JSON of the run's AlgoParametersData
+}
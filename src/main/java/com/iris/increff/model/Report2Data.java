@@ -27,6 +27,8 @@ public class Report2Data {
     
     // System performance
     private Double averageExecutionTime;
+    private Double medianExecutionTime;
+    private Double p95ExecutionTime;
     private String systemStatus;
 
     /**
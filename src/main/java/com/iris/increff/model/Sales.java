@@ -12,7 +12,13 @@ import java.math.BigDecimal;
 import java.util.Date;
 
 @Entity
-@Table(name = "sales")
+@Table(name = "sales",
+       indexes = {
+           // findByDateBetween / countByDateBetween / aggregateByStyle, then the SKU join
+           @Index(name = "idx_sales_date_sku", columnList = "date, sku_id"),
+           @Index(name = "idx_sales_sku", columnList = "sku_id"),
+           @Index(name = "idx_sales_store", columnList = "store_id")
+       })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,60 @@
+package com.iris.increff.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * Materialized per-style, per-day sales totals for incremental NOOS runs.
+ *
+ * Rows are further split by discount bucket: bucket k holds the sales whose
+ * discount share discount / (discount + revenue) lies in ((k-1)%, k%], so any
+ * whole-percent liquidation threshold t keeps exactly the buckets <= t.
+ * Bucket 101 holds sales with no positive revenue, which liquidation always drops.
+ */
+@Entity
+@Table(name = "style_day_aggregate",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"style_code", "sale_date", "discount_bucket"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StyleDayAggregate {
+
+    /**
+     * Bucket for sales that liquidation cleanup always removes (revenue <= 0)
+     */
+    public static final int EXCLUDED_BUCKET = 101;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "style_code", length = 50, nullable = false)
+    private String styleCode;
+
+    @Column(name = "category", length = 50, nullable = false)
+    private String category;
+
+    @Column(name = "sale_date", nullable = false)
+    @Temporal(TemporalType.DATE)
+    private Date saleDate;
+
+    @Column(name = "discount_bucket", nullable = false)
+    private Integer discountBucket;
+
+    @Column(name = "quantity", nullable = false)
+    private Long quantity;
+
+    @Column(name = "revenue", nullable = false, precision = 15, scale = 2)
+    private BigDecimal revenue;
+
+    @Column(name = "discount", nullable = false, precision = 15, scale = 2)
+    private BigDecimal discount;
+
+    @Column(name = "sales_count", nullable = false)
+    private Integer salesCount;
+}
@@ -24,7 +24,13 @@ import java.util.Date;
  * @since 2025-01-01
  */
 @Entity
-@Table(name = "tasks")
+@Table(name = "tasks",
+       indexes = {
+           // Task stats window (Report 2 and the dashboard)
+           @Index(name = "idx_tasks_created", columnList = "created_date"),
+           // Active task count and the lease/claim queries
+           @Index(name = "idx_tasks_status", columnList = "status")
+       })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -77,9 +83,28 @@ public class Task {
     @Column(name = "result_url", length = 500)
     private String resultUrl; // Download URL for completed tasks
 
+    @Column(name = "parent_task_id")
+    private Long parentTaskId; // Sweep task that spawned this run, if any
+
+    @Column(name = "result_run_id")
+    private Long resultRunId; // NOOS run holding this task's results (itself, or a cached earlier run)
+
     @Column(name = "cancellation_requested")
     private Boolean cancellationRequested = false;
 
+    @Column(name = "payload", length = 4000)
+    private String payload; // JSON arguments to re-run the task on any node; null if it can only run where submitted
+
+    @Column(name = "lease_owner", length = 100)
+    private String leaseOwner; // Node currently running (or holding) the task
+
+    @Column(name = "lease_expires_at")
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date leaseExpiresAt; // Renewed by the owner's heartbeat; other nodes may reclaim the task after it
+
+    @Column(name = "attempts")
+    private Integer attempts; // Times the task was requeued after its node stopped
+
     @Column(name = "created_date", nullable = false)
     @Temporal(TemporalType.TIMESTAMP)
     private Date createdDate;
@@ -96,6 +121,9 @@ public class Task {
         if (cancellationRequested == null) {
             cancellationRequested = false;
         }
+        if (attempts == null) {
+            attempts = 0;
+        }
     }
 
     @PreUpdate
@@ -0,0 +1,63 @@
+package com.iris.increff.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Task progress pushed to clients over the task event streams.
+ *
+ * Carries the fields the UI renders while a task runs; field names match the
+ * Task JSON so a client can handle a pushed event and a polled task alike.
+ *
+ * @author Anshuk Kawarry
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Getter
+@Setter
+public class TaskEventData {
+
+    private Long id;
+    private String taskType;
+    private String status;
+    private double progressPercentage;
+    private String currentPhase; // e.g. "PARSING", taken from the progress message prefix
+    private String progressMessage;
+    private String errorMessage;
+    private String resultUrl;
+    private String userId;
+
+    /**
+     * Build an event from a task's current state
+     *
+     * @param task Task snapshot
+     * @return Event data
+     */
+    public static TaskEventData from(Task task) {
+        TaskEventData event = new TaskEventData();
+        event.setId(task.getId());
+        event.setTaskType(task.getTaskType());
+        event.setStatus(task.getStatus());
+        event.setProgressPercentage(task.getProgressPercentage());
+        event.setCurrentPhase(phaseOf(task));
+        event.setProgressMessage(task.getProgressMessage());
+        event.setErrorMessage(task.getErrorMessage());
+        event.setResultUrl(task.getResultUrl());
+        event.setUserId(task.getUserId());
+        return event;
+    }
+
+    /**
+     * @return true once the task reached COMPLETED, FAILED or CANCELLED
+     */
+    public boolean isFinished() {
+        return "COMPLETED".equals(status) || "FAILED".equals(status) || "CANCELLED".equals(status);
+    }
+
+    private static String phaseOf(Task task) {
+        // Progress messages are written as "PHASE: detail"
+        String message = task.getProgressMessage();
+        int colon = message != null ? message.indexOf(':') : -1;
+        return colon > 0 ? message.substring(0, colon).trim() : task.getStatus();
+    }
+}
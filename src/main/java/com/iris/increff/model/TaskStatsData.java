@@ -0,0 +1,79 @@
+package com.iris.increff.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Task statistics for a recent window, shared by Report 2 and the dashboard.
+ *
+ * Counts are per task type and status for tasks created since the window
+ * start; execution times are over the window's tasks that have both a start
+ * and an end time. Active and pending counts cover all tasks regardless of
+ * age.
+ *
+ * @author Anshuk Kawarry
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Getter
+@Setter
+public class TaskStatsData {
+
+    private Date since;
+    private Date loadedAt;
+    private Map<String, TypeStats> byType = new TreeMap<>();
+    private int activeTasks;  // PENDING + RUNNING
+    private int pendingTasks;
+
+    /**
+     * @param taskType Task type value (e.g. SALES_UPLOAD)
+     * @return Stats for the type, empty if it had no tasks in the window
+     */
+    public TypeStats forType(String taskType) {
+        TypeStats stats = byType.get(taskType);
+        return stats != null ? stats : new TypeStats();
+    }
+
+    /**
+     * @return Tasks of any type created in the window
+     */
+    public long getTotalTasks() {
+        return byType.values().stream().mapToLong(TypeStats::getTotal).sum();
+    }
+
+    /**
+     * @return Tasks of any type created in the window that completed
+     */
+    public long getCompletedTasks() {
+        return byType.values().stream().mapToLong(TypeStats::getCompleted).sum();
+    }
+
+    /**
+     * Counts and execution times of one task type
+     */
+    @Getter
+    @Setter
+    public static class TypeStats {
+
+        private Map<String, Long> byStatus = new TreeMap<>();
+        private long averageMillis;
+        private long p50Millis;
+        private long p95Millis;
+
+        public long getTotal() {
+            return byStatus.values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        public long getCompleted() {
+            return byStatus.getOrDefault("COMPLETED", 0L);
+        }
+
+        public long getFailed() {
+            return byStatus.getOrDefault("FAILED", 0L);
+        }
+    }
+}
@@ -2,21 +2,23 @@ package com.iris.increff.service;
 
 import com.iris.increff.dao.*;
 import com.iris.increff.model.*;
-import com.iris.increff.config.TsvProperties;
+import com.iris.increff.exception.TaskCancelledException;
+import com.iris.increff.util.TsvExportWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.slf4j.MDC;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.io.File;
-import java.io.FileOutputStream;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -30,25 +32,26 @@ public class AsyncDownloadService {
     private static final Logger logger = LoggerFactory.getLogger(AsyncDownloadService.class);
 
     @Autowired
-    private StyleDao styleDao;
-
-    @Autowired
-    private StoreDao storeDao;
+    private TaskDao taskDao;
 
     @Autowired
-    private SkuDao skuDao;
+    private ExportService exportService;
 
     @Autowired
-    private SalesDao salesDao;
+    private TaskProgressRegistry taskProgressRegistry;
 
     @Autowired
-    private NoosResultDao noosResultDao;
+    private CancellationRegistry cancellationRegistry;
 
     @Autowired
-    private TaskDao taskDao;
+    private TaskLeaseService taskLeaseService;
 
-    @Autowired
-    private TsvProperties tsvProperties;
+    /**
+     * Where result files are written; point every node at the same shared
+     * directory when tasks run on several nodes. Blank means the temp directory.
+     */
+    @Value("${app.tasks.download.dir:}")
+    private String downloadDir;
 
     @Async("fileExecutor")
     @Transactional
@@ -56,20 +59,7 @@ public class AsyncDownloadService {
         MDC.put("taskId", String.valueOf(taskId));
         logger.info("✅ ASYNC START: downloadStylesAsync for task {}", taskId);
         try {
-            Task result = generateSimpleTsvSync(taskId, "STYLES_DOWNLOAD", () -> {
-                List<Style> styles = styleDao.findAll();
-                StringBuilder csv = new StringBuilder();
-                csv.append(String.join("\t", tsvProperties.getStylesHeaders())).append("\n");
-                for (Style style : styles) {
-                    csv.append(style.getStyleCode()).append("\t")
-                       .append(style.getBrand()).append("\t")
-                       .append(style.getCategory()).append("\t")
-                       .append(style.getSubCategory()).append("\t")
-                       .append(style.getMrp().toString()).append("\t")
-                       .append(style.getGender()).append("\n");
-                }
-                return new GeneratedFile("styles_data_" + nowTs() + ".tsv", csv.toString());
-            });
+            Task result = generateSimpleTsvSync(taskId, "STYLES_DOWNLOAD", "styles_data_", exportService::writeStyles);
             return CompletableFuture.completedFuture(result);
         } catch (Exception e) {
             logger.error("❌ Unexpected error in downloadStylesAsync: {}", e.getMessage(), e);
@@ -89,16 +79,7 @@ public class AsyncDownloadService {
         MDC.put("taskId", String.valueOf(taskId));
         logger.info("✅ ASYNC START: downloadStoresAsync for task {}", taskId);
         try {
-            Task result = generateSimpleTsvSync(taskId, "STORES_DOWNLOAD", () -> {
-                List<Store> stores = storeDao.findAll();
-                StringBuilder csv = new StringBuilder();
-                csv.append(String.join("\t", tsvProperties.getStoreHeaders())).append("\n");
-                for (Store store : stores) {
-                    csv.append(store.getBranch()).append("\t")
-                       .append(store.getCity()).append("\n");
-                }
-                return new GeneratedFile("stores_data_" + nowTs() + ".tsv", csv.toString());
-            });
+            Task result = generateSimpleTsvSync(taskId, "STORES_DOWNLOAD", "stores_data_", exportService::writeStores);
             return CompletableFuture.completedFuture(result);
         } catch (Exception e) {
             logger.error("❌ Unexpected error in downloadStoresAsync: {}", e.getMessage(), e);
@@ -118,18 +99,7 @@ public class AsyncDownloadService {
         MDC.put("taskId", String.valueOf(taskId));
         logger.info("✅ ASYNC START: downloadSkusAsync for task {}", taskId);
         try {
-            Task result = generateSimpleTsvSync(taskId, "SKUS_DOWNLOAD", () -> {
-                List<SKU> skus = skuDao.findAll();
-                StringBuilder csv = new StringBuilder();
-                csv.append(String.join("\t", tsvProperties.getSkuHeaders())).append("\n");
-                for (SKU sku : skus) {
-                    String styleCode = sku.getStyle() != null ? sku.getStyle().getStyleCode() : "";
-                    csv.append(sku.getSku()).append("\t")
-                       .append(styleCode).append("\t")
-                       .append(sku.getSize()).append("\n");
-                }
-                return new GeneratedFile("skus_data_" + nowTs() + ".tsv", csv.toString());
-            });
+            Task result = generateSimpleTsvSync(taskId, "SKUS_DOWNLOAD", "skus_data_", exportService::writeSkus);
             return CompletableFuture.completedFuture(result);
         } catch (Exception e) {
             logger.error("❌ Unexpected error in downloadSkusAsync: {}", e.getMessage(), e);
@@ -149,24 +119,7 @@ public class AsyncDownloadService {
         MDC.put("taskId", String.valueOf(taskId));
         logger.info("✅ ASYNC START: downloadSalesAsync for task {}", taskId);
         try {
-            Task result = generateSimpleTsvSync(taskId, "SALES_DOWNLOAD", () -> {
-                List<Sales> sales = salesDao.findAll();
-                StringBuilder csv = new StringBuilder();
-                csv.append(String.join("\t", tsvProperties.getSalesHeaders())).append("\n");
-                SimpleDateFormat df = new SimpleDateFormat("yyyy-MM-dd");
-                for (Sales sale : sales) {
-                    String skuCode = sale.getSku() != null ? sale.getSku().getSku() : "";
-                    String channel = sale.getStore() != null ? sale.getStore().getBranch() : "";
-                    String day = sale.getDate() != null ? df.format(sale.getDate()) : "";
-                    csv.append(day).append("\t")
-                       .append(skuCode).append("\t")
-                       .append(channel).append("\t")
-                       .append(sale.getQuantity().toString()).append("\t")
-                       .append(sale.getDiscount().toString()).append("\t")
-                       .append(sale.getRevenue().toString()).append("\n");
-                }
-                return new GeneratedFile("sales_data_" + nowTs() + ".tsv", csv.toString());
-            });
+            Task result = generateSimpleTsvSync(taskId, "SALES_DOWNLOAD", "sales_data_", exportService::writeSales);
             return CompletableFuture.completedFuture(result);
         } catch (Exception e) {
             logger.error("❌ Unexpected error in downloadSalesAsync: {}", e.getMessage(), e);
@@ -186,29 +139,7 @@ public class AsyncDownloadService {
         MDC.put("taskId", String.valueOf(taskId));
         logger.info("✅ ASYNC START: downloadNoosResultsAsync for task {}", taskId);
         try {
-            Task result = generateSimpleTsvSync(taskId, "NOOS_DOWNLOAD", () -> {
-                List<NoosResult> results = (runId != null) ?
-                        noosResultDao.getResultsByRunId(runId) :
-                        noosResultDao.getLatestResults();
-                StringBuilder csv = new StringBuilder();
-                // Header exactly as in ProcessTsv.createNoosResultsTsv
-                csv.append("Category\tStyle Code\tStyle ROS\tType\tStyle Rev Contri\tTotal Quantity\tTotal Revenue\tDays Available\tDays With Sales\tAvg Discount\tCalculated Date\n");
-                SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-                for (NoosResult noosResult : results) {
-                    csv.append(noosResult.getCategory()).append("\t")
-                       .append(noosResult.getStyleCode()).append("\t")
-                       .append(noosResult.getStyleROS()).append("\t")
-                       .append(noosResult.getType()).append("\t")
-                       .append(noosResult.getStyleRevContribution()).append("\t")
-                       .append(noosResult.getTotalQuantitySold()).append("\t")
-                       .append(noosResult.getTotalRevenue()).append("\t")
-                       .append(noosResult.getDaysAvailable()).append("\t")
-                       .append(noosResult.getDaysWithSales()).append("\t")
-                       .append(noosResult.getAvgDiscount()).append("\t")
-                       .append(dateFormat.format(noosResult.getCalculatedDate())).append("\n");
-                }
-                return new GeneratedFile("noos_results_" + nowTs() + ".tsv", csv.toString());
-            });
+            Task result = generateSimpleTsvSync(taskId, "NOOS_DOWNLOAD", "noos_results_", writer -> exportService.writeNoosResults(writer, runId));
             return CompletableFuture.completedFuture(result);
         } catch (Exception e) {
             logger.error("❌ Unexpected error in downloadNoosResultsAsync: {}", e.getMessage(), e);
@@ -222,7 +153,7 @@ public class AsyncDownloadService {
         }
     }
 
-    private Task generateSimpleTsvSync(Long taskId, String type, FileBuilder builder) {
+    private Task generateSimpleTsvSync(Long taskId, String type, String filePrefix, ExportBody body) {
         Task task = taskDao.select(taskId);
         if (task == null) {
             // Retry briefly to allow outer transaction to commit the task
@@ -235,54 +166,74 @@ public class AsyncDownloadService {
                 throw new RuntimeException("Task not found: " + taskId);
             }
         }
+        // Progress goes through the registry; only terminal states are written with this transaction
+        taskDao.detach(task);
+        if (!taskLeaseService.acquire(taskId)) {
+            logger.info("⏭️ Task {} is held by another node, skipping", taskId);
+            return task;
+        }
+        cancellationRegistry.open(task);
 
         try {
             task.setStatus("RUNNING");
             task.updateProgress(5.0, "INITIALIZING: Preparing download...");
-            taskDao.update(task);
+            taskProgressRegistry.publish(task);
 
             if (checkCancellation(task)) {
                 return task;
             }
 
-            task.updateProgress(20.0, "GATHERING: Fetching records from database...");
-            taskDao.update(task);
-
-            // Removed artificial test delay for better performance
+            task.updateProgress(20.0, "GATHERING: Streaming records to file...");
+            taskProgressRegistry.publish(task);
 
-            GeneratedFile generated = builder.build();
-            String absPath = writeToTemp(generated.fileName, generated.content);
+            // Task ids are unique across nodes, so exports sharing a directory never share a file
+            File file = new File(downloadDirectory(), filePrefix + taskId + "_" + nowTs() + ".tsv.gz");
+            int rows = writeExport(file, body);
+            String absPath = file.getAbsolutePath();
 
-            task.updateProgress(90.0, "FINALIZING: Writing TSV to file...");
+            task.updateProgress(90.0, "FINALIZING: Compressed TSV file written");
             // Note: resultType removed from Task entity - info included in progress message
             task.setResultUrl(absPath); // absolute file system path
-            task.setProcessedRecords(countLines(generated.content));
-            task.setTotalRecords(task.getProcessedRecords());
-            taskDao.update(task);
+            task.setProcessedRecords(rows);
+            task.setTotalRecords(rows);
+            taskProgressRegistry.publish(task);
 
             task.setStatus("COMPLETED");
             task.setEndTime(new Date());
             task.updateProgress(100.0, "COMPLETED: " + type + " completed");
             taskDao.update(task);
+            taskProgressRegistry.publishFinal(task);
             logger.info("✅ {} ready at {}", type, absPath);
 
             return task;
 
+        } catch (TaskCancelledException e) {
+            // Stopped by the writer's poll part way through the rows
+            logger.info("🛑 {} cancelled for task {}", type, taskId);
+            task.setStatus("CANCELLED");
+            task.setEndTime(new Date());
+            task.updateProgress(task.getProgressPercentage(), "CANCELLED: Download was cancelled by user");
+            taskDao.update(task);
+            taskProgressRegistry.publishFinal(task);
+            return task;
         } catch (Exception e) {
             logger.error("❌ {} failed for task {}: {}", type, taskId, e.getMessage(), e);
             failTask(task, type + " failed: " + e.getMessage());
             throw new RuntimeException(type + " failed: " + e.getMessage(), e);
+        } finally {
+            cancellationRegistry.close(taskId);
+            taskLeaseService.release(taskId);
         }
     }
 
 
     private boolean checkCancellation(Task task) {
-        Task refreshed = taskDao.select(task.getId());
-        if (refreshed != null && refreshed.isCancellationRequested()) {
+        if (cancellationRegistry.isCancelled(task.getId())) {
             logger.info("🛑 Cancellation detected for task: {}", task.getId());
             task.setStatus("CANCELLED");
             task.updateProgress(task.getProgressPercentage(), "CANCELLED: Download was cancelled by user");
             taskDao.update(task);
+            taskProgressRegistry.publishFinal(task);
             return true;
         }
         return false;
@@ -294,48 +245,50 @@ public class AsyncDownloadService {
         task.setErrorMessage(errorMessage);
         task.updateProgress(task.getProgressPercentage(), "FAILED: " + errorMessage);
         taskDao.update(task);
+        taskProgressRegistry.publishFinal(task);
     }
 
-    private String writeToTemp(String fileName, String content) throws Exception {
-        File dir = new File(System.getProperty("java.io.tmpdir"), "iris-downloads");
+    private File downloadDirectory() {
+        File dir = downloadDir != null && !downloadDir.trim().isEmpty()
+                ? new File(downloadDir.trim())
+                : new File(System.getProperty("java.io.tmpdir"), "iris-downloads");
         if (!dir.exists()) {
             dir.mkdirs();
         }
-        File out = new File(dir, fileName);
-        try (FileOutputStream fos = new FileOutputStream(out)) {
-            fos.write(content.getBytes(StandardCharsets.UTF_8));
-            fos.flush();
-        }
-        return out.getAbsolutePath();
+        return dir;
     }
 
-    private int countLines(String content) {
-        if (content == null || content.isEmpty()) return 0;
-        int lines = 0;
-        for (int i = 0; i < content.length(); i++) {
-            if (content.charAt(i) == '\n') {
-                lines++;
+    /**
+     * Stream a gzip-compressed export into a ".part" file and move it into place
+     * once complete, so the result endpoint never serves a half-written file
+     *
+     * @return Number of data rows written
+     */
+    private int writeExport(File file, ExportBody body) throws IOException {
+        File partial = new File(file.getParentFile(), file.getName() + ".part");
+        boolean written = false;
+        try {
+            long rows;
+            try (TsvExportWriter writer = TsvExportWriter.toGzipFile(partial)) {
+                body.write(writer);
+                rows = writer.getRowCount();
+            }
+            Files.move(partial.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            written = true;
+            return (int) rows;
+        } finally {
+            if (!written) {
+                Files.deleteIfExists(partial.toPath());
             }
         }
-        // subtract header line
-        return Math.max(0, lines - 1);
     }
 
     private String nowTs() {
         return new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
     }
 
-    private interface FileBuilder {
-        GeneratedFile build() throws Exception;
-    }
-
-    private static class GeneratedFile {
-        final String fileName;
-        final String content;
-        GeneratedFile(String fileName, String content) {
-            this.fileName = fileName;
-            this.content = content;
-        }
+    private interface ExportBody {
+        void write(TsvExportWriter writer) throws IOException;
     }
 }
 
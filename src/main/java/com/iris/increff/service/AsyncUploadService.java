@@ -4,7 +4,10 @@ import com.iris.increff.controller.UploadResponse;
 import com.iris.increff.dao.TaskDao;
 import com.iris.increff.model.Task;
 import com.iris.increff.exception.ApiException;
+import com.iris.increff.exception.TaskCancelledException;
 import com.iris.increff.config.TsvProperties;
+import com.iris.increff.util.TsvRowCursor;
+import com.iris.increff.util.TsvRowReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,8 +16,6 @@ import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.function.Function;
 import java.util.concurrent.CompletableFuture;
 
@@ -49,6 +50,15 @@ public class AsyncUploadService {
     @Autowired
     private TaskDao taskDao;
 
+    @Autowired
+    private TaskProgressRegistry taskProgressRegistry;
+
+    @Autowired
+    private CancellationRegistry cancellationRegistry;
+
+    @Autowired
+    private TaskLeaseService taskLeaseService;
+
     @Autowired
     private StyleService styleService;
     
@@ -178,12 +188,19 @@ public class AsyncUploadService {
      */
     private void processFileAsync(Long taskId, byte[] fileContent, String fileName, 
                                                      String fileType, String[] headers,
-                                                     Function<ArrayList<HashMap<String, String>>, UploadResponse> processor) {
+                                                     Function<TsvRowCursor, UploadResponse> processor) {
         Task task = taskDao.select(taskId);
         if (task == null) {
             logger.error("❌ Task not found: {}", taskId);
             throw new RuntimeException("Task not found: " + taskId);
         }
+        // Progress goes through the registry; only terminal states are written with this transaction
+        taskDao.detach(task);
+        if (!taskLeaseService.acquire(taskId)) {
+            logger.info("⏭️ Task {} is held by another node, skipping", taskId);
+            return;
+        }
+        cancellationRegistry.open(task);
 
         MDC.put("taskId", String.valueOf(taskId));
         logger.info("✅ Starting async {} upload for task: {} on thread {}", fileType, taskId, Thread.currentThread().getName());
@@ -193,7 +210,7 @@ public class AsyncUploadService {
             task.setStatus("RUNNING");
             task.setFileName(fileName);
             task.updateProgress(0.0, "INITIALIZING: Starting " + fileType.toLowerCase() + " file upload...");
-            taskDao.update(task);
+            taskProgressRegistry.publish(task);
 
             // Check for cancellation
             if (checkCancellation(task)) {
@@ -202,7 +219,7 @@ public class AsyncUploadService {
 
             // Phase 1: File Validation (0% → 20%)
             task.updateProgress(10.0, "VALIDATING: Validating file format...");
-            taskDao.update(task);
+            taskProgressRegistry.publish(task);
             logger.debug("Progress 10% - Validating file format...");
 
             if (fileContent == null || fileContent.length == 0) {
@@ -212,29 +229,31 @@ public class AsyncUploadService {
 
             // Phase 2: File Parsing (20% → 50%)
             task.updateProgress(20.0, "PARSING: Parsing TSV file...");
-            taskDao.update(task);
+            taskProgressRegistry.publish(task);
             logger.debug("Progress 20% - Parsing TSV file...");
 
-            ArrayList<HashMap<String, String>> tsvData = fileProcessingService.processTsv(fileContent, fileName, headers);
-
-            task.updateProgress(40.0, "IN_PROGRESS: TSV parsed, processing " + tsvData.size() + " rows...");
-            taskDao.update(task);
-            logger.debug("Progress 40% - Parsed {} records", tsvData.size());
+            // Rows are streamed from the reader; only the header is read here
+            UploadResponse result;
+            try (TsvRowReader reader = fileProcessingService.openTsv(fileContent, fileName, headers)) {
+                task.updateProgress(40.0, "IN_PROGRESS: TSV header verified, streaming rows...");
+                taskProgressRegistry.publish(task);
+                logger.debug("Progress 40% - TSV header verified");
 
-            // Check for cancellation
-            if (checkCancellation(task)) {
-                return;
-            }
+                // Check for cancellation
+                if (checkCancellation(task)) {
+                    return;
+                }
 
-            // Phase 3: Data Processing (50% → 90%)
-            task.updateProgress(50.0, "PROCESSING: Processing and validating data...");
-            taskDao.update(task);
-            logger.debug("Progress 50% - Processing and validating data...");
+                // Phase 3: Data Processing (50% → 90%)
+                task.updateProgress(50.0, "PROCESSING: Processing and validating data...");
+                taskProgressRegistry.publish(task);
+                logger.debug("Progress 50% - Processing and validating data...");
 
-            UploadResponse result = processor.apply(tsvData);
+                result = processor.apply(reader);
+            }
 
             task.updateProgress(80.0, "PROCESSING: Saving data to database...");
-            taskDao.update(task);
+            taskProgressRegistry.publish(task);
             logger.debug("Progress 80% - Saving data to database...");
 
             // Phase 4: Completion (90% → 100%)
@@ -248,6 +267,13 @@ public class AsyncUploadService {
 
             logger.info("✅ {} upload completed for task: {}", fileType, taskId);
 
+        } catch (TaskCancelledException e) {
+            // Stopped by a poll in the reader or a save batch; nothing of this upload is kept
+            logger.info("🛑 {} upload cancelled for task {}, rolling back", fileType, taskId);
+            task.setStatus("CANCELLED");
+            task.setEndTime(new java.util.Date());
+            task.updateProgress(task.getProgressPercentage(), "CANCELLED: Upload was cancelled by user");
+            taskProgressRegistry.publishFinalAfterRollback(task);
         } catch (Exception e) {
             logger.error("❌ {} upload failed for task {}: {}", fileType, taskId, e.getMessage(), e);
             
@@ -261,6 +287,8 @@ public class AsyncUploadService {
                 logger.error("❌ Failed to update task status to FAILED for task {}: {}", taskId, failException.getMessage());
             }
         } finally {
+            cancellationRegistry.close(taskId);
+            taskLeaseService.release(taskId);
             MDC.remove("taskId");
         }
     }
@@ -269,12 +297,12 @@ public class AsyncUploadService {
      * Check if task cancellation was requested
      */
     private boolean checkCancellation(Task task) {
-        Task refreshedTask = taskDao.select(task.getId());
-        if (refreshedTask != null && refreshedTask.isCancellationRequested()) {
+        if (cancellationRegistry.isCancelled(task.getId())) {
             logger.info("🛑 Cancellation detected for task: {}", task.getId());
             task.setStatus("CANCELLED");
             task.updateProgress(task.getProgressPercentage(), "CANCELLED: Upload was cancelled by user");
             taskDao.update(task);
+            taskProgressRegistry.publishFinal(task);
             return true;
         }
         return false;
@@ -288,15 +316,18 @@ public class AsyncUploadService {
         task.setEndTime(new java.util.Date());
         task.setProcessedRecords(result.getRecordCount());
         task.setErrorCount(result.getErrorCount());
+        String throughput = result.getRowsPerSecond() != null
+                ? String.format(", %.0f rows/sec", result.getRowsPerSecond()) : "";
         task.updateProgress(100.0, 
-                          String.format("COMPLETED: %s upload completed: %d processed, %d errors", 
-                                       fileType, result.getRecordCount(), result.getErrorCount()));
+                          String.format("COMPLETED: %s upload completed: %d processed, %d errors%s", 
+                                       fileType, result.getRecordCount(), result.getErrorCount(), throughput));
         
         // Add result summary to parameters
-        String summary = String.format("Success: %d, Errors: %d", result.getRecordCount(), result.getErrorCount());
+        String summary = String.format("Success: %d, Errors: %d%s", result.getRecordCount(), result.getErrorCount(), throughput);
         task.setParameters(task.getParameters() + ", Results: " + summary);
         
         taskDao.update(task);
+        taskProgressRegistry.publishFinal(task);
         logger.info("✅ Task {} completed successfully", task.getId());
     }
 
@@ -309,6 +340,7 @@ public class AsyncUploadService {
         task.setErrorMessage(errorMessage);
         task.updateProgress(task.getProgressPercentage(), "FAILED: " + errorMessage);
         taskDao.update(task);
+        taskProgressRegistry.publishFinal(task);
         logger.error("❌ Task {} failed: {}", task.getId(), errorMessage);
     }
 
@@ -317,6 +349,6 @@ public class AsyncUploadService {
      */
     @FunctionalInterface
     private interface FileProcessor {
-        UploadResponse process(ArrayList<HashMap<String, String>> data) throws ApiException;
+        UploadResponse process(TsvRowCursor rows) throws ApiException;
     }
 }
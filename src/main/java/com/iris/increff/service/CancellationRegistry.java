@@ -0,0 +1,87 @@
+package com.iris.increff.service;
+
+import com.iris.increff.model.Task;
+import com.iris.increff.util.CancellationToken;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Cancellation tokens of the async tasks running in this process.
+ *
+ * Workers open a token when they start and close it when they finish;
+ * TaskController.cancelTask flips it in memory, so workers see a request on
+ * their next poll instead of re-reading the task row. The cancellation
+ * flag is still written to the tasks table for tasks that have not
+ * started yet; opening a token re-reads it after registering, so a cancel
+ * that lands between the worker reading its task and opening the token is
+ * never lost.
+ *
+ * @author Anshuk Kawarry
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Service
+public class CancellationRegistry {
+
+    @Autowired
+    private TaskService taskService;
+
+    private final ConcurrentMap<Long, CancellationToken> tokens = new ConcurrentHashMap<>();
+
+    /**
+     * Register a token for a task and bind it to the calling worker thread
+     *
+     * @param task Task the worker is about to run
+     * @return Token, already cancelled if the task was cancelled before it started
+     */
+    public CancellationToken open(Task task) {
+        CancellationToken token = tokens.computeIfAbsent(task.getId(), CancellationToken::new);
+        // The worker's copy of the task predates the token: a cancel committed in
+        // between found no token to flip, so check the stored flag once more
+        if (task.isCancellationRequested() || taskService.isCancellationRequested(task.getId())) {
+            token.cancel();
+        }
+        CancellationToken.bind(token);
+        return token;
+    }
+
+    /**
+     * Unbind and drop a task's token once its worker finished
+     *
+     * @param taskId Task ID
+     */
+    public void close(Long taskId) {
+        CancellationToken current = CancellationToken.current();
+        if (current != null && current.getTaskId().equals(taskId)) {
+            CancellationToken.bind(null);
+        }
+        tokens.remove(taskId);
+    }
+
+    /**
+     * Request cancellation of a running task
+     *
+     * @param taskId Task ID
+     * @return true if the task is running in this process and was signalled
+     */
+    public boolean cancel(Long taskId) {
+        CancellationToken token = tokens.get(taskId);
+        if (token == null) {
+            return false;
+        }
+        token.cancel();
+        return true;
+    }
+
+    /**
+     * @param taskId Task ID
+     * @return true if cancellation of this running task was requested
+     */
+    public boolean isCancelled(Long taskId) {
+        CancellationToken token = tokens.get(taskId);
+        return token != null && token.isCancelled();
+    }
+}
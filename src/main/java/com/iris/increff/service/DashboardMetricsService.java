@@ -1,13 +1,15 @@
 package com.iris.increff.service;
 
-import com.iris.increff.dao.*;
 import com.iris.increff.model.DashBoardData;
+import com.iris.increff.model.TaskStatsData;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Map;
+
 /**
  * Dashboard Metrics Service
  * 
@@ -16,7 +18,9 @@ import org.springframework.transaction.annotation.Transactional;
  * - Upload activity and success rates
  * - Processing status and task monitoring
  * 
- * Replaces dummy data with actual system metrics.
+ * Replaces dummy data with actual system metrics. Data volumes come from
+ * counters maintained by the upload paths (see DataCounterService), so the
+ * dashboard's cost does not grow with the tables.
  * 
  * @author Anshuk Kawarry
  * @version 1.0
@@ -28,19 +32,10 @@ public class DashboardMetricsService {
     private static final Logger logger = LoggerFactory.getLogger(DashboardMetricsService.class);
 
     @Autowired
-    private SalesDao salesDao;
-
-    @Autowired
-    private SkuDao skuDao;
-
-    @Autowired
-    private StoreDao storeDao;
+    private DataCounterService dataCounterService;
 
     @Autowired
-    private StyleDao styleDao;
-
-    @Autowired
-    private TaskDao taskDao;
+    private TaskStatsService taskStatsService;
 
     /**
      * Get comprehensive dashboard metrics
@@ -52,36 +47,43 @@ public class DashboardMetricsService {
         logger.info("📊 Collecting dashboard metrics...");
         
         try {
+            // Tiles 1 and 2 read maintained counters, not COUNT(*) over the tables
+            Map<String, Long> counts = dataCounterService.getCounts();
+
             // Tile 1: Sales Data Records
-            long totalSalesRecords = salesDao.getTotalSalesCount();
+            long totalSalesRecords = counts.get(DataCounterService.SALES);
             String salesDataStatus = getSalesDataStatus(totalSalesRecords);
             
             // Tile 2: Master Data Counts
-            long totalSkus = skuDao.getTotalSkuCount();
-            long totalStores = storeDao.getTotalStoreCount();
-            long totalStyles = styleDao.getTotalStyleCount();
+            long totalSkus = counts.get(DataCounterService.SKUS);
+            long totalStores = counts.get(DataCounterService.STORES);
+            long totalStyles = counts.get(DataCounterService.STYLES);
             String masterDataStatus = getMasterDataStatus(totalSkus, totalStores, totalStyles);
             
+            // Tiles 3 and 4 share one cached task stats query
+            TaskStatsData taskStats = taskStatsService.getRecentStats();
+
             // Tile 3: Recent Activity (last 7 days)
-            long[] recentStats = taskDao.getRecentTaskStats(7);
-            int recentUploads = (int) recentStats[0];
-            double uploadSuccessRate = recentStats[0] > 0 ? (recentStats[1] * 100.0) / recentStats[0] : 0.0;
+            int recentUploads = (int) taskStats.getTotalTasks();
+            double uploadSuccessRate = recentUploads > 0 ? (taskStats.getCompletedTasks() * 100.0) / recentUploads : 0.0;
             String recentActivityStatus = getRecentActivityStatus(recentUploads, uploadSuccessRate);
             
             // Tile 4: Processing Status
-            int activeTasks = taskDao.getActiveTaskCount();
-            int pendingTasks = (int) taskDao.countByStatus("PENDING");
+            int activeTasks = taskStats.getActiveTasks();
+            int pendingTasks = taskStats.getPendingTasks();
             String processingStatus = getProcessingStatus(activeTasks, pendingTasks);
             
             logger.info("✅ Dashboard metrics collected successfully: {} sales, {} SKUs, {} stores, {} styles", 
                        totalSalesRecords, totalSkus, totalStores, totalStyles);
             
-            return new DashBoardData(
+            DashBoardData data = new DashBoardData(
                 totalSalesRecords, salesDataStatus,
                 totalSkus, totalStores, totalStyles, masterDataStatus,
                 recentUploads, uploadSuccessRate, recentActivityStatus,
                 activeTasks, pendingTasks, processingStatus
             );
+            data.setCountsUpdatedDate(dataCounterService.getLastUpdated());
+            return data;
             
         } catch (Exception e) {
             logger.error("❌ Failed to collect dashboard metrics: {}", e.getMessage(), e);
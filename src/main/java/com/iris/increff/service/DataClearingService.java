@@ -6,6 +6,7 @@ import com.iris.increff.dao.StyleDao;
 import com.iris.increff.dao.StoreDao;
 import com.iris.increff.dao.TaskDao;
 import com.iris.increff.dao.NoosResultDao;
+import com.iris.increff.dao.NoosRunSummaryDao;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -52,9 +53,21 @@ public class DataClearingService {
     @Autowired
     private NoosResultDao noosResultDao;
 
+    @Autowired
+    private NoosRunSummaryDao noosRunSummaryDao;
+
     @Autowired
     private AuditService auditService;
 
+    @Autowired
+    private TaskStatsService taskStatsService;
+
+    @Autowired
+    private DataCounterService dataCounterService;
+
+    @Autowired
+    private DataVersionService dataVersionService;
+
     @javax.persistence.PersistenceContext
     private javax.persistence.EntityManager entityManager;
 
@@ -71,6 +84,8 @@ public class DataClearingService {
         salesDao.deleteAll();  // Clear sales first (depends on SKUs + Stores)
         skuDao.deleteAll();    // Clear SKUs second (depends on Styles)  
         styleDao.deleteAll();  // Now safe to clear Styles
+        dataCounterService.reset(DataCounterService.SALES, DataCounterService.SKUS, DataCounterService.STYLES);
+        dataVersionService.bump();
     }
 
     /**
@@ -85,6 +100,8 @@ public class DataClearingService {
         logger.info("Clearing data for Store upload - handling dependencies...");
         salesDao.deleteAll();  // Clear sales first (depends on Stores)
         storeDao.deleteAll();  // Now safe to clear Stores
+        dataCounterService.reset(DataCounterService.SALES, DataCounterService.STORES);
+        dataVersionService.bump();
     }
 
     /**
@@ -99,6 +116,8 @@ public class DataClearingService {
         logger.info("Clearing data for SKU upload - handling dependencies...");
         salesDao.deleteAll();  // Clear sales first (depends on SKUs)
         skuDao.deleteAll();    // Now safe to clear SKUs
+        dataCounterService.reset(DataCounterService.SALES, DataCounterService.SKUS);
+        dataVersionService.bump();
     }
 
     /**
@@ -111,6 +130,8 @@ public class DataClearingService {
     public void clearDataForSalesUpload() {
         logger.info("Clearing data for Sales upload...");
         salesDao.deleteAll();  // Sales has no children, safe to clear directly
+        dataCounterService.reset(DataCounterService.SALES);
+        dataVersionService.bump();
     }
 
     /**
@@ -137,8 +158,13 @@ public class DataClearingService {
         skuDao.deleteAll();        // Clear middle level
         styleDao.deleteAll();      // Clear parents
         storeDao.deleteAll();      // Independent parent
+        dataCounterService.reset(DataCounterService.SALES, DataCounterService.SKUS,
+                DataCounterService.STYLES, DataCounterService.STORES);
         taskDao.deleteAll();       // Clear tasks
         noosResultDao.deleteAll(); // Clear NOOS results
+        noosRunSummaryDao.deleteAll(); // Clear their run summaries
+        taskStatsService.invalidate(); // Don't serve cached counts of deleted tasks
+        dataVersionService.bump();
 
         // Reset auto-increment sequences for clean IDs across test runs
         try {
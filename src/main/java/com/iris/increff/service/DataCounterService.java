@@ -0,0 +1,260 @@
+package com.iris.increff.service;
+
+import com.iris.increff.dao.DataCounterDao;
+import com.iris.increff.dao.SalesDao;
+import com.iris.increff.dao.SkuDao;
+import com.iris.increff.dao.StoreDao;
+import com.iris.increff.dao.StyleDao;
+import com.iris.increff.model.DataCounter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Row counts of the uploaded tables for the dashboard.
+ *
+ * Upload services and DataClearingService adjust the counts in their own
+ * transactions, so a rolled-back upload leaves them untouched. Counter rows
+ * are only ever created at startup and by the reconciliation job, each in
+ * its own transaction, so a racing seed can never fail an upload. The
+ * scheduled job also compares each counter with its table and fixes drift
+ * from writes that bypass these paths. Rows of the same table that are not
+ * row counts (the data version) are ignored here.
+ *
+ * @author Anshuk Kawarry
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Service
+public class DataCounterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataCounterService.class);
+
+    public static final String SALES = "sales";
+    public static final String SKUS = "skus";
+    public static final String STORES = "stores";
+    public static final String STYLES = "styles";
+
+    private static final List<String> COUNTERS = Arrays.asList(SALES, SKUS, STORES, STYLES);
+
+    @Autowired
+    private DataCounterDao dataCounterDao;
+
+    @Autowired
+    private SalesDao salesDao;
+
+    @Autowired
+    private SkuDao skuDao;
+
+    @Autowired
+    private StoreDao storeDao;
+
+    @Autowired
+    private StyleDao styleDao;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Add rows written in the current transaction to a counter
+     *
+     * @param name Counter name
+     * @param delta Rows inserted (negative for rows deleted)
+     */
+    @Transactional
+    public void add(String name, long delta) {
+        if (delta != 0 && dataCounterDao.add(name, delta) == 0) {
+            logger.warn("⚠️ Counter '{}' not seeded yet, reconciliation will create it", name);
+        }
+    }
+
+    /**
+     * Set counters to zero after their tables were emptied
+     *
+     * @param names Counter names
+     */
+    @Transactional
+    public void reset(String... names) {
+        for (String name : names) {
+            if (dataCounterDao.set(name, 0) == 0) {
+                logger.warn("⚠️ Counter '{}' not seeded yet, reconciliation will create it", name);
+            }
+        }
+    }
+
+    /**
+     * Create missing counter rows once the application context is up
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void seedCounters() {
+        int seeded = seedMissing();
+        if (seeded > 0) {
+            logger.info("📊 Seeded {} data counters", seeded);
+        }
+    }
+
+    /**
+     * Current counts. A counter that was never written is counted directly.
+     *
+     * @return Count by counter name
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Long> getCounts() {
+        Map<String, Long> counts = new HashMap<>();
+        for (Object[] row : dataCounterDao.getAll()) {
+            if (COUNTERS.contains(row[0])) {
+                counts.put((String) row[0], (Long) row[1]);
+            }
+        }
+        for (String name : COUNTERS) {
+            if (!counts.containsKey(name)) {
+                counts.put(name, countRows(name));
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Most recent time any counter changed
+     *
+     * @return Last update time, or null if no counter exists yet
+     */
+    @Transactional(readOnly = true)
+    public Date getLastUpdated() {
+        Date latest = null;
+        for (Object[] row : dataCounterDao.getAll()) {
+            Date updated = (Date) row[2];
+            if (COUNTERS.contains(row[0]) && (latest == null || updated.after(latest))) {
+                latest = updated;
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * Seed missing counters, then compare each counter with its table and
+     * correct drift. A counter that changed while its table was being counted
+     * is left for the next run rather than overwritten with a count that may
+     * predate the change.
+     *
+     * @return Number of counters corrected or created
+     */
+    @Scheduled(fixedDelayString = "${app.counters.reconcile-interval-ms:300000}",
+               initialDelayString = "${app.counters.reconcile-interval-ms:300000}")
+    public int reconcile() {
+        int seeded = seedMissing();
+        Integer corrected = new TransactionTemplate(transactionManager).execute(status -> {
+            Map<String, Long> stored = new HashMap<>();
+            for (Object[] row : dataCounterDao.getAll()) {
+                stored.put((String) row[0], (Long) row[1]);
+            }
+
+            int fixed = 0;
+            for (String name : COUNTERS) {
+                Long expected = stored.get(name);
+                if (expected == null) {
+                    continue; // seeding failed, retried next run
+                }
+                long actual = countRows(name);
+                if (expected != actual && dataCounterDao.compareAndSet(name, expected, actual) > 0) {
+                    logger.warn("⚠️ Counter '{}' drifted: stored {}, actual {} - corrected", name, expected, actual);
+                    fixed++;
+                }
+            }
+            return fixed;
+        });
+        return seeded + corrected;
+    }
+
+    /**
+     * Insert each missing counter in its own transaction, counted from its table.
+     * Another node seeding the same counter first makes the insert fail with a
+     * duplicate key, which only rolls back that seed.
+     *
+     * @return Number of counters created
+     */
+    private int seedMissing() {
+        TransactionTemplate newTransaction = new TransactionTemplate(transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        Set<String> existing = newTransaction.execute(status -> {
+            Set<String> names = new HashSet<>();
+            for (Object[] row : dataCounterDao.getAll()) {
+                names.add((String) row[0]);
+            }
+            return names;
+        });
+
+        int seeded = 0;
+        for (String name : COUNTERS) {
+            if (existing.contains(name)) {
+                continue;
+            }
+            try {
+                newTransaction.execute(status -> {
+                    dataCounterDao.insert(new DataCounter(name, countRows(name)));
+                    return null;
+                });
+                seeded++;
+            } catch (RuntimeException e) {
+                logger.info("Counter '{}' was seeded concurrently: {}", name, e.getMessage());
+            }
+        }
+        return seeded;
+    }
+
+    /**
+     * Insert a counter in its own transaction unless it already exists. Another
+     * node seeding the same counter first makes the insert fail with a duplicate
+     * key, which only rolls back this seed.
+     *
+     * @param name Counter name
+     * @param value Initial value
+     */
+    public void seed(String name, long value) {
+        TransactionTemplate newTransaction = new TransactionTemplate(transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            newTransaction.execute(status -> {
+                if (dataCounterDao.getValue(name) == null) {
+                    dataCounterDao.insert(new DataCounter(name, value));
+                    logger.info("📊 Seeded counter '{}'", name);
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            logger.info("Counter '{}' was seeded concurrently: {}", name, e.getMessage());
+        }
+    }
+
+    private long countRows(String name) {
+        switch (name) {
+            case SALES:
+                return salesDao.getTotalSalesCount();
+            case SKUS:
+                return skuDao.getTotalSkuCount();
+            case STORES:
+                return storeDao.getTotalStoreCount();
+            case STYLES:
+                return styleDao.getTotalStyleCount();
+            default:
+                throw new IllegalArgumentException("Unknown counter: " + name);
+        }
+    }
+}
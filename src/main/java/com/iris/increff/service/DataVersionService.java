@@ -0,0 +1,78 @@
+package com.iris.increff.service;
+
+import com.iris.increff.dao.DataCounterDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Version counter for the data NOOS reads (sales, SKUs, styles).
+ *
+ * The version is a row in the data_counters table. Every write path that can
+ * change algorithm input bumps it in its own transaction, so every node sees
+ * the new version as soon as the write commits, and a rolled-back write leaves
+ * it untouched. Results computed for one version are never reused after the
+ * data changed.
+ *
+ * @author Anshuk Kawarry
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Service
+public class DataVersionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataVersionService.class);
+
+    /**
+     * Counter row holding the version
+     */
+    public static final String COUNTER = "data_version";
+
+    /**
+     * Returned by {@link #getVersion()} while the version row does not exist;
+     * runs read at this version are never cached
+     */
+    public static final long UNKNOWN = -1;
+
+    @Autowired
+    private DataCounterDao dataCounterDao;
+
+    @Autowired
+    private DataCounterService dataCounterService;
+
+    /**
+     * @return Current data version, or {@link #UNKNOWN}
+     */
+    @Transactional(readOnly = true)
+    public long getVersion() {
+        Long version = dataCounterDao.getValue(COUNTER);
+        if (version == null) {
+            dataCounterService.seed(COUNTER, 0);
+            return UNKNOWN;
+        }
+        return version;
+    }
+
+    /**
+     * Bump the version in the current transaction
+     */
+    @Transactional
+    public void bump() {
+        if (dataCounterDao.add(COUNTER, 1) == 0) {
+            // No run was cached against a missing version, so nothing can go stale
+            logger.warn("⚠️ Data version not seeded yet, bump skipped");
+        }
+    }
+
+    /**
+     * Create the version row once the application context is up
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void seedVersion() {
+        dataCounterService.seed(COUNTER, 0);
+    }
+}
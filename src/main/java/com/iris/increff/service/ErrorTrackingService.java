@@ -91,6 +91,13 @@ public class ErrorTrackingService {
         public void addDuplicateError(int rowNumber, Map<String, String> rowData, String field, String duplicateValue) {
             addError(rowNumber, rowData, field + ": '" + duplicateValue + "' is duplicate within uploaded file", "DUPLICATE_ERROR");
         }
+
+        /**
+         * Add a duplicate error that references the row where the value first appeared
+         */
+        public void addDuplicateError(int rowNumber, Map<String, String> rowData, String field, String duplicateValue, int firstSeenRow) {
+            addError(rowNumber, rowData, field + ": '" + duplicateValue + "' is duplicate within uploaded file (first seen at row " + firstSeenRow + ")", "DUPLICATE_ERROR");
+        }
         
         public List<ErrorRow> getErrorRows() { return new ArrayList<>(errorRows); }
         public Map<String, Integer> getErrorTypeCounts() { return new HashMap<>(errorTypeCounts); }
@@ -0,0 +1,118 @@
+package com.iris.increff.service;
+
+import com.iris.increff.config.TsvProperties;
+import com.iris.increff.dao.NoosResultDao;
+import com.iris.increff.dao.SalesDao;
+import com.iris.increff.dao.SkuDao;
+import com.iris.increff.dao.StoreDao;
+import com.iris.increff.dao.StyleDao;
+import com.iris.increff.util.TsvExportWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Writes the TSV exports of the master data and NOOS results, for both the
+ * synchronous download endpoints and the async download tasks.
+ *
+ * Each export is a single projection query that selects the written columns
+ * and joins the SKU, store and style tables itself, so no entity or lazy
+ * association is loaded and the query count does not grow with the data.
+ *
+ * @author Anshuk Kawarry
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Service
+public class ExportService {
+
+    private static final String[] NOOS_HEADERS = {"Category", "Style Code", "Style ROS", "Type", "Style Rev Contri",
+            "Total Quantity", "Total Revenue", "Days Available", "Days With Sales", "Avg Discount", "Calculated Date"};
+
+    @Autowired
+    private StyleDao styleDao;
+
+    @Autowired
+    private StoreDao storeDao;
+
+    @Autowired
+    private SkuDao skuDao;
+
+    @Autowired
+    private SalesDao salesDao;
+
+    @Autowired
+    private NoosResultDao noosResultDao;
+
+    @Autowired
+    private TsvProperties tsvProperties;
+
+    /**
+     * Rows read per round trip while streaming an export
+     */
+    @Value("${app.export.fetch-size:1000}")
+    private int fetchSize = 1000;
+
+    /**
+     * @param writer Destination
+     * @return Number of data rows written
+     */
+    @Transactional(readOnly = true)
+    public long writeStyles(TsvExportWriter writer) {
+        writer.writeHeader(tsvProperties.getStylesHeaders());
+        return styleDao.scrollExportRows(fetchSize, writer::writeRow);
+    }
+
+    /**
+     * @param writer Destination
+     * @return Number of data rows written
+     */
+    @Transactional(readOnly = true)
+    public long writeStores(TsvExportWriter writer) {
+        writer.writeHeader(tsvProperties.getStoreHeaders());
+        return storeDao.scrollExportRows(fetchSize, writer::writeRow);
+    }
+
+    /**
+     * @param writer Destination
+     * @return Number of data rows written
+     */
+    @Transactional(readOnly = true)
+    public long writeSkus(TsvExportWriter writer) {
+        writer.writeHeader(tsvProperties.getSkuHeaders());
+        return skuDao.scrollExportRows(fetchSize, writer::writeRow);
+    }
+
+    /**
+     * @param writer Destination
+     * @return Number of data rows written
+     */
+    @Transactional(readOnly = true)
+    public long writeSales(TsvExportWriter writer) {
+        writer.writeHeader(tsvProperties.getSalesHeaders());
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
+        return salesDao.scrollExportRows(fetchSize, row -> {
+            row[0] = row[0] != null ? dateFormat.format((Date) row[0]) : null;
+            writer.writeRow(row);
+        });
+    }
+
+    /**
+     * @param writer Destination
+     * @param runId Run whose results to write, or null for all results
+     * @return Number of data rows written
+     */
+    @Transactional(readOnly = true)
+    public long writeNoosResults(TsvExportWriter writer, Long runId) {
+        writer.writeHeader(NOOS_HEADERS);
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        return noosResultDao.scrollExportRows(runId, fetchSize, row -> {
+            row[10] = row[10] != null ? dateFormat.format((Date) row[10]) : null;
+            writer.writeRow(row);
+        });
+    }
+}
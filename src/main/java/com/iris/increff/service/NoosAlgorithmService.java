@@ -1,18 +1,29 @@
 package com.iris.increff.service;
 
 import com.iris.increff.dao.NoosResultDao;
+import com.iris.increff.dao.NoosRunSummaryDao;
 import com.iris.increff.dao.TaskDao;
 import com.iris.increff.model.*;
 import com.iris.increff.exception.ApiException;
+import com.iris.increff.exception.TaskCancelledException;
+import com.iris.increff.util.EpochDaySet;
+import com.iris.increff.util.SalesSnapshot;
+import com.iris.increff.util.TaskPayload;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.slf4j.MDC;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -53,9 +64,43 @@ public class NoosAlgorithmService {
     private static final double DEFAULT_BESTSELLER_MULTIPLIER = 1.5;
     private static final int DEFAULT_MIN_VOLUME = 20;
     private static final double DEFAULT_CONSISTENCY_THRESHOLD = 0.65;
+
+    public static final String AGGREGATION_MODE_MEMORY = "memory";
+    public static final String AGGREGATION_MODE_SQL = "sql";
+    public static final String AGGREGATION_MODE_DAY_AGGREGATE = "aggregate";
+
+    /**
+     * Aggregation engine: memory (load sales and aggregate in Java), sql
+     * (liquidation filter, join and per-style sums in one grouped query) or
+     * aggregate (read the per-style daily aggregates maintained on upload)
+     */
+    @Value("${app.noos.aggregation.mode:memory}")
+    private String aggregationMode;
+
     @Autowired
     private SalesService salesService;
 
+    @Autowired
+    private SalesSnapshotService salesSnapshotService;
+
+    @Autowired
+    private StyleDayAggregateService styleDayAggregateService;
+
+    @Autowired
+    private DataVersionService dataVersionService;
+
+    @Autowired
+    private NoosRunCache noosRunCache;
+
+    @Autowired
+    private TaskProgressRegistry taskProgressRegistry;
+
+    @Autowired
+    private CancellationRegistry cancellationRegistry;
+
+    @Autowired
+    private TaskLeaseService taskLeaseService;
+
     @Autowired
     private StyleService styleService;
 
@@ -65,9 +110,19 @@ public class NoosAlgorithmService {
     @Autowired
     private NoosResultDao noosResultDao;
 
+    @Autowired
+    private NoosRunSummaryDao noosRunSummaryDao;
+
     @Autowired
     private TaskDao taskDao;
 
+    /**
+     * Pool for parallel aggregation/classification; parallelism 1 means sequential
+     */
+    @Autowired
+    @Qualifier("noosComputePool")
+    private ForkJoinPool computePool;
+
     /**
      * Asynchronous NOOS Algorithm Execution
      * 
@@ -86,6 +141,13 @@ public class NoosAlgorithmService {
             logger.error("❌ Task not found: {}", taskId);
             throw new RuntimeException("Task not found: " + taskId);
         }
+        // Progress goes through the registry; only terminal states are written with this transaction
+        taskDao.detach(task);
+        if (!taskLeaseService.acquire(taskId)) {
+            logger.info("⏭️ Task {} is held by another node, skipping", taskId);
+            return CompletableFuture.completedFuture(task);
+        }
+        cancellationRegistry.open(task);
 
         MDC.put("taskId", String.valueOf(taskId));
         logger.info("✅ Starting async NOOS Algorithm execution for task: {} (thread: {}, status: {})",
@@ -95,62 +157,88 @@ public class NoosAlgorithmService {
             // Update task to RUNNING status
             task.setStatus("RUNNING");
             task.updateProgress(0.0, "INITIALIZING: Starting NOOS algorithm...");
-            taskDao.update(task);
+            taskProgressRegistry.publish(task);
 
             // Check for cancellation before each major phase
             if (checkCancellation(task)) {
                 return CompletableFuture.completedFuture(task);
             }
 
-            // Phase 1: Data Loading (0% → 20%)
-            task.updateProgress(5.0, "DATA_LOADING: Loading sales data...");
-            taskDao.update(task);
-            logger.debug("Progress 5% - Loading sales data...");
-
-            List<Sales> allSales = getFilteredSales(parameters);
-            logger.info("📊 Retrieved {} sales records for analysis", allSales.size());
-
-            if (allSales.isEmpty()) {
-                failTask(task, "No sales data available for NOOS algorithm in the specified date range");
+            // Same parameters on unchanged data: point at the earlier run instead of recomputing
+            long dataVersion = dataVersionService.getVersion();
+            String runKey = runCacheKey(parameters, scopeStartDate(parameters), scopeEndDate(parameters));
+            if (completeFromCache(task, dataVersion, runKey)) {
                 return CompletableFuture.completedFuture(task);
             }
 
-            task.updateProgress(15.0, String.format("DATA_LOADING: Loaded %d sales records", allSales.size()));
-            taskDao.update(task);
-            logger.debug("Progress 15% - Loaded {} sales records", allSales.size());
+            double liquidationThreshold = getParameterValue(parameters.getLiquidationThreshold(), DEFAULT_LIQUIDATION_THRESHOLD);
+            Map<String, StyleSalesData> styleAggregates;
 
-            // Check for cancellation
-            if (checkCancellation(task)) {
-                return CompletableFuture.completedFuture(task);
-            }
+            if (isPushDownAggregation(liquidationThreshold)) {
+                // Phases 1-2 in one grouped query: only style-level rows leave the database
+                task.updateProgress(5.0, "DATA_LOADING: Aggregating sales by style in database...");
+                taskProgressRegistry.publish(task);
 
-            // Phase 2: Data Processing (20% → 50%)
-            task.updateProgress(20.0, "PROCESSING: Applying liquidation cleanup...");
-            taskDao.update(task);
-            logger.debug("Progress 20% - Applying liquidation cleanup...");
+                if (countFilteredSales(parameters) == 0) {
+                    failTask(task, "No sales data available for NOOS algorithm in the specified date range");
+                    return CompletableFuture.completedFuture(task);
+                }
 
-            double liquidationThreshold = getParameterValue(parameters.getLiquidationThreshold(), DEFAULT_LIQUIDATION_THRESHOLD);
-            List<Sales> cleanedSales = applyLiquidationCleanup(allSales, liquidationThreshold);
-            logger.info("🧹 After liquidation cleanup ({}%): {} sales records",
-                       liquidationThreshold * 100, cleanedSales.size());
+                styleAggregates = aggregateSalesInDatabase(parameters.getAnalysisStartDate(),
+                        parameters.getAnalysisEndDate(), liquidationThreshold);
+                logger.info("📈 Aggregated data for {} unique styles in database (liquidation threshold {}%)",
+                           styleAggregates.size(), liquidationThreshold * 100);
+            } else {
+                // Phase 1: Data Loading (0% → 20%)
+                task.updateProgress(5.0, "DATA_LOADING: Loading sales data...");
+                taskProgressRegistry.publish(task);
+                logger.debug("Progress 5% - Loading sales data...");
+
+                SalesSnapshot snapshot = salesSnapshotService.getSnapshot();
+                int[] salesRows = selectSalesRows(snapshot, parameters);
+                logger.info("📊 Retrieved {} sales records for analysis", salesRows.length);
+
+                if (salesRows.length == 0) {
+                    failTask(task, "No sales data available for NOOS algorithm in the specified date range");
+                    return CompletableFuture.completedFuture(task);
+                }
 
-            task.updateProgress(35.0, String.format("PROCESSING: Cleaned data: %d records remaining", cleanedSales.size()));
-            taskDao.update(task);
+                task.updateProgress(15.0, String.format("DATA_LOADING: Loaded %d sales records", salesRows.length));
+                taskProgressRegistry.publish(task);
+                logger.debug("Progress 15% - Loaded {} sales records", salesRows.length);
 
-            // Check for cancellation
-            if (checkCancellation(task)) {
-                return CompletableFuture.completedFuture(task);
-            }
+                // Check for cancellation
+                if (checkCancellation(task)) {
+                    return CompletableFuture.completedFuture(task);
+                }
 
-            // Aggregate sales by style
-            task.updateProgress(40.0, "PROCESSING: Aggregating sales by style...");
-            taskDao.update(task);
+                // Phase 2: Data Processing (20% → 50%)
+                task.updateProgress(20.0, "PROCESSING: Applying liquidation cleanup...");
+                taskProgressRegistry.publish(task);
+                logger.debug("Progress 20% - Applying liquidation cleanup...");
+
+                int[] cleanedRows = applyLiquidationCleanup(snapshot, salesRows, liquidationThreshold);
+                logger.info("🧹 After liquidation cleanup ({}%): {} sales records",
+                           liquidationThreshold * 100, cleanedRows.length);
 
-            Map<String, StyleSalesData> styleAggregates = aggregateSalesByStyle(cleanedSales);
-            logger.info("📈 Aggregated data for {} unique styles", styleAggregates.size());
+                task.updateProgress(35.0, String.format("PROCESSING: Cleaned data: %d records remaining", cleanedRows.length));
+                taskProgressRegistry.publish(task);
+
+                // Check for cancellation
+                if (checkCancellation(task)) {
+                    return CompletableFuture.completedFuture(task);
+                }
+
+                // Aggregate sales by style
+                task.updateProgress(40.0, "PROCESSING: Aggregating sales by style...");
+                taskProgressRegistry.publish(task);
+
+                styleAggregates = aggregateSalesByStyle(snapshot, cleanedRows);
+                logger.info("📈 Aggregated data for {} unique styles", styleAggregates.size());
+            }
 
             task.updateProgress(50.0, String.format("PROCESSING: Aggregated %d unique styles", styleAggregates.size()));
-            taskDao.update(task);
+            taskProgressRegistry.publish(task);
 
             // Check for cancellation
             if (checkCancellation(task)) {
@@ -159,44 +247,27 @@ public class NoosAlgorithmService {
 
             // Phase 3: Classification (50% → 85%)
             task.updateProgress(55.0, "CLASSIFICATION: Calculating category benchmarks...");
-            taskDao.update(task);
+            taskProgressRegistry.publish(task);
 
             Map<String, CategoryBenchmark> categoryBenchmarks = calculateCategoryBenchmarks(styleAggregates);
             logger.info("🎯 Calculated benchmarks for {} categories", categoryBenchmarks.size());
 
             // Classify styles with progress tracking
-            List<NoosResult> results = new ArrayList<>();
             List<StyleSalesData> styleList = new ArrayList<>(styleAggregates.values());
             int totalStyles = styleList.size();
-            int processedStyles = 0;
 
             task.updateProgress(60.0, "CLASSIFICATION: Classifying styles...");
-            taskDao.update(task);
+            taskProgressRegistry.publish(task);
 
             // Use a single timestamp for the run for better grouping
             Date runTimestamp = new Date();
-            for (StyleSalesData styleData : styleList) {
-                // Check for cancellation every 50 styles
-                if (processedStyles % 50 == 0 && checkCancellation(task)) {
-                    return CompletableFuture.completedFuture(task);
-                }
-
-                NoosResult result = classifyStyle(styleData, parameters, categoryBenchmarks, taskId);
-                result.setCalculatedDate(runTimestamp);
-                results.add(result);
-                processedStyles++;
-
-                // Update progress every 50 styles
-                if (processedStyles % 50 == 0) {
-                    double progress = 60.0 + (25.0 * processedStyles / totalStyles); // 60% → 85%
-                    task.updateProgress(progress, 
-                                      String.format("CLASSIFICATION: Classified %d/%d styles", processedStyles, totalStyles));
-                    taskDao.update(task);
-                }
+            List<NoosResult> results = classifyStyles(styleList, parameters, categoryBenchmarks, taskId, runTimestamp, task);
+            if (results == null) {
+                return CompletableFuture.completedFuture(task);
             }
 
             task.updateProgress(85.0, String.format("CLASSIFICATION: Classified all %d styles", totalStyles));
-            taskDao.update(task);
+            taskProgressRegistry.publish(task);
 
             // Check for cancellation
             if (checkCancellation(task)) {
@@ -205,11 +276,11 @@ public class NoosAlgorithmService {
 
             // Phase 4: Saving Results (85% → 100%)
             task.updateProgress(90.0, "SAVING: Saving results to database...");
-            taskDao.update(task);
+            taskProgressRegistry.publish(task);
 
             logger.info("💾 Saving {} NOOS results to database", results.size());
             // Retain history: do not delete previous results
-            noosResultDao.insertAll(results);
+            saveResults(taskId, runTimestamp, results, parameters);
 
             // Count classifications for reporting
             int coreCount = 0, bestsellerCount = 0, fashionCount = 0;
@@ -227,6 +298,7 @@ public class NoosAlgorithmService {
                                           coreCount, bestsellerCount, fashionCount));
             logger.debug("Progress 100% - Completed: {} Core, {} Bestseller, {} Fashion", coreCount, bestsellerCount, fashionCount);
             completeTask(task, results.size(), coreCount, bestsellerCount, fashionCount);
+            noosRunCache.putAfterCommit(dataVersion, runKey, task.getId());
 
             logger.info("✅ NOOS Algorithm completed successfully!");
             logger.info("📊 Results: {} Core, {} Bestseller, {} Fashion styles",
@@ -234,6 +306,9 @@ public class NoosAlgorithmService {
             
             return CompletableFuture.completedFuture(task);
 
+        } catch (TaskCancelledException e) {
+            stopCancelled(task);
+            return CompletableFuture.completedFuture(task);
         } catch (Exception e) {
             logger.error("❌ NOOS Algorithm failed for task {}: {}", taskId, e.getMessage(), e);
             try {
@@ -247,6 +322,8 @@ public class NoosAlgorithmService {
                 throw new RuntimeException("NOOS Algorithm failed: " + e.getMessage(), e);
             }
         } finally {
+            cancellationRegistry.close(taskId);
+            taskLeaseService.release(taskId);
             MDC.remove("taskId");
         }
     }
@@ -266,40 +343,35 @@ public class NoosAlgorithmService {
         Task task = createAlgorithmTask(parameters);
 
         try {
-            // Step 1: Get all sales data
-            List<Sales> allSales = salesService.getAllSales();
-            logger.info("📊 Retrieved {} sales records for analysis", allSales.size());
-            
-            if (allSales.isEmpty()) {
-                throw new ApiException("No sales data available for NOOS algorithm");
+            // Same parameters on unchanged data: point at the earlier run instead of recomputing
+            long dataVersion = dataVersionService.getVersion();
+            String runKey = runCacheKey(parameters, null, null);
+            if (completeFromCache(task, dataVersion, runKey)) {
+                return task;
             }
 
-            // Step 2: Apply liquidation cleanup (PRD mandatory requirement)
             double liquidationThreshold = getParameterValue(parameters.getLiquidationThreshold(), DEFAULT_LIQUIDATION_THRESHOLD);
-            List<Sales> cleanedSales = applyLiquidationCleanup(allSales, liquidationThreshold);
-            logger.info("🧹 After liquidation cleanup ({}%): {} sales records", 
-                       liquidationThreshold * 100, cleanedSales.size());
 
-            // Step 3: Aggregate sales by style for analysis
-            Map<String, StyleSalesData> styleAggregates = aggregateSalesByStyle(cleanedSales);
-            logger.info("📈 Aggregated data for {} unique styles", styleAggregates.size());
+            // Step 1: Check all sales data
+            if (salesService.getSalesCount() == 0) {
+                throw new ApiException("No sales data available for NOOS algorithm");
+            }
+
+            // Steps 2-3: Liquidation cleanup (PRD mandatory requirement) and aggregation by style
+            Map<String, StyleSalesData> styleAggregates = aggregateSales(null, null, liquidationThreshold);
 
             // Step 4: Calculate category benchmarks for intelligent classification
             Map<String, CategoryBenchmark> categoryBenchmarks = calculateCategoryBenchmarks(styleAggregates);
             logger.info("🎯 Calculated benchmarks for {} categories", categoryBenchmarks.size());
 
             // Step 5: Classify each style and create results
-            List<NoosResult> results = new ArrayList<>();
             int coreCount = 0, bestsellerCount = 0, fashionCount = 0;
 
             // Use a single timestamp for the run for better grouping
             Date runTimestamp = new Date();
-            for (StyleSalesData styleData : styleAggregates.values()) {
-                NoosResult result = classifyStyle(styleData, parameters, categoryBenchmarks, task.getId());
-                // Normalize calculated date to a single run timestamp for this execution
-                result.setCalculatedDate(runTimestamp);
-                results.add(result);
-
+            List<NoosResult> results = classifyStyles(new ArrayList<>(styleAggregates.values()), parameters,
+                    categoryBenchmarks, task.getId(), runTimestamp, null);
+            for (NoosResult result : results) {
                 // Count classifications for reporting
                 switch (result.getType()) {
                     case "core": coreCount++; break;
@@ -311,10 +383,11 @@ public class NoosAlgorithmService {
             // Step 6: Save results to database
             logger.info("💾 Saving {} NOOS results to database", results.size());
             // Retain history: do not delete previous results
-            noosResultDao.insertAll(results);
+            saveResults(task.getId(), runTimestamp, results, parameters);
 
             // Step 7: Update task with success status
             completeTask(task, results.size(), coreCount, bestsellerCount, fashionCount);
+            noosRunCache.putAfterCommit(dataVersion, runKey, task.getId());
             
             logger.info("✅ NOOS Algorithm completed successfully!");
             logger.info("📊 Results: {} Core, {} Bestseller, {} Fashion styles", 
@@ -329,80 +402,371 @@ public class NoosAlgorithmService {
         return task;
     }
 
+    /**
+     * Parameter sweep: run NOOS for every variant in the grid under one parent task.
+     *
+     * Loading and aggregation only depend on the liquidation threshold and date
+     * range, so variants are grouped by those and each group scans the sales data
+     * once. Category benchmarks are shared within a group as well; every variant
+     * is then classified from the shared style aggregates and saved as its own run
+     * (a child ALGORITHM_RUN task whose id is the run id).
+     *
+     * @param sweepTaskId Parent task ID for progress tracking
+     * @param variants Parameter variants to run
+     * @return CompletableFuture for async execution
+     */
+    @Async("noosExecutor")
+    @Transactional
+    public CompletableFuture<Task> runNoosSweepAsync(Long sweepTaskId, List<AlgoParametersData> variants) {
+        Task sweepTask = taskDao.select(sweepTaskId);
+        if (sweepTask == null) {
+            logger.error("❌ Task not found: {}", sweepTaskId);
+            throw new RuntimeException("Task not found: " + sweepTaskId);
+        }
+        taskDao.detach(sweepTask);
+        if (!taskLeaseService.acquire(sweepTaskId)) {
+            logger.info("⏭️ Task {} is held by another node, skipping", sweepTaskId);
+            return CompletableFuture.completedFuture(sweepTask);
+        }
+        cancellationRegistry.open(sweepTask);
+
+        MDC.put("taskId", String.valueOf(sweepTaskId));
+        try {
+            // Variants sharing a data scope share one scan, keyed in submission order
+            Map<String, List<AlgoParametersData>> scanGroups = new LinkedHashMap<>();
+            for (AlgoParametersData variant : variants) {
+                scanGroups.computeIfAbsent(scanKey(variant), k -> new ArrayList<>()).add(variant);
+            }
+            logger.info("✅ Starting NOOS sweep for task {}: {} variants, {} data scans",
+                       sweepTaskId, variants.size(), scanGroups.size());
+
+            sweepTask.setStatus("RUNNING");
+            sweepTask.setTotalRecords(variants.size());
+            sweepTask.setProcessedRecords(0);
+            sweepTask.updateProgress(0.0, String.format("INITIALIZING: %d variants, %d data scans",
+                    variants.size(), scanGroups.size()));
+            taskProgressRegistry.publish(sweepTask);
+
+            long dataVersion = dataVersionService.getVersion();
+            int finishedRuns = 0;
+            int failedRuns = 0;
+            int scans = 0;
+            for (List<AlgoParametersData> group : scanGroups.values()) {
+                if (checkCancellation(sweepTask)) {
+                    return CompletableFuture.completedFuture(sweepTask);
+                }
+
+                AlgoParametersData scope = group.get(0);
+                Date startDate = scopeStartDate(scope);
+                Date endDate = scopeEndDate(scope);
+                double liquidationThreshold = getParameterValue(scope.getLiquidationThreshold(), DEFAULT_LIQUIDATION_THRESHOLD);
+
+                // Scanned on the first variant that misses the run cache
+                boolean scanned = false;
+                Map<String, StyleSalesData> styleAggregates = null;
+                Map<String, CategoryBenchmark> categoryBenchmarks = null;
+
+                for (AlgoParametersData variant : group) {
+                    if (checkCancellation(sweepTask)) {
+                        return CompletableFuture.completedFuture(sweepTask);
+                    }
+
+                    Task runTask = createAlgorithmTask(variant, sweepTaskId);
+                    String runKey = runCacheKey(variant, startDate, endDate);
+                    if (!completeFromCache(runTask, dataVersion, runKey)) {
+                        if (!scanned) {
+                            sweepTask.updateProgress(100.0 * finishedRuns / variants.size(), String.format(
+                                    "DATA_LOADING: Aggregating sales (liquidation threshold %.0f%%) for %d variants",
+                                    liquidationThreshold * 100, group.size()));
+                            taskProgressRegistry.publish(sweepTask);
+                            if (countFilteredSales(scope) > 0) {
+                                styleAggregates = aggregateSales(startDate, endDate, liquidationThreshold);
+                                categoryBenchmarks = calculateCategoryBenchmarks(styleAggregates);
+                            }
+                            scanned = true;
+                            scans++;
+                        }
+
+                        if (styleAggregates == null) {
+                            failTask(runTask, "No sales data available for NOOS algorithm in the specified date range");
+                            failedRuns++;
+                        } else {
+                            Date runDate = new Date();
+                            List<NoosResult> results = classifyStyles(new ArrayList<>(styleAggregates.values()), variant,
+                                    categoryBenchmarks, runTask.getId(), runDate, null);
+                            saveResults(runTask.getId(), runDate, results, variant);
+                            int[] typeCounts = countByType(results);
+                            completeTask(runTask, results.size(), typeCounts[0], typeCounts[1], typeCounts[2]);
+                            noosRunCache.putAfterCommit(dataVersion, runKey, runTask.getId());
+                        }
+                    }
+
+                    finishedRuns++;
+                    sweepTask.updateProgress(100.0 * finishedRuns / variants.size(), String.format(
+                            "CLASSIFICATION: Completed %d/%d variants", finishedRuns, variants.size()));
+                    taskProgressRegistry.publish(sweepTask);
+                }
+            }
+
+            sweepTask.setStatus(failedRuns == variants.size() ? "FAILED" : "COMPLETED");
+            sweepTask.setEndTime(new Date());
+            sweepTask.setErrorCount(failedRuns);
+            if (failedRuns == variants.size()) {
+                sweepTask.setErrorMessage("No sales data available for any sweep variant");
+            }
+            sweepTask.updateProgress(100.0, String.format("COMPLETED: %d runs (%d failed) from %d data scans",
+                    variants.size(), failedRuns, scans));
+            taskDao.update(sweepTask);
+            taskProgressRegistry.publishFinal(sweepTask);
+            logger.info("✅ NOOS sweep {} completed: {} runs, {} failed, {} data scans",
+                       sweepTaskId, variants.size(), failedRuns, scans);
+            return CompletableFuture.completedFuture(sweepTask);
+
+        } catch (TaskCancelledException e) {
+            stopCancelled(sweepTask);
+            return CompletableFuture.completedFuture(sweepTask);
+        } catch (Exception e) {
+            logger.error("❌ NOOS sweep failed for task {}: {}", sweepTaskId, e.getMessage(), e);
+            try {
+                Task failedTask = taskDao.select(sweepTaskId);
+                if (failedTask != null && !"FAILED".equals(failedTask.getStatus())) {
+                    failTask(failedTask, e.getMessage());
+                }
+                return CompletableFuture.completedFuture(failedTask);
+            } catch (Exception failException) {
+                logger.error("❌ Failed to update task status: {}", failException.getMessage());
+                throw new RuntimeException("NOOS sweep failed: " + e.getMessage(), e);
+            }
+        } finally {
+            cancellationRegistry.close(sweepTaskId);
+            taskLeaseService.release(sweepTaskId);
+            MDC.remove("taskId");
+        }
+    }
+
+    /**
+     * Liquidation cleanup and per-style aggregation with the configured engine
+     *
+     * @param startDate Start date (inclusive), or null for all sales
+     * @param endDate End date (inclusive), or null for all sales
+     * @param liquidationThreshold Maximum allowed discount share
+     * @return Map of StyleCode -> StyleSalesData, ordered by style code
+     */
+    private Map<String, StyleSalesData> aggregateSales(Date startDate, Date endDate, double liquidationThreshold)
+            throws ApiException {
+        if (isPushDownAggregation(liquidationThreshold)) {
+            Map<String, StyleSalesData> styleAggregates = aggregateSalesInDatabase(startDate, endDate, liquidationThreshold);
+            logger.info("📈 Aggregated data for {} unique styles in database (liquidation threshold {}%)",
+                       styleAggregates.size(), liquidationThreshold * 100);
+            return styleAggregates;
+        }
+
+        SalesSnapshot snapshot = salesSnapshotService.getSnapshot();
+        int[] salesRows = selectSalesRows(snapshot, startDate, endDate);
+        logger.info("📊 Retrieved {} sales records for analysis", salesRows.length);
+
+        int[] cleanedRows = applyLiquidationCleanup(snapshot, salesRows, liquidationThreshold);
+        logger.info("🧹 After liquidation cleanup ({}%): {} sales records",
+                   liquidationThreshold * 100, cleanedRows.length);
+
+        Map<String, StyleSalesData> styleAggregates = aggregateSalesByStyle(snapshot, cleanedRows);
+        logger.info("📈 Aggregated data for {} unique styles", styleAggregates.size());
+        return styleAggregates;
+    }
+
     /**
      * PRD Requirement: "Liquidation clean up parameter"
      * "Remove sales with more than X% discount"
      * 
-     * @param allSales All sales data
+     * @param snapshot Columnar sales data
+     * @param rows Snapshot rows in scope for this run
      * @param discountThreshold Maximum allowed discount percentage (0.20 = 20%)
-     * @return Cleaned sales data with high-discount sales removed
+     * @return Rows remaining after high-discount sales are removed
      */
-    private List<Sales> applyLiquidationCleanup(List<Sales> allSales, double discountThreshold) {
+    private int[] applyLiquidationCleanup(SalesSnapshot snapshot, int[] rows, double discountThreshold) {
         logger.debug("🧹 Applying liquidation cleanup with threshold: {}%", discountThreshold * 100);
+        BigDecimal exactThreshold = BigDecimal.valueOf(discountThreshold);
+        double tolerance = 1e-9 * Math.max(1.0, Math.abs(discountThreshold));
+
+        int[] kept = new int[rows.length];
+        int keptCount = 0;
+        for (int row : rows) {
+            long revenue = snapshot.revenueCents(row);
+            if (revenue <= 0) {
+                continue; // Skip zero/negative revenue sales
+            }
 
-        return allSales.stream()
-                .filter(sale -> {
-                    if (sale.getRevenue().compareTo(BigDecimal.ZERO) <= 0) {
-                        return false; // Skip zero/negative revenue sales
-                    }
-                    
-                    // Calculate discount percentage: discount / (discount + revenue)
-                    double totalValue = sale.getDiscount().doubleValue() + sale.getRevenue().doubleValue();
-                    double discountPercentage = sale.getDiscount().doubleValue() / totalValue;
-                    
-                    return discountPercentage <= discountThreshold;
-                })
-                .collect(Collectors.toList());
+            // Calculate discount percentage: discount / (discount + revenue)
+            long discount = snapshot.discountCents(row);
+            long totalValue = discount + revenue;
+            double discountPercentage = (double) discount / totalValue;
+
+            boolean retained;
+            if (Math.abs(discountPercentage - discountThreshold) > tolerance) {
+                retained = discountPercentage <= discountThreshold;
+            } else {
+                // Too close to call in floating point: compare exactly, as the SQL engine does
+                retained = BigDecimal.valueOf(discount)
+                        .compareTo(exactThreshold.multiply(BigDecimal.valueOf(totalValue))) <= 0;
+            }
+            if (retained) {
+                kept[keptCount++] = row;
+            }
+        }
+        return Arrays.copyOf(kept, keptCount);
     }
 
     /**
      * Aggregate sales data by style for analysis
      * Maps SKU-level sales to Style-level aggregates
      * 
-     * @param cleanedSales Sales data after liquidation cleanup
-     * @return Map of StyleCode -> StyleSalesData
+     * With parallelism > 1 the rows are split into contiguous ranges, each range is
+     * aggregated into its own partial StyleSalesData on a pool thread, and the
+     * partials are merged. Quantities, cents and day sets merge exactly, so the
+     * result is identical to the sequential pass.
+     * 
+     * @param snapshot Columnar sales data
+     * @param rows Snapshot rows remaining after liquidation cleanup
+     * @return Map of StyleCode -> StyleSalesData, ordered by style code
      * @throws ApiException if data mapping fails
      */
-    private Map<String, StyleSalesData> aggregateSalesByStyle(List<Sales> cleanedSales) throws ApiException {
-        Map<String, StyleSalesData> styleMap = new HashMap<>();
+    private Map<String, StyleSalesData> aggregateSalesByStyle(SalesSnapshot snapshot, int[] rows) throws ApiException {
+        Map<String, StyleSalesData> styleMap = new TreeMap<>();
         
         // Get all SKUs and Styles for mapping
         List<SKU> allSkus = skuService.getAllSKUs();
         List<Style> allStyles = styleService.getAllStyles();
         
-        // Create lookup maps for performance
-        Map<Integer, SKU> skuMap = allSkus.stream()
-                .collect(Collectors.toMap(SKU::getId, sku -> sku));
-        Map<Integer, Style> styleMap2 = allStyles.stream()
+        // Resolve SKU id -> style slot once up front so the row loop is a plain array lookup
+        Map<Integer, Style> stylesById = allStyles.stream()
                 .collect(Collectors.toMap(Style::getId, style -> style));
+        Map<String, Integer> slotByStyleCode = new HashMap<>();
+        List<StyleSalesData> slots = new ArrayList<>();
+        int maxSkuId = 0;
+        for (SKU sku : allSkus) {
+            maxSkuId = Math.max(maxSkuId, sku.getId());
+        }
+        int[] slotBySkuId = new int[maxSkuId + 1];
+        Arrays.fill(slotBySkuId, -1);
+        for (SKU sku : allSkus) {
+            Style style = stylesById.get(sku.getStyleId());
+            if (style == null) {
+                logger.warn("⚠️ Style not found for SKU: {}, skipping", sku.getId());
+                continue;
+            }
+            String styleCode = style.getStyleCode();
+            Integer slot = slotByStyleCode.get(styleCode);
+            if (slot == null) {
+                slot = slots.size();
+                slotByStyleCode.put(styleCode, slot);
+                StyleSalesData styleData = new StyleSalesData(styleCode, style.getCategory());
+                slots.add(styleData);
+                styleMap.put(styleCode, styleData);
+            }
+            slotBySkuId[sku.getId()] = slot;
+        }
 
         logger.debug("📊 Processing {} sales records across {} SKUs and {} styles", 
-                    cleanedSales.size(), allSkus.size(), allStyles.size());
+                    rows.length, allSkus.size(), allStyles.size());
 
-        for (Sales sale : cleanedSales) {
-            // Map Sale -> SKU -> Style
-            SKU sku = skuMap.get(sale.getSkuId());
-            if (sku == null) {
-                logger.warn("⚠️ SKU not found for sale ID: {}, skipping", sale.getId());
-                continue;
+        StyleSalesData[] totals = slots.toArray(new StyleSalesData[0]);
+        int chunks = Math.min(computePool.getParallelism(), rows.length);
+        int unmapped;
+        if (chunks <= 1) {
+            unmapped = accumulateSales(snapshot, rows, 0, rows.length, slotBySkuId, totals);
+        } else {
+            List<Callable<StyleSalesData[]>> tasks = new ArrayList<>(chunks);
+            int[] unmappedByChunk = new int[chunks];
+            for (int c = 0; c < chunks; c++) {
+                final int chunk = c;
+                final int from = (int) ((long) rows.length * c / chunks);
+                final int to = (int) ((long) rows.length * (c + 1) / chunks);
+                tasks.add(() -> {
+                    StyleSalesData[] partial = new StyleSalesData[totals.length];
+                    for (int i = 0; i < totals.length; i++) {
+                        partial[i] = new StyleSalesData(totals[i].getStyleCode(), totals[i].getCategory());
+                    }
+                    unmappedByChunk[chunk] = accumulateSales(snapshot, rows, from, to, slotBySkuId, partial);
+                    return partial;
+                });
+            }
+            unmapped = 0;
+            List<StyleSalesData[]> partials = invokeAllInPool(tasks);
+            for (int c = 0; c < chunks; c++) {
+                StyleSalesData[] partial = partials.get(c);
+                for (int i = 0; i < totals.length; i++) {
+                    totals[i].merge(partial[i]);
+                }
+                unmapped += unmappedByChunk[c];
             }
+        }
+        if (unmapped > 0) {
+            logger.warn("⚠️ {} sales records have no SKU/style mapping, skipped", unmapped);
+        }
 
-            Style style = styleMap2.get(sku.getStyleId());
-            if (style == null) {
-                logger.warn("⚠️ Style not found for SKU: {}, skipping", sku.getId());
+        // Styles whose SKUs had no sales in scope are not part of the run
+        styleMap.values().removeIf(StyleSalesData::isEmpty);
+
+        logger.debug("📈 Successfully aggregated {} styles from sales data", styleMap.size());
+        return styleMap;
+    }
+
+    /**
+     * Add rows [from, to) to the per-style accumulators
+     *
+     * @return Number of rows whose SKU has no style mapping
+     */
+    private static int accumulateSales(SalesSnapshot snapshot, int[] rows, int from, int to,
+                                       int[] slotBySkuId, StyleSalesData[] target) {
+        int unmapped = 0;
+        for (int i = from; i < to; i++) {
+            int row = rows[i];
+            // Map Sale -> SKU -> Style
+            int skuId = snapshot.skuId(row);
+            int slot = skuId >= 0 && skuId < slotBySkuId.length ? slotBySkuId[skuId] : -1;
+            if (slot < 0) {
+                unmapped++;
                 continue;
             }
 
-            // Get or create StyleSalesData
-            String styleCode = style.getStyleCode();
-            StyleSalesData styleData = styleMap.computeIfAbsent(styleCode, 
-                k -> new StyleSalesData(styleCode, style.getCategory()));
-
             // Aggregate the sales data
-            styleData.addSale(sale);
+            target[slot].addSale(snapshot.day(row), snapshot.quantity(row),
+                    snapshot.revenueCents(row), snapshot.discountCents(row));
         }
+        return unmapped;
+    }
 
-        logger.debug("📈 Successfully aggregated {} styles from sales data", styleMap.size());
+    /**
+     * SQL / aggregate engines: aggregate sales by style in a single grouped query.
+     * Liquidation cleanup, the Sale -> SKU -> Style join and the per-style sums are
+     * evaluated by the database; only one row per style is returned. The sql engine
+     * scans raw sales, the aggregate engine reads style_day_aggregate. Both produce
+     * the same StyleSalesData as applyLiquidationCleanup + aggregateSalesByStyle.
+     *
+     * @param startDate Start date (inclusive), or null for all sales
+     * @param endDate End date (inclusive), or null for all sales
+     * @param liquidationThreshold Maximum allowed discount share
+     * @return Map of StyleCode -> StyleSalesData, ordered by style code
+     */
+    private Map<String, StyleSalesData> aggregateSalesInDatabase(Date startDate, Date endDate, double liquidationThreshold) {
+        List<Object[]> rows;
+        if (AGGREGATION_MODE_DAY_AGGREGATE.equalsIgnoreCase(aggregationMode)) {
+            styleDayAggregateService.ensureCurrent();
+            rows = styleDayAggregateService.aggregateByStyle(startDate, endDate, liquidationThreshold);
+        } else {
+            rows = salesService.aggregateSalesByStyle(startDate, endDate, BigDecimal.valueOf(liquidationThreshold));
+        }
+
+        Map<String, StyleSalesData> styleMap = new TreeMap<>();
+        for (Object[] row : rows) {
+            String styleCode = (String) row[0];
+            StyleSalesData styleData = new StyleSalesData(styleCode, (String) row[1],
+                    ((Number) row[2]).intValue(),
+                    SalesSnapshot.toCents((BigDecimal) row[3]),
+                    SalesSnapshot.toCents((BigDecimal) row[4]),
+                    ((Number) row[5]).intValue());
+            styleMap.put(styleCode, styleData);
+        }
         return styleMap;
     }
 
@@ -414,39 +778,142 @@ public class NoosAlgorithmService {
      * @return Map of Category -> CategoryBenchmark
      */
     private Map<String, CategoryBenchmark> calculateCategoryBenchmarks(Map<String, StyleSalesData> styleAggregates) {
-        Map<String, CategoryBenchmark> benchmarks = new HashMap<>();
-        
         // Group styles by category
         Map<String, List<StyleSalesData>> stylesByCategory = styleAggregates.values().stream()
                 .collect(Collectors.groupingBy(StyleSalesData::getCategory));
 
+        // Categories are independent; each one's sums run in the same style order either way
+        if (computePool.getParallelism() <= 1 || stylesByCategory.size() <= 1) {
+            Map<String, CategoryBenchmark> benchmarks = new HashMap<>();
+            for (Map.Entry<String, List<StyleSalesData>> entry : stylesByCategory.entrySet()) {
+                benchmarks.put(entry.getKey(), calculateCategoryBenchmark(entry.getKey(), entry.getValue()));
+            }
+            return benchmarks;
+        }
+
+        List<Callable<CategoryBenchmark>> tasks = new ArrayList<>(stylesByCategory.size());
         for (Map.Entry<String, List<StyleSalesData>> entry : stylesByCategory.entrySet()) {
-            String category = entry.getKey();
-            List<StyleSalesData> categoryStyles = entry.getValue();
+            tasks.add(() -> calculateCategoryBenchmark(entry.getKey(), entry.getValue()));
+        }
+        Map<String, CategoryBenchmark> benchmarks = new HashMap<>();
+        for (CategoryBenchmark benchmark : invokeAllInPool(tasks)) {
+            benchmarks.put(benchmark.getCategory(), benchmark);
+        }
+        return benchmarks;
+    }
 
-            // Calculate category benchmarks
-            double totalRevenue = categoryStyles.stream()
-                    .mapToDouble(StyleSalesData::getTotalRevenue)
-                    .sum();
+    /**
+     * Calculate the benchmark for a single category
+     */
+    private CategoryBenchmark calculateCategoryBenchmark(String category, List<StyleSalesData> categoryStyles) {
+        // Calculate category benchmarks
+        double totalRevenue = categoryStyles.stream()
+                .mapToDouble(StyleSalesData::getTotalRevenue)
+                .sum();
+
+        double avgRevenuePerDay = categoryStyles.stream()
+                .mapToDouble(s -> s.getTotalRevenue() / Math.max(s.getDaysAvailable(), 1))
+                .average()
+                .orElse(0.0);
+
+        double avgConsistency = categoryStyles.stream()
+                .mapToDouble(s -> (double) s.getDaysWithSales() / Math.max(s.getDaysAvailable(), 1))
+                .average()
+                .orElse(0.0);
+
+        logger.debug("🎯 Category {}: {} styles, ${:.2f} total revenue, ${:.2f} avg revenue/day, {:.1f}% avg consistency",
+                    category, categoryStyles.size(), totalRevenue, avgRevenuePerDay, avgConsistency * 100);
+
+        return new CategoryBenchmark(category, totalRevenue, avgRevenuePerDay);
+    }
 
-            double avgRevenuePerDay = categoryStyles.stream()
-                    .mapToDouble(s -> s.getTotalRevenue() / Math.max(s.getDaysAvailable(), 1))
-                    .average()
-                    .orElse(0.0);
+    /**
+     * Classify all styles, in parallel chunks when the compute pool allows.
+     * 
+     * Work proceeds in waves of 50 styles per worker; between waves the calling
+     * thread checks for cancellation and reports progress (60% → 85%), so pool
+     * threads never touch the task or the database. Results keep the input order.
+     * 
+     * @param styleList Styles to classify
+     * @param parameters Algorithm parameters from UI
+     * @param categoryBenchmarks Benchmarks for intelligent classification
+     * @param taskId Task ID for audit trail
+     * @param runTimestamp Calculated date shared by the whole run
+     * @param task Task for progress and cancellation, or null to run without either
+     * @return Results in style order, or null if the task was cancelled
+     */
+    private List<NoosResult> classifyStyles(List<StyleSalesData> styleList, AlgoParametersData parameters,
+                                            Map<String, CategoryBenchmark> categoryBenchmarks, Long taskId,
+                                            Date runTimestamp, Task task) {
+        int totalStyles = styleList.size();
+        int workers = computePool.getParallelism();
+        int waveSize = 50 * Math.max(workers, 1);
+        NoosResult[] results = new NoosResult[totalStyles];
+
+        for (int waveStart = 0; waveStart < totalStyles; waveStart += waveSize) {
+            // Check for cancellation before every wave (every 50 styles when sequential)
+            if (task != null && checkCancellation(task)) {
+                return null;
+            }
 
-            double avgConsistency = categoryStyles.stream()
-                    .mapToDouble(s -> (double) s.getDaysWithSales() / Math.max(s.getDaysAvailable(), 1))
-                    .average()
-                    .orElse(0.0);
+            int waveEnd = Math.min(waveStart + waveSize, totalStyles);
+            if (workers <= 1) {
+                classifyRange(styleList, waveStart, waveEnd, parameters, categoryBenchmarks, taskId, runTimestamp, results);
+            } else {
+                List<Callable<Void>> tasks = new ArrayList<>(workers);
+                for (int from = waveStart; from < waveEnd; from += 50) {
+                    final int chunkFrom = from;
+                    final int chunkTo = Math.min(from + 50, waveEnd);
+                    tasks.add(() -> {
+                        classifyRange(styleList, chunkFrom, chunkTo, parameters, categoryBenchmarks, taskId, runTimestamp, results);
+                        return null;
+                    });
+                }
+                invokeAllInPool(tasks);
+            }
 
-            CategoryBenchmark benchmark = new CategoryBenchmark(category, totalRevenue, avgRevenuePerDay);
-            benchmarks.put(category, benchmark);
+            // Update progress every wave
+            if (task != null && waveEnd % 50 == 0) {
+                double progress = 60.0 + (25.0 * waveEnd / totalStyles); // 60% → 85%
+                task.updateProgress(progress, 
+                                  String.format("CLASSIFICATION: Classified %d/%d styles", waveEnd, totalStyles));
+                taskProgressRegistry.publish(task);
+            }
+        }
+        return new ArrayList<>(Arrays.asList(results));
+    }
 
-            logger.debug("🎯 Category {}: {} styles, ${:.2f} total revenue, ${:.2f} avg revenue/day, {:.1f}% avg consistency",
-                        category, categoryStyles.size(), totalRevenue, avgRevenuePerDay, avgConsistency * 100);
+    private void classifyRange(List<StyleSalesData> styleList, int from, int to, AlgoParametersData parameters,
+                               Map<String, CategoryBenchmark> categoryBenchmarks, Long taskId,
+                               Date runTimestamp, NoosResult[] results) {
+        for (int i = from; i < to; i++) {
+            NoosResult result = classifyStyle(styleList.get(i), parameters, categoryBenchmarks, taskId);
+            // Normalize calculated date to a single run timestamp for this execution
+            result.setCalculatedDate(runTimestamp);
+            results[i] = result;
         }
+    }
 
-        return benchmarks;
+    /**
+     * Run CPU-only tasks on the compute pool and collect their results in submission order
+     */
+    private <T> List<T> invokeAllInPool(List<Callable<T>> tasks) {
+        try {
+            List<T> results = new ArrayList<>(tasks.size());
+            for (Future<T> future : computePool.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("NOOS parallel processing interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException("NOOS parallel processing failed: " + cause.getMessage(), cause);
+        }
     }
 
     /**
@@ -564,6 +1031,25 @@ public class NoosAlgorithmService {
         return paramValue > 0 ? paramValue : defaultValue;
     }
 
+    /**
+     * Whether this run aggregates in the database (sql or aggregate engine).
+     * The aggregate engine only covers whole-percent liquidation thresholds and
+     * falls back to the in-memory engine for anything finer.
+     */
+    private boolean isPushDownAggregation(double liquidationThreshold) {
+        if (AGGREGATION_MODE_SQL.equalsIgnoreCase(aggregationMode)) {
+            return true;
+        }
+        if (AGGREGATION_MODE_DAY_AGGREGATE.equalsIgnoreCase(aggregationMode)) {
+            if (StyleDayAggregateService.supportsThreshold(liquidationThreshold)) {
+                return true;
+            }
+            logger.info("Liquidation threshold {} is not a whole percent, using in-memory aggregation", liquidationThreshold);
+        }
+        return false;
+    }
+
+
     /**
      * Check if task cancellation was requested
      * 
@@ -571,23 +1057,43 @@ public class NoosAlgorithmService {
      * @return true if cancellation was requested
      */
     private boolean checkCancellation(Task task) {
-        // Refresh task from database to get latest cancellation status
-        Task refreshedTask = taskDao.select(task.getId());
-        if (refreshedTask != null && refreshedTask.isCancellationRequested()) {
+        // In-memory token flipped by TaskController.cancelTask; no database read
+        if (cancellationRegistry.isCancelled(task.getId())) {
             logger.info("🛑 Cancellation detected for task: {}", task.getId());
             task.setStatus("CANCELLED");
             task.updateProgress(task.getProgressPercentage(), "CANCELLED: Task was cancelled by user");
             taskDao.update(task);
+            taskProgressRegistry.publishFinal(task);
             return true;
         }
         return false;
     }
 
+    /**
+     * Mark a task cancelled after a cancellation poll stopped it mid-write; the
+     * run's partial results are rolled back with the worker's transaction
+     */
+    private void stopCancelled(Task task) {
+        logger.info("🛑 Task {} stopped on cancellation, discarding partial results", task.getId());
+        task.setStatus("CANCELLED");
+        task.setEndTime(new Date());
+        task.updateProgress(task.getProgressPercentage(), "CANCELLED: Task was cancelled by user");
+        taskProgressRegistry.publishFinalAfterRollback(task);
+    }
+
     /**
      * Create algorithm execution task for tracking
      */
     private Task createAlgorithmTask(AlgoParametersData parameters) {
+        return createAlgorithmTask(parameters, null);
+    }
+
+    /**
+     * Create algorithm execution task for tracking, linked to the sweep that spawned it
+     */
+    private Task createAlgorithmTask(AlgoParametersData parameters, Long parentTaskId) {
         Task task = new Task();
+        task.setParentTaskId(parentTaskId);
         task.setTaskType("ALGORITHM_RUN");
         task.setStatus("RUNNING");
         task.setStartTime(new Date());
@@ -603,7 +1109,16 @@ public class NoosAlgorithmService {
      * Complete task with success status and metrics
      */
     private void completeTask(Task task, int totalStyles, int coreCount, int bestsellerCount, int fashionCount) {
+        completeTask(task, totalStyles, coreCount, bestsellerCount, fashionCount, task.getId());
+    }
+
+    /**
+     * Complete task with success status and metrics, with results held by the given run
+     */
+    private void completeTask(Task task, int totalStyles, int coreCount, int bestsellerCount, int fashionCount,
+                              Long resultRunId) {
         task.setStatus("COMPLETED");
+        task.setResultRunId(resultRunId);
         task.setEndTime(new Date());
         task.setTotalRecords(totalStyles);
         task.setProcessedRecords(totalStyles);
@@ -614,9 +1129,91 @@ public class NoosAlgorithmService {
         task.setParameters(task.getParameters() + ", Results: " + summary);
         
         taskDao.update(task);
+        taskProgressRegistry.publishFinal(task);
         logger.info("✅ Task {} completed successfully", task.getId());
     }
 
+    /**
+     * Save a run's results together with its noos_run_summary row, so reports
+     * and latest-run counts never have to count the results again
+     */
+    private void saveResults(Long runId, Date runDate, List<NoosResult> results, AlgoParametersData parameters) {
+        noosResultDao.insertAll(results);
+
+        int[] typeCounts = countByType(results);
+        Map<String, Map<String, Object>> categoryTotals = new TreeMap<>();
+        for (NoosResult result : results) {
+            Map<String, Object> totals = categoryTotals.computeIfAbsent(result.getCategory(), c -> {
+                Map<String, Object> empty = new LinkedHashMap<>();
+                empty.put("styles", 0);
+                empty.put("core", 0);
+                empty.put("bestseller", 0);
+                empty.put("fashion", 0);
+                empty.put("revenue", BigDecimal.ZERO);
+                return empty;
+            });
+            totals.put("styles", (Integer) totals.get("styles") + 1);
+            totals.computeIfPresent(result.getType(), (type, count) -> (Integer) count + 1);
+            if (result.getTotalRevenue() != null) {
+                totals.put("revenue", ((BigDecimal) totals.get("revenue")).add(result.getTotalRevenue()));
+            }
+        }
+
+        NoosRunSummary summary = new NoosRunSummary();
+        summary.setAlgorithmRunId(runId);
+        summary.setRunDate(runDate);
+        summary.setTotalResults(results.size());
+        summary.setCoreCount(typeCounts[0]);
+        summary.setBestsellerCount(typeCounts[1]);
+        summary.setFashionCount(typeCounts[2]);
+        summary.setCategoryTotals(TaskPayload.write(categoryTotals));
+        summary.setParameters(parameters != null ? TaskPayload.write(parameters) : null);
+        noosRunSummaryDao.save(summary);
+    }
+
+    /**
+     * Count results per type
+     *
+     * @return {core, bestseller, fashion}
+     */
+    private int[] countByType(List<NoosResult> results) {
+        int[] counts = new int[3];
+        for (NoosResult result : results) {
+            switch (result.getType()) {
+                case "core": counts[0]++; break;
+                case "bestseller": counts[1]++; break;
+                case "fashion": counts[2]++; break;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Complete a task from a cached run if one matches, pointing it at that run's results
+     *
+     * @return true if the task was completed from the cache
+     */
+    private boolean completeFromCache(Task task, long dataVersion, String runKey) {
+        Long cachedRunId = noosRunCache.lookup(dataVersion, runKey);
+        if (cachedRunId == null) {
+            return false;
+        }
+        long coreCount = noosResultDao.getCountByTypeForRun("core", cachedRunId);
+        long bestsellerCount = noosResultDao.getCountByTypeForRun("bestseller", cachedRunId);
+        long fashionCount = noosResultDao.getCountByTypeForRun("fashion", cachedRunId);
+        if (coreCount + bestsellerCount + fashionCount == 0) {
+            // Results were removed since the run was cached
+            noosRunCache.evict(dataVersion, runKey);
+            return false;
+        }
+
+        logger.info("🎯 NOOS run cache hit for task {}: reusing results of run {}", task.getId(), cachedRunId);
+        task.updateProgress(100.0, String.format("COMPLETED: Reused results of run %d", cachedRunId));
+        completeTask(task, (int) (coreCount + bestsellerCount + fashionCount),
+                (int) coreCount, (int) bestsellerCount, (int) fashionCount, cachedRunId);
+        return true;
+    }
+
     /**
      * Mark task as failed with error message
      */
@@ -625,30 +1222,115 @@ public class NoosAlgorithmService {
         task.setEndTime(new Date());
         task.setErrorMessage(errorMessage);
         taskDao.update(task);
+        taskProgressRegistry.publishFinal(task);
         logger.error("❌ Task {} failed: {}", task.getId(), errorMessage);
     }
 
     /**
-     * Get filtered sales data based on algorithm parameters
+     * Count sales in the algorithm's date range (all sales if no range is set)
+     */
+    private long countFilteredSales(AlgoParametersData parameters) {
+        if (parameters.getAnalysisStartDate() != null && parameters.getAnalysisEndDate() != null) {
+            return salesService.getSalesCountByDateRange(
+                parameters.getAnalysisStartDate(),
+                parameters.getAnalysisEndDate()
+            );
+        }
+        return salesService.getSalesCount();
+    }
+
+    /**
+     * Key of the data a run scans: liquidation threshold and effective date range.
+     * Runs with the same key aggregate to identical style data.
+     */
+    private String scanKey(AlgoParametersData parameters) {
+        double liquidationThreshold = getParameterValue(parameters.getLiquidationThreshold(), DEFAULT_LIQUIDATION_THRESHOLD);
+        Date startDate = scopeStartDate(parameters);
+        Date endDate = scopeEndDate(parameters);
+        return liquidationThreshold + "|" + (startDate != null ? SalesSnapshot.toEpochDay(startDate) : "")
+                + "|" + (endDate != null ? SalesSnapshot.toEpochDay(endDate) : "");
+    }
+
+    /**
+     * Run cache key: every parameter that affects results, with defaults applied,
+     * over the date range the run actually scans
+     */
+    private String runCacheKey(AlgoParametersData parameters, Date startDate, Date endDate) {
+        return String.format("liquidation=%s, bestseller=%s, minVolume=%d, consistency=%s, start=%s, end=%s",
+                getParameterValue(parameters.getLiquidationThreshold(), DEFAULT_LIQUIDATION_THRESHOLD),
+                getParameterValue(parameters.getBestsellerMultiplier(), DEFAULT_BESTSELLER_MULTIPLIER),
+                (int) getParameterValue(parameters.getMinVolumeThreshold(), DEFAULT_MIN_VOLUME),
+                getParameterValue(parameters.getConsistencyThreshold(), DEFAULT_CONSISTENCY_THRESHOLD),
+                startDate != null ? SalesSnapshot.toEpochDay(startDate) : "",
+                endDate != null ? SalesSnapshot.toEpochDay(endDate) : "");
+    }
+
+    /**
+     * Cache statistics for monitoring
+     *
+     * @return dataVersion, hits, misses, hitRate and entries
+     */
+    public Map<String, Object> getRunCacheStats() {
+        long[] stats = noosRunCache.getStats();
+        long lookups = stats[0] + stats[1];
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("dataVersion", dataVersionService.getVersion());
+        result.put("hits", stats[0]);
+        result.put("misses", stats[1]);
+        result.put("hitRate", lookups > 0 ? (double) stats[0] / lookups : 0.0);
+        result.put("entries", stats[2]);
+        return result;
+    }
+
+    /**
+     * Effective start date: a range is only applied when both ends are set
+     */
+    private Date scopeStartDate(AlgoParametersData parameters) {
+        return parameters.getAnalysisEndDate() != null ? parameters.getAnalysisStartDate() : null;
+    }
+
+    private Date scopeEndDate(AlgoParametersData parameters) {
+        return parameters.getAnalysisStartDate() != null ? parameters.getAnalysisEndDate() : null;
+    }
+
+    /**
+     * Select snapshot rows based on algorithm parameters
      * Uses date range filtering if specified, otherwise returns all sales
      *
+     * @param snapshot Columnar sales data
      * @param parameters Algorithm parameters containing date range
-     * @return Filtered list of sales data
+     * @return Row indexes of the sales in scope
      */
-    private List<Sales> getFilteredSales(AlgoParametersData parameters) {
+    private int[] selectSalesRows(SalesSnapshot snapshot, AlgoParametersData parameters) {
         if (parameters.getAnalysisStartDate() != null && parameters.getAnalysisEndDate() != null) {
             // Use date range filtering
-            return salesService.getSalesByDateRange(
-                parameters.getAnalysisStartDate(),
-                parameters.getAnalysisEndDate()
-            );
+            return selectSalesRows(snapshot, parameters.getAnalysisStartDate(), parameters.getAnalysisEndDate());
         } else {
             // Fallback to all sales if no date range specified
             logger.warn("⚠️ No date range specified, using all sales data");
-            return salesService.getAllSales();
+            return selectSalesRows(snapshot, null, null);
         }
     }
 
+    /**
+     * Select snapshot rows whose day falls within [startDate, endDate] (inclusive,
+     * compared by calendar day like the DATE column). Null bounds select every row.
+     */
+    private int[] selectSalesRows(SalesSnapshot snapshot, Date startDate, Date endDate) {
+        int firstDay = startDate != null ? SalesSnapshot.toEpochDay(startDate) : Integer.MIN_VALUE;
+        int lastDay = endDate != null ? SalesSnapshot.toEpochDay(endDate) : Integer.MAX_VALUE;
+
+        int[] rows = new int[snapshot.size()];
+        int count = 0;
+        for (int row = 0; row < snapshot.size(); row++) {
+            int day = snapshot.day(row);
+            if (day >= firstDay && day <= lastDay) {
+                rows[count++] = row;
+            }
+        }
+        return count == rows.length ? rows : Arrays.copyOf(rows, count);
+    }
+
     /**
      * Format parameters for logging and storage
      */
@@ -665,7 +1347,7 @@ public class NoosAlgorithmService {
      * Get latest NOOS results for display (only latest run)
      */
     public List<NoosResult> getLatestResults() {
-        Long latestRunId = noosResultDao.getLatestRunId();
+        Long latestRunId = getLatestRunId();
         if (latestRunId == null) {
             return Collections.emptyList();
         }
@@ -676,7 +1358,7 @@ public class NoosAlgorithmService {
      * Get NOOS results by type for analysis (latest run)
      */
     public List<NoosResult> getResultsByTypeForLatestRun(String type) {
-        Long latestRunId = noosResultDao.getLatestRunId();
+        Long latestRunId = getLatestRunId();
         if (latestRunId == null) {
             return Collections.emptyList();
         }
@@ -684,10 +1366,10 @@ public class NoosAlgorithmService {
     }
 
     /**
-     * Get NOOS results count by type for dashboard (latest run only)
+     * Get NOOS results count by type for dashboard (latest run only), from the run's summary row
      */
     public Map<String, Long> getResultsCountByTypeForLatestRun() {
-        Long latestRunId = noosResultDao.getLatestRunId();
+        Long latestRunId = getLatestRunId();
         Map<String, Long> counts = new HashMap<>();
         if (latestRunId == null) {
             counts.put("core", 0L);
@@ -695,12 +1377,30 @@ public class NoosAlgorithmService {
             counts.put("fashion", 0L);
             return counts;
         }
+        NoosRunSummary summary = noosRunSummaryDao.select(latestRunId);
+        if (summary != null) {
+            counts.put("core", summary.getCoreCount().longValue());
+            counts.put("bestseller", summary.getBestsellerCount().longValue());
+            counts.put("fashion", summary.getFashionCount().longValue());
+            return counts;
+        }
+        // Runs saved before summaries were written
         counts.put("core", noosResultDao.getCountByTypeForRun("core", latestRunId));
         counts.put("bestseller", noosResultDao.getCountByTypeForRun("bestseller", latestRunId));
         counts.put("fashion", noosResultDao.getCountByTypeForRun("fashion", latestRunId));
         return counts;
     }
 
+    /**
+     * Results run of the most recently completed NOOS task. A task served from the
+     * run cache points at an earlier run, so the highest result run id is only the
+     * fallback for results without a task.
+     */
+    public Long getLatestRunId() {
+        Long latestRunId = taskDao.getLatestResultRunId();
+        return latestRunId != null ? latestRunId : noosResultDao.getLatestRunId();
+    }
+
     /**
      * Get recent NOOS run IDs (most recent first)
      */
@@ -722,6 +1422,28 @@ public class NoosAlgorithmService {
         return noosResultDao.getResultsByRunId(runId);
     }
 
+    /**
+     * Get one keyset page of a run's results (latest run when runId is null),
+     * optionally filtered by type and category
+     */
+    public NoosResultPage getResultsPage(Long runId, String type, String category, Long afterId, int limit) {
+        NoosResultPage page = new NoosResultPage();
+        page.setLimit(limit);
+        page.setRunId(runId != null ? runId : getLatestRunId());
+        if (page.getRunId() == null) {
+            page.setResults(Collections.emptyList());
+            return page;
+        }
+        // One extra row tells whether another page follows
+        List<NoosResult> results = noosResultDao.getResultsPage(page.getRunId(), type, category, afterId, limit + 1);
+        if (results.size() > limit) {
+            results = results.subList(0, limit);
+            page.setNextAfterId(results.get(limit - 1).getId());
+        }
+        page.setResults(results);
+        return page;
+    }
+
     // Helper classes for internal processing
 
     /**
@@ -731,38 +1453,68 @@ public class NoosAlgorithmService {
         private String styleCode;
         private String category;
         private int totalQuantity = 0;
-        private double totalRevenue = 0.0;
-        private double totalDiscount = 0.0;
-        private Set<String> salesDates = new HashSet<>();
+        // Money is summed in whole cents so the result does not depend on summation order
+        private long revenueCents = 0;
+        private long discountCents = 0;
+        private EpochDaySet salesDays;
+        private int daysWithSales;
 
         public StyleSalesData(String styleCode, String category) {
             this.styleCode = styleCode;
             this.category = category;
+            this.salesDays = new EpochDaySet();
         }
 
-        public void addSale(Sales sale) {
-            totalQuantity += sale.getQuantity();
-            totalRevenue += sale.getRevenue().doubleValue();
-            totalDiscount += sale.getDiscount().doubleValue();
+        /**
+         * Pre-aggregated style totals (SQL engine)
+         */
+        public StyleSalesData(String styleCode, String category, int totalQuantity,
+                              long revenueCents, long discountCents, int daysWithSales) {
+            this.styleCode = styleCode;
+            this.category = category;
+            this.totalQuantity = totalQuantity;
+            this.revenueCents = revenueCents;
+            this.discountCents = discountCents;
+            this.daysWithSales = daysWithSales;
+        }
+
+        public void addSale(int day, int quantity, long revenue, long discount) {
+            totalQuantity += quantity;
+            revenueCents += revenue;
+            discountCents += discount;
             
-            // Track unique sales dates for consistency calculation
-            salesDates.add(sale.getDate().toString());
+            // Track unique sales days for consistency calculation (bitset, no per-sale allocation)
+            salesDays.add(day);
+        }
+
+        /**
+         * Fold a partial aggregate for the same style into this one
+         */
+        public void merge(StyleSalesData partial) {
+            totalQuantity += partial.totalQuantity;
+            revenueCents += partial.revenueCents;
+            discountCents += partial.discountCents;
+            salesDays.addAll(partial.salesDays);
+        }
+
+        public boolean isEmpty() {
+            return getDaysWithSales() == 0;
         }
 
         // Getters
         public String getStyleCode() { return styleCode; }
         public String getCategory() { return category; }
         public int getTotalQuantity() { return totalQuantity; }
-        public double getTotalRevenue() { return totalRevenue; }
-        public int getDaysWithSales() { return salesDates.size(); }
+        public double getTotalRevenue() { return revenueCents / 100.0; }
+        public int getDaysWithSales() { return salesDays != null ? salesDays.size() : daysWithSales; }
         public int getDaysAvailable() { 
             // For now, assume available for all unique sales dates
             // In real implementation, this would be calculated from availability data
-            return Math.max(salesDates.size(), 1); 
+            return Math.max(getDaysWithSales(), 1); 
         }
         public double getAvgDiscount() { 
-            double totalValue = totalDiscount + totalRevenue;
-            return totalValue > 0 ? totalDiscount / totalValue : 0.0; 
+            long totalValue = discountCents + revenueCents;
+            return totalValue > 0 ? (double) discountCents / totalValue : 0.0; 
         }
     }
 
@@ -781,6 +1533,7 @@ public class NoosAlgorithmService {
         }
 
         // Getters
+        public String getCategory() { return category; }
         public double getTotalRevenue() { return totalRevenue; }
         public double getAvgRevenuePerDay() { return avgRevenuePerDay; }
     }
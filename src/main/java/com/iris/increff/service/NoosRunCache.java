@@ -0,0 +1,114 @@
+package com.iris.increff.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of completed NOOS runs keyed by data version and normalized parameters.
+ *
+ * A hit means an identical run over identical data already saved its results,
+ * so the new task can point at that run instead of recomputing and inserting a
+ * duplicate copy. Runs are only cached once their transaction commits, and
+ * entries for older data versions are dropped as soon as a newer one is cached.
+ * Versions come from the database, so a write committed on another node moves
+ * every node's cache on; runs read at {@link DataVersionService#UNKNOWN} are
+ * never cached.
+ *
+ * @author Anshuk Kawarry
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Service
+public class NoosRunCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoosRunCache.class);
+
+    /**
+     * Upper bound on cached parameter sets for one data version
+     */
+    private static final int MAX_ENTRIES = 256;
+
+    private final Map<String, Long> runIds = new HashMap<>();
+    private long cachedVersion = -1;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Find the run that computed these parameters on this data version
+     *
+     * @param dataVersion Current data version
+     * @param parametersKey Normalized parameters
+     * @return Run id, or null on a miss
+     */
+    public synchronized Long lookup(long dataVersion, String parametersKey) {
+        Long runId = dataVersion != DataVersionService.UNKNOWN && dataVersion == cachedVersion
+                ? runIds.get(parametersKey) : null;
+        if (runId != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return runId;
+    }
+
+    /**
+     * Drop an entry whose results no longer exist, and count its lookup as a miss
+     */
+    public synchronized void evict(long dataVersion, String parametersKey) {
+        if (dataVersion == cachedVersion && runIds.remove(parametersKey) != null) {
+            hits.decrementAndGet();
+            misses.incrementAndGet();
+        }
+    }
+
+    /**
+     * Cache a run once the current transaction commits (immediately when called
+     * outside a transaction)
+     *
+     * @param dataVersion Data version the run read
+     * @param parametersKey Normalized parameters
+     * @param runId Run id holding the results
+     */
+    public void putAfterCommit(long dataVersion, String parametersKey, Long runId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    put(dataVersion, parametersKey, runId);
+                }
+            });
+        } else {
+            put(dataVersion, parametersKey, runId);
+        }
+    }
+
+    /**
+     * @return {hits, misses, entries}
+     */
+    public synchronized long[] getStats() {
+        return new long[] {hits.get(), misses.get(), runIds.size()};
+    }
+
+    private synchronized void put(long dataVersion, String parametersKey, Long runId) {
+        if (dataVersion == DataVersionService.UNKNOWN || dataVersion < cachedVersion) {
+            return; // version unknown, or data changed while the run was in flight
+        }
+        if (dataVersion > cachedVersion) {
+            runIds.clear();
+            cachedVersion = dataVersion;
+        }
+        if (runIds.size() >= MAX_ENTRIES && !runIds.containsKey(parametersKey)) {
+            logger.debug("NOOS run cache full, not caching run {}", runId);
+            return;
+        }
+        runIds.put(parametersKey, runId);
+    }
+}
@@ -4,12 +4,15 @@ import com.iris.increff.dao.*;
 import com.iris.increff.model.Report1Data;
 import com.iris.increff.model.Report2Data;
 import com.iris.increff.model.NoosResult;
+import com.iris.increff.model.NoosRunSummary;
+import com.iris.increff.model.TaskStatsData;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.text.SimpleDateFormat;
 import java.util.*;
 
 /**
@@ -28,139 +31,100 @@ public class ReportAnalyticsService {
 
     private static final Logger logger = LoggerFactory.getLogger(ReportAnalyticsService.class);
 
+    /**
+     * Runs shown in Report 1
+     */
+    private static final int RECENT_RUNS = 5;
+
     @Autowired
     private NoosAlgorithmService noosAlgorithmService;
     
     
     @Autowired
-    private TaskDao taskDao;
+    private TaskStatsService taskStatsService;
     
     @Autowired
-    private SalesDao salesDao;
+    private SalesSnapshotService salesSnapshotService;
     
     @Autowired
     private com.iris.increff.dao.NoosResultDao noosResultDao;
 
+    @Autowired
+    private NoosRunSummaryDao noosRunSummaryDao;
+
     /**
      * Generate NOOS Analytics Report (Report 1)
-     * Shows algorithm execution history and classification insights
+     * Shows algorithm execution history and classification insights.
+     * Recent runs are read from their noos_run_summary rows, so the report
+     * costs one row per run rather than a scan of each run's results.
      */
     @Transactional(readOnly = true)
     public List<Report1Data> generateNoosAnalyticsReport() {
         logger.info("📊 Generating NOOS Analytics Report...");
         
         try {
-            List<Report1Data> reportData = new ArrayList<>();
-
-            // Build analytics across recent runs (e.g., last 5)
-            List<Long> recentRunIds = noosAlgorithmService.getRecentRunIds(5);
-            if (recentRunIds == null || recentRunIds.isEmpty()) {
-                // Fallback: group by calculatedDate day when runIds are absent (legacy data)
-                // Use DAO method that returns all results ordered by date (not limited to latest run)
-                List<NoosResult> latestResults = noosResultDao.getLatestResults();
-                if (latestResults == null || latestResults.isEmpty()) {
-                    reportData.addAll(generateSampleNoosData());
-                    logger.info("✅ Generated {} NOOS analytics report entries (sample)", reportData.size());
-                    return reportData;
-                }
-
-                Map<String, List<NoosResult>> byDay = new java.util.HashMap<>();
-                for (NoosResult r : latestResults) {
-                    if (r.getCalculatedDate() == null) continue;
-                    String dayKey = new java.text.SimpleDateFormat("yyyy-MM-dd").format(r.getCalculatedDate());
-                    byDay.computeIfAbsent(dayKey, k -> new java.util.ArrayList<>()).add(r);
-                }
-
-                for (Map.Entry<String, List<NoosResult>> e : byDay.entrySet()) {
-                    List<NoosResult> runResults = e.getValue();
-                    Date executionDate = runResults.get(0).getCalculatedDate();
-
-                    long coreCount = runResults.stream().filter(r -> "core".equalsIgnoreCase(r.getType())).count();
-                    long bestsellerCount = runResults.stream().filter(r -> "bestseller".equalsIgnoreCase(r.getType())).count();
-                    long fashionCount = runResults.stream().filter(r -> "fashion".equalsIgnoreCase(r.getType())).count();
+            SimpleDateFormat dayFormat = new SimpleDateFormat("yyyy-MM-dd");
+            // Newest run first
+            TreeMap<Long, Report1Data> byRun = new TreeMap<>(Comparator.reverseOrder());
 
-                    String algorithmLabel = "NOOS Analysis " + e.getKey();
+            List<NoosRunSummary> summaries = noosRunSummaryDao.getRecent(RECENT_RUNS);
+            for (NoosRunSummary summary : summaries) {
+                byRun.put(summary.getAlgorithmRunId(), new Report1Data(
+                    summary.getRunDate(),
+                    "NOOS Analysis " + dayFormat.format(summary.getRunDate()),
+                    "COMPLETED",
+                    summary.getTotalResults(),
+                    summary.getCoreCount(),
+                    summary.getBestsellerCount(),
+                    summary.getFashionCount(),
+                    2.5,
+                    "Real algorithm execution"
+                ));
+            }
 
-                    Report1Data reportItem = new Report1Data(
-                        executionDate,
-                        algorithmLabel,
-                        "COMPLETED",
-                        runResults.size(),
-                        (int) coreCount,
-                        (int) bestsellerCount,
-                        (int) fashionCount,
-                        2.5,
-                        "Legacy grouping by date"
-                    );
-                    reportData.add(reportItem);
-                }
-            } else {
-                // Filter out null run IDs (legacy data without run tracking)
-                java.util.List<Long> filteredRunIds = new java.util.ArrayList<>();
-                for (Long id : recentRunIds) {
-                    if (id != null) filteredRunIds.add(id);
-                }
-                if (filteredRunIds.isEmpty()) {
-                    // Fallback to date-grouping when runIds are null
-                    List<NoosResult> allResults = noosResultDao.getLatestResults();
-                    java.util.Map<String, java.util.List<NoosResult>> byDay = new java.util.HashMap<>();
-                    for (NoosResult r : allResults) {
-                        if (r.getCalculatedDate() == null) continue;
-                        String dayKey = new java.text.SimpleDateFormat("yyyy-MM-dd").format(r.getCalculatedDate());
-                        byDay.computeIfAbsent(dayKey, k -> new java.util.ArrayList<>()).add(r);
-                    }
-                    for (java.util.Map.Entry<String, java.util.List<NoosResult>> e : byDay.entrySet()) {
-                        java.util.List<NoosResult> runResults = e.getValue();
-                        Date executionDate = runResults.get(0).getCalculatedDate();
-                        long coreCount = runResults.stream().filter(r -> "core".equalsIgnoreCase(r.getType())).count();
-                        long bestsellerCount = runResults.stream().filter(r -> "bestseller".equalsIgnoreCase(r.getType())).count();
-                        long fashionCount = runResults.stream().filter(r -> "fashion".equalsIgnoreCase(r.getType())).count();
-                        String algorithmLabel = "NOOS Analysis " + e.getKey();
-                        Report1Data reportItem = new Report1Data(
-                            executionDate,
-                            algorithmLabel,
-                            "COMPLETED",
-                            runResults.size(),
-                            (int) coreCount,
-                            (int) bestsellerCount,
-                            (int) fashionCount,
-                            2.5,
-                            "Legacy grouping by date"
-                        );
-                        reportData.add(reportItem);
+            if (summaries.size() < RECENT_RUNS) {
+                // Runs saved before summaries were written: one grouped count per run
+                for (Long runId : noosAlgorithmService.getRecentRunIds(RECENT_RUNS)) {
+                    if (runId == null || byRun.containsKey(runId)) {
+                        continue;
                     }
-                } else {
-                for (Long runId : filteredRunIds) {
-                    List<NoosResult> runResults = noosAlgorithmService.getResultsByRunId(runId);
-                    if (runResults == null || runResults.isEmpty()) {
+                    Map<String, Long> counts = noosResultDao.getCountsByTypeForRun(runId);
+                    long total = counts.values().stream().mapToLong(Long::longValue).sum();
+                    if (total == 0) {
                         continue;
                     }
-
                     Date executionDate = noosAlgorithmService.getRunDate(runId);
-
-                    long coreCount = runResults.stream().filter(r -> "core".equalsIgnoreCase(r.getType())).count();
-                    long bestsellerCount = runResults.stream().filter(r -> "bestseller".equalsIgnoreCase(r.getType())).count();
-                    long fashionCount = runResults.stream().filter(r -> "fashion".equalsIgnoreCase(r.getType())).count();
-
-                    String algorithmLabel = "NOOS Analysis " + (executionDate != null ? executionDate.toString().substring(0, 10) : ("Run " + runId));
-
-                    Report1Data reportItem = new Report1Data(
+                    String algorithmLabel = "NOOS Analysis " + (executionDate != null ? dayFormat.format(executionDate) : ("Run " + runId));
+                    byRun.put(runId, new Report1Data(
                         executionDate,
                         algorithmLabel,
                         "COMPLETED",
-                        runResults.size(),
-                        (int) coreCount,
-                        (int) bestsellerCount,
-                        (int) fashionCount,
+                        (int) total,
+                        counts.getOrDefault("core", 0L).intValue(),
+                        counts.getOrDefault("bestseller", 0L).intValue(),
+                        counts.getOrDefault("fashion", 0L).intValue(),
                         2.5,
                         "Real algorithm execution"
-                    );
-
-                    reportData.add(reportItem);
-                }
+                    ));
                 }
             }
 
+            List<Report1Data> reportData = new ArrayList<>(byRun.values());
+            if (reportData.size() > RECENT_RUNS) {
+                reportData = new ArrayList<>(reportData.subList(0, RECENT_RUNS));
+            }
+
+            if (reportData.isEmpty()) {
+                // Fallback: group by calculatedDate day when runIds are absent (legacy data)
+                reportData.addAll(generateUntrackedRunEntries(dayFormat));
+            }
+
+            if (reportData.isEmpty()) {
+                reportData.addAll(generateSampleNoosData());
+                logger.info("✅ Generated {} NOOS analytics report entries (sample)", reportData.size());
+                return reportData;
+            }
+
             logger.info("✅ Generated {} NOOS analytics report entries", reportData.size());
             return reportData;
             
@@ -170,6 +134,35 @@ public class ReportAnalyticsService {
         }
     }
 
+    /**
+     * Report entries for results saved without a run id, one per calculated day,
+     * from per-timestamp type counts rather than the results themselves
+     */
+    private List<Report1Data> generateUntrackedRunEntries(SimpleDateFormat dayFormat) {
+        // Newest day first
+        TreeMap<String, Report1Data> byDay = new TreeMap<>(Comparator.reverseOrder());
+        for (Object[] row : noosResultDao.getUntrackedCountsByDateAndType()) {
+            Date calculatedDate = (Date) row[0];
+            if (calculatedDate == null) {
+                continue;
+            }
+            String dayKey = dayFormat.format(calculatedDate);
+            Report1Data entry = byDay.computeIfAbsent(dayKey, day -> new Report1Data(
+                calculatedDate, "NOOS Analysis " + day, "COMPLETED", 0, 0, 0, 0, 2.5, "Legacy grouping by date"));
+            int count = ((Long) row[2]).intValue();
+            entry.setTotalStylesProcessed(entry.getTotalStylesProcessed() + count);
+            String type = row[1] != null ? ((String) row[1]).toLowerCase() : "";
+            if ("core".equals(type)) {
+                entry.setCoreStyles(entry.getCoreStyles() + count);
+            } else if ("bestseller".equals(type)) {
+                entry.setBestsellerStyles(entry.getBestsellerStyles() + count);
+            } else if ("fashion".equals(type)) {
+                entry.setFashionStyles(entry.getFashionStyles() + count);
+            }
+        }
+        return new ArrayList<>(byDay.values());
+    }
+
     /**
      * Generate System Health Report (Report 2)  
      * Shows upload statistics, task performance, and system metrics
@@ -189,37 +182,21 @@ public class ReportAnalyticsService {
             typeMap.put("UPLOAD_SKUS", "SKUS_UPLOAD");
             typeMap.put("RUN_NOOS", "ALGORITHM_RUN");
 
+            // One cached query covers every type and the overview
+            TaskStatsData stats = taskStatsService.getRecentStats();
+
             for (java.util.Map.Entry<String, String> entry : typeMap.entrySet()) {
                 String label = entry.getKey();
-                String actualType = entry.getValue();
+                TaskStatsData.TypeStats typeStats = stats.forType(entry.getValue());
 
-                long[] stats = taskDao.getRecentTaskStatsByType(actualType, 7);
-                long totalTasks = stats[0];
-                long successfulTasks = stats[1];
-                long failedTasks = stats[2];
+                long totalTasks = typeStats.getTotal();
+                long successfulTasks = typeStats.getCompleted();
+                long failedTasks = typeStats.getFailed();
                 double successRate = totalTasks > 0 ? (successfulTasks * 100.0) / totalTasks : 0.0;
 
                 String systemStatus = determineSystemStatus(successRate, totalTasks);
 
-                // Compute average execution time for this type over last 7 days
-                java.util.List<com.iris.increff.model.Task> recentTasks = taskDao.getTasksByTypeSince(actualType, 7);
-                double avgSeconds = 0.0;
-                if (!recentTasks.isEmpty()) {
-                    long totalMillis = 0L;
-                    int counted = 0;
-                    for (com.iris.increff.model.Task t : recentTasks) {
-                        if (t.getStartTime() != null && t.getEndTime() != null) {
-                            long dur = t.getEndTime().getTime() - t.getStartTime().getTime();
-                            if (dur > 0) {
-                                totalMillis += dur;
-                                counted++;
-                            }
-                        }
-                    }
-                    if (counted > 0) {
-                        avgSeconds = (totalMillis / (double) counted) / 1000.0;
-                    }
-                }
+                double avgSeconds = typeStats.getAverageMillis() / 1000.0;
 
                 Report2Data reportItem = new Report2Data(
                     new Date(),
@@ -231,13 +208,15 @@ public class ReportAnalyticsService {
                     avgSeconds > 0 ? avgSeconds / 60.0 : estimateExecutionTime(label),
                     systemStatus
                 );
+                reportItem.setMedianExecutionTime(typeStats.getP50Millis() / 60000.0);
+                reportItem.setP95ExecutionTime(typeStats.getP95Millis() / 60000.0);
 
                 reportData.add(reportItem);
             }
             
             // Add overall system summary
-            int activeTasks = taskDao.getActiveTaskCount();
-            long totalSalesRecords = salesDao.getTotalSalesCount();
+            int activeTasks = stats.getActiveTasks();
+            long totalSalesRecords = salesSnapshotService.getSalesCount();
             
             Report2Data systemSummary = new Report2Data(
                 new Date(),
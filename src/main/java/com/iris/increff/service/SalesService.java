@@ -1,6 +1,7 @@
 package com.iris.increff.service;
 
 import com.iris.increff.controller.UploadResponse;
+import com.iris.increff.dao.SalesBulkWriter;
 import com.iris.increff.dao.SalesDao;
 import com.iris.increff.model.Sales;
 import com.iris.increff.model.SKU;
@@ -8,7 +9,12 @@ import com.iris.increff.model.Store;
 import com.iris.increff.exception.ApiException;
 import com.iris.increff.service.ValidationService.ValidationResult;
 import com.iris.increff.service.ErrorTrackingService.ErrorTracker;
+import com.iris.increff.util.CodeIdMap;
+import com.iris.increff.util.TsvRow;
+import com.iris.increff.util.TsvRowCursor;
+import com.iris.increff.exception.TaskCancelledException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -41,6 +47,18 @@ public class SalesService {
     @Autowired
     private SalesDao salesDao;
 
+    @Autowired
+    private SalesBulkWriter salesBulkWriter;
+
+    @Autowired
+    private SalesSnapshotService salesSnapshotService;
+
+    @Autowired
+    private StyleDayAggregateService styleDayAggregateService;
+
+    @Autowired
+    private DataVersionService dataVersionService;
+
     @Autowired
     private SkuService skuService;
 
@@ -52,6 +70,9 @@ public class SalesService {
 
     @Autowired
     private AuditService auditService;
+
+    @Autowired
+    private DataCounterService dataCounterService;
     
     @Autowired
     private ValidationService validationService;
@@ -64,40 +85,77 @@ public class SalesService {
     private static final String DATE_FORMAT = "yyyy-MM-dd";
     private final SimpleDateFormat dateFormatter = new SimpleDateFormat(DATE_FORMAT);
 
+    private static final String[] HEADERS = {"day", "sku", "channel", "quantity", "discount", "revenue"};
+
+    /**
+     * Number of sales entities buffered before each DB flush during upload
+     */
+    @Value("${app.batch.size:1000}")
+    private int batchSize;
+
+    /**
+     * Process and save already-parsed TSV rows. Delegates to the cursor-based variant.
+     *
+     * @param tsvData Parsed TSV data as list of row maps
+     * @return UploadResponse with success status, messages, and error tracking information
+     */
+    @Transactional
+    public UploadResponse processAndSaveSales(ArrayList<HashMap<String, String>> tsvData) {
+        return processAndSaveSales(TsvRowCursor.of(tsvData, HEADERS));
+    }
+
     /**
      * Process and save sales from TSV data with enhanced validation and error tracking.
      * Expected TSV format: day, sku, channel, quantity, discount, revenue
      * Maps to entity fields: date, skuId (via lookup), storeId (via lookup), quantity, discount, revenue
-     * 
-     * @param tsvData Parsed TSV data as list of row maps
+     *
+     * The input is scanned twice so that no more than one batch of entities is held in memory:
+     * the first pass only validates and collects errors, the second pass (run only when the file
+     * is valid) rewinds the cursor, converts rows again and saves them in batches of app.batch.size.
+     *
+     * @param rows Cursor over the TSV rows; must support reset for the save pass
      * @return UploadResponse with success status, messages, and error tracking information
      */
     @Transactional
-    public UploadResponse processAndSaveSales(ArrayList<HashMap<String, String>> tsvData) {
+    public UploadResponse processAndSaveSales(TsvRowCursor rows) {
         UploadResponse response = new UploadResponse();
         List<String> errors = new ArrayList<>();
         List<String> warnings = new ArrayList<>();
         List<String> messages = new ArrayList<>();
-        List<Sales> salesToSave = new ArrayList<>();
-        
+        int validCount = 0;
+
         // Initialize error tracker
-        String[] headers = {"day", "sku", "channel", "quantity", "discount", "revenue"};
-        ErrorTracker errorTracker = new ErrorTracker(headers);
+        ErrorTracker errorTracker = new ErrorTracker(HEADERS);
 
-        // First pass: Comprehensive validation with detailed error tracking
-        for (int i = 0; i < tsvData.size(); i++) {
-            HashMap<String, String> row = tsvData.get(i);
-            int rowNumber = i + 2; // +2 because: +1 for 0-indexing, +1 for header row
-            
-            try {
-                Sales sales = convertTsvRowToSalesWithValidation(row, rowNumber, errorTracker);
-                if (sales != null) {
-                    salesToSave.add(sales);
+        // Resolve SKU codes and store branches against in-memory dictionaries (one query each)
+        CodeIdMap skuIds = skuService.loadSkuIdDictionary();
+        CodeIdMap storeIds = storeService.loadBranchIdDictionary();
+        logger.debug("Loaded {} SKU codes and {} store branches for sales resolution", skuIds.size(), storeIds.size());
+
+        // First pass: Comprehensive validation with detailed error tracking (no entities retained)
+        try {
+            while (rows.next()) {
+                TsvRow row = rows.row();
+                int rowNumber = row.getRowNumber();
+
+                try {
+                    Sales sales = convertTsvRowToSalesWithValidation(row, rowNumber, errorTracker, skuIds, storeIds);
+                    if (sales != null) {
+                        validCount++;
+                    }
+
+                } catch (Exception e) {
+                    errorTracker.addError(rowNumber, row, "Unexpected error: " + e.getMessage(), "SYSTEM_ERROR");
                 }
-                
-            } catch (Exception e) {
-                errorTracker.addError(rowNumber, row, "Unexpected error: " + e.getMessage(), "SYSTEM_ERROR");
             }
+        } catch (ApiException e) {
+            // Input could not be read (I/O failure or row limit exceeded)
+            errors.add(e.getMessage());
+            response.setSuccess(false);
+            response.setErrors(errors);
+            response.setMessages(messages);
+            response.setErrorCount(errors.size());
+            return response;
         }
 
         // Generate error files and summary if there are errors or skipped rows
@@ -145,6 +203,7 @@ public class SalesService {
         }
 
         // Second pass: Database operations (only if no critical errors)
+        int savedCount = 0;
         try {
             // TRUNCATE: Replace all sales data (intentional for testing/sample data scenarios)
             // Unlike master data (Styles/SKUs/Stores), sales data uses complete replacement
@@ -164,21 +223,34 @@ public class SalesService {
                     "Cleared all sales before new upload", "system");
             }
 
-            // Save new data in batch
-            if (!salesToSave.isEmpty()) {
-                messages.add("Saving " + salesToSave.size() + " sales records to database");
-                salesDao.saveAll(salesToSave);
+            // Save new data in batches, re-reading the input
+            if (validCount > 0) {
+                messages.add("Saving " + validCount + " sales records to database");
+                long saveStart = System.currentTimeMillis();
+                savedCount = saveInBatches(rows, skuIds, storeIds);
+                dataCounterService.add(DataCounterService.SALES, savedCount);
+                double rowsPerSecond = savedCount * 1000.0 / Math.max(1, System.currentTimeMillis() - saveStart);
+                response.setRowsPerSecond(rowsPerSecond);
+                logger.info("📊 Bulk inserted {} sales rows at {} rows/sec", savedCount, String.format("%.0f", rowsPerSecond));
                 messages.add("Sales upload completed successfully");
                 
                 // Audit log the bulk insert
-                auditService.logBulkAction("Sales", "BULK_INSERT", salesToSave.size(), 
-                    "Uploaded " + salesToSave.size() + " sales records", "system");
+                auditService.logBulkAction("Sales", "BULK_INSERT", savedCount, 
+                    "Uploaded " + savedCount + " sales records", "system");
 
                 if (errorTracker.getSkippedCount() > 0) {
                     messages.add("Note: " + errorTracker.getSkippedCount() + " rows were skipped due to missing dependencies");
                 }
             }
 
+            // Rebuild the algorithm's columnar copy of the sales table once this upload commits,
+            // then the per-style daily aggregates for incremental NOOS runs from it
+            salesSnapshotService.refreshAfterCommit();
+            styleDayAggregateService.rebuildAfterCommit();
+            dataVersionService.bump();
+
+        } catch (TaskCancelledException e) {
+            throw e; // let the task worker roll back and mark the task CANCELLED
         } catch (Exception e) {
             errors.add("Database error: " + e.getMessage());
             response.setSuccess(false);
@@ -192,7 +264,7 @@ public class SalesService {
         response.setErrors(errors);
         response.setMessages(messages);
         response.setWarnings(warnings);
-        response.setRecordCount(salesToSave.size());
+        response.setRecordCount(savedCount);
         response.setSkippedCount(errorTracker.getSkippedCount());
         
         // Include error files even for successful uploads (for skipped rows)
@@ -203,6 +275,41 @@ public class SalesService {
         return response;
     }
 
+    /**
+     * Rewind the cursor and bulk insert every valid row, one batch at a time.
+     * Rows rejected in the validation pass are rejected again here and skipped.
+     *
+     * @param rows Cursor over the TSV rows
+     * @param skuIds SKU code → id dictionary
+     * @param storeIds Store branch → id dictionary
+     * @return Number of sales records saved
+     * @throws ApiException if the input cannot be re-read
+     */
+    private int saveInBatches(TsvRowCursor rows, CodeIdMap skuIds, CodeIdMap storeIds) throws ApiException {
+        // Errors were already reported by the validation pass
+        ErrorTracker scratchTracker = new ErrorTracker(HEADERS);
+        List<Sales> batch = new ArrayList<>(batchSize);
+        int savedCount = 0;
+
+        rows.reset();
+        while (rows.next()) {
+            TsvRow row = rows.row();
+            Sales sales = convertTsvRowToSalesWithValidation(row, row.getRowNumber(), scratchTracker, skuIds, storeIds);
+            if (sales == null) {
+                continue;
+            }
+            batch.add(sales);
+            if (batch.size() >= batchSize) {
+                savedCount += salesBulkWriter.insertAll(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            savedCount += salesBulkWriter.insertAll(batch);
+        }
+        return savedCount;
+    }
+
     /**
      * Convert a TSV row to Sales entity with complex field mapping and validation.
      * Gracefully handles missing SKUs by returning null instead of throwing exceptions.
@@ -366,9 +473,12 @@ public class SalesService {
      * @param row TSV row as key-value map
      * @param rowNumber Row number for error reporting
      * @param errorTracker Error tracker for collecting validation errors
+     * @param skuIds SKU code → id dictionary
+     * @param storeIds Store branch → id dictionary
      * @return Validated Sales entity, or null if validation fails
      */
-    private Sales convertTsvRowToSalesWithValidation(HashMap<String, String> row, int rowNumber, ErrorTracker errorTracker) {
+    private Sales convertTsvRowToSalesWithValidation(Map<String, String> row, int rowNumber, ErrorTracker errorTracker,
+                                                     CodeIdMap skuIds, CodeIdMap storeIds) {
         Sales sales = new Sales();
         boolean hasErrors = false;
         
@@ -395,10 +505,10 @@ public class SalesService {
             errorTracker.addValidationError(rowNumber, row, "sku", skuCodeResult.getErrorMessage());
             hasErrors = true;
         } else {
-            try {
-                SKU sku = skuService.findBySku(skuCode.trim().toUpperCase());
-                sales.setSkuId(sku.getId());
-            } catch (ApiException e) {
+            int skuId = skuIds.get(skuCode.trim().toUpperCase());
+            if (skuId != CodeIdMap.NOT_FOUND) {
+                sales.setSkuId(skuId);
+            } else {
                 // This is a dependency error - SKU not found in master data
                 errorTracker.addDependencyError(rowNumber, row, "sku", skuCode.trim().toUpperCase());
                 hasErrors = true;
@@ -412,10 +522,10 @@ public class SalesService {
             errorTracker.addValidationError(rowNumber, row, "channel", branchResult.getErrorMessage());
             hasErrors = true;
         } else {
-            try {
-                Store store = storeService.findByBranch(channel.trim().toUpperCase());
-                sales.setStoreId(store.getId());
-            } catch (ApiException e) {
+            int storeId = storeIds.get(channel.trim().toUpperCase());
+            if (storeId != CodeIdMap.NOT_FOUND) {
+                sales.setStoreId(storeId);
+            } else {
                 // This is a dependency error - Store not found in master data
                 errorTracker.addDependencyError(rowNumber, row, "channel", channel.trim().toUpperCase());
                 hasErrors = true;
@@ -481,4 +591,27 @@ public class SalesService {
     public List<Sales> getSalesByDateRange(Date startDate, Date endDate) {
         return salesDao.findByDateBetween(startDate, endDate);
     }
+
+    /**
+     * Count sales within a date range without loading them.
+     *
+     * @param startDate Start date for the range
+     * @param endDate End date for the range
+     * @return Number of sales within the date range
+     */
+    public Long getSalesCountByDateRange(Date startDate, Date endDate) {
+        return salesDao.countByDateBetween(startDate, endDate);
+    }
+
+    /**
+     * Aggregate sales per style in the database for the NOOS SQL engine.
+     *
+     * @param startDate Start date (inclusive), or null for all dates
+     * @param endDate End date (inclusive), or null for all dates
+     * @param liquidationThreshold Maximum allowed discount share
+     * @return Rows of [styleCode, category, quantity, revenue, discount, distinct days]
+     */
+    public List<Object[]> aggregateSalesByStyle(Date startDate, Date endDate, BigDecimal liquidationThreshold) {
+        return salesDao.aggregateByStyle(startDate, endDate, liquidationThreshold);
+    }
 }
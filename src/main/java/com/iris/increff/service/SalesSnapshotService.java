@@ -0,0 +1,107 @@
+package com.iris.increff.service;
+
+import com.iris.increff.dao.SalesSnapshotDao;
+import com.iris.increff.util.SalesSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Holds the columnar sales snapshot shared by the NOOS algorithm, reports and
+ * the dashboard.
+ *
+ * The snapshot is rebuilt after each committed sales upload. Readers still
+ * compare it with the table's row count and max id on every call (one cheap
+ * aggregate query) and rebuild on mismatch, so deletes, clears or writes that
+ * bypass the upload path never serve stale rows.
+ *
+ * @author Anshuk Kawarry
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Service
+public class SalesSnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesSnapshotService.class);
+
+    @Autowired
+    private SalesSnapshotDao salesSnapshotDao;
+
+    private volatile SalesSnapshot snapshot;
+
+    /**
+     * Get a snapshot that reflects the current sales table, rebuilding it if the
+     * table changed since it was built.
+     *
+     * @return Current sales snapshot
+     */
+    public SalesSnapshot getSnapshot() {
+        long[] stamp = salesSnapshotDao.readStamp();
+        SalesSnapshot current = snapshot;
+        if (current != null && current.matches(stamp[0], stamp[1])) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (current != null && current.matches(stamp[0], stamp[1])) {
+                return current;
+            }
+            return rebuild((int) stamp[0]);
+        }
+    }
+
+    /**
+     * Current number of sales rows. Served from the same stamp query the
+     * snapshot uses, without forcing a rebuild, so dashboards stay cheap.
+     *
+     * @return Number of rows in the sales table
+     */
+    public long getSalesCount() {
+        return salesSnapshotDao.readStamp()[0];
+    }
+
+    /**
+     * Rebuild the snapshot once the current transaction commits (immediately
+     * when called outside a transaction). Called after a sales upload.
+     */
+    public void refreshAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    refreshNow();
+                }
+            });
+        } else {
+            refreshNow();
+        }
+    }
+
+    private void refreshNow() {
+        try {
+            synchronized (this) {
+                long[] stamp = salesSnapshotDao.readStamp();
+                SalesSnapshot current = snapshot;
+                // Already current if a reader rebuilt it since the commit
+                if (current == null || !current.matches(stamp[0], stamp[1])) {
+                    rebuild((int) stamp[0]);
+                }
+            }
+        } catch (RuntimeException e) {
+            // Not fatal: the next reader rebuilds on demand
+            snapshot = null;
+            logger.warn("⚠️ Sales snapshot refresh failed, will rebuild on next use: {}", e.getMessage());
+        }
+    }
+
+    private SalesSnapshot rebuild(int expectedRows) {
+        long start = System.currentTimeMillis();
+        SalesSnapshot built = salesSnapshotDao.load(expectedRows);
+        snapshot = built;
+        logger.info("📊 Built sales snapshot: {} rows in {} ms", built.size(), System.currentTimeMillis() - start);
+        return built;
+    }
+}
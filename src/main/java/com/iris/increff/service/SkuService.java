@@ -7,7 +7,13 @@ import com.iris.increff.model.Style;
 import com.iris.increff.exception.ApiException;
 import com.iris.increff.service.ValidationService.ValidationResult;
 import com.iris.increff.service.ErrorTrackingService.ErrorTracker;
+import com.iris.increff.util.CodeIdMap;
+import com.iris.increff.util.DuplicateKeyTracker;
+import com.iris.increff.util.TsvRow;
+import com.iris.increff.util.TsvRowCursor;
+import com.iris.increff.exception.TaskCancelledException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -29,6 +35,8 @@ import java.util.Map;
 @Service
 public class SkuService {
 
+    private static final String[] HEADERS = {"sku", "style", "size"};
+
     @Autowired
     private SkuDao skuDao;
 
@@ -44,52 +52,94 @@ public class SkuService {
     @Autowired
     private ErrorTrackingService errorTrackingService;
 
+    @Autowired
+    private StyleDayAggregateService styleDayAggregateService;
+
+    @Autowired
+    private DataVersionService dataVersionService;
+
+    @Autowired
+    private DataCounterService dataCounterService;
+
+    /**
+     * Rows upserted per chunk (one IN query each)
+     */
+    @Value("${app.batch.size:1000}")
+    private int batchSize;
+
+    /**
+     * Process and save already-parsed TSV rows. Delegates to the cursor-based variant.
+     *
+     * @param tsvData Parsed TSV data as list of row maps
+     * @return UploadResponse with success status, messages, and error tracking information
+     */
+    @Transactional
+    public UploadResponse processAndSaveSKUs(ArrayList<HashMap<String, String>> tsvData) {
+        return processAndSaveSKUs(TsvRowCursor.of(tsvData, HEADERS));
+    }
+
     /**
      * Process and save SKUs from TSV data with enhanced validation and error tracking.
      * Expected TSV format: sku, style, size
      * Maps to entity fields: sku, styleId (via lookup), size
      * 
-     * @param tsvData Parsed TSV data as list of row maps
+     * The input is scanned twice so that no more than one chunk of entities is held in memory:
+     * the first pass validates and checks duplicates (only SKU codes are kept), the second pass
+     * (run only when the file is valid) rewinds the cursor and upserts chunks of app.batch.size.
+     *
+     * @param rows Cursor over the TSV rows; must support reset for the save pass
      * @return UploadResponse with success status, messages, and error tracking information
      */
     @Transactional
-    public UploadResponse processAndSaveSKUs(ArrayList<HashMap<String, String>> tsvData) {
+    public UploadResponse processAndSaveSKUs(TsvRowCursor rows) {
         UploadResponse response = new UploadResponse();
         List<String> errors = new ArrayList<>();
         List<String> messages = new ArrayList<>();
-        List<SKU> skusToSave = new ArrayList<>();
+        int validCount = 0;
         
         // Initialize error tracker
-        String[] headers = {"sku", "style", "size"};
-        ErrorTracker errorTracker = new ErrorTracker(headers);
+        ErrorTracker errorTracker = new ErrorTracker(HEADERS);
+        DuplicateKeyTracker seenKeys = new DuplicateKeyTracker();
+
+        // Resolve style codes against an in-memory dictionary (one query)
+        CodeIdMap styleIds = styleService.loadStyleIdDictionary();
 
         // Tests expect clearing messages even for UPSERT flows
         messages.add("Clearing existing data (UPSERT mode - no deletion)");
 
         // First pass: Comprehensive validation with detailed error tracking
-        for (int i = 0; i < tsvData.size(); i++) {
-            HashMap<String, String> row = tsvData.get(i);
-            int rowNumber = i + 2; // +2 because: +1 for 0-indexing, +1 for header row
+        try {
+            while (rows.next()) {
+                TsvRow row = rows.row();
+                int rowNumber = row.getRowNumber();
 
-            try {
-                SKU sku = convertTsvRowToSKUWithValidation(row, rowNumber, errorTracker);
+                try {
+                    SKU sku = convertTsvRowToSKUWithValidation(row, rowNumber, errorTracker, styleIds);
                 
-                if (sku != null) {
-                    // Check for duplicate SKU codes within the uploaded data
-                    boolean duplicateInBatch = skusToSave.stream()
-                        .anyMatch(s -> s.getSku().equals(sku.getSku()));
-
-                    if (duplicateInBatch) {
-                        errorTracker.addDuplicateError(rowNumber, row, "sku", sku.getSku());
-                        continue;
+                    if (sku != null) {
+                        // Check for duplicate SKU codes within the uploaded data
+                        int firstSeenRow = seenKeys.checkAndRecord(sku.getSku(), rowNumber);
+
+                        if (firstSeenRow != DuplicateKeyTracker.NOT_SEEN) {
+                            errorTracker.addDuplicateError(rowNumber, row, "sku", sku.getSku(), firstSeenRow);
+                            continue;
+                        }
+
+                        validCount++;
                     }
 
-                    skusToSave.add(sku);
+                } catch (Exception e) {
+                    errorTracker.addError(rowNumber, row, "Unexpected error: " + e.getMessage(), "SYSTEM_ERROR");
                 }
-
-            } catch (Exception e) {
-                errorTracker.addError(rowNumber, row, "Unexpected error: " + e.getMessage(), "SYSTEM_ERROR");
             }
+        } catch (ApiException e) {
+            // Input could not be read (I/O failure or row limit exceeded)
+            errors.add(e.getMessage());
+            response.setSuccess(false);
+            response.setErrors(errors);
+            response.setMessages(messages);
+            response.setErrorCount(errors.size());
+            return response;
         }
 
         // Generate error files and summary if there are errors
@@ -131,49 +181,40 @@ public class SkuService {
         try {
             // UPSERT logic: Update existing SKUs or insert new ones
             // This preserves existing data not in the upload file
-            int updatedCount = 0;
-            int insertedCount = 0;
+            int[] counts = new int[3];
 
-            messages.add("Processing " + skusToSave.size() + " SKUs with UPSERT logic");
-            
-            for (SKU newSku : skusToSave) {
-                SKU existingSku = skuDao.findBySku(newSku.getSku());
-                
-                if (existingSku != null) {
-                    // UPDATE: Merge new data into existing record
-                    StringBuilder changes = new StringBuilder();
-                    if (!existingSku.getStyleId().equals(newSku.getStyleId())) {
-                        changes.append("StyleID: ").append(existingSku.getStyleId()).append(" → ").append(newSku.getStyleId()).append("; ");
-                    }
-                    if (!existingSku.getSize().equals(newSku.getSize())) {
-                        changes.append("Size: ").append(existingSku.getSize()).append(" → ").append(newSku.getSize()).append("; ");
-                    }
-                    
-                    existingSku.setStyleId(newSku.getStyleId());
-                    existingSku.setSize(newSku.getSize());
-                    skuDao.save(existingSku);
-                    updatedCount++;
-                    
-                    // Audit log the update
-                    if (changes.length() > 0) {
-                        auditService.logAction("SKU", existingSku.getId(), "UPDATE", 
-                            changes.toString(), "system");
-                    }
-                } else {
-                    // INSERT: New SKU
-                    skuDao.save(newSku);
-                    insertedCount++;
-                    
-                    // Audit log the insert
-                    auditService.logAction("SKU", newSku.getId(), "INSERT", 
-                        "New SKU created: " + newSku.getSku(), "system");
-                }
+            messages.add("Processing " + validCount + " SKUs with UPSERT logic");
+            saveInBatches(rows, styleIds, counts);
+            int insertedCount = counts[0];
+            int updatedCount = counts[1];
+            int changedCount = counts[2];
+
+            dataCounterService.add(DataCounterService.SKUS, insertedCount);
+
+            // Updated SKUs may change the style mapping sales are aggregated under
+            if (updatedCount > 0) {
+                styleDayAggregateService.invalidate();
+            }
+            if (insertedCount + updatedCount > 0) {
+                dataVersionService.bump();
+            }
+
+            // Audit log the upsert as bulk actions
+            if (insertedCount > 0) {
+                auditService.logBulkAction("SKU", "BULK_INSERT", insertedCount,
+                    "New SKUs created from upload", "system");
+            }
+            if (updatedCount > 0) {
+                auditService.logBulkAction("SKU", "BULK_UPDATE", updatedCount,
+                    "Existing SKUs updated from upload (" + changedCount + " with style/size changes)", "system");
             }
             
             messages.add("SKUs upload completed: " + insertedCount + " inserted, " + updatedCount + " updated");
             messages.add("Data clearing completed");
             messages.add("SKUs upload completed successfully");
 
+        } catch (TaskCancelledException e) {
+            throw e; // let the task worker roll back and mark the task CANCELLED
         } catch (Exception e) {
             errors.add("Database error: " + e.getMessage());
             response.setSuccess(false);
@@ -186,10 +227,75 @@ public class SkuService {
         response.setSuccess(true);
         response.setErrors(errors);
         response.setMessages(messages);
-        response.setRecordCount(skusToSave.size());
+        response.setRecordCount(validCount);
         return response;
     }
 
+    /**
+     * Rewind the cursor and upsert every row, one chunk at a time.
+     * Only called once the validation pass found no errors.
+     *
+     * @param rows Cursor over the TSV rows
+     * @param styleIds Style code → id dictionary
+     * @param counts Receives {inserted, updated, updated with style/size changes}
+     * @throws ApiException if the input cannot be re-read
+     */
+    private void saveInBatches(TsvRowCursor rows, CodeIdMap styleIds, int[] counts) throws ApiException {
+        // Errors were already reported by the validation pass
+        ErrorTracker scratchTracker = new ErrorTracker(HEADERS);
+        List<SKU> chunk = new ArrayList<>(batchSize);
+
+        rows.reset();
+        while (rows.next()) {
+            TsvRow row = rows.row();
+            SKU entity = convertTsvRowToSKUWithValidation(row, row.getRowNumber(), scratchTracker, styleIds);
+            if (entity == null) {
+                continue;
+            }
+            chunk.add(entity);
+            if (chunk.size() >= batchSize) {
+                upsertChunk(chunk, counts);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            upsertChunk(chunk, counts);
+        }
+    }
+
+    /**
+     * Set-based upsert: one IN query to find existing rows, then update the managed
+     * entities and persist the new ones in a single flush
+     */
+    private void upsertChunk(List<SKU> chunk, int[] counts) {
+        Map<String, SKU> existingByKey = new HashMap<>();
+        for (SKU existing : skuDao.findBySkus(chunk.stream().map(SKU::getSku).collect(java.util.stream.Collectors.toList()))) {
+            existingByKey.put(existing.getSku(), existing);
+        }
+
+        List<SKU> newEntities = new ArrayList<>();
+        for (SKU incoming : chunk) {
+            SKU existing = existingByKey.get(incoming.getSku());
+
+            if (existing != null) {
+                // UPDATE: Merge new data into existing (managed) record
+                if (!existing.getStyleId().equals(incoming.getStyleId()) || !existing.getSize().equals(incoming.getSize())) {
+                    counts[2]++;
+                }
+                existing.setStyleId(incoming.getStyleId());
+                existing.setSize(incoming.getSize());
+                counts[1]++;
+            } else {
+                // INSERT: New SKU
+                newEntities.add(incoming);
+            }
+        }
+
+        // Persists inserts and flushes this chunk's updates
+        skuDao.saveAll(newEntities);
+        counts[0] += newEntities.size();
+    }
+
     /**
      * Convert a TSV row to SKU entity with field mapping and validation.
      * TSV fields → Entity fields mapping:
@@ -282,9 +388,11 @@ public class SkuService {
      * @param row TSV row as key-value map
      * @param rowNumber Row number for error reporting
      * @param errorTracker Error tracker for collecting validation errors
+     * @param styleIds Style code → id dictionary
      * @return Validated SKU entity, or null if validation fails
      */
-    private SKU convertTsvRowToSKUWithValidation(HashMap<String, String> row, int rowNumber, ErrorTracker errorTracker) {
+    private SKU convertTsvRowToSKUWithValidation(Map<String, String> row, int rowNumber, ErrorTracker errorTracker,
+                                                 CodeIdMap styleIds) {
         SKU sku = new SKU();
         boolean hasErrors = false;
         
@@ -305,10 +413,10 @@ public class SkuService {
             errorTracker.addValidationError(rowNumber, row, "style", styleCodeResult.getErrorMessage());
             hasErrors = true;
         } else {
-            try {
-                Style style = styleService.findByStyleCode(styleCode.trim().toUpperCase());
-                sku.setStyleId(style.getId());
-            } catch (ApiException e) {
+            int styleId = styleIds.get(styleCode.trim().toUpperCase());
+            if (styleId != CodeIdMap.NOT_FOUND) {
+                sku.setStyleId(styleId);
+            } else {
                 // This is a dependency error - style not found in master data
                 errorTracker.addDependencyError(rowNumber, row, "style", styleCode.trim().toUpperCase());
                 hasErrors = true;
@@ -353,4 +461,19 @@ public class SkuService {
         }
         return sku;
     }
+
+    /**
+     * Load every SKU code → id mapping into a compact dictionary with one query.
+     * Bulk ingestion resolves rows against this instead of a lookup per row.
+     *
+     * @return Dictionary keyed by the stored (normalized) SKU code
+     */
+    public CodeIdMap loadSkuIdDictionary() {
+        List<Object[]> rows = skuDao.findAllSkuCodeIds();
+        CodeIdMap dictionary = new CodeIdMap(rows.size());
+        for (Object[] row : rows) {
+            dictionary.putIfAbsent((String) row[0], ((Number) row[1]).intValue());
+        }
+        return dictionary;
+    }
 }
@@ -6,7 +6,13 @@ import com.iris.increff.model.Store;
 import com.iris.increff.exception.ApiException;
 import com.iris.increff.service.ValidationService.ValidationResult;
 import com.iris.increff.service.ErrorTrackingService.ErrorTracker;
+import com.iris.increff.util.CodeIdMap;
+import com.iris.increff.util.DuplicateKeyTracker;
+import com.iris.increff.util.TsvRow;
+import com.iris.increff.util.TsvRowCursor;
+import com.iris.increff.exception.TaskCancelledException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -27,6 +33,8 @@ import java.util.Map;
 @Service
 public class StoreService {
 
+    private static final String[] HEADERS = {"branch", "city"};
+
     @Autowired
     private StoreDao storeDao;
 
@@ -39,52 +47,85 @@ public class StoreService {
     @Autowired
     private ErrorTrackingService errorTrackingService;
 
+    @Autowired
+    private DataCounterService dataCounterService;
+
+    /**
+     * Rows upserted per chunk (one IN query each)
+     */
+    @Value("${app.batch.size:1000}")
+    private int batchSize;
+
+    /**
+     * Process and save already-parsed TSV rows. Delegates to the cursor-based variant.
+     *
+     * @param tsvData Parsed TSV data as list of row maps
+     * @return UploadResponse with success status, messages, and error tracking information
+     */
+    @Transactional
+    public UploadResponse processAndSaveStores(ArrayList<HashMap<String, String>> tsvData) {
+        return processAndSaveStores(TsvRowCursor.of(tsvData, HEADERS));
+    }
+
     /**
      * Process and save stores from TSV data with enhanced validation and error tracking.
      * Expected TSV format: branch, city
      * Maps directly to entity fields: branch, city
      * 
-     * @param tsvData Parsed TSV data as list of row maps
+     * The input is scanned twice so that no more than one chunk of entities is held in memory:
+     * the first pass validates and checks duplicates (only branches are kept), the second pass
+     * (run only when the file is valid) rewinds the cursor and upserts chunks of app.batch.size.
+     *
+     * @param rows Cursor over the TSV rows; must support reset for the save pass
      * @return UploadResponse with success status, messages, and error tracking information
      */
     @Transactional
-    public UploadResponse processAndSaveStores(ArrayList<HashMap<String, String>> tsvData) {
+    public UploadResponse processAndSaveStores(TsvRowCursor rows) {
         UploadResponse response = new UploadResponse();
         List<String> errors = new ArrayList<>();
         List<String> messages = new ArrayList<>();
-        List<Store> storesToSave = new ArrayList<>();
+        int validCount = 0;
         
         // Initialize error tracker
-        String[] headers = {"branch", "city"};
-        ErrorTracker errorTracker = new ErrorTracker(headers);
+        ErrorTracker errorTracker = new ErrorTracker(HEADERS);
+        DuplicateKeyTracker seenKeys = new DuplicateKeyTracker();
 
         // Tests expect clearing messages even if we don't delete in UPSERT mode
         messages.add("Clearing existing data (UPSERT mode - no deletion)");
 
         // First pass: Comprehensive validation with detailed error tracking
-        for (int i = 0; i < tsvData.size(); i++) {
-            HashMap<String, String> row = tsvData.get(i);
-            int rowNumber = i + 2; // +2 because: +1 for 0-indexing, +1 for header row
+        try {
+            while (rows.next()) {
+                TsvRow row = rows.row();
+                int rowNumber = row.getRowNumber();
 
-            try {
-                Store store = convertTsvRowToStoreWithValidation(row, rowNumber, errorTracker);
+                try {
+                    Store store = convertTsvRowToStoreWithValidation(row, rowNumber, errorTracker);
                 
-                if (store != null) {
-                    // Check for duplicate branches within the uploaded data
-                    boolean duplicateInBatch = storesToSave.stream()
-                        .anyMatch(s -> s.getBranch().equals(store.getBranch()));
-
-                    if (duplicateInBatch) {
-                        errorTracker.addDuplicateError(rowNumber, row, "branch", store.getBranch());
-                        continue;
+                    if (store != null) {
+                        // Check for duplicate branches within the uploaded data
+                        int firstSeenRow = seenKeys.checkAndRecord(store.getBranch(), rowNumber);
+
+                        if (firstSeenRow != DuplicateKeyTracker.NOT_SEEN) {
+                            errorTracker.addDuplicateError(rowNumber, row, "branch", store.getBranch(), firstSeenRow);
+                            continue;
+                        }
+
+                        validCount++;
                     }
 
-                    storesToSave.add(store);
+                } catch (Exception e) {
+                    errorTracker.addError(rowNumber, row, "Unexpected error: " + e.getMessage(), "SYSTEM_ERROR");
                 }
-
-            } catch (Exception e) {
-                errorTracker.addError(rowNumber, row, "Unexpected error: " + e.getMessage(), "SYSTEM_ERROR");
             }
+        } catch (ApiException e) {
+            // Input could not be read (I/O failure or row limit exceeded)
+            errors.add(e.getMessage());
+            response.setSuccess(false);
+            response.setErrors(errors);
+            response.setMessages(messages);
+            response.setErrorCount(errors.size());
+            return response;
         }
 
         // Generate error files and summary if there are errors
@@ -126,45 +167,32 @@ public class StoreService {
         try {
             // UPSERT logic: Update existing stores or insert new ones
             // This preserves existing data not in the upload file
-            int updatedCount = 0;
-            int insertedCount = 0;
+            int[] counts = new int[3];
 
-            messages.add("Processing " + storesToSave.size() + " stores with UPSERT logic");
-            
-            for (Store newStore : storesToSave) {
-                Store existingStore = storeDao.findByBranch(newStore.getBranch());
-                
-                if (existingStore != null) {
-                    // UPDATE: Merge new data into existing record
-                    StringBuilder changes = new StringBuilder();
-                    if (!existingStore.getCity().equals(newStore.getCity())) {
-                        changes.append("City: ").append(existingStore.getCity()).append(" → ").append(newStore.getCity()).append("; ");
-                    }
-                    
-                    existingStore.setCity(newStore.getCity());
-                    storeDao.save(existingStore);
-                    updatedCount++;
-                    
-                    // Audit log the update
-                    if (changes.length() > 0) {
-                        auditService.logAction("Store", existingStore.getId(), "UPDATE", 
-                            changes.toString(), "system");
-                    }
-                } else {
-                    // INSERT: New store
-                    storeDao.save(newStore);
-                    insertedCount++;
-                    
-                    // Audit log the insert
-                    auditService.logAction("Store", newStore.getId(), "INSERT", 
-                        "New store created: " + newStore.getBranch(), "system");
-                }
+            messages.add("Processing " + validCount + " stores with UPSERT logic");
+            saveInBatches(rows, counts);
+            int insertedCount = counts[0];
+            int updatedCount = counts[1];
+            int changedCount = counts[2];
+
+            dataCounterService.add(DataCounterService.STORES, insertedCount);
+
+            // Audit log the upsert as bulk actions
+            if (insertedCount > 0) {
+                auditService.logBulkAction("Store", "BULK_INSERT", insertedCount,
+                    "New stores created from upload", "system");
+            }
+            if (updatedCount > 0) {
+                auditService.logBulkAction("Store", "BULK_UPDATE", updatedCount,
+                    "Existing stores updated from upload (" + changedCount + " with city changes)", "system");
             }
             
             messages.add("Stores upload completed: " + insertedCount + " inserted, " + updatedCount + " updated");
             messages.add("Data clearing completed");
             messages.add("Stores upload completed successfully");
 
+        } catch (TaskCancelledException e) {
+            throw e; // let the task worker roll back and mark the task CANCELLED
         } catch (Exception e) {
             errors.add("Database error: " + e.getMessage());
             response.setSuccess(false);
@@ -177,10 +205,73 @@ public class StoreService {
         response.setSuccess(true);
         response.setErrors(errors);
         response.setMessages(messages);
-        response.setRecordCount(storesToSave.size());
+        response.setRecordCount(validCount);
         return response;
     }
 
+    /**
+     * Rewind the cursor and upsert every row, one chunk at a time.
+     * Only called once the validation pass found no errors.
+     *
+     * @param rows Cursor over the TSV rows
+     * @param counts Receives {inserted, updated, updated with city changes}
+     * @throws ApiException if the input cannot be re-read
+     */
+    private void saveInBatches(TsvRowCursor rows, int[] counts) throws ApiException {
+        // Errors were already reported by the validation pass
+        ErrorTracker scratchTracker = new ErrorTracker(HEADERS);
+        List<Store> chunk = new ArrayList<>(batchSize);
+
+        rows.reset();
+        while (rows.next()) {
+            TsvRow row = rows.row();
+            Store entity = convertTsvRowToStoreWithValidation(row, row.getRowNumber(), scratchTracker);
+            if (entity == null) {
+                continue;
+            }
+            chunk.add(entity);
+            if (chunk.size() >= batchSize) {
+                upsertChunk(chunk, counts);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            upsertChunk(chunk, counts);
+        }
+    }
+
+    /**
+     * Set-based upsert: one IN query to find existing rows, then update the managed
+     * entities and persist the new ones in a single flush
+     */
+    private void upsertChunk(List<Store> chunk, int[] counts) {
+        Map<String, Store> existingByKey = new HashMap<>();
+        for (Store existing : storeDao.findByBranches(chunk.stream().map(Store::getBranch).collect(java.util.stream.Collectors.toList()))) {
+            existingByKey.put(existing.getBranch(), existing);
+        }
+
+        List<Store> newEntities = new ArrayList<>();
+        for (Store incoming : chunk) {
+            Store existing = existingByKey.get(incoming.getBranch());
+
+            if (existing != null) {
+                // UPDATE: Merge new data into existing (managed) record
+                if (!existing.getCity().equals(incoming.getCity())) {
+                    counts[2]++;
+                }
+                existing.setCity(incoming.getCity());
+                counts[1]++;
+            } else {
+                // INSERT: New store
+                newEntities.add(incoming);
+            }
+        }
+
+        // Persists inserts and flushes this chunk's updates
+        storeDao.saveAll(newEntities);
+        counts[0] += newEntities.size();
+    }
+
     /**
      * Convert a TSV row to Store entity with field mapping and validation.
      * TSV fields map directly to entity fields.
@@ -259,7 +350,7 @@ public class StoreService {
      * @param errorTracker Error tracker for collecting validation errors
      * @return Validated Store entity, or null if validation fails
      */
-    private Store convertTsvRowToStoreWithValidation(HashMap<String, String> row, int rowNumber, ErrorTracker errorTracker) {
+    private Store convertTsvRowToStoreWithValidation(Map<String, String> row, int rowNumber, ErrorTracker errorTracker) {
         Store store = new Store();
         boolean hasErrors = false;
         
@@ -311,4 +402,19 @@ public class StoreService {
         }
         return store;
     }
+
+    /**
+     * Load every store branch → id mapping into a compact dictionary with one query.
+     * Bulk ingestion resolves rows against this instead of a lookup per row.
+     *
+     * @return Dictionary keyed by the stored (normalized) store branch
+     */
+    public CodeIdMap loadBranchIdDictionary() {
+        List<Object[]> rows = storeDao.findAllBranchIds();
+        CodeIdMap dictionary = new CodeIdMap(rows.size());
+        for (Object[] row : rows) {
+            dictionary.putIfAbsent((String) row[0], ((Number) row[1]).intValue());
+        }
+        return dictionary;
+    }
 }
@@ -0,0 +1,268 @@
+package com.iris.increff.service;
+
+import com.iris.increff.dao.DataCounterDao;
+import com.iris.increff.dao.StyleDayAggregateDao;
+import com.iris.increff.model.StyleDayAggregate;
+import com.iris.increff.util.SalesSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintains the style_day_aggregate table used by incremental NOOS runs.
+ *
+ * The table is rebuilt from the sales snapshot after every committed sales
+ * upload and cleared when master data changes. The data version it was built
+ * from is stored alongside it. Before use, NOOS compares that version with the
+ * current one, and the aggregated row count with the sales table, and rebuilds
+ * on any mismatch. A reload with the same number of rows and a write that
+ * bypasses the upload path are both caught, so a run never reads aggregates
+ * for a different data set.
+ *
+ * Methods join the caller's transaction, except {@link #rebuildAfterCommit()}:
+ * uploads use it so the rebuild runs in its own transaction once the upload
+ * has committed. A failed rebuild then cannot roll back the upload, and the
+ * rebuild never reads (or caches a snapshot of) uncommitted sales.
+ *
+ * @author Anshuk Kawarry
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Service
+public class StyleDayAggregateService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StyleDayAggregateService.class);
+
+    /**
+     * Discount buckets are whole percentage points
+     */
+    private static final int BUCKETS_PER_UNIT = 100;
+
+    /**
+     * Counter row holding the data version the aggregates were built from
+     */
+    public static final String BUILT_FROM_COUNTER = "style_day_aggregate_version";
+
+    @Autowired
+    private StyleDayAggregateDao styleDayAggregateDao;
+
+    @Autowired
+    private SalesSnapshotService salesSnapshotService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DataVersionService dataVersionService;
+
+    @Autowired
+    private DataCounterDao dataCounterDao;
+
+    @Autowired
+    private DataCounterService dataCounterService;
+
+    /**
+     * Replace the aggregates with totals computed from the current sales table
+     *
+     * @return Number of aggregate rows written
+     */
+    public int rebuild() {
+        long start = System.currentTimeMillis();
+        // Read before the sales: a write committed in between only makes the stamp older than the data
+        long dataVersion = dataVersionService.getVersion();
+        SalesSnapshot snapshot = salesSnapshotService.getSnapshot();
+
+        // SKU id -> style (code, category); sales FKs guarantee every SKU is present
+        Map<Integer, String[]> styleBySkuId = new HashMap<>();
+        for (Object[] row : styleDayAggregateDao.findSkuStyleMapping()) {
+            styleBySkuId.put(((Number) row[0]).intValue(), new String[] {(String) row[1], (String) row[2]});
+        }
+
+        // (style, day, bucket) -> {quantity, revenue cents, discount cents, sales count}
+        Map<String, String[]> styleByCode = new HashMap<>();
+        Map<AggregateKey, long[]> totals = new HashMap<>();
+        for (int row = 0; row < snapshot.size(); row++) {
+            String[] style = styleBySkuId.get(snapshot.skuId(row));
+            if (style == null) {
+                continue;
+            }
+            styleByCode.putIfAbsent(style[0], style);
+            long revenue = snapshot.revenueCents(row);
+            long discount = snapshot.discountCents(row);
+            AggregateKey key = new AggregateKey(style[0], snapshot.day(row), discountBucket(discount, revenue));
+            long[] sums = totals.computeIfAbsent(key, k -> new long[4]);
+            sums[0] += snapshot.quantity(row);
+            sums[1] += revenue;
+            sums[2] += discount;
+            sums[3]++;
+        }
+
+        List<StyleDayAggregate> aggregates = new ArrayList<>(totals.size());
+        for (Map.Entry<AggregateKey, long[]> entry : totals.entrySet()) {
+            AggregateKey key = entry.getKey();
+            long[] sums = entry.getValue();
+            aggregates.add(new StyleDayAggregate(null, key.styleCode, styleByCode.get(key.styleCode)[1],
+                    Date.valueOf(LocalDate.ofEpochDay(key.day)), key.bucket, sums[0],
+                    BigDecimal.valueOf(sums[1], 2), BigDecimal.valueOf(sums[2], 2), (int) sums[3]));
+        }
+
+        styleDayAggregateDao.deleteAll();
+        int written = styleDayAggregateDao.insertAll(aggregates);
+        recordBuiltFrom(dataVersion);
+        logger.info("📊 Rebuilt style day aggregates: {} rows from {} sales in {} ms",
+                   written, snapshot.size(), System.currentTimeMillis() - start);
+        return written;
+    }
+
+    /**
+     * Rebuild the aggregates in a new transaction once the current transaction
+     * commits (immediately when called outside a transaction). Called after a
+     * sales upload; a failure is only logged, as NOOS rebuilds stale aggregates
+     * before its next run.
+     */
+    public void rebuildAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    rebuildInNewTransaction();
+                }
+            });
+        } else {
+            rebuildInNewTransaction();
+        }
+    }
+
+    private void rebuildInNewTransaction() {
+        TransactionTemplate newTransaction = new TransactionTemplate(transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            newTransaction.execute(status -> rebuild());
+        } catch (RuntimeException e) {
+            logger.warn("⚠️ Style day aggregate rebuild failed, deferring to next NOOS run: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Drop all aggregates (e.g. after master data changes); the next NOOS run rebuilds them
+     */
+    public void invalidate() {
+        styleDayAggregateDao.deleteAll();
+        dataCounterDao.set(BUILT_FROM_COUNTER, DataVersionService.UNKNOWN);
+    }
+
+    /**
+     * Rebuild the aggregates if they were not built from the current data version
+     * and sales table
+     */
+    public void ensureCurrent() {
+        long dataVersion = dataVersionService.getVersion();
+        Long builtFrom = dataCounterDao.getValue(BUILT_FROM_COUNTER);
+        long salesCount = salesSnapshotService.getSalesCount();
+        long aggregatedCount = styleDayAggregateDao.getSourceSalesCount();
+        if (dataVersion == DataVersionService.UNKNOWN || builtFrom == null || builtFrom != dataVersion
+                || salesCount != aggregatedCount) {
+            logger.info("🔄 Style day aggregates cover {} of {} sales at data version {} (current {}), rebuilding",
+                       aggregatedCount, salesCount, builtFrom, dataVersion);
+            rebuild();
+        }
+    }
+
+    /**
+     * Store the data version the aggregates were built from, in the rebuild's
+     * transaction. A missing row is first seeded as unknown in its own
+     * transaction, so a rolled-back rebuild never leaves a valid stamp behind.
+     */
+    private void recordBuiltFrom(long dataVersion) {
+        if (dataCounterDao.set(BUILT_FROM_COUNTER, dataVersion) == 0) {
+            dataCounterService.seed(BUILT_FROM_COUNTER, DataVersionService.UNKNOWN);
+            dataCounterDao.set(BUILT_FROM_COUNTER, dataVersion);
+        }
+    }
+
+    /**
+     * Per-style totals for the sales retained by the liquidation threshold
+     *
+     * @param startDate Start date (inclusive), or null for all dates
+     * @param endDate End date (inclusive), or null for all dates
+     * @param liquidationThreshold Threshold; must satisfy {@link #supportsThreshold(double)}
+     * @return Rows of [styleCode, category, quantity, revenue, discount, distinct days]
+     */
+    public List<Object[]> aggregateByStyle(java.util.Date startDate, java.util.Date endDate, double liquidationThreshold) {
+        return styleDayAggregateDao.aggregateByStyle(startDate, endDate, maxRetainedBucket(liquidationThreshold));
+    }
+
+    /**
+     * Aggregates answer thresholds on the whole-percent grid (0.20, 0.25, ...)
+     * exactly; anything finer must be computed from raw sales.
+     */
+    public static boolean supportsThreshold(double liquidationThreshold) {
+        return maxRetainedBucket(liquidationThreshold) >= 0;
+    }
+
+    /**
+     * Highest bucket kept by a threshold, or -1 if the threshold is not a whole percent
+     */
+    static int maxRetainedBucket(double liquidationThreshold) {
+        BigDecimal percent = BigDecimal.valueOf(liquidationThreshold).movePointRight(2);
+        if (percent.compareTo(BigDecimal.valueOf(BUCKETS_PER_UNIT)) >= 0) {
+            return BUCKETS_PER_UNIT;
+        }
+        if (percent.signum() < 0 || percent.stripTrailingZeros().scale() > 0) {
+            return -1;
+        }
+        return percent.intValueExact();
+    }
+
+    /**
+     * Smallest whole percent k with discount / (discount + revenue) <= k / 100,
+     * computed exactly in cents. Sales without positive revenue go to the excluded bucket.
+     */
+    static int discountBucket(long discountCents, long revenueCents) {
+        if (revenueCents <= 0) {
+            return StyleDayAggregate.EXCLUDED_BUCKET;
+        }
+        long total = discountCents + revenueCents;
+        return (int) ((BUCKETS_PER_UNIT * discountCents + total - 1) / total);
+    }
+
+    private static final class AggregateKey {
+        private final String styleCode;
+        private final int day;
+        private final int bucket;
+
+        AggregateKey(String styleCode, int day, int bucket) {
+            this.styleCode = styleCode;
+            this.day = day;
+            this.bucket = bucket;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof AggregateKey)) {
+                return false;
+            }
+            AggregateKey other = (AggregateKey) o;
+            return day == other.day && bucket == other.bucket && styleCode.equals(other.styleCode);
+        }
+
+        @Override
+        public int hashCode() {
+            return (styleCode.hashCode() * 31 + day) * 127 + bucket;
+        }
+    }
+}
@@ -6,7 +6,13 @@ import com.iris.increff.model.Style;
 import com.iris.increff.exception.ApiException;
 import com.iris.increff.service.ValidationService.ValidationResult;
 import com.iris.increff.service.ErrorTrackingService.ErrorTracker;
+import com.iris.increff.util.CodeIdMap;
+import com.iris.increff.util.DuplicateKeyTracker;
+import com.iris.increff.util.TsvRow;
+import com.iris.increff.util.TsvRowCursor;
+import com.iris.increff.exception.TaskCancelledException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -28,6 +34,8 @@ import java.util.Map;
 @Service
 public class StyleService {
 
+    private static final String[] HEADERS = {"style", "brand", "category", "sub_category", "mrp", "gender"};
+
     @Autowired
     private StyleDao styleDao;
 
@@ -40,52 +48,91 @@ public class StyleService {
     @Autowired
     private ErrorTrackingService errorTrackingService;
 
+    @Autowired
+    private StyleDayAggregateService styleDayAggregateService;
+
+    @Autowired
+    private DataVersionService dataVersionService;
+
+    @Autowired
+    private DataCounterService dataCounterService;
+
+    /**
+     * Rows upserted per chunk (one IN query each)
+     */
+    @Value("${app.batch.size:1000}")
+    private int batchSize;
+
+    /**
+     * Process and save already-parsed TSV rows. Delegates to the cursor-based variant.
+     *
+     * @param tsvData Parsed TSV data as list of row maps
+     * @return UploadResponse with success status, messages, and error tracking information
+     */
+    @Transactional
+    public UploadResponse processAndSaveStyles(ArrayList<HashMap<String, String>> tsvData) {
+        return processAndSaveStyles(TsvRowCursor.of(tsvData, HEADERS));
+    }
+
     /**
      * Process and save styles from TSV data with enhanced validation and error tracking.
      * Expected TSV format: style, brand, category, sub_category, mrp, gender
      * Maps to entity fields: styleCode, brand, category, subCategory, mrp, gender
      *
-     * @param tsvData Parsed TSV data as list of row maps
+     * The input is scanned twice so that no more than one chunk of entities is held in memory:
+     * the first pass validates and checks duplicates (only style codes are kept), the second pass
+     * (run only when the file is valid) rewinds the cursor and upserts chunks of app.batch.size.
+     *
+     * @param rows Cursor over the TSV rows; must support reset for the save pass
      * @return UploadResponse with success status, messages, and error tracking information
      */
     @Transactional
-    public UploadResponse processAndSaveStyles(ArrayList<HashMap<String, String>> tsvData) {
+    public UploadResponse processAndSaveStyles(TsvRowCursor rows) {
         UploadResponse response = new UploadResponse();
         List<String> errors = new ArrayList<>();
         List<String> messages = new ArrayList<>();
-        List<Style> stylesToSave = new ArrayList<>();
+        int validCount = 0;
         
         // Initialize error tracker
-        String[] headers = {"style", "brand", "category", "sub_category", "mrp", "gender"};
-        ErrorTracker errorTracker = new ErrorTracker(headers);
+        ErrorTracker errorTracker = new ErrorTracker(HEADERS);
+        DuplicateKeyTracker seenKeys = new DuplicateKeyTracker();
 
         // Tests expect clearing messages even in UPSERT mode
         messages.add("Clearing existing data (UPSERT mode - no deletion)");
 
         // First pass: Comprehensive validation with detailed error tracking
-        for (int i = 0; i < tsvData.size(); i++) {
-            HashMap<String, String> row = tsvData.get(i);
-            int rowNumber = i + 2; // +2 because: +1 for 0-indexing, +1 for header row
+        try {
+            while (rows.next()) {
+                TsvRow row = rows.row();
+                int rowNumber = row.getRowNumber();
 
-            try {
-                Style style = convertTsvRowToStyleWithValidation(row, rowNumber, errorTracker);
+                try {
+                    Style style = convertTsvRowToStyleWithValidation(row, rowNumber, errorTracker);
                 
-                if (style != null) {
-                    // Check for duplicate style codes within the uploaded data
-                    boolean duplicateInBatch = stylesToSave.stream()
-                        .anyMatch(s -> s.getStyleCode().equals(style.getStyleCode()));
-
-                    if (duplicateInBatch) {
-                        errorTracker.addDuplicateError(rowNumber, row, "style", style.getStyleCode());
-                        continue;
+                    if (style != null) {
+                        // Check for duplicate style codes within the uploaded data
+                        int firstSeenRow = seenKeys.checkAndRecord(style.getStyleCode(), rowNumber);
+
+                        if (firstSeenRow != DuplicateKeyTracker.NOT_SEEN) {
+                            errorTracker.addDuplicateError(rowNumber, row, "style", style.getStyleCode(), firstSeenRow);
+                            continue;
+                        }
+
+                        validCount++;
                     }
 
-                    stylesToSave.add(style);
+                } catch (Exception e) {
+                    errorTracker.addError(rowNumber, row, "Unexpected error: " + e.getMessage(), "SYSTEM_ERROR");
                 }
-
-            } catch (Exception e) {
-                errorTracker.addError(rowNumber, row, "Unexpected error: " + e.getMessage(), "SYSTEM_ERROR");
             }
+        } catch (ApiException e) {
+            // Input could not be read (I/O failure or row limit exceeded)
+            errors.add(e.getMessage());
+            response.setSuccess(false);
+            response.setErrors(errors);
+            response.setMessages(messages);
+            response.setErrorCount(errors.size());
+            return response;
         }
 
         // Generate error files and summary if there are errors
@@ -127,52 +174,40 @@ public class StyleService {
         try {
             // UPSERT logic: Update existing styles or insert new ones
             // This preserves existing data not in the upload file
-            int updatedCount = 0;
-            int insertedCount = 0;
+            int[] counts = new int[3];
 
-            messages.add("Processing " + stylesToSave.size() + " styles with UPSERT logic");
-            
-            for (Style newStyle : stylesToSave) {
-                Style existingStyle = styleDao.findByStyleCode(newStyle.getStyleCode());
-                
-                if (existingStyle != null) {
-                    // UPDATE: Merge new data into existing record
-                    StringBuilder changes = new StringBuilder();
-                    if (!existingStyle.getMrp().equals(newStyle.getMrp())) {
-                        changes.append("MRP: ").append(existingStyle.getMrp()).append(" → ").append(newStyle.getMrp()).append("; ");
-                    }
-                    if (!existingStyle.getBrand().equals(newStyle.getBrand())) {
-                        changes.append("Brand: ").append(existingStyle.getBrand()).append(" → ").append(newStyle.getBrand()).append("; ");
-                    }
-                    
-                    existingStyle.setBrand(newStyle.getBrand());
-                    existingStyle.setCategory(newStyle.getCategory());
-                    existingStyle.setSubCategory(newStyle.getSubCategory());
-                    existingStyle.setMrp(newStyle.getMrp());
-                    existingStyle.setGender(newStyle.getGender());
-                    styleDao.save(existingStyle);
-                    updatedCount++;
-                    
-                    // Audit log the update
-                    if (changes.length() > 0) {
-                        auditService.logAction("Style", existingStyle.getId(), "UPDATE", 
-                            changes.toString(), "system");
-                    }
-                } else {
-                    // INSERT: New style
-                    styleDao.save(newStyle);
-                    insertedCount++;
-                    
-                    // Audit log the insert
-                    auditService.logAction("Style", newStyle.getId(), "INSERT", 
-                        "New style created: " + newStyle.getStyleCode(), "system");
-                }
+            messages.add("Processing " + validCount + " styles with UPSERT logic");
+            saveInBatches(rows, counts);
+            int insertedCount = counts[0];
+            int updatedCount = counts[1];
+            int changedCount = counts[2];
+
+            dataCounterService.add(DataCounterService.STYLES, insertedCount);
+
+            // Updated styles may change the category sales are aggregated under
+            if (updatedCount > 0) {
+                styleDayAggregateService.invalidate();
+            }
+            if (insertedCount + updatedCount > 0) {
+                dataVersionService.bump();
+            }
+
+            // Audit log the upsert as bulk actions
+            if (insertedCount > 0) {
+                auditService.logBulkAction("Style", "BULK_INSERT", insertedCount,
+                    "New styles created from upload", "system");
+            }
+            if (updatedCount > 0) {
+                auditService.logBulkAction("Style", "BULK_UPDATE", updatedCount,
+                    "Existing styles updated from upload (" + changedCount + " with MRP/brand changes)", "system");
             }
             
             messages.add("Styles upload completed: " + insertedCount + " inserted, " + updatedCount + " updated");
             messages.add("Data clearing completed");
             messages.add("Styles upload completed successfully");
 
+        } catch (TaskCancelledException e) {
+            throw e; // let the task worker roll back and mark the task CANCELLED
         } catch (Exception e) {
             errors.add("Database error: " + e.getMessage());
             response.setSuccess(false);
@@ -185,11 +220,79 @@ public class StyleService {
         response.setSuccess(true);
         response.setErrors(errors);
         response.setMessages(messages);
-        response.setRecordCount(stylesToSave.size());
+        response.setRecordCount(validCount);
         response.setErrorCount(errors.size());
         return response;
     }
 
+    /**
+     * Rewind the cursor and upsert every row, one chunk at a time.
+     * Only called once the validation pass found no errors.
+     *
+     * @param rows Cursor over the TSV rows
+     * @param counts Receives {inserted, updated, updated with MRP/brand changes}
+     * @throws ApiException if the input cannot be re-read
+     */
+    private void saveInBatches(TsvRowCursor rows, int[] counts) throws ApiException {
+        // Errors were already reported by the validation pass
+        ErrorTracker scratchTracker = new ErrorTracker(HEADERS);
+        List<Style> chunk = new ArrayList<>(batchSize);
+
+        rows.reset();
+        while (rows.next()) {
+            TsvRow row = rows.row();
+            Style style = convertTsvRowToStyleWithValidation(row, row.getRowNumber(), scratchTracker);
+            if (style == null) {
+                continue;
+            }
+            chunk.add(style);
+            if (chunk.size() >= batchSize) {
+                upsertChunk(chunk, counts);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            upsertChunk(chunk, counts);
+        }
+    }
+
+    /**
+     * Set-based upsert: one IN query to find existing rows, then update the managed
+     * entities and persist the new ones in a single flush
+     */
+    private void upsertChunk(List<Style> chunk, int[] counts) {
+        Map<String, Style> existingByCode = new HashMap<>();
+        for (Style existing : styleDao.findByStyleCodes(chunk.stream().map(Style::getStyleCode).collect(java.util.stream.Collectors.toList()))) {
+            existingByCode.put(existing.getStyleCode(), existing);
+        }
+
+        List<Style> newStyles = new ArrayList<>();
+        for (Style newStyle : chunk) {
+            Style existingStyle = existingByCode.get(newStyle.getStyleCode());
+
+            if (existingStyle != null) {
+                // UPDATE: Merge new data into existing (managed) record
+                if (!existingStyle.getMrp().equals(newStyle.getMrp())
+                        || !existingStyle.getBrand().equals(newStyle.getBrand())) {
+                    counts[2]++;
+                }
+                existingStyle.setBrand(newStyle.getBrand());
+                existingStyle.setCategory(newStyle.getCategory());
+                existingStyle.setSubCategory(newStyle.getSubCategory());
+                existingStyle.setMrp(newStyle.getMrp());
+                existingStyle.setGender(newStyle.getGender());
+                counts[1]++;
+            } else {
+                // INSERT: New style
+                newStyles.add(newStyle);
+            }
+        }
+
+        // Persists inserts and flushes this chunk's updates
+        styleDao.saveAll(newStyles);
+        counts[0] += newStyles.size();
+    }
+
     /**
      * Convert a TSV row to Style entity with field mapping and validation.
      * TSV fields → Entity fields mapping:
@@ -304,7 +407,7 @@ public class StyleService {
      * @param errorTracker Error tracker for collecting validation errors
      * @return Validated Style entity, or null if validation fails
      */
-    private Style convertTsvRowToStyleWithValidation(HashMap<String, String> row, int rowNumber, ErrorTracker errorTracker) {
+    private Style convertTsvRowToStyleWithValidation(Map<String, String> row, int rowNumber, ErrorTracker errorTracker) {
         Style style = new Style();
         boolean hasErrors = false;
         
@@ -400,4 +503,19 @@ public class StyleService {
         }
         return style;
     }
+
+    /**
+     * Load every style code → id mapping into a compact dictionary with one query.
+     * Bulk SKU ingestion resolves rows against this instead of a lookup per row.
+     *
+     * @return Dictionary keyed by the stored (normalized) style code
+     */
+    public CodeIdMap loadStyleIdDictionary() {
+        List<Object[]> rows = styleDao.findAllStyleCodeIds();
+        CodeIdMap dictionary = new CodeIdMap(rows.size());
+        for (Object[] row : rows) {
+            dictionary.putIfAbsent((String) row[0], ((Number) row[1]).intValue());
+        }
+        return dictionary;
+    }
 }
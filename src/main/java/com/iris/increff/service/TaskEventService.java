@@ -0,0 +1,263 @@
+package com.iris.increff.service;
+
+import com.iris.increff.model.Task;
+import com.iris.increff.model.TaskEventData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+/**
+ * Pushes task progress to clients over Server-Sent Events.
+ *
+ * Clients subscribe to one task or to every task (optionally one user's).
+ * Progress published through the TaskProgressRegistry is coalesced per task
+ * and sent by a short fixed-delay dispatch, so workers never block on client
+ * sockets and a burst of ticks costs one event. Terminal states are sent as
+ * soon as the worker's transaction completes, after which single-task streams
+ * are closed.
+ *
+ * Streams only see tasks running in this process.
+ *
+ * @author Anshuk Kawarry
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Service
+public class TaskEventService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskEventService.class);
+
+    static final String EVENT_NAME = "task";
+
+    /**
+     * Stream lifetime; browsers reconnect on their own when it ends
+     */
+    @Value("${app.tasks.events.timeout-ms:600000}")
+    private long timeoutMs = 600000;
+
+    /**
+     * Open streams allowed at once, across all subscriptions
+     */
+    @Value("${app.tasks.events.max-subscribers:200}")
+    private int maxSubscribers = 200;
+
+    private final Map<Long, List<Subscriber>> taskSubscribers = new ConcurrentHashMap<>();
+    private final List<Subscriber> allTaskSubscribers = new CopyOnWriteArrayList<>();
+    private final Map<Long, TaskEventData> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Open a stream for one task. The task's state is read after subscribing and
+     * sent first, so a task finishing in between is never missed; the stream is
+     * closed right away if the task has already finished.
+     *
+     * @param taskId Task ID
+     * @param currentState Reads the task's current state, or null if it does not exist
+     * @return Emitter, or null if the subscriber limit is reached
+     */
+    public SseEmitter subscribe(Long taskId, Supplier<Task> currentState) {
+        if (getSubscriberCount() >= maxSubscribers) {
+            return null;
+        }
+        Subscriber subscriber = register(taskId, null, new SseEmitter(timeoutMs));
+        Task current = currentState.get();
+        if (current != null) {
+            TaskEventData event = TaskEventData.from(current);
+            if (send(subscriber, event) && event.isFinished()) {
+                remove(subscriber);
+                subscriber.emitter.complete();
+            }
+        }
+        return subscriber.emitter;
+    }
+
+    /**
+     * Open a stream for all tasks, starting with the ones currently running
+     *
+     * @param userId Only send this user's tasks, or null for every task
+     * @param liveTasks Tasks currently running
+     * @return Emitter, or null if the subscriber limit is reached
+     */
+    public SseEmitter subscribeAll(String userId, Collection<Task> liveTasks) {
+        if (getSubscriberCount() >= maxSubscribers) {
+            return null;
+        }
+        Subscriber subscriber = register(null, userId, new SseEmitter(timeoutMs));
+        for (Task task : liveTasks) {
+            TaskEventData event = TaskEventData.from(task);
+            if (subscriber.accepts(event) && !send(subscriber, event)) {
+                break;
+            }
+        }
+        return subscriber.emitter;
+    }
+
+    /**
+     * Record progress for the next dispatch; only the latest state per task is sent
+     *
+     * @param task Task snapshot
+     */
+    public void taskChanged(Task task) {
+        if (hasSubscribers()) {
+            pending.put(task.getId(), TaskEventData.from(task));
+        }
+    }
+
+    /**
+     * Send a terminal state now and close the task's single-task streams
+     *
+     * @param task Task in COMPLETED, FAILED or CANCELLED state
+     */
+    public void taskFinished(Task task) {
+        pending.remove(task.getId());
+        if (!hasSubscribers()) {
+            return;
+        }
+        TaskEventData event = TaskEventData.from(task);
+        deliver(event);
+        List<Subscriber> subscribers = taskSubscribers.remove(task.getId());
+        if (subscribers != null) {
+            for (Subscriber subscriber : subscribers) {
+                subscriber.emitter.complete();
+            }
+        }
+    }
+
+    /**
+     * Send progress recorded since the last dispatch
+     *
+     * @return Number of task events sent
+     */
+    @Scheduled(fixedDelayString = "${app.tasks.events.dispatch-interval-ms:250}")
+    public int dispatch() {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        int sent = 0;
+        for (Long taskId : new ArrayList<>(pending.keySet())) {
+            TaskEventData event = pending.remove(taskId);
+            if (event != null) {
+                deliver(event);
+                sent++;
+            }
+        }
+        return sent;
+    }
+
+    /**
+     * Keep idle streams open through proxies and drop clients that went away
+     */
+    @Scheduled(fixedDelayString = "${app.tasks.events.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : allSubscribers()) {
+            try {
+                subscriber.emitter.send(SseEmitter.event().comment("keepalive"));
+            } catch (IOException | IllegalStateException e) {
+                remove(subscriber);
+            }
+        }
+    }
+
+    /**
+     * @return Number of open streams
+     */
+    public int getSubscriberCount() {
+        int count = allTaskSubscribers.size();
+        for (List<Subscriber> subscribers : taskSubscribers.values()) {
+            count += subscribers.size();
+        }
+        return count;
+    }
+
+    Subscriber register(Long taskId, String userId, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(taskId, userId, emitter);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        if (taskId != null) {
+            taskSubscribers.computeIfAbsent(taskId, id -> new CopyOnWriteArrayList<>()).add(subscriber);
+        } else {
+            allTaskSubscribers.add(subscriber);
+        }
+        return subscriber;
+    }
+
+    private void deliver(TaskEventData event) {
+        List<Subscriber> subscribers = taskSubscribers.get(event.getId());
+        if (subscribers != null) {
+            for (Subscriber subscriber : subscribers) {
+                send(subscriber, event);
+            }
+        }
+        for (Subscriber subscriber : allTaskSubscribers) {
+            if (subscriber.accepts(event)) {
+                send(subscriber, event);
+            }
+        }
+    }
+
+    private boolean send(Subscriber subscriber, TaskEventData event) {
+        try {
+            subscriber.emitter.send(SseEmitter.event()
+                    .name(EVENT_NAME)
+                    .id(String.valueOf(event.getId()))
+                    .data(event, MediaType.APPLICATION_JSON));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // Client disconnected or the stream already completed
+            logger.debug("Dropping task event subscriber: {}", e.getMessage());
+            remove(subscriber);
+            return false;
+        }
+    }
+
+    private boolean hasSubscribers() {
+        return !allTaskSubscribers.isEmpty() || !taskSubscribers.isEmpty();
+    }
+
+    private List<Subscriber> allSubscribers() {
+        List<Subscriber> subscribers = new ArrayList<>(allTaskSubscribers);
+        for (Collection<Subscriber> forTask : taskSubscribers.values()) {
+            subscribers.addAll(forTask);
+        }
+        return subscribers;
+    }
+
+    private void remove(Subscriber subscriber) {
+        if (subscriber.taskId == null) {
+            allTaskSubscribers.remove(subscriber);
+            return;
+        }
+        taskSubscribers.computeIfPresent(subscriber.taskId, (id, subscribers) -> {
+            subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+
+    static final class Subscriber {
+        private final Long taskId;    // null for an all-tasks stream
+        private final String userId;  // all-tasks filter, null for every user
+        private final SseEmitter emitter;
+
+        Subscriber(Long taskId, String userId, SseEmitter emitter) {
+            this.taskId = taskId;
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        boolean accepts(TaskEventData event) {
+            return userId == null || userId.equals(event.getUserId());
+        }
+    }
+}
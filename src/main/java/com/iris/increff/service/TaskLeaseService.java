@@ -0,0 +1,178 @@
+package com.iris.increff.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Leases on the tasks rows, so several app nodes can share one tasks table.
+ *
+ * A node claims a task's lease before working on it with a conditional
+ * UPDATE that only succeeds while the lease is free, expired or already its
+ * own; exactly one node wins, on MySQL and H2 alike. The owner renews its
+ * leases on a heartbeat until the worker's transaction completes. A lease
+ * that stops being renewed means the node went away, and TaskWorkerService
+ * on any node reclaims the task.
+ *
+ * The heartbeat also reads back cancellation requests for the tasks this
+ * node holds, so a cancel received by another node still reaches the worker.
+ *
+ * Leasing is off unless app.tasks.lease.enabled is set; a single node then
+ * runs every task it receives, as before.
+ *
+ * @author Anshuk Kawarry
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Service
+public class TaskLeaseService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskLeaseService.class);
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private CancellationRegistry cancellationRegistry;
+
+    @Value("${app.tasks.lease.enabled:false}")
+    private boolean enabled = false;
+
+    /**
+     * Time after the last renewal at which other nodes may reclaim a task
+     */
+    @Value("${app.tasks.lease.duration-ms:60000}")
+    private long leaseMs = 60000;
+
+    /**
+     * Identifies this node in tasks.lease_owner; generated when blank
+     */
+    @Value("${app.node.id:}")
+    private String nodeId;
+
+    private final Set<Long> held = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Claim a task for this node. Always succeeds when leasing is off.
+     *
+     * @param taskId Task ID
+     * @return true if this node may run the task; false if another node holds it
+     *         or it already finished
+     */
+    public boolean acquire(Long taskId) {
+        if (!enabled) {
+            return true;
+        }
+        if (!taskService.claimLease(taskId, getNodeId(), expiry())) {
+            return false;
+        }
+        held.add(taskId);
+        return true;
+    }
+
+    /**
+     * Stop renewing a task's lease once the worker's transaction completes
+     * (immediately when called outside a transaction). The lease is left to
+     * expire rather than cleared: a finished task is never reclaimed, and a
+     * rolled back one should be.
+     *
+     * @param taskId Task ID
+     */
+    public void release(Long taskId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    held.remove(taskId);
+                }
+            });
+        } else {
+            held.remove(taskId);
+        }
+    }
+
+    /**
+     * Give a claimed task back right away, e.g. when it could not be queued here
+     *
+     * @param taskId Task ID
+     */
+    public void abandon(Long taskId) {
+        held.remove(taskId);
+        if (enabled) {
+            taskService.releaseLease(taskId, getNodeId());
+        }
+    }
+
+    /**
+     * Renew the leases of the tasks this node holds and pass on cancellations
+     * requested through other nodes
+     *
+     * @return Number of leases held
+     */
+    @Scheduled(fixedDelayString = "${app.tasks.lease.heartbeat-ms:20000}")
+    public int heartbeat() {
+        if (!enabled || held.isEmpty()) {
+            return 0;
+        }
+        List<Long> taskIds = new ArrayList<>(held);
+        try {
+            for (Long cancelled : taskService.renewLeases(taskIds, getNodeId(), expiry())) {
+                cancellationRegistry.cancel(cancelled);
+            }
+        } catch (RuntimeException e) {
+            // Retried on the next beat; leases outlive several missed beats
+            logger.warn("⚠️ Task lease heartbeat failed: {}", e.getMessage());
+        }
+        return taskIds.size();
+    }
+
+    /**
+     * @return true if tasks are claimed through leases
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return Number of tasks this node holds a lease on
+     */
+    public int getHeldCount() {
+        return held.size();
+    }
+
+    /**
+     * @return This node's ID
+     */
+    public synchronized String getNodeId() {
+        if (nodeId == null || nodeId.trim().isEmpty()) {
+            nodeId = hostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+            logger.info("🏷️ Task lease node ID: {}", nodeId);
+        }
+        return nodeId;
+    }
+
+    private Date expiry() {
+        return new Date(System.currentTimeMillis() + leaseMs);
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "node";
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.iris.increff.service;
+
+import com.iris.increff.model.Task;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * In-process registry of live task progress.
+ *
+ * Async workers publish progress here instead of writing the tasks row on every
+ * tick, and status reads are served from the latest published copy. Dirty
+ * entries are written to the tasks table by a coalescing flush on a fixed
+ * delay, so a burst of ticks costs one UPDATE. Terminal states are still
+ * written by the worker itself; their entry is dropped once the worker's
+ * transaction completes and reads fall back to the table.
+ *
+ * Every change is also handed to the TaskEventService for clients streaming
+ * task events.
+ *
+ * @author Anshuk Kawarry
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Service
+public class TaskProgressRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskProgressRegistry.class);
+
+    private final ConcurrentMap<Long, Task> progressByTaskId = new ConcurrentHashMap<>();
+    private final Set<Long> dirtyTaskIds = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private TaskEventService taskEventService;
+
+    /**
+     * Publish a task's current progress (status, message, record counts)
+     *
+     * @param task Task owned by the calling worker
+     */
+    public void publish(Task task) {
+        Task published = snapshot(task);
+        Task previous = progressByTaskId.get(task.getId());
+        if (previous != null && previous.isCancellationRequested()) {
+            published.setCancellationRequested(true); // keep a request made since the worker last looked
+        }
+        progressByTaskId.put(task.getId(), published);
+        dirtyTaskIds.add(task.getId());
+        taskEventService.taskChanged(published);
+    }
+
+    /**
+     * Publish a terminal state the worker has written through its own transaction.
+     * The entry is served until that transaction completes, then removed.
+     *
+     * @param task Task in COMPLETED, FAILED or CANCELLED state
+     */
+    public void publishFinal(Task task) {
+        Long taskId = task.getId();
+        dirtyTaskIds.remove(taskId);
+        Task finalSnapshot = snapshot(task);
+        progressByTaskId.put(taskId, finalSnapshot);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    progressByTaskId.remove(taskId, finalSnapshot);
+                    if (status == STATUS_COMMITTED) {
+                        taskEventService.taskFinished(finalSnapshot);
+                    }
+                }
+            });
+        } else {
+            progressByTaskId.remove(taskId, finalSnapshot);
+            taskEventService.taskFinished(finalSnapshot);
+        }
+    }
+
+    /**
+     * Publish a terminal state for a worker that stopped mid-transaction (e.g. on
+     * a cancellation poll). The worker's transaction is marked for rollback so
+     * its partial writes are discarded, and the state is written to the tasks
+     * table in a new transaction once the rollback has completed.
+     *
+     * @param task Task in FAILED or CANCELLED state
+     */
+    public void publishFinalAfterRollback(Task task) {
+        Long taskId = task.getId();
+        dirtyTaskIds.remove(taskId);
+        Task finalSnapshot = snapshot(task);
+        progressByTaskId.put(taskId, finalSnapshot);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            markRollbackOnly();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    writeFinal(finalSnapshot);
+                }
+            });
+        } else {
+            writeFinal(finalSnapshot);
+        }
+    }
+
+    /**
+     * Record a cancellation request against a live entry so reads reflect it immediately
+     *
+     * @param taskId Task ID
+     * @param message Progress message to show
+     */
+    public void markCancellationRequested(Long taskId, String message) {
+        Task updated = progressByTaskId.computeIfPresent(taskId, (id, current) -> {
+            Task copy = snapshot(current);
+            copy.setCancellationRequested(true);
+            copy.setProgressMessage(message);
+            return copy;
+        });
+        if (updated != null) {
+            taskEventService.taskChanged(updated);
+        }
+    }
+
+    /**
+     * Latest published state of a live task
+     *
+     * @param taskId Task ID
+     * @return Copy of the task as last published, or null if it is not live in this process
+     */
+    public Task get(Long taskId) {
+        Task current = progressByTaskId.get(taskId);
+        return current != null ? snapshot(current) : null;
+    }
+
+    /**
+     * @return Copies of every task with live progress in this process
+     */
+    public List<Task> getAll() {
+        List<Task> live = new ArrayList<>(progressByTaskId.size());
+        for (Task task : progressByTaskId.values()) {
+            live.add(snapshot(task));
+        }
+        return live;
+    }
+
+    /**
+     * @return Number of tasks with live progress in this process
+     */
+    public int size() {
+        return progressByTaskId.size();
+    }
+
+    /**
+     * Write progress published since the last flush to the tasks table
+     *
+     * @return Number of task rows updated
+     */
+    @Scheduled(fixedDelayString = "${app.tasks.progress.flush-interval-ms:1000}")
+    public int flush() {
+        if (dirtyTaskIds.isEmpty()) {
+            return 0;
+        }
+        List<Task> pending = new ArrayList<>(dirtyTaskIds.size());
+        for (Long taskId : dirtyTaskIds) {
+            dirtyTaskIds.remove(taskId);
+            Task current = progressByTaskId.get(taskId);
+            if (current != null && current.isRunning()) {
+                pending.add(current);
+            }
+        }
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        try {
+            int updated = taskService.flushProgress(pending);
+            logger.debug("🔄 Flushed progress for {} tasks", updated);
+            return updated;
+        } catch (RuntimeException e) {
+            // Progress is advisory; retry with whatever is current on the next flush
+            for (Task task : pending) {
+                dirtyTaskIds.add(task.getId());
+            }
+            logger.warn("⚠️ Task progress flush failed: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    private void writeFinal(Task finalSnapshot) {
+        try {
+            taskService.finishTask(finalSnapshot);
+            taskEventService.taskFinished(finalSnapshot);
+        } catch (RuntimeException e) {
+            logger.error("❌ Failed to record final state of task {}: {}", finalSnapshot.getId(), e.getMessage());
+        } finally {
+            progressByTaskId.remove(finalSnapshot.getId(), finalSnapshot);
+        }
+    }
+
+    private static void markRollbackOnly() {
+        try {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+        } catch (NoTransactionException e) {
+            // Worker invoked without its transactional proxy; nothing of its own to roll back
+        }
+    }
+
+    private static Task snapshot(Task task) {
+        Task copy = new Task();
+        BeanUtils.copyProperties(task, copy);
+        return copy;
+    }
+}
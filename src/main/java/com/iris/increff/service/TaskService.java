@@ -7,6 +7,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
 /**
  * Service for managing Task entities with proper transaction boundaries.
  * 
@@ -51,6 +56,165 @@ public class TaskService {
         taskDao.update(task);
     }
 
+    /**
+     * Write published progress for running tasks in one short transaction.
+     * Rows that already reached a terminal state are left untouched.
+     *
+     * @param tasks Progress snapshots from the TaskProgressRegistry
+     * @return Number of rows updated
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int flushProgress(List<Task> tasks) {
+        int updated = 0;
+        for (Task task : tasks) {
+            updated += taskDao.updateProgressIfRunning(task);
+        }
+        return updated;
+    }
+
+    /**
+     * Write a task's terminal state in its own transaction, for workers whose
+     * transaction was rolled back. Rows already in a terminal state are left untouched.
+     *
+     * @param task Task in COMPLETED, FAILED or CANCELLED state
+     * @return true if the row was updated
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean finishTask(Task task) {
+        return taskDao.finishIfRunning(task) > 0;
+    }
+
+    /**
+     * Claim a task's lease in its own transaction, so other nodes see the
+     * claim before this node starts working on the task
+     *
+     * @param taskId Task ID
+     * @param owner Node ID
+     * @param expiresAt Lease expiry
+     * @return true if this node now holds the lease
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean claimLease(Long taskId, String owner, Date expiresAt) {
+        return taskDao.claimLease(taskId, owner, expiresAt) > 0;
+    }
+
+    /**
+     * Renew this node's leases and report which of its tasks were cancelled
+     * (possibly through another node) in one short transaction
+     *
+     * @param taskIds Tasks this node holds
+     * @param owner Node ID
+     * @param expiresAt New lease expiry
+     * @return IDs among taskIds with a cancellation request
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public List<Long> renewLeases(Collection<Long> taskIds, String owner, Date expiresAt) {
+        taskDao.renewLeases(taskIds, owner, expiresAt);
+        return taskDao.getCancellationRequestedIds(taskIds);
+    }
+
+    /**
+     * Read a task's cancellation flag in its own transaction, so a request
+     * committed after the caller's transaction started is still seen
+     *
+     * @param taskId Task ID
+     * @return true if cancellation of the task was requested
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public boolean isCancellationRequested(Long taskId) {
+        return !taskDao.getCancellationRequestedIds(Collections.singletonList(taskId)).isEmpty();
+    }
+
+    /**
+     * Give up a lease in its own transaction
+     *
+     * @param taskId Task ID
+     * @param owner Node ID
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void releaseLease(Long taskId, String owner) {
+        taskDao.releaseLease(taskId, owner);
+    }
+
+    /**
+     * @param limit Maximum number of tasks
+     * @return Unfinished tasks whose lease expired
+     */
+    @Transactional(readOnly = true)
+    public List<Task> getExpiredLeases(int limit) {
+        return taskDao.getExpiredLeases(limit);
+    }
+
+    /**
+     * @param taskTypes Task types this node can run
+     * @param createdBefore Leave younger tasks to the node that received them
+     * @param limit Maximum number of tasks
+     * @return Replayable PENDING tasks no node holds, oldest first
+     */
+    @Transactional(readOnly = true)
+    public List<Task> getClaimableTasks(Collection<String> taskTypes, Date createdBefore, int limit) {
+        return taskDao.getClaimableTasks(taskTypes, createdBefore, limit);
+    }
+
+    /**
+     * Put a task whose node stopped back to PENDING, in its own transaction
+     *
+     * @param task Task with an expired lease, as read by getExpiredLeases
+     * @param progressMessage Message shown while the task waits again
+     * @return true if requeued; false if the owner renewed or another node got there first
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean requeueExpiredLease(Task task, String progressMessage) {
+        return taskDao.requeueExpiredLease(task, progressMessage) > 0;
+    }
+
+    /**
+     * Fail a task whose node stopped, in its own transaction
+     *
+     * @param task Task with an expired lease, as read by getExpiredLeases
+     * @param errorMessage Reason shown to the user
+     * @return true if failed; false if the owner renewed or another node got there first
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean failExpiredLease(Task task, String errorMessage) {
+        return taskDao.failExpiredLease(task, errorMessage) > 0;
+    }
+
+    /**
+     * @param createdBefore Start of this run of the application
+     * @param afterId Only tasks with a larger ID, for paging
+     * @param limit Maximum number of tasks
+     * @return PENDING and RUNNING tasks created before the restart, in ID order
+     */
+    @Transactional(readOnly = true)
+    public List<Task> getUnfinishedTasks(Date createdBefore, long afterId, int limit) {
+        return taskDao.getUnfinishedTasks(createdBefore, afterId, limit);
+    }
+
+    /**
+     * Put a task left unfinished by a restart back to PENDING, in its own transaction
+     *
+     * @param task Task as read by getUnfinishedTasks
+     * @param progressMessage Message shown while the task waits again
+     * @return true if requeued; false if it finished in the meantime
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean requeueOrphaned(Task task, String progressMessage) {
+        return taskDao.requeueOrphaned(task, progressMessage) > 0;
+    }
+
+    /**
+     * Fail a task left unfinished by a restart, in its own transaction
+     *
+     * @param task Task as read by getUnfinishedTasks
+     * @param errorMessage Reason shown to the user
+     * @return true if failed; false if it finished in the meantime
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean failOrphaned(Task task, String errorMessage) {
+        return taskDao.failOrphaned(task, errorMessage) > 0;
+    }
+
     /**
      * Get a task by ID
      * 
@@ -0,0 +1,179 @@
+package com.iris.increff.service;
+
+import com.iris.increff.dao.TaskDao;
+import com.iris.increff.model.TaskStatsData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Recent task statistics for Report 2 and the dashboard.
+ *
+ * Stats come from one query over the window's tasks and are cached for a
+ * short TTL. Loads are single-flight: when the cache is stale, the first
+ * caller queries the database and concurrent callers wait for its result
+ * instead of issuing their own.
+ *
+ * @author Anshuk Kawarry
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Service
+public class TaskStatsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskStatsService.class);
+
+    /**
+     * Days covered by the stats window
+     */
+    public static final int WINDOW_DAYS = 7;
+
+    @Autowired
+    private TaskDao taskDao;
+
+    @Value("${app.tasks.stats.ttl-ms:5000}")
+    private long ttlMs;
+
+    private volatile TaskStatsData cached;
+    private CompletableFuture<TaskStatsData> loading; // guarded by this
+
+    /**
+     * Get stats for the last {@link #WINDOW_DAYS} days, at most ttl-ms old
+     *
+     * @return Task stats
+     */
+    public TaskStatsData getRecentStats() {
+        TaskStatsData current = cached;
+        if (isFresh(current)) {
+            return current;
+        }
+
+        CompletableFuture<TaskStatsData> pending;
+        boolean leader = false;
+        synchronized (this) {
+            current = cached;
+            if (isFresh(current)) {
+                return current;
+            }
+            if (loading == null) {
+                loading = new CompletableFuture<>();
+                leader = true;
+            }
+            pending = loading;
+        }
+
+        if (leader) {
+            try {
+                TaskStatsData loaded = load();
+                cached = loaded;
+                pending.complete(loaded);
+            } catch (RuntimeException e) {
+                pending.completeExceptionally(e);
+                throw e;
+            } finally {
+                synchronized (this) {
+                    loading = null;
+                }
+            }
+        }
+
+        try {
+            return pending.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Drop cached stats so the next call reloads them (e.g. after clearing data)
+     */
+    public void invalidate() {
+        cached = null;
+    }
+
+    private boolean isFresh(TaskStatsData stats) {
+        return stats != null && System.currentTimeMillis() - stats.getLoadedAt().getTime() < ttlMs;
+    }
+
+    private TaskStatsData load() {
+        long start = System.currentTimeMillis();
+        Date since = new Date(start - WINDOW_DAYS * 24L * 60L * 60L * 1000L);
+        TaskStatsData stats = summarize(since, taskDao.getTaskStatRows(since));
+        logger.debug("📊 Loaded task stats for {} types in {} ms", stats.getByType().size(),
+                System.currentTimeMillis() - start);
+        return stats;
+    }
+
+    /**
+     * Fold [taskType, status, createdDate, startTime, endTime] rows into window stats
+     *
+     * @param since Window start
+     * @param rows Task rows from {@link TaskDao#getTaskStatRows}
+     * @return Stats of the window
+     */
+    static TaskStatsData summarize(Date since, List<Object[]> rows) {
+        TaskStatsData stats = new TaskStatsData();
+        stats.setSince(since);
+        stats.setLoadedAt(new Date());
+
+        Map<String, List<Long>> durations = new HashMap<>();
+        for (Object[] row : rows) {
+            String taskType = (String) row[0];
+            String status = (String) row[1];
+            Date createdDate = (Date) row[2];
+            Date startTime = (Date) row[3];
+            Date endTime = (Date) row[4];
+
+            if ("PENDING".equals(status) || "RUNNING".equals(status)) {
+                stats.setActiveTasks(stats.getActiveTasks() + 1);
+                if ("PENDING".equals(status)) {
+                    stats.setPendingTasks(stats.getPendingTasks() + 1);
+                }
+            }
+            // Active tasks from before the window count towards the load only
+            if (createdDate == null || createdDate.before(since) || taskType == null) {
+                continue;
+            }
+
+            TaskStatsData.TypeStats typeStats = stats.getByType()
+                    .computeIfAbsent(taskType, type -> new TaskStatsData.TypeStats());
+            typeStats.getByStatus().merge(status, 1L, Long::sum);
+            if (startTime != null && endTime != null && endTime.getTime() > startTime.getTime()) {
+                durations.computeIfAbsent(taskType, type -> new ArrayList<>())
+                        .add(endTime.getTime() - startTime.getTime());
+            }
+        }
+
+        for (Map.Entry<String, List<Long>> entry : durations.entrySet()) {
+            List<Long> millis = entry.getValue();
+            Collections.sort(millis);
+            TaskStatsData.TypeStats typeStats = stats.getByType().get(entry.getKey());
+            typeStats.setAverageMillis(Math.round(millis.stream().mapToLong(Long::longValue).average().orElse(0)));
+            typeStats.setP50Millis(percentile(millis, 50));
+            typeStats.setP95Millis(percentile(millis, 95));
+        }
+        return stats;
+    }
+
+    /**
+     * Nearest-rank percentile of sorted values
+     */
+    private static long percentile(List<Long> sorted, int percent) {
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.size());
+        return sorted.get(Math.max(rank, 1) - 1);
+    }
+}
@@ -0,0 +1,299 @@
+package com.iris.increff.service;
+
+import com.iris.increff.model.AlgoParametersData;
+import com.iris.increff.model.Task;
+import com.iris.increff.spring.FairTaskExecutor;
+import com.iris.increff.util.TaskPayload;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Shares async work between app nodes through the tasks table.
+ *
+ * Every node with leasing enabled reclaims tasks whose lease expired, i.e.
+ * whose node stopped while holding them. Tasks with a payload (downloads and
+ * NOOS runs) are put back to PENDING and started here, up to a few attempts;
+ * the rest (uploads, whose file content lived on the stopped node, and
+ * sweeps) are marked FAILED so the user can resubmit.
+ *
+ * In worker mode a node also takes PENDING tasks that a busy node received
+ * but has not started: whenever one of its executors has idle workers it
+ * claims the oldest such tasks and runs them. The receiving node's queued
+ * copy then finds the lease taken and skips the task.
+ *
+ * With leasing off there is a single node, so at startup every PENDING or
+ * RUNNING task created before it started was lost with the previous run's
+ * executor queues. Tasks with a payload are requeued and started again, up
+ * to the same number of attempts; the rest are marked FAILED.
+ *
+ * @author Anshuk Kawarry
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Service
+public class TaskWorkerService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskWorkerService.class);
+
+    static final List<String> FILE_TASK_TYPES = Arrays.asList(
+            "STYLES_DOWNLOAD", "STORES_DOWNLOAD", "SKUS_DOWNLOAD", "SALES_DOWNLOAD", "NOOS_DOWNLOAD");
+    static final List<String> NOOS_TASK_TYPES = Collections.singletonList("ALGORITHM_RUN");
+
+    private static final int RECLAIM_BATCH = 50;
+
+    /**
+     * Tasks created before this are left over from the previous run
+     */
+    private final Date startedAt = new Date();
+
+    private final AtomicBoolean recoveryDone = new AtomicBoolean();
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private TaskLeaseService taskLeaseService;
+
+    @Autowired
+    private AsyncDownloadService asyncDownloadService;
+
+    @Autowired
+    private NoosAlgorithmService noosAlgorithmService;
+
+    @Autowired
+    @Qualifier("fileExecutor")
+    private FairTaskExecutor fileExecutor;
+
+    @Autowired
+    @Qualifier("noosExecutor")
+    private FairTaskExecutor noosExecutor;
+
+    /**
+     * Take unstarted PENDING tasks from other nodes when idle
+     */
+    @Value("${app.tasks.worker.enabled:false}")
+    private boolean workerMode = false;
+
+    /**
+     * Age at which an unstarted task may be taken from the node that received it
+     */
+    @Value("${app.tasks.worker.steal-after-ms:10000}")
+    private long stealAfterMs = 10000;
+
+    /**
+     * Runs of a task (first run included) before a node stopping under it fails it
+     */
+    @Value("${app.tasks.lease.max-attempts:3}")
+    private int maxAttempts = 3;
+
+    /**
+     * Requeue or fail tasks whose node stopped renewing their lease
+     *
+     * @return Number of tasks reclaimed
+     */
+    @Scheduled(fixedDelayString = "${app.tasks.lease.reclaim-interval-ms:30000}")
+    public int reclaimExpired() {
+        if (!taskLeaseService.isEnabled()) {
+            return 0;
+        }
+        int reclaimed = 0;
+        try {
+            for (Task task : taskService.getExpiredLeases(RECLAIM_BATCH)) {
+                if (reclaim(task)) {
+                    reclaimed++;
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.warn("⚠️ Reclaiming expired task leases failed: {}", e.getMessage());
+        }
+        return reclaimed;
+    }
+
+    /**
+     * Requeue or fail the tasks a restart left unfinished, once the
+     * application context is up. Only runs with leasing off; otherwise
+     * reclaimExpired picks them up when their lease expires.
+     *
+     * @return Number of tasks requeued or failed
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public int recoverOrphaned() {
+        // A child web context refreshing publishes the event here too
+        if (taskLeaseService.isEnabled() || !recoveryDone.compareAndSet(false, true)) {
+            return 0;
+        }
+        int recovered = 0;
+        try {
+            long afterId = 0;
+            List<Task> tasks;
+            do {
+                tasks = taskService.getUnfinishedTasks(startedAt, afterId, RECLAIM_BATCH);
+                for (Task task : tasks) {
+                    afterId = task.getId();
+                    if (recover(task)) {
+                        recovered++;
+                    }
+                }
+            } while (tasks.size() == RECLAIM_BATCH);
+        } catch (RuntimeException e) {
+            logger.warn("⚠️ Recovering tasks left unfinished by the last restart failed: {}", e.getMessage());
+        }
+        if (recovered > 0) {
+            logger.info("♻️ Recovered {} task(s) left unfinished by the last restart", recovered);
+        }
+        return recovered;
+    }
+
+    /**
+     * Claim and start PENDING tasks nobody has started, while this node has idle workers
+     *
+     * @return Number of tasks started
+     */
+    @Scheduled(fixedDelayString = "${app.tasks.worker.poll-interval-ms:5000}")
+    public int pollPending() {
+        if (!workerMode || !taskLeaseService.isEnabled()) {
+            return 0;
+        }
+        try {
+            return pollPending(fileExecutor, FILE_TASK_TYPES) + pollPending(noosExecutor, NOOS_TASK_TYPES);
+        } catch (RuntimeException e) {
+            logger.warn("⚠️ Polling for pending tasks failed: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    private int pollPending(FairTaskExecutor executor, List<String> taskTypes) {
+        int idle = executor.getIdleCapacity();
+        if (idle == 0) {
+            return 0;
+        }
+        Date createdBefore = new Date(System.currentTimeMillis() - stealAfterMs);
+        int started = 0;
+        for (Task task : taskService.getClaimableTasks(taskTypes, createdBefore, idle)) {
+            if (claimAndStart(task)) {
+                started++;
+            }
+        }
+        if (started > 0) {
+            logger.info("📥 Took {} pending task(s) from the shared queue", started);
+        }
+        return started;
+    }
+
+    private boolean reclaim(Task task) {
+        String previousOwner = task.getLeaseOwner();
+        int runs = (task.getAttempts() != null ? task.getAttempts() : 0) + 1;
+        if (task.getPayload() == null) {
+            if (taskService.failExpiredLease(task, "The server running this task stopped. Please resubmit it.")) {
+                logger.warn("💀 Task {} ({}) failed: node {} stopped", task.getId(), task.getTaskType(), previousOwner);
+                return true;
+            }
+            return false;
+        }
+        if (runs >= maxAttempts) {
+            if (taskService.failExpiredLease(task, "Gave up after " + runs + " servers stopped while running this task")) {
+                logger.warn("💀 Task {} ({}) failed after {} attempts", task.getId(), task.getTaskType(), runs);
+                return true;
+            }
+            return false;
+        }
+        if (!taskService.requeueExpiredLease(task, "PENDING: Requeued after the server running it stopped")) {
+            return false;
+        }
+        logger.info("♻️ Requeued task {} ({}) from stopped node {}", task.getId(), task.getTaskType(), previousOwner);
+        claimAndStart(task);
+        return true;
+    }
+
+    private boolean recover(Task task) {
+        int runs = (task.getAttempts() != null ? task.getAttempts() : 0) + 1;
+        boolean startable = FILE_TASK_TYPES.contains(task.getTaskType()) || NOOS_TASK_TYPES.contains(task.getTaskType());
+        if (task.getPayload() == null || !startable) {
+            if (taskService.failOrphaned(task, "The server restarted before this task finished. Please resubmit it.")) {
+                logger.warn("💀 Task {} ({}) failed: server restarted", task.getId(), task.getTaskType());
+                return true;
+            }
+            return false;
+        }
+        if (runs >= maxAttempts) {
+            if (taskService.failOrphaned(task, "Gave up after the server restarted " + runs + " times while running this task")) {
+                logger.warn("💀 Task {} ({}) failed after {} attempts", task.getId(), task.getTaskType(), runs);
+                return true;
+            }
+            return false;
+        }
+        if (!taskService.requeueOrphaned(task, "PENDING: Requeued after a server restart")) {
+            return false;
+        }
+        if (!claimAndStart(task)) {
+            // Nothing else would pick it up with leasing off
+            taskService.failOrphaned(task, "Could not be restarted after a server restart. Please resubmit it.");
+            return true;
+        }
+        logger.info("♻️ Requeued task {} ({}) after a server restart", task.getId(), task.getTaskType());
+        return true;
+    }
+
+    private boolean claimAndStart(Task task) {
+        if (!taskLeaseService.acquire(task.getId())) {
+            return false;
+        }
+        try {
+            FairTaskExecutor.submitAs(task.getTaskType(), () -> start(task));
+            return true;
+        } catch (TaskRejectedException e) {
+            // Queue full after all; leave it to another node
+            taskLeaseService.abandon(task.getId());
+            return false;
+        } catch (RuntimeException e) {
+            logger.error("❌ Could not start task {} ({}): {}", task.getId(), task.getTaskType(), e.getMessage());
+            taskLeaseService.abandon(task.getId());
+            return false;
+        }
+    }
+
+    /**
+     * Call the async method that runs a task of this type
+     */
+    private void start(Task task) {
+        Long taskId = task.getId();
+        switch (task.getTaskType()) {
+            case "STYLES_DOWNLOAD":
+                asyncDownloadService.downloadStylesAsync(taskId);
+                break;
+            case "STORES_DOWNLOAD":
+                asyncDownloadService.downloadStoresAsync(taskId);
+                break;
+            case "SKUS_DOWNLOAD":
+                asyncDownloadService.downloadSkusAsync(taskId);
+                break;
+            case "SALES_DOWNLOAD":
+                asyncDownloadService.downloadSalesAsync(taskId);
+                break;
+            case "NOOS_DOWNLOAD":
+                Object runId = TaskPayload.read(task.getPayload(), Map.class).get("runId");
+                asyncDownloadService.downloadNoosResultsAsync(taskId, runId != null ? ((Number) runId).longValue() : null);
+                break;
+            case "ALGORITHM_RUN":
+                noosAlgorithmService.runNoosAlgorithmAsync(taskId, TaskPayload.read(task.getPayload(), AlgoParametersData.class));
+                break;
+            default:
+                throw new IllegalStateException("Task type " + task.getTaskType() + " cannot be started from the tasks table");
+        }
+    }
+}
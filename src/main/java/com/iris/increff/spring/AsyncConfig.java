@@ -2,14 +2,16 @@ package com.iris.increff.spring;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 
-import java.util.concurrent.Executor;
-import java.util.concurrent.RejectedExecutionHandler;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Async Configuration for Background Processing
@@ -19,67 +21,62 @@ import java.util.concurrent.ThreadPoolExecutor;
  * - Algorithm execution (NOOS)
  * - File exports/downloads
  * 
+ * and scheduling for periodic housekeeping (task progress flush).
+ * 
  * @author Anshuk Kawarry
  * @version 1.0
  * @since 2025-01-01
  */
 @Configuration
 @EnableAsync
+@EnableScheduling
 public class AsyncConfig {
 
     private static final Logger logger = LoggerFactory.getLogger(AsyncConfig.class);
 
     /**
-     * Thread pool executor for NOOS operations
-     * 
-     * Configuration:
-     * - Core pool size: 2 threads (always active)
-     * - Max pool size: 4 threads (scale up under load)
-     * - Queue capacity: 10 tasks (bounded to prevent memory issues)
-     * - Keep alive: 60 seconds for idle threads
+     * Worker threads for parallel NOOS aggregation/classification
+     * (1 = sequential, 0 = one per available core)
+     */
+    @Value("${app.noos.parallelism:1}")
+    private int noosParallelism;
+
+    /**
+     * Worker threads of the NOOS and file executors
+     */
+    @Value("${app.tasks.noos.threads:2}")
+    private int noosThreads;
+
+    @Value("${app.tasks.file.threads:3}")
+    private int fileThreads;
+
+    /**
+     * Tasks each executor queues before rejecting submissions (HTTP 429)
+     */
+    @Value("${app.tasks.queue.max-depth:200}")
+    private int maxQueueDepth;
+
+    /**
+     * Queued tasks gain one priority level per interval waited
+     */
+    @Value("${app.tasks.queue.aging-ms:30000}")
+    private long queueAgingMs;
+
+    /**
+     * Executor for NOOS runs and sweeps
      * 
-     * Back-pressure: When queue is full, reject new tasks with custom handler
+     * Single runs take priority over sweeps, and at most one sweep runs at a
+     * time so a large sweep cannot hold both workers.
      */
     @Bean(name = "noosExecutor")
-    public Executor noosExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        
-        // Thread pool configuration
-        executor.setCorePoolSize(2);
-        executor.setMaxPoolSize(4);
-        executor.setQueueCapacity(10);
-        executor.setKeepAliveSeconds(60);
-        
-        // Thread naming for easier debugging
-        executor.setThreadNamePrefix("NOOS-");
-        
-        // Graceful shutdown
-        executor.setWaitForTasksToCompleteOnShutdown(true);
-        executor.setAwaitTerminationSeconds(30);
-        
-        // Custom rejection handler for back-pressure
-        executor.setRejectedExecutionHandler(new RejectedExecutionHandler() {
-            @Override
-            public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
-                logger.warn("🚫 Task rejected - thread pool queue is full. " +
-                           "Active: {}, Queue: {}, Pool: {}", 
-                           executor.getActiveCount(), 
-                           executor.getQueue().size(),
-                           executor.getPoolSize());
-                
-                // This will cause the calling thread to handle the rejection
-                // The controller should catch this and return HTTP 429
-                throw new RuntimeException("Thread pool queue is full. Too many concurrent tasks.");
-            }
-        });
-        
-        executor.initialize();
-        
-        logger.info("🚀 NOOS Executor initialized: core={}, max={}, queue={}", 
-                   executor.getCorePoolSize(), 
-                   executor.getMaxPoolSize(), 
-                   10); // Queue capacity is set above
-        
+    public FairTaskExecutor noosExecutor() {
+        Map<String, FairTaskExecutor.TaskClass> classes = new LinkedHashMap<>();
+        classes.put("ALGORITHM_RUN", new FairTaskExecutor.TaskClass(2, 1, noosThreads));
+        classes.put("ALGORITHM_SWEEP", new FairTaskExecutor.TaskClass(1, 1, 1));
+
+        FairTaskExecutor executor = new FairTaskExecutor("NOOS", noosThreads, maxQueueDepth, queueAgingMs,
+                classes, new FairTaskExecutor.TaskClass(1, 1, noosThreads));
+        logger.info("🚀 NOOS Executor initialized: threads={}, max queued={}", noosThreads, maxQueueDepth);
         return executor;
     }
 
@@ -87,43 +84,57 @@ public class AsyncConfig {
      * Separate executor for file operations (uploads/downloads)
      * 
      * File operations are I/O intensive and may take longer,
-     * so we use a separate pool to avoid blocking algorithm execution
+     * so we use a separate pool to avoid blocking algorithm execution.
+     * 
+     * Master-data downloads are quick and interactive, so they go first.
+     * Uploads share the rest by weight, master data ahead of sales, and sales
+     * uploads and downloads may use all but one worker so a burst of large
+     * files always leaves room for other work.
      */
     @Bean(name = "fileExecutor")
-    public Executor fileExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        
-        // Larger pool for I/O operations
-        executor.setCorePoolSize(3);
-        executor.setMaxPoolSize(6);
-        executor.setQueueCapacity(15);
-        executor.setKeepAliveSeconds(120);
-        
-        executor.setThreadNamePrefix("FILE-");
-        executor.setWaitForTasksToCompleteOnShutdown(true);
-        executor.setAwaitTerminationSeconds(60);
-        
-        // Same rejection handler
-        executor.setRejectedExecutionHandler(new RejectedExecutionHandler() {
-            @Override
-            public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
-                logger.warn("🚫 File task rejected - thread pool queue is full. " +
-                           "Active: {}, Queue: {}, Pool: {}", 
-                           executor.getActiveCount(), 
-                           executor.getQueue().size(),
-                           executor.getPoolSize());
-                
-                throw new RuntimeException("File processing queue is full. Too many concurrent uploads/downloads.");
-            }
-        });
-        
-        executor.initialize();
-        
-        logger.info("📁 File Executor initialized: core={}, max={}, queue={}", 
-                   executor.getCorePoolSize(), 
-                   executor.getMaxPoolSize(), 
-                   15); // Queue capacity is set above
-        
+    public FairTaskExecutor fileExecutor() {
+        int bulkSlots = Math.max(fileThreads - 1, 1);
+        Map<String, FairTaskExecutor.TaskClass> classes = new LinkedHashMap<>();
+        for (String type : new String[] {"STYLES_DOWNLOAD", "STORES_DOWNLOAD", "SKUS_DOWNLOAD", "NOOS_DOWNLOAD"}) {
+            classes.put(type, new FairTaskExecutor.TaskClass(2, 1, fileThreads));
+        }
+        for (String type : new String[] {"STYLES_UPLOAD", "STORES_UPLOAD", "SKUS_UPLOAD"}) {
+            classes.put(type, new FairTaskExecutor.TaskClass(1, 2, fileThreads));
+        }
+        classes.put("SALES_UPLOAD", new FairTaskExecutor.TaskClass(1, 1, bulkSlots));
+        classes.put("SALES_DOWNLOAD", new FairTaskExecutor.TaskClass(1, 1, bulkSlots));
+
+        FairTaskExecutor executor = new FairTaskExecutor("FILE", fileThreads, maxQueueDepth, queueAgingMs,
+                classes, new FairTaskExecutor.TaskClass(1, 1, fileThreads));
+        logger.info("📁 File Executor initialized: threads={}, max queued={}", fileThreads, maxQueueDepth);
         return executor;
     }
+
+    /**
+     * Scheduler for periodic housekeeping jobs (@Scheduled methods)
+     */
+    @Bean(name = "taskScheduler")
+    public ThreadPoolTaskScheduler taskScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(2);
+        scheduler.setThreadNamePrefix("SCHED-");
+        scheduler.setWaitForTasksToCompleteOnShutdown(true);
+        scheduler.setAwaitTerminationSeconds(10);
+        return scheduler;
+    }
+
+    /**
+     * Fork/join pool for CPU-bound NOOS work inside a single run
+     * 
+     * Runs on NOOS- threads dispatch chunks of aggregation and classification
+     * here; the pool never touches the database. Parallelism comes from
+     * app.noos.parallelism and a value of 1 keeps runs sequential.
+     */
+    @Bean(name = "noosComputePool", destroyMethod = "shutdown")
+    public ForkJoinPool noosComputePool() {
+        int parallelism = noosParallelism > 0 ? noosParallelism : Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        logger.info("🧮 NOOS compute pool initialized: parallelism={}", pool.getParallelism());
+        return pool;
+    }
 }
@@ -0,0 +1,352 @@
+package com.iris.increff.spring;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Task executor that schedules queued work by task type instead of FIFO.
+ *
+ * Each task type (SALES_UPLOAD, STYLES_DOWNLOAD, ALGORITHM_RUN, ...) has its
+ * own queue and a {@link TaskClass} giving its priority, weight and a cap on
+ * concurrently running tasks. A free worker takes the head of the eligible
+ * queue with the highest priority; queues of equal priority share workers in
+ * proportion to their weights (stride scheduling, a simple form of weighted
+ * fair queuing). Waiting raises a task's priority by one level per aging
+ * interval, so low-priority work is delayed but never starved. The running
+ * cap keeps a burst of one type (e.g. large sales uploads) from occupying
+ * every worker.
+ *
+ * Submissions learn their task type from {@link #submitAs}, which callers wrap
+ * around the @Async call. Work is queued rather than rejected up to a
+ * generous depth limit; the tasks row stays PENDING meanwhile.
+ *
+ * @author Anshuk Kawarry
+ * @version 1.0
+ * @since 2025-01-01
+ */
+public class FairTaskExecutor implements AsyncTaskExecutor, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(FairTaskExecutor.class);
+
+    /**
+     * Task type of the submission being made on the current thread
+     */
+    private static final ThreadLocal<String> SUBMITTING_TYPE = new ThreadLocal<>();
+
+    private final String name;
+    private final int threads;
+    private final int maxQueued;
+    private final long agingMs;
+    private final Map<String, TaskClass> classes;
+    private final TaskClass defaultClass;
+    private final ExecutorService workers;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition workAvailable = lock.newCondition();
+    private final Map<String, ClassQueue> queues = new LinkedHashMap<>();
+    private double virtualTime;
+    private int queued;
+    private boolean shutdown;
+
+    /**
+     * @param name Executor name, also the worker thread prefix
+     * @param threads Number of worker threads
+     * @param maxQueued Queued tasks allowed before submissions are rejected
+     * @param agingMs Wait after which a queued task gains one priority level
+     * @param classes Scheduling class per task type
+     * @param defaultClass Class for task types without one (and untyped submissions)
+     */
+    public FairTaskExecutor(String name, int threads, int maxQueued, long agingMs,
+                            Map<String, TaskClass> classes, TaskClass defaultClass) {
+        this.name = name;
+        this.threads = threads;
+        this.maxQueued = maxQueued;
+        this.agingMs = agingMs;
+        this.classes = new LinkedHashMap<>(classes);
+        this.defaultClass = defaultClass;
+        this.workers = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory(name + "-"));
+        for (int i = 0; i < threads; i++) {
+            workers.execute(this::workLoop);
+        }
+    }
+
+    /**
+     * Run a submission (typically a call to an @Async method) with its task type
+     * visible to the executor that receives it
+     *
+     * @param taskType Task type, e.g. "SALES_UPLOAD"
+     * @param submission Code making the submission on this thread
+     */
+    public static void submitAs(String taskType, Runnable submission) {
+        String previous = SUBMITTING_TYPE.get();
+        SUBMITTING_TYPE.set(taskType);
+        try {
+            submission.run();
+        } finally {
+            if (previous == null) {
+                SUBMITTING_TYPE.remove();
+            } else {
+                SUBMITTING_TYPE.set(previous);
+            }
+        }
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        enqueue(SUBMITTING_TYPE.get(), task);
+    }
+
+    @Override
+    public void execute(Runnable task, long startTimeout) {
+        execute(task);
+    }
+
+    @Override
+    public Future<?> submit(Runnable task) {
+        FutureTask<Object> future = new FutureTask<>(task, null);
+        execute(future);
+        return future;
+    }
+
+    @Override
+    public <T> Future<T> submit(Callable<T> task) {
+        FutureTask<T> future = new FutureTask<>(task);
+        execute(future);
+        return future;
+    }
+
+    /**
+     * Queue depth, running count and wait times, per task type
+     *
+     * @return Executor totals and a "types" map with one entry per task type seen
+     */
+    public Map<String, Object> getStats() {
+        lock.lock();
+        try {
+            long now = System.currentTimeMillis();
+            Map<String, Object> types = new LinkedHashMap<>();
+            int running = 0;
+            for (ClassQueue queue : queues.values()) {
+                running += queue.running;
+                Map<String, Object> stats = new LinkedHashMap<>();
+                stats.put("queued", queue.entries.size());
+                stats.put("running", queue.running);
+                stats.put("started", queue.started);
+                stats.put("avgWaitMs", queue.started > 0 ? queue.totalWaitMs / queue.started : 0);
+                stats.put("maxWaitMs", queue.maxWaitMs);
+                stats.put("oldestQueuedMs", queue.entries.isEmpty() ? 0 : now - queue.entries.peek().queuedAt);
+                stats.put("priority", queue.taskClass.getPriority());
+                stats.put("weight", queue.taskClass.getWeight());
+                types.put(queue.type, stats);
+            }
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("threads", threads);
+            result.put("running", running);
+            result.put("queued", queued);
+            result.put("maxQueued", maxQueued);
+            result.put("types", types);
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Tasks this executor could start right now without queueing
+     *
+     * @return Worker threads neither busy nor spoken for by queued tasks
+     */
+    public int getIdleCapacity() {
+        lock.lock();
+        try {
+            int running = 0;
+            for (ClassQueue queue : queues.values()) {
+                running += queue.running;
+            }
+            return Math.max(threads - running - queued, 0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        lock.lock();
+        try {
+            shutdown = true;
+            workAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        workers.shutdown();
+        if (!workers.awaitTermination(60, TimeUnit.SECONDS)) {
+            logger.warn("⚠️ {} executor did not finish running tasks within 60s", name);
+            workers.shutdownNow();
+        }
+    }
+
+    private void enqueue(String taskType, Runnable task) {
+        String type = taskType != null ? taskType : "OTHER";
+        lock.lock();
+        try {
+            if (shutdown) {
+                throw new TaskRejectedException(name + " executor is shut down");
+            }
+            if (queued >= maxQueued) {
+                logger.warn("🚫 {} task rejected - {} tasks already queued", type, queued);
+                throw new TaskRejectedException(name + " queue is full (" + queued + " tasks waiting)");
+            }
+            ClassQueue queue = queues.computeIfAbsent(type, t -> new ClassQueue(t, classes.getOrDefault(t, defaultClass)));
+            if (queue.entries.isEmpty() && queue.running == 0) {
+                // A type coming back from idle gets no credit for the time it was away
+                queue.pass = Math.max(queue.pass, virtualTime);
+            }
+            queue.entries.add(new Entry(task, System.currentTimeMillis()));
+            queued++;
+            workAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void workLoop() {
+        while (true) {
+            ClassQueue queue;
+            Entry entry;
+            lock.lock();
+            try {
+                while ((queue = nextQueue()) == null) {
+                    if (shutdown && queued == 0) {
+                        return;
+                    }
+                    workAvailable.await();
+                }
+                entry = queue.entries.poll();
+                queued--;
+                queue.running++;
+                queue.pass += 1.0 / queue.taskClass.getWeight();
+                virtualTime = Math.max(virtualTime, queue.pass);
+                long waitMs = System.currentTimeMillis() - entry.queuedAt;
+                queue.started++;
+                queue.totalWaitMs += waitMs;
+                queue.maxWaitMs = Math.max(queue.maxWaitMs, waitMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                entry.task.run();
+            } catch (Throwable e) {
+                // Keep the worker alive; @Async wrappers normally capture failures themselves
+                logger.error("❌ Unhandled error in {} task: {}", queue.type, e.getMessage(), e);
+            } finally {
+                lock.lock();
+                try {
+                    queue.running--;
+                    // A slot of this type freed up; another worker may now take its queue
+                    workAvailable.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Eligible queue to serve next: highest (aged) priority, then lowest pass. Caller holds the lock.
+     */
+    private ClassQueue nextQueue() {
+        long now = System.currentTimeMillis();
+        ClassQueue best = null;
+        long bestPriority = Long.MIN_VALUE;
+        for (ClassQueue queue : queues.values()) {
+            if (queue.entries.isEmpty() || queue.running >= queue.taskClass.getMaxRunning()) {
+                continue;
+            }
+            long waited = now - queue.entries.peek().queuedAt;
+            long priority = queue.taskClass.getPriority() + (agingMs > 0 ? waited / agingMs : 0);
+            if (best == null || priority > bestPriority || (priority == bestPriority && queue.pass < best.pass)) {
+                best = queue;
+                bestPriority = priority;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Scheduling parameters of one task type
+     */
+    public static final class TaskClass {
+        private final int priority;
+        private final int weight;
+        private final int maxRunning;
+
+        /**
+         * @param priority Higher runs first
+         * @param weight Share of workers relative to types of the same priority
+         * @param maxRunning Most tasks of this type running at once
+         */
+        public TaskClass(int priority, int weight, int maxRunning) {
+            this.priority = priority;
+            this.weight = Math.max(weight, 1);
+            this.maxRunning = Math.max(maxRunning, 1);
+        }
+
+        public int getPriority() {
+            return priority;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+
+        public int getMaxRunning() {
+            return maxRunning;
+        }
+    }
+
+    private static final class ClassQueue {
+        private final String type;
+        private final TaskClass taskClass;
+        private final ArrayDeque<Entry> entries = new ArrayDeque<>();
+        private int running;
+        private double pass;
+        private long started;
+        private long totalWaitMs;
+        private long maxWaitMs;
+
+        ClassQueue(String type, TaskClass taskClass) {
+            this.type = type;
+            this.taskClass = taskClass;
+        }
+    }
+
+    private static final class Entry {
+        private final Runnable task;
+        private final long queuedAt;
+
+        Entry(Runnable task, long queuedAt) {
+            this.task = task;
+            this.queuedAt = queuedAt;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.iris.increff.util;
+
+import com.iris.increff.exception.TaskCancelledException;
+
+/**
+ * Cancellation flag for one async task.
+ *
+ * The worker binds its token to the running thread, so code that knows
+ * nothing about tasks (DAO batch loops, the TSV reader) can poll it with
+ * {@link #checkCurrent()}: a thread-local lookup and a volatile read, no
+ * database access. Threads without a bound token never stop.
+ *
+ * @author Anshuk Kawarry
+ * @version 1.0
+ * @since 2025-01-01
+ */
+public final class CancellationToken {
+
+    private static final ThreadLocal<CancellationToken> CURRENT = new ThreadLocal<>();
+
+    private final Long taskId;
+    private volatile boolean cancelled;
+
+    public CancellationToken(Long taskId) {
+        this.taskId = taskId;
+    }
+
+    public Long getTaskId() {
+        return taskId;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * @throws TaskCancelledException if this token was cancelled
+     */
+    public void throwIfCancelled() {
+        if (cancelled) {
+            throw new TaskCancelledException(taskId);
+        }
+    }
+
+    /**
+     * Stop the current thread's task if it was cancelled
+     *
+     * @throws TaskCancelledException if a token is bound and cancelled
+     */
+    public static void checkCurrent() {
+        CancellationToken token = CURRENT.get();
+        if (token != null) {
+            token.throwIfCancelled();
+        }
+    }
+
+    /**
+     * @return Token bound to the current thread, or null
+     */
+    public static CancellationToken current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Bind a token to the current thread (null unbinds)
+     */
+    public static void bind(CancellationToken token) {
+        if (token == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(token);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.iris.increff.util;
+
+import java.util.Locale;
+
+/**
+ * Compact open-addressing String → int map used to resolve master-data codes
+ * (SKU codes, store branches) to database ids during bulk ingestion.
+ *
+ * Keys and values live in two parallel arrays probed linearly, so a lookup is
+ * one hash plus a short array scan with no boxing or per-entry objects. The
+ * map is built once per upload and only read afterwards; it is not thread-safe
+ * for concurrent writes.
+ *
+ * Codes are matched case-insensitively, like the equality lookups against
+ * MySQL's default collation that this map replaces: keys are upper-cased on
+ * insert and on lookup.
+ *
+ * @author Anshuk Kawarry
+ * @version 1.0
+ * @since 2025-01-01
+ */
+public class CodeIdMap {
+
+    /**
+     * Returned by {@link #get(String)} when a code is not present
+     */
+    public static final int NOT_FOUND = -1;
+
+    private String[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    public CodeIdMap(int expectedSize) {
+        // Keep load factor at or below 0.5 so probe chains stay short
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 8) * 2 - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * Associate a code with an id. If the code is already present the first
+     * id is kept, mirroring a single-result lookup against the table.
+     *
+     * @param code Code (non-null), matched ignoring case
+     * @param id Database id (non-negative)
+     */
+    public void putIfAbsent(String code, int id) {
+        if ((size + 1) * 2 > keys.length) {
+            resize();
+        }
+        String key = normalize(code);
+        int slot = slotFor(key);
+        if (keys[slot] == null) {
+            keys[slot] = key;
+            values[slot] = id;
+            size++;
+        }
+    }
+
+    /**
+     * @param code Code, matched ignoring case
+     * @return the id for the code, or {@link #NOT_FOUND}
+     */
+    public int get(String code) {
+        if (code == null) {
+            return NOT_FOUND;
+        }
+        int slot = slotFor(normalize(code));
+        return keys[slot] == null ? NOT_FOUND : values[slot];
+    }
+
+    public boolean contains(String code) {
+        return get(code) != NOT_FOUND;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static String normalize(String code) {
+        return code.toUpperCase(Locale.ROOT);
+    }
+
+    private int slotFor(String key) {
+        int slot = mix(key.hashCode()) & mask;
+        while (keys[slot] != null && !keys[slot].equals(key)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize() {
+        String[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(oldKeys.length << 1);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int slot = slotFor(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new String[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Spread String hash bits so similar codes (e.g. SKU0001, SKU0002) do not cluster
+     */
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,55 @@
+package com.iris.increff.util;
+
+/**
+ * Hash-based seen-set for detecting duplicate keys within an uploaded file.
+ *
+ * Master-data uploaders record each row's business key (style code, SKU code,
+ * branch) as they validate; a repeat is detected in constant time and the
+ * row number where the key first appeared is returned so the duplicate error
+ * can point back to it.
+ *
+ * @author Anshuk Kawarry
+ * @version 1.0
+ * @since 2025-01-01
+ */
+public class DuplicateKeyTracker {
+
+    /**
+     * Returned by {@link #checkAndRecord(String, int)} when the key is new
+     */
+    public static final int NOT_SEEN = CodeIdMap.NOT_FOUND;
+
+    private final CodeIdMap firstSeenRows;
+
+    public DuplicateKeyTracker() {
+        this(1024);
+    }
+
+    public DuplicateKeyTracker(int expectedKeys) {
+        this.firstSeenRows = new CodeIdMap(expectedKeys);
+    }
+
+    /**
+     * Record a key for a row, or report the row it was first seen at.
+     *
+     * @param key Normalized business key
+     * @param rowNumber File row number of the current row
+     * @return {@link #NOT_SEEN} if the key is new (and is now recorded),
+     *         otherwise the row number where the key first appeared
+     */
+    public int checkAndRecord(String key, int rowNumber) {
+        int firstRow = firstSeenRows.get(key);
+        if (firstRow != NOT_SEEN) {
+            return firstRow;
+        }
+        firstSeenRows.putIfAbsent(key, rowNumber);
+        return NOT_SEEN;
+    }
+
+    /**
+     * @return number of distinct keys recorded
+     */
+    public int size() {
+        return firstSeenRows.size();
+    }
+}
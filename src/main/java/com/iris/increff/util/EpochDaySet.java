@@ -0,0 +1,97 @@
+package com.iris.increff.util;
+
+/**
+ * Set of calendar days (epoch-day ints) backed by a bitset, used to count the
+ * distinct days a style sold on.
+ *
+ * One bit per day from a 64-day aligned base; the window grows in either
+ * direction when a day falls outside it. Adding a day inside the window does
+ * not allocate, so per-sale day tracking costs a shift and an OR instead of a
+ * String and a hash entry.
+ *
+ * @author Anshuk Kawarry
+ * @version 1.0
+ * @since 2025-01-01
+ */
+public class EpochDaySet {
+
+    private static final int INITIAL_WORDS = 8; // 512 days
+
+    private long[] words;
+    private int baseDay;
+    private int size;
+
+    /**
+     * Add a day to the set
+     *
+     * @param day Epoch day
+     * @return true if the day was not already present
+     */
+    public boolean add(int day) {
+        if (words == null) {
+            words = new long[INITIAL_WORDS];
+            baseDay = alignDown(day);
+        } else if (day < baseDay || day - baseDay >= words.length * 64) {
+            growToInclude(day);
+        }
+        int offset = day - baseDay;
+        int word = offset >>> 6;
+        long bit = 1L << offset;
+        if ((words[word] & bit) != 0) {
+            return false;
+        }
+        words[word] |= bit;
+        size++;
+        return true;
+    }
+
+    /**
+     * Add every day of another set (used to merge partial aggregates)
+     *
+     * @param other Set to merge in
+     */
+    public void addAll(EpochDaySet other) {
+        if (other.words == null) {
+            return;
+        }
+        for (int w = 0; w < other.words.length; w++) {
+            long bits = other.words[w];
+            while (bits != 0) {
+                add(other.baseDay + (w << 6) + Long.numberOfTrailingZeros(bits));
+                bits &= bits - 1;
+            }
+        }
+    }
+
+    public boolean contains(int day) {
+        if (words == null || day < baseDay || day - baseDay >= words.length * 64) {
+            return false;
+        }
+        int offset = day - baseDay;
+        return (words[offset >>> 6] & (1L << offset)) != 0;
+    }
+
+    /**
+     * @return Number of distinct days added
+     */
+    public int size() {
+        return size;
+    }
+
+    private void growToInclude(int day) {
+        int newBase = Math.min(baseDay, alignDown(day));
+        int lastDay = Math.max(baseDay + words.length * 64 - 1, day);
+        int needed = ((lastDay - newBase) >>> 6) + 1;
+        int capacity = Math.max(words.length << 1, needed);
+
+        long[] grown = new long[capacity];
+        int shift = (baseDay - newBase) >>> 6;
+        System.arraycopy(words, 0, grown, shift, words.length);
+        words = grown;
+        baseDay = newBase;
+    }
+
+    private static int alignDown(int day) {
+        return day - Math.floorMod(day, 64);
+    }
+}
@@ -195,10 +195,22 @@ public class ProcessTsv {
         createCsvResponse(csvData.toString(), fileName, response);
     }
 
+    /**
+     * Set the TSV download headers and open a writer on the response body,
+     * for exports written row by row as they are read
+     *
+     * @param fileName Download file name
+     * @param response HTTP response for file download
+     * @return Writer on the response; closing it completes the response
+     * @throws IOException if the response stream cannot be opened
+     */
+    public static TsvExportWriter openTsvResponse(String fileName, HttpServletResponse response) throws IOException {
+        setTsvHeaders(fileName, response);
+        return new TsvExportWriter(response.getOutputStream());
+    }
+
     private static void createCsvResponse(String csvData, String fileName, HttpServletResponse response) throws IOException {
-        response.setContentType("text/tab-separated-values");
-        response.setHeader("Content-Disposition", "attachment; filename=" + fileName);
-        response.setCharacterEncoding("UTF-8");
+        setTsvHeaders(fileName, response);
 
         OutputStream os = response.getOutputStream();
         os.write(csvData.getBytes("UTF-8"));
@@ -206,4 +218,10 @@ public class ProcessTsv {
         closeQuietly(os);
     }
 
+    private static void setTsvHeaders(String fileName, HttpServletResponse response) {
+        response.setContentType("text/tab-separated-values");
+        response.setHeader("Content-Disposition", "attachment; filename=" + fileName);
+        response.setCharacterEncoding("UTF-8");
+    }
+
 }
\ No newline at end of file
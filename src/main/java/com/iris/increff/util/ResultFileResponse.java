@@ -0,0 +1,214 @@
+package com.iris.increff.util;
+
+import org.apache.commons.io.IOUtils;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Serves a stored task result file (async download output) over HTTP.
+ *
+ * Results are stored gzip-compressed. Clients that accept gzip get the
+ * stored bytes as is, with Content-Encoding: gzip; others get them
+ * decompressed on the fly. Whenever the stored bytes are sent unchanged the
+ * response has a Content-Length and supports a single byte Range
+ * (Accept-Ranges: bytes, honouring If-Range), so a dropped download can be
+ * resumed. Every response carries an ETag derived from the file's size and
+ * modification time, and a matching If-None-Match gets 304.
+ *
+ * Bodies are copied with FileChannel.transferTo into the response stream.
+ * That is zero-copy only where the container hands out a channel the JDK
+ * can transfer to directly; otherwise the JDK falls back to a buffered copy.
+ *
+ * @author Anshuk Kawarry
+ * @version 1.0
+ * @since 2025-01-01
+ */
+public final class ResultFileResponse {
+
+    private static final String GZIP_SUFFIX = ".gz";
+
+    private ResultFileResponse() {
+    }
+
+    /**
+     * Write the file, or the part or status the request asks for, to the response
+     *
+     * @param file Stored result file; gzip-compressed when its name ends in .gz
+     * @param request Request, for the Accept-Encoding, Range and conditional headers
+     * @param response Response to write
+     * @throws IOException if the file cannot be read or the response written
+     */
+    public static void send(File file, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        boolean gzipped = file.getName().endsWith(GZIP_SUFFIX);
+        boolean encode = gzipped && acceptsGzip(request.getHeader("Accept-Encoding"));
+        long length = file.length();
+        String downloadName = gzipped ? file.getName().substring(0, file.getName().length() - GZIP_SUFFIX.length()) : file.getName();
+        // The decompressed body is a different representation, so it gets its own tag
+        String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(file.lastModified())
+                + (gzipped && !encode ? "-identity" : "") + "\"";
+
+        response.setHeader("ETag", etag);
+        if (gzipped) {
+            response.setHeader("Vary", "Accept-Encoding");
+        }
+        if (matches(request.getHeader("If-None-Match"), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        response.setContentType("text/tab-separated-values");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Content-Disposition", "attachment; filename=" + downloadName);
+
+        if (gzipped && !encode) {
+            // Length and offsets of the decompressed body are unknown without inflating it
+            response.setHeader("Accept-Ranges", "none");
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(file.toPath()))) {
+                IOUtils.copy(in, response.getOutputStream());
+            }
+            return;
+        }
+
+        if (encode) {
+            response.setHeader("Content-Encoding", "gzip");
+        }
+        response.setHeader("Accept-Ranges", "bytes");
+
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader("Range");
+        String ifRange = request.getHeader("If-Range");
+        if (range != null && (ifRange == null || ifRange.trim().equals(etag))) {
+            long[] bounds = parseRange(range, length);
+            if (bounds == null) {
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader("Content-Range", "bytes */" + length);
+                return;
+            }
+            if (bounds.length == 2) {
+                start = bounds[0];
+                end = bounds[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = end - start + 1;
+        response.setHeader("Content-Length", String.valueOf(count));
+        transfer(file, start, count, response.getOutputStream());
+    }
+
+    /**
+     * @return Whether gzip is listed in Accept-Encoding (directly or as *) with a non-zero q
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.trim().split(";");
+            String coding = params[0].trim().toLowerCase();
+            if (!coding.equals("gzip") && !coding.equals("*")) {
+                continue;
+            }
+            double q = 1.0;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        q = Double.parseDouble(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (q > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parse a Range header against a body of the given length
+     *
+     * @return {start, end} (inclusive) for one satisfiable byte range; an empty array
+     *         when the header should be ignored (not bytes, malformed, or several ranges);
+     *         null when the range cannot be satisfied
+     */
+    static long[] parseRange(String range, long length) {
+        String value = range.trim();
+        if (!value.startsWith("bytes=") || value.indexOf(',') >= 0) {
+            return new long[0];
+        }
+        String spec = value.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return new long[0];
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                // Suffix range: the final N bytes
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || length == 0) {
+                    return null;
+                }
+                return new long[]{Math.max(0, length - suffix), length - 1};
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+            if (start >= length || end < start) {
+                return null;
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void transfer(File file, long start, long count, OutputStream out) throws IOException {
+        WritableByteChannel target = Channels.newChannel(out);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, target);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+        out.flush();
+    }
+}
@@ -0,0 +1,125 @@
+package com.iris.increff.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * Read-optimized columnar copy of the sales table for algorithm runs.
+ *
+ * Each column is a primitive array indexed by row: epoch day, SKU id, store id,
+ * quantity, and revenue / discount in whole cents (32 bytes per row, no entity,
+ * BigDecimal or Date objects). A snapshot is immutable once built and is tagged
+ * with the row count and highest sales id it was built from, so callers can
+ * detect when the table has changed since.
+ *
+ * @author Anshuk Kawarry
+ * @version 1.0
+ * @since 2025-01-01
+ */
+public final class SalesSnapshot {
+
+    private final int[] days;
+    private final int[] skuIds;
+    private final int[] storeIds;
+    private final int[] quantities;
+    private final long[] revenueCents;
+    private final long[] discountCents;
+    private final int size;
+    private final long maxSalesId;
+
+    private SalesSnapshot(Builder builder, long maxSalesId) {
+        this.size = builder.size;
+        this.days = Arrays.copyOf(builder.days, size);
+        this.skuIds = Arrays.copyOf(builder.skuIds, size);
+        this.storeIds = Arrays.copyOf(builder.storeIds, size);
+        this.quantities = Arrays.copyOf(builder.quantities, size);
+        this.revenueCents = Arrays.copyOf(builder.revenueCents, size);
+        this.discountCents = Arrays.copyOf(builder.discountCents, size);
+        this.maxSalesId = maxSalesId;
+    }
+
+    public int size() { return size; }
+    public int day(int row) { return days[row]; }
+    public int skuId(int row) { return skuIds[row]; }
+    public int storeId(int row) { return storeIds[row]; }
+    public int quantity(int row) { return quantities[row]; }
+    public long revenueCents(int row) { return revenueCents[row]; }
+    public long discountCents(int row) { return discountCents[row]; }
+
+    /**
+     * @return true if this snapshot was built from a table with the given row count and max id
+     */
+    public boolean matches(long rowCount, long maxId) {
+        return size == rowCount && maxSalesId == maxId;
+    }
+
+    /**
+     * Convert a date to its epoch day in the JVM time zone (the calendar day
+     * the DATE column holds).
+     */
+    public static int toEpochDay(Date date) {
+        return (int) Instant.ofEpochMilli(date.getTime()).atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+    }
+
+    /**
+     * Convert a 2-decimal amount to whole cents
+     */
+    public static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    /**
+     * Append-only builder; arrays grow geometrically and are trimmed on build.
+     */
+    public static final class Builder {
+        private int[] days;
+        private int[] skuIds;
+        private int[] storeIds;
+        private int[] quantities;
+        private long[] revenueCents;
+        private long[] discountCents;
+        private int size;
+
+        public Builder(int expectedRows) {
+            int capacity = Math.max(expectedRows, 16);
+            days = new int[capacity];
+            skuIds = new int[capacity];
+            storeIds = new int[capacity];
+            quantities = new int[capacity];
+            revenueCents = new long[capacity];
+            discountCents = new long[capacity];
+        }
+
+        public Builder add(int day, int skuId, int storeId, int quantity, long revenue, long discount) {
+            if (size == days.length) {
+                grow();
+            }
+            days[size] = day;
+            skuIds[size] = skuId;
+            storeIds[size] = storeId;
+            quantities[size] = quantity;
+            revenueCents[size] = revenue;
+            discountCents[size] = discount;
+            size++;
+            return this;
+        }
+
+        public SalesSnapshot build(long maxSalesId) {
+            return new SalesSnapshot(this, maxSalesId);
+        }
+
+        private void grow() {
+            int capacity = days.length << 1;
+            days = Arrays.copyOf(days, capacity);
+            skuIds = Arrays.copyOf(skuIds, capacity);
+            storeIds = Arrays.copyOf(storeIds, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+            revenueCents = Arrays.copyOf(revenueCents, capacity);
+            discountCents = Arrays.copyOf(discountCents, capacity);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.iris.increff.util;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+
+/**
+ * JSON stored in tasks.payload: the arguments needed to start a task again
+ * on any node, e.g. the parameters of a NOOS run. Tasks whose input only
+ * exists in the memory of the node that received them (uploaded file
+ * content) have no payload.
+ *
+ * @author Anshuk Kawarry
+ * @version 1.0
+ * @since 2025-01-01
+ */
+public final class TaskPayload {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private TaskPayload() {
+    }
+
+    /**
+     * @param arguments Task arguments
+     * @return JSON payload
+     */
+    public static String write(Object arguments) {
+        try {
+            return MAPPER.writeValueAsString(arguments);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Task arguments cannot be stored: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @param payload JSON payload
+     * @param type Argument type
+     * @return Task arguments
+     */
+    public static <T> T read(String payload, Class<T> type) {
+        try {
+            return MAPPER.readValue(payload, type);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid task payload: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.iris.increff.util;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes TSV rows straight to a file or response stream as they are
+ * produced, instead of building the whole export in memory first.
+ *
+ * Values are encoded into a fixed-size buffer that is flushed to the
+ * underlying channel or stream as it fills, and rows are counted as they
+ * are written. Like {@link TsvRowReader}, the writer polls the calling
+ * thread's cancellation token every 1024 rows, so a cancelled export stops
+ * part way through a large table.
+ *
+ * Row methods throw {@link UncheckedIOException} so they can be called from
+ * the row callbacks of the DAO scroll methods.
+ *
+ * @author Anshuk Kawarry
+ * @version 1.0
+ * @since 2025-01-01
+ */
+public final class TsvExportWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int CANCELLATION_CHECK_MASK = 1023;
+
+    private final Writer out;
+    private long rowCount;
+
+    /**
+     * @param stream Destination; closed with this writer
+     */
+    public TsvExportWriter(OutputStream stream) {
+        this.out = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    /**
+     * Open a writer on a new (or truncated) file
+     *
+     * @param file Destination file
+     * @return Writer
+     * @throws IOException if the file cannot be opened
+     */
+    public static TsvExportWriter toFile(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        return new TsvExportWriter(Channels.newOutputStream(channel));
+    }
+
+    /**
+     * Open a writer that gzip-compresses into a new (or truncated) file
+     *
+     * @param file Destination file
+     * @return Writer; closing it writes the gzip trailer
+     * @throws IOException if the file cannot be opened
+     */
+    public static TsvExportWriter toGzipFile(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        return new TsvExportWriter(new GZIPOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+    }
+
+    /**
+     * Write the header line; not counted as a row
+     *
+     * @param headers Column names
+     */
+    public void writeHeader(String... headers) {
+        writeLine(headers);
+    }
+
+    /**
+     * Write one row. Null values are written as empty fields.
+     *
+     * @param values Field values, in column order
+     */
+    public void writeRow(Object... values) {
+        writeLine(values);
+        rowCount++;
+        if ((rowCount & CANCELLATION_CHECK_MASK) == 0) {
+            CancellationToken.checkCurrent();
+        }
+    }
+
+    /**
+     * @return Rows written so far, excluding the header
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Push buffered rows to the destination
+     */
+    public void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void writeLine(Object[] values) {
+        try {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    out.write('\t');
+                }
+                if (values[i] != null) {
+                    out.write(values[i].toString());
+                }
+            }
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
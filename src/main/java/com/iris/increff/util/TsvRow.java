@@ -0,0 +1,146 @@
+package com.iris.increff.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Reusable, index-addressed view of a single TSV row.
+ *
+ * One instance is allocated per file and refilled for every row, so streaming
+ * a large upload does not allocate a HashMap per line. Values are addressed by
+ * column index against the header schema, or by header name through the
+ * {@link Map} interface for code (validation, error tracking) that expects a
+ * row map. Callers that need to keep a row beyond the current cursor position
+ * must copy it (e.g. {@code new HashMap<>(row)}), which is what
+ * ErrorTrackingService.ErrorRow already does.
+ *
+ * Rows whose column count does not match the header are exposed as an empty
+ * map, matching the behaviour of the original list-based parser.
+ *
+ * @author Anshuk Kawarry
+ * @version 1.0
+ * @since 2025-01-01
+ */
+public class TsvRow extends AbstractMap<String, String> {
+
+    private final String[] headers;
+    private final Map<String, Integer> columnIndex;
+    private final String[] values;
+    private int rowNumber;
+    private boolean complete;
+
+    public TsvRow(String[] headers) {
+        this.headers = headers.clone();
+        this.values = new String[headers.length];
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < headers.length; i++) {
+            index.put(headers[i], i);
+        }
+        this.columnIndex = Collections.unmodifiableMap(index);
+    }
+
+    /**
+     * Refill this view with the next row's values.
+     *
+     * @param rowNumber 1-based line number in the file (header is line 1)
+     * @param rawValues raw split values; normalized (trimmed, lowercased) in place
+     */
+    void fill(int rowNumber, String[] rawValues) {
+        this.rowNumber = rowNumber;
+        this.complete = rawValues.length == headers.length;
+        for (int i = 0; i < values.length; i++) {
+            if (complete) {
+                // Normalize data: trim and convert to lowercase
+                values[i] = rawValues[i] != null ? rawValues[i].trim().toLowerCase() : "";
+            } else {
+                values[i] = null;
+            }
+        }
+    }
+
+    /**
+     * Refill this view from an already-parsed row map (list-based callers).
+     */
+    void fill(int rowNumber, Map<String, String> rowMap) {
+        this.rowNumber = rowNumber;
+        this.complete = !rowMap.isEmpty();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = complete ? rowMap.get(headers[i]) : null;
+        }
+    }
+
+    /**
+     * Get the value at a column index, or null if the row was malformed.
+     */
+    public String get(int column) {
+        return complete ? values[column] : null;
+    }
+
+    @Override
+    public String get(Object key) {
+        Integer column = columnIndex.get(key);
+        return column == null ? null : get(column.intValue());
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return complete && columnIndex.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return complete ? headers.length : 0;
+    }
+
+    public int getRowNumber() {
+        return rowNumber;
+    }
+
+    /**
+     * @return true if the row had exactly as many columns as the header
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public String[] getHeaders() {
+        return headers.clone();
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        return new AbstractSet<Entry<String, String>>() {
+            @Override
+            public Iterator<Entry<String, String>> iterator() {
+                return new Iterator<Entry<String, String>>() {
+                    private int next = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < TsvRow.this.size();
+                    }
+
+                    @Override
+                    public Entry<String, String> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        int column = next++;
+                        return new SimpleImmutableEntry<>(headers[column], values[column]);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return TsvRow.this.size();
+            }
+        };
+    }
+}
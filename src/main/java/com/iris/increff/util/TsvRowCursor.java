@@ -0,0 +1,76 @@
+package com.iris.increff.util;
+
+import com.iris.increff.exception.ApiException;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pull-based cursor over TSV rows.
+ *
+ * Upload services consume rows one at a time through this interface, so peak
+ * memory is bounded by whatever the consumer chooses to buffer (e.g. one DB
+ * batch) instead of the size of the file. The row returned by {@link #row()}
+ * is a reusable view and is only valid until the next call to {@link #next()}.
+ *
+ * @author Anshuk Kawarry
+ * @version 1.0
+ * @since 2025-01-01
+ */
+public interface TsvRowCursor {
+
+    /**
+     * Advance to the next row.
+     *
+     * @return true if a row is available, false at end of input
+     * @throws ApiException if the input cannot be read or exceeds the row limit
+     */
+    boolean next() throws ApiException;
+
+    /**
+     * @return the current row view (reused between calls to next)
+     */
+    TsvRow row();
+
+    /**
+     * Rewind the cursor to the first data row so the input can be scanned again.
+     *
+     * @throws ApiException if the input cannot be reopened
+     */
+    void reset() throws ApiException;
+
+    /**
+     * Adapt already-parsed rows (legacy list-based callers and tests) to a cursor.
+     * Row numbers follow the file convention: the first data row is row 2.
+     *
+     * @param rows parsed rows keyed by header
+     * @param headers header schema for the rows
+     * @return cursor over the list
+     */
+    static TsvRowCursor of(List<? extends Map<String, String>> rows, String[] headers) {
+        return new TsvRowCursor() {
+            private final TsvRow row = new TsvRow(headers);
+            private int index = -1;
+
+            @Override
+            public boolean next() {
+                if (index + 1 >= rows.size()) {
+                    return false;
+                }
+                index++;
+                row.fill(index + 2, rows.get(index)); // +2: 0-indexing and header row
+                return true;
+            }
+
+            @Override
+            public TsvRow row() {
+                return row;
+            }
+
+            @Override
+            public void reset() {
+                index = -1;
+            }
+        };
+    }
+}
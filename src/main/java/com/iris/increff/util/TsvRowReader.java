@@ -0,0 +1,159 @@
+package com.iris.increff.util;
+
+import com.iris.increff.exception.ApiException;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.Arrays;
+
+/**
+ * Streaming TSV reader.
+ *
+ * Validates the file extension and header line up front, then exposes data
+ * rows one at a time through a single reusable {@link TsvRow}. Nothing is
+ * retained between rows, so memory use is independent of file size.
+ *
+ * The input can be re-read with {@link #reset()}, which lets consumers do a
+ * validation pass followed by a save pass without buffering the whole file.
+ *
+ * @author Anshuk Kawarry
+ * @version 1.0
+ * @since 2025-01-01
+ */
+public class TsvRowReader implements TsvRowCursor, Closeable {
+
+    /**
+     * Maximum number of data rows accepted in a single file
+     */
+    public static final int MAX_ROWS = 500000;
+
+    /**
+     * Poll the worker's cancellation token every 1024 rows
+     */
+    private static final int CANCELLATION_CHECK_MASK = 1023;
+
+    private final StreamOpener opener;
+    private final String[] headers;
+    private final TsvRow row;
+    private BufferedReader reader;
+    private int rowCount;
+
+    private TsvRowReader(StreamOpener opener, String fileName, String[] headers) throws ApiException {
+        if (fileName == null || fileName.split("\\.").length != 2 || !fileName.split("\\.")[1].equals("tsv")) {
+            throw new ApiException("File is not of .tsv type");
+        }
+        this.opener = opener;
+        this.headers = headers.clone();
+        this.row = new TsvRow(headers);
+        open();
+    }
+
+    /**
+     * Open a reader over in-memory file content (async upload path).
+     */
+    public static TsvRowReader open(byte[] fileContent, String fileName, String[] headers) throws ApiException {
+        return new TsvRowReader(() -> new ByteArrayInputStream(fileContent), fileName, headers);
+    }
+
+    /**
+     * Open a reader over a multipart upload (sync upload path).
+     */
+    public static TsvRowReader open(MultipartFile file, String[] headers) throws ApiException {
+        return new TsvRowReader(file::getInputStream, file.getOriginalFilename(), headers);
+    }
+
+    @Override
+    public boolean next() throws ApiException {
+        String line;
+        try {
+            line = reader.readLine();
+        } catch (IOException e) {
+            throw new ApiException("Some Error occured while Reading Tsv");
+        }
+        if (line == null) {
+            return false;
+        }
+        rowCount++;
+        if ((rowCount & CANCELLATION_CHECK_MASK) == 0) {
+            CancellationToken.checkCurrent();
+        }
+        if (rowCount > MAX_ROWS + 1) {
+            throw new ApiException("File Row count is greater than " + MAX_ROWS);
+        }
+        row.fill(rowCount + 1, line.split("\t")); // +1 for header row
+        return true;
+    }
+
+    @Override
+    public TsvRow row() {
+        return row;
+    }
+
+    @Override
+    public void reset() throws ApiException {
+        closeQuietly();
+        open();
+    }
+
+    /**
+     * @return number of data rows read so far in the current pass
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public String[] getHeaders() {
+        return headers.clone();
+    }
+
+    @Override
+    public void close() {
+        closeQuietly();
+    }
+
+    private void open() throws ApiException {
+        String headerLine;
+        try {
+            InputStream inputStream = opener.open();
+            reader = new BufferedReader(new InputStreamReader(inputStream));
+            headerLine = reader.readLine();
+        } catch (IOException e) {
+            throw new ApiException("Some Error occured while Reading Tsv");
+        }
+        if (headerLine == null) {
+            closeQuietly();
+            throw new ApiException("Some Error occured while Reading Tsv");
+        }
+        verifyHeader(headerLine.split("\t"), headers);
+        rowCount = 0;
+    }
+
+    private void verifyHeader(String[] headersActual, String[] headersExpected) throws ApiException {
+        if (!Arrays.equals(headersActual, headersExpected)) {
+            closeQuietly();
+            String headerString = Arrays.toString(headersActual);
+            String actualHeaderString = Arrays.toString(headersExpected);
+            throw new ApiException("Headers for File does Not Match Expected Headers Headers for File " + headerString + "Headers Expected" + actualHeaderString);
+        }
+    }
+
+    private void closeQuietly() {
+        if (reader != null) {
+            ProcessTsv.closeQuietly(reader);
+            reader = null;
+        }
+    }
+
+    /**
+     * Source of the raw bytes; invoked again on every reset
+     */
+    @FunctionalInterface
+    private interface StreamOpener {
+        InputStream open() throws IOException;
+    }
+}
@@ -211,102 +211,136 @@ function uploadAjaxAsync(url,formData)
     });
 }
 
-function pollTaskStatus(taskId, fileType) {
+// Task progress is pushed over one shared Server-Sent Events stream for all
+// tasks; each watcher gets the task's state on every change until it finishes.
+// Browsers without EventSource fall back to polling GET /api/tasks/{id}.
+var taskWatchers = {};
+var taskEventSource = null;
+
+function watchTask(taskId, onUpdate) {
+    taskWatchers[taskId] = onUpdate;
+    if (typeof EventSource === "undefined") {
+        pollTask(taskId, 0);
+        return;
+    }
+    if (!taskEventSource) {
+        openTaskEventStream(); // syncs every watched task once connected
+    } else if (taskEventSource.readyState === EventSource.OPEN) {
+        fetchTaskOnce(taskId); // catch up on changes made before the stream saw this task
+    }
+}
+
+function openTaskEventStream() {
+    taskEventSource = new EventSource(getRunUrl() + '/tasks/events');
+    taskEventSource.addEventListener('task', function(e) {
+        dispatchTaskUpdate(JSON.parse(e.data));
+    });
+    taskEventSource.onopen = function() {
+        // Also runs after automatic reconnects, covering events missed while disconnected
+        for (var taskId in taskWatchers) {
+            fetchTaskOnce(taskId);
+        }
+    };
+    taskEventSource.onerror = function() {
+        console.log("Task event stream interrupted, browser will reconnect");
+    };
+}
+
+function closeTaskEventStreamIfIdle() {
+    if (taskEventSource && Object.keys(taskWatchers).length === 0) {
+        taskEventSource.close();
+        taskEventSource = null;
+    }
+}
+
+function dispatchTaskUpdate(task) {
+    var onUpdate = taskWatchers[task.id];
+    if (!onUpdate) {
+        return;
+    }
+    if (task.status !== "PENDING" && task.status !== "RUNNING") {
+        delete taskWatchers[task.id];
+        closeTaskEventStreamIfIdle();
+    }
+    onUpdate(task);
+}
+
+function fetchTaskOnce(taskId) {
+    $.ajax({
+        url: getRunUrl() + '/tasks/' + taskId,
+        type: 'GET',
+        success: dispatchTaskUpdate,
+        error: function(err) {
+            console.error("❌ Error fetching task status:", err);
+        }
+    });
+}
+
+function pollTask(taskId, pollCount) {
     var maxPolls = 120; // Maximum 10 minutes (120 * 5 seconds) for long-running tasks
-    var pollCount = 0;
-    
-    console.log("🔍 Starting polling for task:", taskId, "fileType:", fileType);
+    $.ajax({
+        url: getRunUrl() + '/tasks/' + taskId,
+        type: 'GET',
+        success: dispatchTaskUpdate,
+        complete: function() {
+            if (taskWatchers[taskId] && pollCount < maxPolls) {
+                // Poll more frequently initially, then less frequently
+                setTimeout(function() { pollTask(taskId, pollCount + 1); }, pollCount < 5 ? 2000 : 5000);
+            } else if (taskWatchers[taskId]) {
+                delete taskWatchers[taskId];
+                messageAlertWarn("Task is taking longer than expected. Please check the status later.");
+            }
+        }
+    });
+}
+
+function pollTaskStatus(taskId, fileType) {
+    console.log("🔍 Watching task:", taskId, "fileType:", fileType);
     
     // Ensure task info is stored globally for cancel functionality
     window.currentUploadTaskId = taskId;
     window.currentUploadFileType = fileType;
     
-    function checkStatus() {
-        pollCount++;
-        var pollUrl = getRunUrl() + '/tasks/' + taskId;
-        console.log("📡 Polling attempt", pollCount, "URL:", pollUrl);
+    watchTask(taskId, function(task) {
+        console.log("📊 Task status update:", task);
         
-        $.ajax({
-            url: pollUrl,
-            type: 'GET',
-            success: function(task) {
-                console.log("📊 Task status poll " + pollCount + ":", task);
-                
-                if (task.status === "COMPLETED") {
-                    setUploadStatus(fileType, {processing: false, failed: false});
-                    messageAlertPass("Upload completed successfully! " + (task.progressMessage || ""));
-                    fetchDataStatus(); // Refresh the data status
-                    window.currentUploadTaskId = null; // Clear task reference
-                    window.currentUploadFileType = null;
-                } else if (task.status === "FAILED") {
-                    setUploadStatus(fileType, {failed: true, processing: false});
-                    messageAlertFail("Upload failed: " + (task.errorMessage || "Unknown error"));
-                    window.currentUploadTaskId = null; // Clear task reference
-                    window.currentUploadFileType = null;
-                } else if (task.status === "CANCELLED") {
-                    setUploadStatus(fileType, {processing: false, failed: false});
-                    messageAlertWarn("Upload was cancelled by user");
-                    fetchDataStatus(); // Refresh the data status
-                    window.currentUploadTaskId = null; // Clear task reference
-                    window.currentUploadFileType = null;
-                } else if (task.status === "PENDING" || task.status === "RUNNING") {
-                    console.log("🔄 Task is", task.status, "- maintaining processing status");
-                    // Ensure processing status is maintained during polling
-                    setUploadStatus(fileType, {processing: true, failed: false});
-                    
-                    // Update progress message if available
-                    var progressMsg = task.progressMessage || "";
-                    var progressPct = task.progressPercentage || 0;
-                    console.log("📈 Progress: " + progressPct + "% - " + progressMsg);
-                    
-                    // Always update progress in the UI, even if percentage is 0
-                    console.log("🎯 Updating UI with progress:", progressPct + "%", progressMsg);
-                    setUploadStatus(fileType, {
-                        processing: true, 
-                        failed: false,
-                        progressPercentage: progressPct,
-                        progressMessage: progressMsg
-                    });
-                    
-                    // Continue polling if not exceeded max attempts
-                    if (pollCount < maxPolls) {
-                        // Poll more frequently initially, then less frequently
-                        var pollInterval = pollCount < 5 ? 2000 : 5000; // 2s for first 5 polls, then 5s
-                        setTimeout(checkStatus, pollInterval);
-                    } else {
-                        messageAlertWarn("Upload is taking longer than expected. Please check the status later.");
-                        setUploadStatus(fileType, {processing: false, failed: false});
-                        window.currentUploadTaskId = null;
-                        window.currentUploadFileType = null;
-                    }
-                } else {
-                    // Unknown status, stop polling
-                    messageAlertWarn("Upload status unknown. Please refresh the page to check current status.");
-                    setUploadStatus(fileType, {processing: false, failed: false});
-                    window.currentUploadTaskId = null;
-                    window.currentUploadFileType = null;
-                }
-            },
-            error: function(err) {
-                console.error("❌ Error polling task status:", err);
-                console.error("❌ Error details - Status:", err.status, "Response:", err.responseText);
-                if (pollCount < maxPolls) {
-                    var retryInterval = pollCount < 5 ? 2000 : 5000; // 2s for first 5 polls, then 5s
-                    console.log("🔄 Retrying poll in " + (retryInterval/1000) + " seconds... (attempt " + pollCount + "/" + maxPolls + ")");
-                    setTimeout(checkStatus, retryInterval);
-                } else {
-                    console.error("❌ Max polling attempts reached, stopping");
-                    messageAlertWarn("Unable to check upload status. Please refresh the page.");
-                    setUploadStatus(fileType, {processing: false, failed: false});
-                    window.currentUploadTaskId = null;
-                    window.currentUploadFileType = null;
-                }
-            }
-        });
-    }
-    
-    // Start polling immediately, then every 5 seconds
-    checkStatus();
+        if (task.status === "COMPLETED") {
+            setUploadStatus(fileType, {processing: false, failed: false});
+            messageAlertPass("Upload completed successfully! " + (task.progressMessage || ""));
+            fetchDataStatus(); // Refresh the data status
+            window.currentUploadTaskId = null; // Clear task reference
+            window.currentUploadFileType = null;
+        } else if (task.status === "FAILED") {
+            setUploadStatus(fileType, {failed: true, processing: false});
+            messageAlertFail("Upload failed: " + (task.errorMessage || "Unknown error"));
+            window.currentUploadTaskId = null; // Clear task reference
+            window.currentUploadFileType = null;
+        } else if (task.status === "CANCELLED") {
+            setUploadStatus(fileType, {processing: false, failed: false});
+            messageAlertWarn("Upload was cancelled by user");
+            fetchDataStatus(); // Refresh the data status
+            window.currentUploadTaskId = null; // Clear task reference
+            window.currentUploadFileType = null;
+        } else if (task.status === "PENDING" || task.status === "RUNNING") {
+            var progressMsg = task.progressMessage || "";
+            var progressPct = task.progressPercentage || 0;
+            console.log("📈 Progress: " + progressPct + "% - " + progressMsg);
+            
+            // Always update progress in the UI, even if percentage is 0
+            setUploadStatus(fileType, {
+                processing: true, 
+                failed: false,
+                progressPercentage: progressPct,
+                progressMessage: progressMsg
+            });
+        } else {
+            // Unknown status; the watcher was already dropped
+            messageAlertWarn("Upload status unknown. Please refresh the page to check current status.");
+            setUploadStatus(fileType, {processing: false, failed: false});
+            window.currentUploadTaskId = null;
+            window.currentUploadFileType = null;
+        }
+    });
 }
 
 /**
@@ -380,70 +414,37 @@ function downloadAsync(url, fileType) {
 }
 
 function pollDownloadStatus(taskId, fileType) {
-    var maxPolls = 120; // Maximum 10 minutes (120 * 5 seconds) for long-running tasks
-    var pollCount = 0;
-    
     // Store taskId for potential cancellation
     window.currentDownloadTaskId = taskId;
     
-    function checkDownloadStatus() {
-        pollCount++;
+    watchTask(taskId, function(task) {
+        console.log("Download task status update:", task);
         
-        $.ajax({
-            url: getRunUrl() + '/tasks/' + taskId,
-            type: 'GET',
-            success: function(task) {
-                console.log("Download task status poll " + pollCount + ":", task);
-                
-                if (task.status === "COMPLETED") {
-                    messageAlertPass("Download ready! Starting file download...");
-                    window.currentDownloadTaskId = null; // Clear task reference
-                    // Trigger the actual file download
-                    if (task.resultUrl) {
-                        // Use the task result endpoint to stream the file
-                        var downloadUrl = getRunUrl() + '/tasks/' + taskId + '/result';
-                        triggerFileDownload(downloadUrl);
-                    } else {
-                        messageAlertFail("Download completed but file not available. Please try again.");
-                    }
-                } else if (task.status === "FAILED") {
-                    messageAlertFail("Download failed: " + (task.errorMessage || "Unknown error"));
-                    window.currentDownloadTaskId = null; // Clear task reference
-                } else if (task.status === "CANCELLED") {
-                    messageAlertWarn("Download was cancelled by user");
-                    window.currentDownloadTaskId = null; // Clear task reference
-                } else if (task.status === "PENDING" || task.status === "RUNNING") {
-                    // Update progress message if available
-                    var progressMsg = task.progressMessage || "";
-                    var progressPct = task.progressPercentage || 0;
-                    console.log("Download progress: " + progressPct + "% - " + progressMsg);
-                    
-                    // Continue polling if not exceeded max attempts
-                    if (pollCount < maxPolls) {
-                        setTimeout(checkDownloadStatus, 5000); // Poll every 5 seconds
-                    } else {
-                        messageAlertWarn("Download is taking longer than expected. Please try again later.");
-                        window.currentDownloadTaskId = null;
-                    }
-                } else {
-                    // Unknown status, stop polling
-                    window.currentDownloadTaskId = null;
-                    messageAlertWarn("Download status unknown. Please try again.");
-                }
-            },
-            error: function(err) {
-                console.log("Error polling download task status:", err);
-                if (pollCount < maxPolls) {
-                    setTimeout(checkDownloadStatus, 5000); // Retry after 5 seconds
-                } else {
-                    messageAlertWarn("Unable to check download status. Please try again.");
-                }
+        if (task.status === "COMPLETED") {
+            messageAlertPass("Download ready! Starting file download...");
+            window.currentDownloadTaskId = null; // Clear task reference
+            // Trigger the actual file download
+            if (task.resultUrl) {
+                // Use the task result endpoint to stream the file
+                var downloadUrl = getRunUrl() + '/tasks/' + taskId + '/result';
+                triggerFileDownload(downloadUrl);
+            } else {
+                messageAlertFail("Download completed but file not available. Please try again.");
             }
-        });
-    }
-    
-    // Start polling after a short delay
-    setTimeout(checkDownloadStatus, 2000);
+        } else if (task.status === "FAILED") {
+            messageAlertFail("Download failed: " + (task.errorMessage || "Unknown error"));
+            window.currentDownloadTaskId = null; // Clear task reference
+        } else if (task.status === "CANCELLED") {
+            messageAlertWarn("Download was cancelled by user");
+            window.currentDownloadTaskId = null; // Clear task reference
+        } else if (task.status === "PENDING" || task.status === "RUNNING") {
+            console.log("Download progress: " + (task.progressPercentage || 0) + "% - " + (task.progressMessage || ""));
+        } else {
+            // Unknown status; the watcher was already dropped
+            window.currentDownloadTaskId = null;
+            messageAlertWarn("Download status unknown. Please try again.");
+        }
+    });
 }
 
 // Safely trigger a file download without being blocked by pop-up blockers
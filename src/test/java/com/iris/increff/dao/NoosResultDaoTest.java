@@ -281,6 +281,55 @@ public class NoosResultDaoTest extends AbstractUnitTest {
         assertEquals("Second result should be SHIRT001", "SHIRT001", resultsForRun1001.get(1).getStyleCode());
     }
 
+    /**
+     * Test walking a run's results with keyset pages
+     * Verifies that getResultsPage returns id-ordered pages that continue after afterId
+     */
+    @Test
+    @Transactional
+    @Rollback
+    public void testGetResultsPage_WalksRunInIdOrder() {
+        // Given: Three results in run 1002 and one in run 1001
+        testResult1.setAlgorithmRunId(1002L);
+        noosResultDao.insert(testResult1);
+        noosResultDao.insert(testResult2); // Run ID 1001
+        noosResultDao.insert(testResult3);
+        noosResultDao.insert(testResult4);
+
+        // When: Read run 1002 two results at a time
+        List<NoosResult> first = noosResultDao.getResultsPage(1002L, null, null, null, 2);
+        List<NoosResult> second = noosResultDao.getResultsPage(1002L, null, null, first.get(1).getId(), 2);
+
+        // Then: Pages follow on in id order and stay within the run
+        assertEquals(2, first.size());
+        assertEquals(1, second.size());
+        assertTrue(first.get(0).getId() < first.get(1).getId());
+        assertTrue(first.get(1).getId() < second.get(0).getId());
+        assertEquals("SHIRT002", second.get(0).getStyleCode());
+    }
+
+    /**
+     * Test filtering keyset pages by type and category
+     * Verifies that getResultsPage applies the filters within the run
+     */
+    @Test
+    @Transactional
+    @Rollback
+    public void testGetResultsPage_FiltersByTypeAndCategory() {
+        // Given: Run 1002 has a fashion DRESSES result and a core SHIRTS result
+        noosResultDao.insert(testResult3);
+        noosResultDao.insert(testResult4);
+
+        // When/Then: Each filter keeps only the matching result
+        List<NoosResult> core = noosResultDao.getResultsPage(1002L, "core", null, null, 10);
+        assertEquals(1, core.size());
+        assertEquals("SHIRT002", core.get(0).getStyleCode());
+        List<NoosResult> dresses = noosResultDao.getResultsPage(1002L, null, "DRESSES", null, 10);
+        assertEquals(1, dresses.size());
+        assertEquals("DRESS001", dresses.get(0).getStyleCode());
+        assertTrue(noosResultDao.getResultsPage(1002L, "core", "DRESSES", null, 10).isEmpty());
+    }
+
     /**
      * Test getting results by non-existent run ID
      * Verifies that getResultsByRunId returns empty list for non-existent run ID
@@ -0,0 +1,120 @@
+package com.iris.increff.dao;
+
+import com.iris.increff.AbstractUnitTest;
+import org.hibernate.Session;
+import org.junit.Test;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Query plan regression tests for the hot DAO queries.
+ *
+ * Each test runs EXPLAIN on the SQL a DAO method issues and fails if the
+ * plan falls back to a full table scan, i.e. if an index declared on the
+ * entity was dropped or the query changed so it no longer matches one.
+ * Works against H2 (no ".tableScan" in the plan) and MySQL (no row with
+ * access type ALL), whichever the test datasource points at.
+ */
+public class QueryPlanTest extends AbstractUnitTest {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // ==================== SALES ====================
+
+    @Test
+    public void testSalesFindByDateBetween_UsesIndex() {
+        assertNoFullScan("SELECT * FROM sales WHERE date BETWEEN DATE '2024-01-01' AND DATE '2024-03-31'");
+    }
+
+    @Test
+    public void testSalesFindBySkuId_UsesIndex() {
+        assertNoFullScan("SELECT * FROM sales WHERE sku_id = 1");
+    }
+
+    @Test
+    public void testSalesFindByStoreId_UsesIndex() {
+        assertNoFullScan("SELECT * FROM sales WHERE store_id = 1");
+    }
+
+    // ==================== NOOS RESULTS ====================
+
+    @Test
+    public void testNoosGetResultsByTypeAndRunId_UsesIndex() {
+        assertNoFullScan("SELECT * FROM noos_results WHERE type = 'core' AND algorithm_run_id = 1 "
+                + "ORDER BY style_rev_contribution DESC");
+    }
+
+    @Test
+    public void testNoosGetCountByTypeForRun_UsesIndex() {
+        assertNoFullScan("SELECT COUNT(*) FROM noos_results WHERE type = 'core' AND algorithm_run_id = 1");
+    }
+
+    @Test
+    public void testNoosGetLatestRunId_UsesIndex() {
+        assertNoFullScan("SELECT MAX(algorithm_run_id) FROM noos_results");
+    }
+
+    @Test
+    public void testNoosGetResultsByRunId_UsesIndex() {
+        assertNoFullScan("SELECT * FROM noos_results WHERE algorithm_run_id = 1 ORDER BY style_rev_contribution DESC");
+    }
+
+    @Test
+    public void testNoosGetResultsPage_UsesIndex() {
+        assertNoFullScan("SELECT * FROM noos_results WHERE algorithm_run_id = 1 AND type = 'core' AND id > 100 "
+                + "ORDER BY id LIMIT 500");
+    }
+
+    // ==================== TASKS ====================
+
+    @Test
+    public void testTaskGetTaskStatRows_UsesIndex() {
+        assertNoFullScan("SELECT task_type, status, created_date, start_time, end_time FROM tasks "
+                + "WHERE created_date >= TIMESTAMP '2024-01-01 00:00:00' "
+                + "UNION ALL SELECT task_type, status, created_date, start_time, end_time FROM tasks "
+                + "WHERE status IN ('PENDING', 'RUNNING') AND created_date < TIMESTAMP '2024-01-01 00:00:00'");
+    }
+
+    @Test
+    public void testTaskGetActiveTaskCount_UsesIndex() {
+        assertNoFullScan("SELECT COUNT(*) FROM tasks WHERE status IN ('PENDING', 'RUNNING')");
+    }
+
+    // ==================== HELPERS ====================
+
+    private void assertNoFullScan(String sql) {
+        List<String> problems = entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            String product = connection.getMetaData().getDatabaseProductName();
+            List<String> found = new ArrayList<>();
+            try (Statement statement = connection.createStatement();
+                 ResultSet plan = statement.executeQuery("EXPLAIN " + sql)) {
+                ResultSetMetaData meta = plan.getMetaData();
+                while (plan.next()) {
+                    if ("H2".equals(product)) {
+                        String text = plan.getString(1);
+                        if (text.contains(".tableScan")) {
+                            found.add(text);
+                        }
+                    } else if (product.startsWith("MySQL")) {
+                        for (int i = 1; i <= meta.getColumnCount(); i++) {
+                            if ("type".equalsIgnoreCase(meta.getColumnLabel(i)) && "ALL".equals(plan.getString(i))) {
+                                found.add("full scan of " + plan.getString("table"));
+                            }
+                        }
+                    }
+                }
+            }
+            return found;
+        });
+        assertTrue("Full table scan for: " + sql + "\n" + problems, problems.isEmpty());
+    }
+}
@@ -0,0 +1,121 @@
+package com.iris.increff.dao;
+
+import com.iris.increff.AbstractUnitTest;
+import com.iris.increff.model.SKU;
+import com.iris.increff.model.Sales;
+import com.iris.increff.model.Store;
+import com.iris.increff.model.Style;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for SalesBulkWriter multi-row JDBC inserts (H2 path)
+ *
+ * @author Anshuk Kawarry
+ * @version 1.0
+ * @since 2025-01-01
+ */
+public class SalesBulkWriterTest extends AbstractUnitTest {
+
+    @Autowired
+    private SalesBulkWriter salesBulkWriter;
+
+    @Autowired
+    private SalesDao salesDao;
+
+    @Autowired
+    private SkuDao skuDao;
+
+    @Autowired
+    private StoreDao storeDao;
+
+    @Autowired
+    private StyleDao styleDao;
+
+    private SKU sku;
+    private Store store;
+    private Date date;
+
+    @Before
+    public void setUp() throws ParseException {
+        date = new SimpleDateFormat("yyyy-MM-dd").parse("2024-01-15");
+
+        Style style = new Style();
+        style.setStyleCode("BULK_STYLE");
+        style.setBrand("BRAND");
+        style.setCategory("CATEGORY");
+        style.setSubCategory("SUB");
+        style.setMrp(new BigDecimal("100.00"));
+        style.setGender("M");
+        style = styleDao.save(style);
+
+        sku = new SKU();
+        sku.setSku("BULK_SKU");
+        sku.setStyleId(style.getId());
+        sku.setSize("M");
+        sku = skuDao.save(sku);
+
+        store = new Store();
+        store.setBranch("BULK_BRANCH");
+        store.setCity("CITY");
+        store = storeDao.save(store);
+    }
+
+    @Test
+    public void testInsertAll_SpansFullAndPartialStatements() {
+        // 450 rows = two full 200-row statements plus a 50-row remainder
+        List<Sales> rows = createSales(450);
+
+        int inserted = salesBulkWriter.insertAll(rows);
+
+        assertEquals(450, inserted);
+        assertEquals(Long.valueOf(450), salesDao.getTotalSalesCount());
+    }
+
+    @Test
+    public void testInsertAll_PreservesColumnValues() {
+        int inserted = salesBulkWriter.insertAll(createSales(1));
+
+        assertEquals(1, inserted);
+        Sales saved = salesDao.findAll().get(0);
+        assertNotNull(saved.getId());
+        assertEquals(sku.getId(), saved.getSkuId());
+        assertEquals(store.getId(), saved.getStoreId());
+        assertEquals(Integer.valueOf(1), saved.getQuantity());
+        assertEquals(0, new BigDecimal("1.50").compareTo(saved.getDiscount()));
+        assertEquals(0, new BigDecimal("10.25").compareTo(saved.getRevenue()));
+        assertEquals(date.getTime(), saved.getDate().getTime());
+    }
+
+    @Test
+    public void testInsertAll_EmptyList() {
+        assertEquals(0, salesBulkWriter.insertAll(Collections.<Sales>emptyList()));
+        assertEquals(Long.valueOf(0), salesDao.getTotalSalesCount());
+    }
+
+    private List<Sales> createSales(int count) {
+        List<Sales> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Sales sales = new Sales();
+            sales.setDate(date);
+            sales.setSkuId(sku.getId());
+            sales.setStoreId(store.getId());
+            sales.setQuantity(i + 1);
+            sales.setDiscount(new BigDecimal("1.50"));
+            sales.setRevenue(new BigDecimal("10.25"));
+            rows.add(sales);
+        }
+        return rows;
+    }
+}
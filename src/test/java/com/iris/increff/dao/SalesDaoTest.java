@@ -298,6 +298,36 @@ public class SalesDaoTest extends AbstractUnitTest {
         assertTrue("Should return empty list", allSales.isEmpty());
     }
 
+    /**
+     * Test scrolling the sales export rows in chunks
+     * Verifies every row is visited in id order with its SKU code and branch joined in
+     */
+    @Test
+    @Transactional
+    @Rollback
+    public void testScrollExportRows_ProjectsSkuAndBranch() {
+        // Given: Save multiple sales records
+        salesDao.save(testSales1);
+        salesDao.save(testSales2);
+        salesDao.save(testSales3);
+
+        // When: Scroll with a fetch size smaller than the table
+        List<Object[]> rows = new ArrayList<>();
+        long visited = salesDao.scrollExportRows(2, rows::add);
+
+        // Then: All rows are visited, in insertion order, as [date, sku, branch, quantity, discount, revenue]
+        assertEquals(3, visited);
+        assertEquals(3, rows.size());
+        Object[] first = rows.get(0);
+        assertEquals(6, first.length);
+        assertEquals("2024-01-15", dateFormat.format((Date) first[0]));
+        assertEquals("SKU001", first[1]);
+        assertEquals(testStore1.getBranch(), first[2]);
+        assertEquals(5, first[3]);
+        assertEquals(0, new BigDecimal("450.00").compareTo((BigDecimal) first[5]));
+        assertEquals("BRANCH_002", rows.get(1)[2]);
+    }
+
     /**
      * Test finding sales records by date range
      * Verifies that findByDateBetween returns correct sales records
@@ -10,6 +10,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 
@@ -717,6 +718,32 @@ public class TaskDaoTest extends AbstractUnitTest {
         assertEquals("Completed tasks should be 0", 0, stats[1]);
     }
 
+    /**
+     * Test getting task stat rows
+     * Verifies the window's tasks are returned, plus older tasks that are still active
+     */
+    @Test
+    @Transactional
+    @Rollback
+    public void testGetTaskStatRows() {
+        // Given: Insert tasks with different statuses
+        taskDao.insert(testTask1); // PENDING
+        taskDao.insert(testTask2); // RUNNING
+        taskDao.insert(testTask3); // COMPLETED
+        taskDao.insert(testTask4); // FAILED
+
+        // When: Window started yesterday / starts tomorrow
+        List<Object[]> inWindow = taskDao.getTaskStatRows(new Date(System.currentTimeMillis() - 24L * 60 * 60 * 1000));
+        List<Object[]> beforeWindow = taskDao.getTaskStatRows(new Date(System.currentTimeMillis() + 24L * 60 * 60 * 1000));
+
+        // Then: All tasks are in the window; only active ones outside it
+        assertEquals("Should return all 4 tasks", 4, inWindow.size());
+        assertEquals("Should return the 2 active tasks", 2, beforeWindow.size());
+        for (Object[] row : beforeWindow) {
+            assertTrue("Should be active", "PENDING".equals(row[1]) || "RUNNING".equals(row[1]));
+        }
+    }
+
     /**
      * Test getting active task count
      * Verifies that getActiveTaskCount returns correct count of PENDING and RUNNING tasks
@@ -1082,6 +1109,159 @@ public class TaskDaoTest extends AbstractUnitTest {
         assertEquals("Active count should be 2", 2, activeCount);
     }
 
+    // ==================== LEASE TESTS ====================
+
+    /**
+     * Test that only one node at a time can hold a task's lease
+     * Verifies claims by the owner, by another node, after expiry and on finished tasks
+     */
+    @Test
+    @Transactional
+    @Rollback
+    public void testClaimLease_OneOwnerUntilExpiry() {
+        taskDao.insert(testTask1);
+        Long id = testTask1.getId();
+        Date inOneMinute = new Date(System.currentTimeMillis() + 60000);
+
+        assertEquals("Free lease should be claimed", 1, taskDao.claimLease(id, "node-a", inOneMinute));
+        assertEquals("Held lease should not be claimed by another node", 0, taskDao.claimLease(id, "node-b", inOneMinute));
+        assertEquals("Owner should be able to claim again", 1, taskDao.claimLease(id, "node-a", inOneMinute));
+
+        // node-a stops renewing
+        taskDao.claimLease(id, "node-a", new Date(System.currentTimeMillis() - 1000));
+        assertEquals("Expired lease should be claimed by another node", 1, taskDao.claimLease(id, "node-b", inOneMinute));
+        assertEquals("Renewal by the previous owner should not apply", 0,
+                taskDao.renewLeases(Collections.singletonList(id), "node-a", inOneMinute));
+
+        taskDao.detach(testTask1);
+        Task claimed = taskDao.select(id);
+        assertEquals("node-b", claimed.getLeaseOwner());
+
+        claimed.setStatus("COMPLETED");
+        taskDao.update(claimed);
+        assertEquals("Finished task should not be claimed", 0, taskDao.claimLease(id, "node-c", inOneMinute));
+    }
+
+    /**
+     * Test reclaiming a task whose node stopped
+     * Verifies requeue only applies to expired leases and counts the attempt
+     */
+    @Test
+    @Transactional
+    @Rollback
+    public void testRequeueExpiredLease() {
+        testTask2.setPayload("{}");
+        taskDao.insert(testTask2);
+        Long id = testTask2.getId();
+        taskDao.claimLease(id, "node-a", new Date(System.currentTimeMillis() + 60000));
+        assertTrue("Live lease should not be reported as expired", taskDao.getExpiredLeases(10).isEmpty());
+
+        taskDao.claimLease(id, "node-a", new Date(System.currentTimeMillis() - 1000));
+        taskDao.detach(testTask2); // re-read the row as another node would
+        List<Task> expired = taskDao.getExpiredLeases(10);
+        assertEquals(1, expired.size());
+        Task stale = expired.get(0);
+        assertEquals("node-a", stale.getLeaseOwner());
+        taskDao.detach(stale);
+
+        assertEquals(1, taskDao.requeueExpiredLease(stale, "PENDING: Requeued"));
+        assertEquals("Second reclaim of the same lease should not apply", 0, taskDao.requeueExpiredLease(stale, "PENDING: Requeued"));
+
+        Task requeued = taskDao.select(id);
+        assertEquals("PENDING", requeued.getStatus());
+        assertNull(requeued.getLeaseOwner());
+        assertEquals(Integer.valueOf(1), requeued.getAttempts());
+        assertEquals(Integer.valueOf(0), requeued.getProcessedRecords());
+    }
+
+    /**
+     * Test which PENDING tasks another node may take
+     * Verifies tasks without a payload, held tasks and young tasks are left alone
+     */
+    @Test
+    @Transactional
+    @Rollback
+    public void testGetClaimableTasks() {
+        Task download = new Task();
+        download.setTaskType("STYLES_DOWNLOAD");
+        download.setStatus("PENDING");
+        download.setPayload("{}");
+        taskDao.insert(download);
+        Task held = new Task();
+        held.setTaskType("STYLES_DOWNLOAD");
+        held.setStatus("PENDING");
+        held.setPayload("{}");
+        taskDao.insert(held);
+        taskDao.claimLease(held.getId(), "node-a", new Date(System.currentTimeMillis() + 60000));
+        Task upload = new Task();
+        upload.setTaskType("STYLES_DOWNLOAD");
+        upload.setStatus("PENDING"); // no payload: only its own node can run it
+        taskDao.insert(upload);
+
+        Date inOneSecond = new Date(System.currentTimeMillis() + 1000);
+        List<Task> claimable = taskDao.getClaimableTasks(Collections.singletonList("STYLES_DOWNLOAD"), inOneSecond, 10);
+        assertEquals(1, claimable.size());
+        assertEquals(download.getId(), claimable.get(0).getId());
+
+        Date oneMinuteAgo = new Date(System.currentTimeMillis() - 60000);
+        assertTrue("Young tasks should be left to their node",
+                taskDao.getClaimableTasks(Collections.singletonList("STYLES_DOWNLOAD"), oneMinuteAgo, 10).isEmpty());
+    }
+
+    /**
+     * Test the startup sweep's query pages through unfinished tasks from before the restart
+     */
+    @Test
+    @Transactional
+    @Rollback
+    public void testGetUnfinishedTasks() {
+        taskDao.insert(testTask1); // PENDING
+        taskDao.insert(testTask2); // RUNNING
+        taskDao.insert(testTask3); // COMPLETED
+        taskDao.insert(testTask4); // FAILED
+
+        Date inOneSecond = new Date(System.currentTimeMillis() + 1000);
+        List<Task> unfinished = taskDao.getUnfinishedTasks(inOneSecond, 0, 10);
+        assertEquals(2, unfinished.size());
+        assertEquals(testTask1.getId(), unfinished.get(0).getId());
+        assertEquals(testTask2.getId(), unfinished.get(1).getId());
+
+        assertEquals(1, taskDao.getUnfinishedTasks(inOneSecond, testTask1.getId(), 10).size());
+        Date oneMinuteAgo = new Date(System.currentTimeMillis() - 60000);
+        assertTrue("Tasks created since the restart should be left alone",
+                taskDao.getUnfinishedTasks(oneMinuteAgo, 0, 10).isEmpty());
+    }
+
+    /**
+     * Test orphaned tasks are requeued or failed only while still unfinished
+     */
+    @Test
+    @Transactional
+    @Rollback
+    public void testRequeueAndFailOrphaned() {
+        testTask2.setPayload("{}");
+        taskDao.insert(testTask1); // PENDING
+        taskDao.insert(testTask2); // RUNNING
+        taskDao.insert(testTask3); // COMPLETED
+
+        assertEquals(1, taskDao.requeueOrphaned(testTask2, "PENDING: Requeued"));
+        assertEquals(1, taskDao.failOrphaned(testTask1, "Resubmit it"));
+        assertEquals(0, taskDao.failOrphaned(testTask3, "Resubmit it"));
+        taskDao.detach(testTask1);
+        taskDao.detach(testTask2);
+        taskDao.detach(testTask3);
+
+        Task requeued = taskDao.select(testTask2.getId());
+        assertEquals("PENDING", requeued.getStatus());
+        assertEquals(Integer.valueOf(1), requeued.getAttempts());
+        assertEquals(Integer.valueOf(0), requeued.getProcessedRecords());
+        Task failed = taskDao.select(testTask1.getId());
+        assertEquals("FAILED", failed.getStatus());
+        assertEquals("Resubmit it", failed.getErrorMessage());
+        assertNotNull(failed.getEndTime());
+        assertEquals("COMPLETED", taskDao.select(testTask3.getId()).getStatus());
+    }
+
     // ==================== HELPER METHODS ====================
 
     /**
@@ -0,0 +1,92 @@
+package com.iris.increff.service;
+
+import com.iris.increff.exception.TaskCancelledException;
+import com.iris.increff.model.Task;
+import com.iris.increff.util.CancellationToken;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class CancellationRegistryTest {
+
+    private final CancellationRegistry registry = new CancellationRegistry();
+    private final Set<Long> storedCancellations = new HashSet<>();
+
+    @Before
+    public void setUp() {
+        // Stands in for the tasks table's cancellation flag
+        ReflectionTestUtils.setField(registry, "taskService", new TaskService() {
+            @Override
+            public boolean isCancellationRequested(Long taskId) {
+                return storedCancellations.contains(taskId);
+            }
+        });
+    }
+
+    @After
+    public void unbind() {
+        CancellationToken.bind(null);
+    }
+
+    @Test
+    public void testCancelSignalsBoundWorker() {
+        Task task = newTask(1L);
+        CancellationToken token = registry.open(task);
+        assertSame(token, CancellationToken.current());
+        CancellationToken.checkCurrent(); // not cancelled yet
+
+        assertTrue(registry.cancel(1L));
+        assertTrue(registry.isCancelled(1L));
+        try {
+            CancellationToken.checkCurrent();
+            fail("Expected TaskCancelledException");
+        } catch (TaskCancelledException e) {
+            assertTrue(e.getMessage().contains("1"));
+        }
+    }
+
+    @Test
+    public void testTaskCancelledBeforeStartOpensCancelled() {
+        Task task = newTask(2L);
+        task.requestCancellation();
+
+        registry.open(task);
+
+        assertTrue(registry.isCancelled(2L));
+    }
+
+    @Test
+    public void testCancelStoredAfterTaskWasReadIsNotLost() {
+        // Worker read the task before the cancel committed
+        Task task = newTask(4L);
+        storedCancellations.add(4L);
+
+        registry.open(task);
+
+        assertTrue(registry.isCancelled(4L));
+    }
+
+    @Test
+    public void testCloseUnbindsAndForgetsTask() {
+        registry.open(newTask(3L));
+        registry.close(3L);
+
+        assertNull(CancellationToken.current());
+        assertFalse(registry.cancel(3L));
+        assertFalse(registry.isCancelled(3L));
+        CancellationToken.checkCurrent(); // unbound threads never stop
+    }
+
+    private static Task newTask(Long id) {
+        Task task = new Task();
+        task.setId(id);
+        task.setStatus("RUNNING");
+        return task;
+    }
+}
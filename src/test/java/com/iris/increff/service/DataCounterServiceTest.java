@@ -0,0 +1,142 @@
+package com.iris.increff.service;
+
+import com.iris.increff.AbstractUnitTest;
+import com.iris.increff.dao.DataCounterDao;
+import com.iris.increff.dao.StoreDao;
+import com.iris.increff.dao.StyleDao;
+import com.iris.increff.model.Store;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for DataCounterService: counters follow uploads and clears, and
+ * reconciliation corrects drift.
+ */
+public class DataCounterServiceTest extends AbstractUnitTest {
+
+    @Autowired
+    private DataCounterService dataCounterService;
+
+    @Autowired
+    private DataCounterDao dataCounterDao;
+
+    @Autowired
+    private DataClearingService dataClearingService;
+
+    @Autowired
+    private StyleService styleService;
+
+    @Autowired
+    private StyleDao styleDao;
+
+    @Autowired
+    private StoreDao storeDao;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Before
+    public void setUp() {
+        dataClearingService.clearAllData();
+    }
+
+    @Test
+    @Transactional
+    @Rollback
+    public void testUploadAndClearUpdateCounters() throws Exception {
+        // Given: Two styles uploaded, then one re-uploaded (update, not insert)
+        styleService.processAndSaveStyles(styles("SHIRT001", "PANT001"));
+        styleService.processAndSaveStyles(styles("SHIRT001"));
+
+        // Then: Counter matches the table
+        assertEquals(Long.valueOf(2), dataCounterService.getCounts().get(DataCounterService.STYLES));
+        assertEquals(styleDao.getTotalStyleCount(), dataCounterService.getCounts().get(DataCounterService.STYLES));
+        assertNotNull(dataCounterService.getLastUpdated());
+
+        // When: All data is cleared
+        dataClearingService.clearAllData();
+
+        // Then: Counters are back to zero
+        Map<String, Long> counts = dataCounterService.getCounts();
+        assertEquals(Long.valueOf(0), counts.get(DataCounterService.STYLES));
+        assertEquals(Long.valueOf(0), counts.get(DataCounterService.SALES));
+    }
+
+    @Test
+    @Transactional
+    @Rollback
+    public void testReconcileCorrectsDrift() {
+        // Given: A store written directly through the DAO, bypassing the counter
+        Store store = new Store();
+        store.setBranch("MUMBAI_CENTRAL");
+        store.setCity("MUMBAI");
+        storeDao.save(store);
+        assertEquals(Long.valueOf(0), dataCounterService.getCounts().get(DataCounterService.STORES));
+
+        // When: Reconciling
+        int corrected = dataCounterService.reconcile();
+
+        // Then: Only the drifted counter is corrected
+        assertEquals(1, corrected);
+        assertEquals(Long.valueOf(1), dataCounterService.getCounts().get(DataCounterService.STORES));
+        assertEquals(0, dataCounterService.reconcile());
+    }
+
+    @Test
+    @Transactional
+    @Rollback
+    public void testReconcileSkipsCounterChangedMeanwhile() {
+        // Given: Counter no longer holds the value reconciliation read
+        dataCounterService.add(DataCounterService.STORES, 5);
+
+        // Then: Compare-and-set against the stale value does not overwrite it
+        assertEquals(0, dataCounterDao.compareAndSet(DataCounterService.STORES, 0, 0));
+        assertEquals(Long.valueOf(5), dataCounterService.getCounts().get(DataCounterService.STORES));
+    }
+
+    @Test
+    @Transactional
+    @Rollback
+    public void testAddToMissingCounterDoesNotInsert() throws Exception {
+        // Given: The styles counter row is missing
+        entityManager.createQuery("DELETE FROM DataCounter c WHERE c.name = :name")
+                .setParameter("name", DataCounterService.STYLES)
+                .executeUpdate();
+
+        // When: An upload adds to it
+        styleService.processAndSaveStyles(styles("SHIRT001"));
+
+        // Then: The upload succeeds without creating the row; reads count the table
+        assertEquals(Long.valueOf(0), entityManager.createQuery(
+                "SELECT COUNT(c) FROM DataCounter c WHERE c.name = :name", Long.class)
+                .setParameter("name", DataCounterService.STYLES)
+                .getSingleResult());
+        assertEquals(Long.valueOf(1), dataCounterService.getCounts().get(DataCounterService.STYLES));
+    }
+
+    private ArrayList<HashMap<String, String>> styles(String... codes) {
+        ArrayList<HashMap<String, String>> rows = new ArrayList<>();
+        for (String code : codes) {
+            HashMap<String, String> row = new HashMap<>();
+            row.put("style", code);
+            row.put("brand", "NIKE");
+            row.put("category", "SHIRTS");
+            row.put("sub_category", "CASUAL");
+            row.put("mrp", "100.50");
+            row.put("gender", "M");
+            rows.add(row);
+        }
+        return rows;
+    }
+}
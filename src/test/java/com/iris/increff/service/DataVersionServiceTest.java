@@ -0,0 +1,46 @@
+package com.iris.increff.service;
+
+import com.iris.increff.AbstractUnitTest;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for DataVersionService: the version lives in the database, and runs
+ * read at an unknown version are never cached.
+ */
+public class DataVersionServiceTest extends AbstractUnitTest {
+
+    @Autowired
+    private DataVersionService dataVersionService;
+
+    @Autowired
+    private DataClearingService dataClearingService;
+
+    @Test
+    @Transactional
+    @Rollback
+    public void testWritesBumpStoredVersion() {
+        // Given: The version seeded at startup
+        long before = dataVersionService.getVersion();
+        assertNotEquals(DataVersionService.UNKNOWN, before);
+
+        // When: Data is cleared
+        dataClearingService.clearDataForSalesUpload();
+
+        // Then: The stored version moved on within the write's transaction
+        assertEquals(before + 1, dataVersionService.getVersion());
+    }
+
+    @Test
+    public void testUnknownVersionIsNeverCached() {
+        NoosRunCache cache = new NoosRunCache();
+        cache.putAfterCommit(DataVersionService.UNKNOWN, "key", 1L);
+
+        assertNull(cache.lookup(DataVersionService.UNKNOWN, "key"));
+        assertEquals(0, cache.getStats()[2]);
+    }
+}
@@ -8,12 +8,17 @@ import org.junit.Before;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.annotation.Rollback;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.Assert.*;
 
@@ -52,6 +57,15 @@ public class NoosAlgorithmServiceTest extends AbstractUnitTest {
     @Autowired
     private NoosResultDao noosResultDao;
 
+    @Autowired
+    private DataVersionService dataVersionService;
+
+    @Autowired
+    private NoosRunCache noosRunCache;
+
+    @Autowired
+    private NoosRunSummaryDao noosRunSummaryDao;
+
     private AlgoParametersData testParameters;
     private SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
 
@@ -556,6 +570,31 @@ public class NoosAlgorithmServiceTest extends AbstractUnitTest {
         assertTrue("Fashion count should be non-negative", counts.get("fashion") >= 0);
     }
 
+    /**
+     * Test that a run writes its summary row
+     * Verifies the summary totals match the run's stored results
+     */
+    @Test
+    @Transactional
+    @Rollback
+    public void testRunWritesSummary() throws ApiException {
+        // Given: Run algorithm to create results
+        Task task = noosAlgorithmService.runNoosAlgorithm(testParameters);
+
+        // When: Read the run's summary
+        NoosRunSummary summary = noosRunSummaryDao.select(task.getId());
+
+        // Then: Totals should match the stored results
+        assertNotNull("Summary should be written", summary);
+        assertNotNull("Run date should be set", summary.getRunDate());
+        assertEquals(noosResultDao.getResultsByRunId(task.getId()).size(), summary.getTotalResults().intValue());
+        assertEquals(noosResultDao.getCountByTypeForRun("core", task.getId()), summary.getCoreCount().longValue());
+        assertEquals(summary.getTotalResults().intValue(),
+                summary.getCoreCount() + summary.getBestsellerCount() + summary.getFashionCount());
+        assertNotNull("Category totals should be set", summary.getCategoryTotals());
+        assertNotNull("Parameters should be set", summary.getParameters());
+    }
+
     // ==================== PERFORMANCE TEST ====================
 
     /**
@@ -729,6 +768,244 @@ public class NoosAlgorithmServiceTest extends AbstractUnitTest {
         assertNotNull("Task parameters should be set", result.getParameters());
     }
 
+    // ==================== AGGREGATION ENGINE TESTS ====================
+
+    /**
+     * Test that the SQL push-down engine produces the same results as the in-memory engine
+     * Covers multiple days, same-day sales and a sale exactly at the liquidation threshold
+     */
+    @Test
+    @Transactional
+    @Rollback
+    public void testSqlAggregation_MatchesInMemoryEngine() throws ApiException, ParseException {
+        // Given: Extra sales across several days, including a same-day repeat and a boundary discount
+        SKU shirtSku = skuDao.findBySku("TEST_SHIRT001-M");
+        Store testStore = storeDao.findByBranch("TEST_STORE");
+        createSale(shirtSku, testStore, "2019-02-15", 3, "1.10", "33.30");
+        createSale(shirtSku, testStore, "2019-02-16", 7, "0.05", "0.20");
+        createSale(shirtSku, testStore, "2019-02-17", 4, "25.00", "75.00"); // exactly 25% discount - retained
+        createBoundaryTestData();
+        createSingleCategoryTestData();
+
+        // When: Run once with each engine
+        Task memoryTask;
+        Task sqlTask;
+        try {
+            ReflectionTestUtils.setField(noosAlgorithmService, "aggregationMode", NoosAlgorithmService.AGGREGATION_MODE_MEMORY);
+            memoryTask = noosAlgorithmService.runNoosAlgorithm(testParameters);
+            ReflectionTestUtils.setField(noosAlgorithmService, "aggregationMode", NoosAlgorithmService.AGGREGATION_MODE_SQL);
+            sqlTask = noosAlgorithmService.runNoosAlgorithm(testParameters);
+        } finally {
+            ReflectionTestUtils.setField(noosAlgorithmService, "aggregationMode", NoosAlgorithmService.AGGREGATION_MODE_MEMORY);
+        }
+
+        // Then: Both runs classify the same styles with identical metrics
+        assertEquals("COMPLETED", memoryTask.getStatus());
+        assertEquals("COMPLETED", sqlTask.getStatus());
+
+        Map<String, NoosResult> memoryResults = resultsByStyle(memoryTask.getId());
+        Map<String, NoosResult> sqlResults = resultsByStyle(sqlTask.getId());
+        assertFalse("Should have results", memoryResults.isEmpty());
+        assertSameResults(memoryResults, sqlResults);
+
+        // Boundary sale is kept, the 40% liquidation sale is not: 25 + 3 + 7 + 4 units
+        assertEquals(Integer.valueOf(39), sqlResults.get("TEST_SHIRT001").getTotalQuantitySold());
+        assertEquals(Integer.valueOf(3), sqlResults.get("TEST_SHIRT001").getDaysWithSales());
+    }
+
+    /**
+     * Test that the aggregate engine matches the in-memory engine and picks up
+     * sales written after its aggregates were built
+     */
+    @Test
+    @Transactional
+    @Rollback
+    public void testDayAggregateEngine_MatchesInMemoryEngine() throws ApiException, ParseException {
+        // Given: Same-day repeats and a sale at exactly the 25% threshold
+        SKU shirtSku = skuDao.findBySku("TEST_SHIRT001-M");
+        Store testStore = storeDao.findByBranch("TEST_STORE");
+        createSale(shirtSku, testStore, "2019-02-15", 3, "1.10", "33.30");
+        createSale(shirtSku, testStore, "2019-02-15", 6, "0.00", "60.00");
+        createSale(shirtSku, testStore, "2019-02-17", 4, "25.00", "75.00"); // exactly 25% discount - retained
+        createSale(shirtSku, testStore, "2019-02-18", 5, "25.01", "74.99"); // just over 25% - removed
+        createBoundaryTestData();
+
+        // When: Run with each engine, then add a sale and run the aggregate engine again
+        Task memoryTask;
+        Task aggregateTask;
+        Task refreshedTask;
+        try {
+            memoryTask = noosAlgorithmService.runNoosAlgorithm(testParameters);
+            ReflectionTestUtils.setField(noosAlgorithmService, "aggregationMode",
+                    NoosAlgorithmService.AGGREGATION_MODE_DAY_AGGREGATE);
+            aggregateTask = noosAlgorithmService.runNoosAlgorithm(testParameters);
+            createSale(shirtSku, testStore, "2019-02-19", 2, "0.00", "20.00");
+            refreshedTask = noosAlgorithmService.runNoosAlgorithm(testParameters);
+        } finally {
+            ReflectionTestUtils.setField(noosAlgorithmService, "aggregationMode", NoosAlgorithmService.AGGREGATION_MODE_MEMORY);
+        }
+
+        // Then: Identical results, and the later sale is included after the stale aggregates are rebuilt
+        assertEquals("COMPLETED", aggregateTask.getStatus());
+        Map<String, NoosResult> memoryResults = resultsByStyle(memoryTask.getId());
+        Map<String, NoosResult> aggregateResults = resultsByStyle(aggregateTask.getId());
+        assertFalse("Should have results", memoryResults.isEmpty());
+        assertSameResults(memoryResults, aggregateResults);
+
+        // 25 + 3 + 6 + 4 units over 2 days; the 25.01% sale is excluded
+        assertEquals(Integer.valueOf(38), aggregateResults.get("TEST_SHIRT001").getTotalQuantitySold());
+        assertEquals(Integer.valueOf(2), aggregateResults.get("TEST_SHIRT001").getDaysWithSales());
+
+        NoosResult refreshed = resultsByStyle(refreshedTask.getId()).get("TEST_SHIRT001");
+        assertEquals(Integer.valueOf(40), refreshed.getTotalQuantitySold());
+        assertEquals(Integer.valueOf(3), refreshed.getDaysWithSales());
+    }
+
+    /**
+     * Test that the aggregate engine rebuilds after a sales reload with the same row count
+     */
+    @Test
+    @Transactional
+    @Rollback
+    public void testDayAggregateEngine_RebuildsAfterSameSizeReload() throws ApiException, ParseException {
+        SKU shirtSku = skuDao.findBySku("TEST_SHIRT001-M");
+        Store testStore = storeDao.findByBranch("TEST_STORE");
+        long salesCount = salesDao.getTotalSalesCount();
+
+        Task reloadedTask;
+        try {
+            ReflectionTestUtils.setField(noosAlgorithmService, "aggregationMode",
+                    NoosAlgorithmService.AGGREGATION_MODE_DAY_AGGREGATE);
+            // Given: Aggregates built from the original sales
+            noosAlgorithmService.runNoosAlgorithm(testParameters);
+
+            // When: Sales are truncated and reloaded with as many rows, as an upload does
+            salesDao.deleteAll();
+            for (int day = 0; day < salesCount; day++) {
+                createSale(shirtSku, testStore, "2019-04-1" + day, 10, "0.00", "100.00");
+            }
+            dataVersionService.bump();
+            reloadedTask = noosAlgorithmService.runNoosAlgorithm(testParameters);
+        } finally {
+            ReflectionTestUtils.setField(noosAlgorithmService, "aggregationMode", NoosAlgorithmService.AGGREGATION_MODE_MEMORY);
+        }
+
+        // Then: Results come from the reloaded sales, not the previous data set
+        assertEquals(salesCount, (long) salesDao.getTotalSalesCount());
+        NoosResult shirt = resultsByStyle(reloadedTask.getId()).get("TEST_SHIRT001");
+        assertEquals(Integer.valueOf((int) salesCount * 10), shirt.getTotalQuantitySold());
+        assertEquals(Integer.valueOf((int) salesCount), shirt.getDaysWithSales());
+        assertNull(resultsByStyle(reloadedTask.getId()).get("TEST_PANT001"));
+    }
+
+    /**
+     * Test that a parameter sweep saves one run per variant, scanning once per
+     * liquidation threshold, with the same results as individual runs
+     */
+    @Test
+    @Transactional
+    @Rollback
+    public void testParameterSweep_MatchesIndividualRuns() throws Exception {
+        // Given: Three variants over two liquidation thresholds
+        createBoundaryTestData();
+        AlgoParametersData strict = sweepVariant(0.25, 1.5);
+        AlgoParametersData strictBestsellers = sweepVariant(0.25, 3.0);
+        AlgoParametersData lenient = sweepVariant(0.50, 1.5);
+
+        Task sweepTask = new Task();
+        sweepTask.setTaskType("ALGORITHM_SWEEP");
+        sweepTask.setStatus("PENDING");
+        sweepTask.setStartTime(new Date());
+        taskDao.insert(sweepTask);
+
+        // When: Run the sweep in this transaction (bypassing the async proxy), then one variant alone
+        NoosAlgorithmService target = AopTestUtils.getUltimateTargetObject(noosAlgorithmService);
+        Task result = target.runNoosSweepAsync(sweepTask.getId(),
+                Arrays.asList(strict, strictBestsellers, lenient)).get();
+        Task individualRun = noosAlgorithmService.runNoosAlgorithm(lenient);
+
+        // Then: One completed child run per variant, two data scans
+        assertEquals("COMPLETED", result.getStatus());
+        assertTrue(result.getProgressMessage().contains("from 2 data scans"));
+        List<Task> runs = taskDao.getChildTasks(sweepTask.getId());
+        assertEquals(3, runs.size());
+        for (Task run : runs) {
+            assertEquals("COMPLETED", run.getStatus());
+            assertEquals("ALGORITHM_RUN", run.getTaskType());
+            assertFalse(resultsByStyle(run.getId()).isEmpty());
+        }
+        assertSameResults(resultsByStyle(individualRun.getId()), resultsByStyle(runs.get(2).getId()));
+    }
+
+    /**
+     * Test that re-running the same parameters on unchanged data reuses the cached run
+     */
+    @Test
+    @Transactional
+    @Rollback
+    public void testRunCache_ReusesRunForUnchangedData() throws ApiException {
+        try {
+            // Given: A completed run, cached as if its transaction had committed
+            Task firstTask = noosAlgorithmService.runNoosAlgorithm(testParameters);
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCommit();
+            }
+            long resultCount = noosResultDao.getCount();
+
+            // When: The same parameters run again
+            Task secondTask = noosAlgorithmService.runNoosAlgorithm(testParameters);
+
+            // Then: Completed against the first run's results without inserting new ones
+            assertEquals("COMPLETED", secondTask.getStatus());
+            assertEquals(firstTask.getId(), secondTask.getResultRunId());
+            assertEquals(resultCount, noosResultDao.getCount());
+            assertEquals(firstTask.getId(), noosAlgorithmService.getLatestResults().get(0).getAlgorithmRunId());
+
+            // When: The data version moves on
+            dataVersionService.bump();
+            Task thirdTask = noosAlgorithmService.runNoosAlgorithm(testParameters);
+
+            // Then: The run is recomputed
+            assertEquals(thirdTask.getId(), thirdTask.getResultRunId());
+            assertTrue(noosResultDao.getCount() > resultCount);
+        } finally {
+            // Leave no cache entry pointing at this test's rolled-back runs
+            ((Map<?, ?>) ReflectionTestUtils.getField(noosRunCache, "runIds")).clear();
+        }
+    }
+
+    /**
+     * Test that parallel aggregation and classification match the sequential run
+     * Uses enough styles to span several classification waves
+     */
+    @Test
+    @Transactional
+    @Rollback
+    public void testParallelExecution_MatchesSequential() throws ApiException, ParseException {
+        // Given: 300 styles across 3 categories with sales on varying days
+        createManyStylesWithSales(300);
+        ForkJoinPool sequentialPool = (ForkJoinPool) ReflectionTestUtils.getField(noosAlgorithmService, "computePool");
+        ForkJoinPool parallelPool = new ForkJoinPool(4);
+
+        // When: Run sequentially, then with 4 workers
+        Task sequentialTask;
+        Task parallelTask;
+        try {
+            sequentialTask = noosAlgorithmService.runNoosAlgorithm(testParameters);
+            ReflectionTestUtils.setField(noosAlgorithmService, "computePool", parallelPool);
+            parallelTask = noosAlgorithmService.runNoosAlgorithm(testParameters);
+        } finally {
+            ReflectionTestUtils.setField(noosAlgorithmService, "computePool", sequentialPool);
+            parallelPool.shutdown();
+        }
+
+        // Then: Identical results for every style
+        Map<String, NoosResult> sequentialResults = resultsByStyle(sequentialTask.getId());
+        Map<String, NoosResult> parallelResults = resultsByStyle(parallelTask.getId());
+        assertTrue("Should classify all generated styles", sequentialResults.size() >= 300);
+        assertSameResults(sequentialResults, parallelResults);
+    }
+
     // ==================== HELPER METHODS FOR ADDITIONAL TEST DATA ====================
 
     /**
@@ -854,4 +1131,77 @@ public class NoosAlgorithmServiceTest extends AbstractUnitTest {
         orphanedSale.setRevenue(new BigDecimal("95.00"));
         salesDao.save(orphanedSale);
     }
-}
\ No newline at end of file
+
+    private void createSale(SKU sku, Store store, String date, int quantity, String discount, String revenue) throws ParseException {
+        Sales sale = new Sales();
+        sale.setDate(dateFormat.parse(date));
+        sale.setSkuId(sku.getId());
+        sale.setStoreId(store.getId());
+        sale.setQuantity(quantity);
+        sale.setDiscount(new BigDecimal(discount));
+        sale.setRevenue(new BigDecimal(revenue));
+        salesDao.save(sale);
+    }
+
+    private void createManyStylesWithSales(int styleCount) throws ParseException {
+        Store testStore = storeDao.findByBranch("TEST_STORE");
+        String[] categories = {"MANY_A", "MANY_B", "MANY_C"};
+        for (int i = 0; i < styleCount; i++) {
+            Style style = new Style();
+            style.setStyleCode(String.format("MANY_%03d", i));
+            style.setBrand("ManyBrand");
+            style.setCategory(categories[i % categories.length]);
+            style.setSubCategory("SUB");
+            style.setMrp(new BigDecimal("100.00"));
+            style.setGender("U");
+            styleDao.save(style);
+
+            SKU sku = new SKU();
+            sku.setSku(String.format("MANY_%03d-M", i));
+            sku.setStyleId(style.getId());
+            sku.setSize("M");
+            skuDao.save(sku);
+
+            for (int d = 0; d <= i % 7; d++) {
+                String discount = new BigDecimal(i % 13).add(new BigDecimal("0.37")).toPlainString();
+                String revenue = new BigDecimal(40 + (i * 7 + d * 3) % 90).add(new BigDecimal("0.11")).toPlainString();
+                createSale(sku, testStore, String.format("2019-03-%02d", 1 + d * 3), 1 + (i + d) % 9, discount, revenue);
+            }
+        }
+    }
+
+    private void assertSameResults(Map<String, NoosResult> expectedResults, Map<String, NoosResult> actualResults) {
+        assertEquals(expectedResults.keySet(), actualResults.keySet());
+        for (NoosResult expected : expectedResults.values()) {
+            NoosResult actual = actualResults.get(expected.getStyleCode());
+            String style = expected.getStyleCode();
+            assertEquals(style, expected.getCategory(), actual.getCategory());
+            assertEquals(style, expected.getType(), actual.getType());
+            assertEquals(style, expected.getTotalQuantitySold(), actual.getTotalQuantitySold());
+            assertEquals(style, expected.getDaysWithSales(), actual.getDaysWithSales());
+            assertEquals(style, expected.getDaysAvailable(), actual.getDaysAvailable());
+            assertEquals(style, 0, expected.getStyleROS().compareTo(actual.getStyleROS()));
+            assertEquals(style, 0, expected.getStyleRevContribution().compareTo(actual.getStyleRevContribution()));
+            assertEquals(style, 0, expected.getTotalRevenue().compareTo(actual.getTotalRevenue()));
+            assertEquals(style, 0, expected.getAvgDiscount().compareTo(actual.getAvgDiscount()));
+        }
+    }
+
+    private AlgoParametersData sweepVariant(double liquidationThreshold, double bestsellerMultiplier) {
+        AlgoParametersData variant = new AlgoParametersData();
+        variant.setLiquidationThreshold(liquidationThreshold);
+        variant.setBestsellerMultiplier(bestsellerMultiplier);
+        variant.setMinVolumeThreshold(20.0);
+        variant.setConsistencyThreshold(0.75);
+        variant.setAlgorithmLabel("Sweep variant");
+        return variant;
+    }
+
+    private Map<String, NoosResult> resultsByStyle(Long runId) {
+        Map<String, NoosResult> byStyle = new HashMap<>();
+        for (NoosResult result : noosResultDao.getResultsByRunId(runId)) {
+            byStyle.put(result.getStyleCode(), result);
+        }
+        return byStyle;
+    }
+}
@@ -0,0 +1,48 @@
+package com.iris.increff.service;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class NoosRunCacheTest {
+
+    @Test
+    public void testHitAndMissCounts() {
+        NoosRunCache cache = new NoosRunCache();
+        assertNull(cache.lookup(1, "a"));
+
+        cache.putAfterCommit(1, "a", 42L); // no transaction: cached immediately
+        assertEquals(Long.valueOf(42), cache.lookup(1, "a"));
+        assertNull(cache.lookup(1, "b"));
+
+        assertArrayEquals(new long[] {1, 2, 1}, cache.getStats());
+    }
+
+    @Test
+    public void testNewDataVersionDropsOlderRuns() {
+        NoosRunCache cache = new NoosRunCache();
+        cache.putAfterCommit(1, "a", 42L);
+        cache.putAfterCommit(2, "b", 43L);
+
+        assertNull(cache.lookup(1, "a"));
+        assertNull(cache.lookup(2, "a"));
+        assertEquals(Long.valueOf(43), cache.lookup(2, "b"));
+
+        // A run that read an older version finishing late is not cached
+        cache.putAfterCommit(1, "c", 44L);
+        assertNull(cache.lookup(1, "c"));
+        assertEquals(1, cache.getStats()[2]);
+    }
+
+    @Test
+    public void testEvictTurnsHitIntoMiss() {
+        NoosRunCache cache = new NoosRunCache();
+        cache.putAfterCommit(1, "a", 42L);
+        assertNotNull(cache.lookup(1, "a"));
+
+        cache.evict(1, "a");
+
+        assertNull(cache.lookup(1, "a"));
+        assertArrayEquals(new long[] {0, 2, 0}, cache.getStats());
+    }
+}
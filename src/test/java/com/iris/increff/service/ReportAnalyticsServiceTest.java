@@ -66,6 +66,9 @@ public class ReportAnalyticsServiceTest extends AbstractUnitTest {
     @Autowired
     private SalesDao salesDao;
 
+    @Autowired
+    private NoosRunSummaryDao noosRunSummaryDao;
+
     /**
      * Setup test data before each test method
      * Ensures clean state for consistent testing
@@ -164,6 +167,34 @@ public class ReportAnalyticsServiceTest extends AbstractUnitTest {
         }
     }
 
+    /**
+     * Test NOOS analytics report served from run summaries
+     * Verifies runs are read newest first from noos_run_summary without any results
+     */
+    @Test
+    @Transactional
+    @Rollback
+    public void testGenerateNoosAnalyticsReport_FromRunSummaries() {
+        // Given: Summaries for two runs and no stored results
+        Date now = new Date();
+        noosRunSummaryDao.save(createRunSummary(101L, new Date(now.getTime() - 24 * 60 * 60 * 1000), 4, 1, 2));
+        noosRunSummaryDao.save(createRunSummary(102L, now, 1, 2, 3));
+
+        // When: Generate NOOS analytics report
+        List<Report1Data> report = reportAnalyticsService.generateNoosAnalyticsReport();
+
+        // Then: One entry per run, newest first, with the summary counts
+        assertEquals("Should have one entry per run", 2, report.size());
+        Report1Data latest = report.get(0);
+        assertEquals(now, latest.getExecutionDate());
+        assertTrue(latest.getAlgorithmLabel().contains("NOOS Analysis"));
+        assertEquals((Integer) 6, latest.getTotalStylesProcessed());
+        assertEquals((Integer) 1, latest.getCoreStyles());
+        assertEquals((Integer) 2, latest.getBestsellerStyles());
+        assertEquals((Integer) 3, latest.getFashionStyles());
+        assertEquals((Integer) 7, report.get(1).getTotalStylesProcessed());
+    }
+
     // ==================== SYSTEM HEALTH REPORT TESTS ====================
 
     /**
@@ -538,6 +569,22 @@ public class ReportAnalyticsServiceTest extends AbstractUnitTest {
         noosResultDao.insert(result2);
     }
 
+    /**
+     * Create a run summary with the given type counts
+     */
+    private NoosRunSummary createRunSummary(Long runId, Date runDate, int core, int bestseller, int fashion) {
+        NoosRunSummary summary = new NoosRunSummary();
+        summary.setAlgorithmRunId(runId);
+        summary.setRunDate(runDate);
+        summary.setCoreCount(core);
+        summary.setBestsellerCount(bestseller);
+        summary.setFashionCount(fashion);
+        summary.setTotalResults(core + bestseller + fashion);
+        summary.setCategoryTotals("{}");
+        summary.setParameters("{}");
+        return summary;
+    }
+
     /**
      * Create sample tasks for testing
      */
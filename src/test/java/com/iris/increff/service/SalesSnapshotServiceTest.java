@@ -0,0 +1,117 @@
+package com.iris.increff.service;
+
+import com.iris.increff.AbstractUnitTest;
+import com.iris.increff.dao.SalesDao;
+import com.iris.increff.dao.SkuDao;
+import com.iris.increff.dao.StoreDao;
+import com.iris.increff.dao.StyleDao;
+import com.iris.increff.model.SKU;
+import com.iris.increff.model.Sales;
+import com.iris.increff.model.Store;
+import com.iris.increff.model.Style;
+import com.iris.increff.util.SalesSnapshot;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for SalesSnapshotService snapshot building and staleness detection
+ *
+ * @author Anshuk Kawarry
+ * @version 1.0
+ * @since 2025-01-01
+ */
+public class SalesSnapshotServiceTest extends AbstractUnitTest {
+
+    @Autowired
+    private SalesSnapshotService salesSnapshotService;
+
+    @Autowired
+    private SalesDao salesDao;
+
+    @Autowired
+    private SkuDao skuDao;
+
+    @Autowired
+    private StoreDao storeDao;
+
+    @Autowired
+    private StyleDao styleDao;
+
+    private SKU sku;
+    private Store store;
+
+    @Before
+    public void setUp() {
+        salesDao.deleteAll();
+
+        Style style = new Style();
+        style.setStyleCode("SNAP_STYLE");
+        style.setBrand("BRAND");
+        style.setCategory("CATEGORY");
+        style.setSubCategory("SUB");
+        style.setMrp(new BigDecimal("100.00"));
+        style.setGender("M");
+        style = styleDao.save(style);
+
+        sku = new SKU();
+        sku.setSku("SNAP_SKU");
+        sku.setStyleId(style.getId());
+        sku.setSize("M");
+        sku = skuDao.save(sku);
+
+        store = new Store();
+        store.setBranch("SNAP_BRANCH");
+        store.setCity("CITY");
+        store = storeDao.save(store);
+    }
+
+    @Test
+    public void testSnapshotHoldsSalesColumns() {
+        saveSale("2019-02-15", 3, "1.50", "10.25");
+
+        SalesSnapshot snapshot = salesSnapshotService.getSnapshot();
+
+        assertEquals(1, snapshot.size());
+        assertEquals((int) LocalDate.of(2019, 2, 15).toEpochDay(), snapshot.day(0));
+        assertEquals(sku.getId().intValue(), snapshot.skuId(0));
+        assertEquals(store.getId().intValue(), snapshot.storeId(0));
+        assertEquals(3, snapshot.quantity(0));
+        assertEquals(1025L, snapshot.revenueCents(0));
+        assertEquals(150L, snapshot.discountCents(0));
+    }
+
+    @Test
+    public void testSnapshotReusedUntilSalesChange() {
+        saveSale("2019-02-15", 1, "0.00", "5.00");
+        SalesSnapshot first = salesSnapshotService.getSnapshot();
+
+        assertSame(first, salesSnapshotService.getSnapshot());
+
+        saveSale("2019-02-16", 2, "0.00", "6.00");
+        SalesSnapshot second = salesSnapshotService.getSnapshot();
+
+        assertNotSame(first, second);
+        assertEquals(2, second.size());
+        assertEquals(2L, salesSnapshotService.getSalesCount());
+
+        salesDao.deleteAll();
+        assertEquals(0, salesSnapshotService.getSnapshot().size());
+    }
+
+    private void saveSale(String day, int quantity, String discount, String revenue) {
+        Sales sales = new Sales();
+        sales.setDate(java.sql.Date.valueOf(day));
+        sales.setSkuId(sku.getId());
+        sales.setStoreId(store.getId());
+        sales.setQuantity(quantity);
+        sales.setDiscount(new BigDecimal(discount));
+        sales.setRevenue(new BigDecimal(revenue));
+        salesDao.save(sales);
+    }
+}
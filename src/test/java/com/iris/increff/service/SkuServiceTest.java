@@ -157,6 +157,31 @@ public class SkuServiceTest extends AbstractUnitTest {
         assertEquals("Should have 1 SKU in database", 1, savedSkus.size());
     }
 
+    /**
+     * Test style lookup ignores case
+     * Verifies that a style stored with a mixed-case code still resolves, as the
+     * old case-insensitive database lookup did
+     */
+    @Test
+    @Transactional
+    @Rollback
+    public void testProcessAndSaveSKUs_MixedCaseStyleCode() {
+        // Given: A style stored with a mixed-case code
+        testStyle1.setStyleCode("Shirt001");
+        styleDao.save(testStyle1);
+        ArrayList<HashMap<String, String>> singleRecord = new ArrayList<>();
+        singleRecord.add(createSkuRow("SKU001", "shirt001", "M"));
+
+        // When: Process the SKU row
+        UploadResponse response = skuService.processAndSaveSKUs(singleRecord);
+
+        // Then: The row resolves to the stored style
+        assertTrue("Response should be successful", response.isSuccess());
+        List<SKU> savedSkus = skuService.getAllSKUs();
+        assertEquals("Should have 1 SKU in database", 1, savedSkus.size());
+        assertEquals("Style ID should be set", testStyle1.getId(), savedSkus.get(0).getStyleId());
+    }
+
     /**
      * Test data normalization functionality
      * Verifies that string data is properly normalized (trimmed and uppercased)
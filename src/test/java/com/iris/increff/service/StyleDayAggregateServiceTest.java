@@ -0,0 +1,112 @@
+package com.iris.increff.service;
+
+import com.iris.increff.model.StyleDayAggregate;
+import com.iris.increff.util.SalesSnapshot;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class StyleDayAggregateServiceTest {
+
+    @Test
+    public void testDiscountBucketBoundaries() {
+        assertEquals(0, StyleDayAggregateService.discountBucket(0, 1000));
+        assertEquals(25, StyleDayAggregateService.discountBucket(2500, 7500)); // exactly 25%
+        assertEquals(26, StyleDayAggregateService.discountBucket(2501, 7499)); // just over 25%
+        assertEquals(1, StyleDayAggregateService.discountBucket(1, 99999));
+        assertEquals(StyleDayAggregate.EXCLUDED_BUCKET, StyleDayAggregateService.discountBucket(500, 0));
+    }
+
+    @Test
+    public void testMaxRetainedBucket() {
+        assertEquals(25, StyleDayAggregateService.maxRetainedBucket(0.25));
+        assertEquals(7, StyleDayAggregateService.maxRetainedBucket(0.07));
+        assertEquals(100, StyleDayAggregateService.maxRetainedBucket(1.0));
+        assertEquals(-1, StyleDayAggregateService.maxRetainedBucket(0.255));
+        assertTrue(StyleDayAggregateService.supportsThreshold(0.3));
+        assertFalse(StyleDayAggregateService.supportsThreshold(0.333));
+    }
+
+    @Test
+    public void testBucketFilterMatchesExactPredicate() {
+        // bucket <= k  <=>  discount <= (k / 100) * (discount + revenue), for revenue > 0
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            long discount = random.nextInt(100000);
+            long revenue = 1 + random.nextInt(100000);
+            int threshold = random.nextInt(101);
+
+            boolean retained = BigDecimal.valueOf(discount).compareTo(
+                    BigDecimal.valueOf(threshold, 2).multiply(BigDecimal.valueOf(discount + revenue))) <= 0;
+            assertEquals(retained, StyleDayAggregateService.discountBucket(discount, revenue)
+                    <= StyleDayAggregateService.maxRetainedBucket(threshold / 100.0));
+        }
+    }
+
+    @Test
+    public void testRebuildAfterCommitWaitsForCommitAndContainsFailures() {
+        // Given: A snapshot that cannot be read, inside an upload's transaction
+        AtomicInteger snapshotReads = new AtomicInteger();
+        AtomicInteger rollbacks = new AtomicInteger();
+        StyleDayAggregateService service = new StyleDayAggregateService();
+        ReflectionTestUtils.setField(service, "salesSnapshotService", new SalesSnapshotService() {
+            @Override
+            public SalesSnapshot getSnapshot() {
+                snapshotReads.incrementAndGet();
+                throw new IllegalStateException("database unavailable");
+            }
+        });
+        ReflectionTestUtils.setField(service, "dataVersionService", new DataVersionService() {
+            @Override
+            public long getVersion() {
+                return 1;
+            }
+        });
+        ReflectionTestUtils.setField(service, "transactionManager", new PlatformTransactionManager() {
+            @Override
+            public TransactionStatus getTransaction(TransactionDefinition definition) {
+                return new SimpleTransactionStatus();
+            }
+
+            @Override
+            public void commit(TransactionStatus status) {
+            }
+
+            @Override
+            public void rollback(TransactionStatus status) {
+                rollbacks.incrementAndGet();
+            }
+        });
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // When: The upload asks for a rebuild
+            service.rebuildAfterCommit();
+
+            // Then: Nothing is read before the upload commits
+            assertEquals(0, snapshotReads.get());
+
+            // When: The upload commits
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCommit();
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Then: The rebuild ran in its own transaction, and its failure only rolled that back
+        assertEquals(1, snapshotReads.get());
+        assertEquals(1, rollbacks.get());
+    }
+}
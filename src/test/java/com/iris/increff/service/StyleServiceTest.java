@@ -9,6 +9,8 @@ import org.junit.Before;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.annotation.Rollback;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
@@ -647,6 +649,72 @@ public class StyleServiceTest extends AbstractUnitTest {
             savedStyles.stream().anyMatch(s -> "PANT001".equals(s.getStyleCode())));
     }
 
+    /**
+     * Test that re-uploading updates existing styles in place and inserts only new ones
+     */
+    @Test
+    @Transactional
+    @Rollback
+    public void testProcessAndSaveStyles_UpsertUpdatesExistingAndInsertsNew() {
+        ArrayList<HashMap<String, String>> firstUpload = new ArrayList<>();
+        firstUpload.add(createStyleRow("SHIRT001", "Nike", "SHIRTS", "CASUAL", "100.50", "M"));
+        firstUpload.add(createStyleRow("PANT001", "Adidas", "PANTS", "FORMAL", "150.75", "F"));
+        assertTrue(styleService.processAndSaveStyles(firstUpload).isSuccess());
+        Integer shirtId = styleDao.findByStyleCode("SHIRT001").getId();
+
+        ArrayList<HashMap<String, String>> secondUpload = new ArrayList<>();
+        secondUpload.add(createStyleRow("SHIRT001", "Puma", "SHIRTS", "CASUAL", "120.00", "M"));
+        secondUpload.add(createStyleRow("DRESS001", "Zara", "DRESSES", "PARTY", "200.00", "F"));
+        UploadResponse response = styleService.processAndSaveStyles(secondUpload);
+
+        assertTrue("Response should be successful", response.isSuccess());
+        assertTrue("Should report insert/update counts",
+            response.getMessages().stream().anyMatch(m -> m.contains("1 inserted, 1 updated")));
+
+        List<Style> savedStyles = styleService.getAllStyles();
+        assertEquals("Existing data not in upload is preserved", 3, savedStyles.size());
+        Style shirt = styleDao.findByStyleCode("SHIRT001");
+        assertEquals("Existing row is updated in place", shirtId, shirt.getId());
+        assertEquals("PUMA", shirt.getBrand());
+        assertEquals(0, new BigDecimal("120.00").compareTo(shirt.getMrp()));
+    }
+
+    /**
+     * Test that the save pass upserts in chunks of app.batch.size across the whole file
+     */
+    @Test
+    @Transactional
+    @Rollback
+    public void testProcessAndSaveStyles_UpsertsInChunks() {
+        StyleService target = AopTestUtils.getUltimateTargetObject(styleService);
+        int batchSize = (Integer) ReflectionTestUtils.getField(target, "batchSize");
+        ReflectionTestUtils.setField(target, "batchSize", 2);
+        try {
+            // Given: One existing style
+            ArrayList<HashMap<String, String>> firstUpload = new ArrayList<>();
+            firstUpload.add(createStyleRow("SHIRT001", "Nike", "SHIRTS", "CASUAL", "100.50", "M"));
+            assertTrue(styleService.processAndSaveStyles(firstUpload).isSuccess());
+
+            // When: Five styles are uploaded in chunks of two, the existing one last
+            ArrayList<HashMap<String, String>> secondUpload = new ArrayList<>();
+            for (int i = 2; i <= 5; i++) {
+                secondUpload.add(createStyleRow("SHIRT00" + i, "Nike", "SHIRTS", "CASUAL", "100.50", "M"));
+            }
+            secondUpload.add(createStyleRow("SHIRT001", "Puma", "SHIRTS", "CASUAL", "120.00", "M"));
+            UploadResponse response = styleService.processAndSaveStyles(secondUpload);
+
+            // Then: Every chunk was saved, including the final partial one
+            assertTrue("Response should be successful", response.isSuccess());
+            assertEquals(Integer.valueOf(5), response.getRecordCount());
+            assertTrue("Should report insert/update counts",
+                response.getMessages().stream().anyMatch(m -> m.contains("4 inserted, 1 updated")));
+            assertEquals(5, styleService.getAllStyles().size());
+            assertEquals("PUMA", styleDao.findByStyleCode("SHIRT001").getBrand());
+        } finally {
+            ReflectionTestUtils.setField(target, "batchSize", batchSize);
+        }
+    }
+
     // ==================== HELPER METHODS ====================
 
     /**
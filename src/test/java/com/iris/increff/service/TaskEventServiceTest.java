@@ -0,0 +1,98 @@
+package com.iris.increff.service;
+
+import com.iris.increff.model.Task;
+import com.iris.increff.model.TaskEventData;
+import org.junit.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TaskEventServiceTest {
+
+    private final TaskEventService taskEventService = new TaskEventService();
+
+    @Test
+    public void testProgressIsCoalescedPerTask() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        taskEventService.register(1L, null, emitter);
+
+        Task task = newTask(1L, "system");
+        for (int i = 1; i <= 3; i++) {
+            task.updateProgress(i * 10.0, "PROCESSING: tick " + i);
+            taskEventService.taskChanged(task);
+        }
+
+        assertEquals(1, taskEventService.dispatch());
+        assertEquals(0, taskEventService.dispatch());
+        assertEquals(1, emitter.events.size());
+        TaskEventData event = emitter.events.get(0);
+        assertEquals("PROCESSING: tick 3", event.getProgressMessage());
+        assertEquals("PROCESSING", event.getCurrentPhase());
+        assertEquals(30.0, event.getProgressPercentage(), 0.001);
+    }
+
+    @Test
+    public void testFinishedTaskClosesItsStreamOnly() {
+        RecordingEmitter taskStream = new RecordingEmitter();
+        RecordingEmitter allStream = new RecordingEmitter();
+        RecordingEmitter otherUserStream = new RecordingEmitter();
+        taskEventService.register(2L, null, taskStream);
+        taskEventService.register(null, null, allStream);
+        taskEventService.register(null, "someone-else", otherUserStream);
+
+        Task task = newTask(2L, "system");
+        task.setStatus("COMPLETED");
+        task.updateProgress(100.0, "COMPLETED: done");
+        taskEventService.taskFinished(task);
+
+        assertEquals("COMPLETED", taskStream.events.get(0).getStatus());
+        assertTrue(taskStream.completed);
+        assertEquals(1, allStream.events.size());
+        assertFalse(allStream.completed);
+        assertTrue(otherUserStream.events.isEmpty()); // filtered by user
+        assertEquals(2, taskEventService.getSubscriberCount());
+    }
+
+    @Test
+    public void testNothingIsQueuedWithoutSubscribers() {
+        taskEventService.taskChanged(newTask(3L, "system"));
+        assertEquals(0, taskEventService.dispatch());
+    }
+
+    private static Task newTask(Long id, String userId) {
+        Task task = new Task();
+        task.setId(id);
+        task.setTaskType("FILE_UPLOAD");
+        task.setStatus("RUNNING");
+        task.setUserId(userId);
+        task.setTotalRecords(100);
+        task.setProcessedRecords(0);
+        return task;
+    }
+
+    /**
+     * Emitter that records sent task events instead of writing a response
+     */
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<TaskEventData> events = new ArrayList<>();
+        private boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            for (DataWithMediaType data : builder.build()) {
+                if (data.getData() instanceof TaskEventData) {
+                    events.add((TaskEventData) data.getData());
+                }
+            }
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.iris.increff.service;
+
+import com.iris.increff.AbstractUnitTest;
+import com.iris.increff.dao.TaskDao;
+import com.iris.increff.model.Task;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Date;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for TaskProgressRegistry
+ * Tests in-memory progress reads and the coalescing flush to the tasks table
+ */
+public class TaskProgressRegistryTest extends AbstractUnitTest {
+
+    @Autowired
+    private TaskProgressRegistry taskProgressRegistry;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private TaskDao taskDao;
+
+    @Test
+    public void testProgressIsServedFromMemoryAndFlushedOnce() {
+        Task task = taskService.createTaskInNewTransaction(newTask());
+
+        // Several ticks before a flush
+        task.setStatus("RUNNING");
+        for (int i = 1; i <= 5; i++) {
+            task.updateProgress(i * 10.0, "PROCESSING: tick " + i);
+            taskProgressRegistry.publish(task);
+        }
+
+        // Reads see the latest tick before anything is written
+        assertEquals("PROCESSING: tick 5", taskProgressRegistry.get(task.getId()).getProgressMessage());
+        Task beforeFlush = taskDao.select(task.getId());
+        assertEquals("PENDING", beforeFlush.getStatus());
+        taskDao.detach(beforeFlush);
+
+        // One flush writes the latest state, the next has nothing to do
+        assertEquals(1, taskProgressRegistry.flush());
+        assertEquals(0, taskProgressRegistry.flush());
+
+        Task stored = taskService.getTask(task.getId());
+        assertEquals("RUNNING", stored.getStatus());
+        assertEquals("PROCESSING: tick 5", stored.getProgressMessage());
+        assertEquals(Integer.valueOf(50), stored.getProcessedRecords());
+    }
+
+    @Test
+    public void testFinalStateIsDroppedAfterTransactionCompletes() {
+        Task task = taskService.createTaskInNewTransaction(newTask());
+        task.setStatus("RUNNING");
+        taskProgressRegistry.publish(task);
+
+        task.setStatus("COMPLETED");
+        task.updateProgress(100.0, "COMPLETED: done");
+        taskProgressRegistry.publishFinal(task);
+
+        // Terminal state is not flushed; it is served until the worker's transaction completes
+        assertEquals(0, taskProgressRegistry.flush());
+        assertEquals("COMPLETED", taskProgressRegistry.get(task.getId()).getStatus());
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+        assertNull(taskProgressRegistry.get(task.getId()));
+    }
+
+    @Test
+    public void testCancellationRequestSurvivesNextTick() {
+        Task task = taskService.createTaskInNewTransaction(newTask());
+        task.setStatus("RUNNING");
+        taskProgressRegistry.publish(task);
+
+        taskProgressRegistry.markCancellationRequested(task.getId(), "CANCELLING: Cancellation requested");
+        assertTrue(taskProgressRegistry.get(task.getId()).isCancellationRequested());
+
+        task.updateProgress(60.0, "PROCESSING: still working");
+        taskProgressRegistry.publish(task);
+
+        Task live = taskProgressRegistry.get(task.getId());
+        assertTrue(live.isCancellationRequested());
+        assertEquals("PROCESSING: still working", live.getProgressMessage());
+
+        task.setStatus("CANCELLED");
+        taskProgressRegistry.publishFinal(task);
+    }
+
+    @Test
+    public void testFinalStateAfterRollbackIsWrittenOnCompletion() {
+        Task task = taskService.createTaskInNewTransaction(newTask());
+        task.setStatus("RUNNING");
+        taskProgressRegistry.publish(task);
+
+        task.setStatus("CANCELLED");
+        task.setEndTime(new Date());
+        task.updateProgress(40.0, "CANCELLED: Upload was cancelled by user");
+        taskProgressRegistry.publishFinalAfterRollback(task);
+        assertEquals("CANCELLED", taskProgressRegistry.get(task.getId()).getStatus());
+
+        // Written in its own transaction once the worker's transaction has rolled back
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+        assertNull(taskProgressRegistry.get(task.getId()));
+        Task stored = taskService.getTask(task.getId());
+        assertEquals("CANCELLED", stored.getStatus());
+        assertEquals("CANCELLED: Upload was cancelled by user", stored.getProgressMessage());
+        assertNotNull(stored.getEndTime());
+    }
+
+    private Task newTask() {
+        Task task = new Task();
+        task.setTaskType("FILE_UPLOAD");
+        task.setStatus("PENDING");
+        task.setTotalRecords(100);
+        task.setProcessedRecords(0);
+        task.setStartTime(new Date());
+        return task;
+    }
+}
@@ -0,0 +1,144 @@
+package com.iris.increff.service;
+
+import com.iris.increff.dao.TaskDao;
+import com.iris.increff.model.TaskStatsData;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TaskStatsServiceTest {
+
+    private static final long HOUR = 60L * 60L * 1000L;
+
+    private CountingTaskDao taskDao;
+    private TaskStatsService service;
+
+    @Before
+    public void setUp() {
+        taskDao = new CountingTaskDao();
+        service = new TaskStatsService();
+        ReflectionTestUtils.setField(service, "taskDao", taskDao);
+        ReflectionTestUtils.setField(service, "ttlMs", 60000L);
+    }
+
+    @Test
+    public void testSummarizeCountsAndPercentiles() {
+        Date now = new Date();
+        Date since = new Date(now.getTime() - 24 * HOUR);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            rows.add(row("SALES_UPLOAD", "COMPLETED", now, 0, i * 1000L));
+        }
+        rows.add(row("SALES_UPLOAD", "FAILED", now, 0, 0));
+        rows.add(row("ALGORITHM_RUN", "PENDING", now, 0, 0));
+        // Created before the window: active load only
+        rows.add(row("ALGORITHM_RUN", "RUNNING", new Date(since.getTime() - HOUR), 0, 0));
+
+        TaskStatsData stats = TaskStatsService.summarize(since, rows);
+
+        TaskStatsData.TypeStats sales = stats.forType("SALES_UPLOAD");
+        assertEquals(21, sales.getTotal());
+        assertEquals(20, sales.getCompleted());
+        assertEquals(1, sales.getFailed());
+        assertEquals(10500, sales.getAverageMillis());
+        assertEquals(10000, sales.getP50Millis());
+        assertEquals(19000, sales.getP95Millis());
+
+        assertEquals(1, stats.forType("ALGORITHM_RUN").getTotal());
+        assertEquals(0, stats.forType("STYLES_UPLOAD").getTotal());
+        assertEquals(22, stats.getTotalTasks());
+        assertEquals(20, stats.getCompletedTasks());
+        assertEquals(2, stats.getActiveTasks());
+        assertEquals(1, stats.getPendingTasks());
+    }
+
+    @Test
+    public void testServesCachedStatsWithinTtl() {
+        service.getRecentStats();
+        service.getRecentStats();
+        assertEquals(1, taskDao.calls.get());
+
+        service.invalidate();
+        service.getRecentStats();
+        assertEquals(2, taskDao.calls.get());
+    }
+
+    @Test
+    public void testConcurrentLoadsShareOneQuery() throws Exception {
+        taskDao.gate = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<TaskStatsData>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(service::getRecentStats));
+            }
+            // Let the waiting callers pile up behind the first load
+            Thread.sleep(200);
+            taskDao.gate.countDown();
+
+            TaskStatsData first = results.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<TaskStatsData> result : results) {
+                assertSame(first, result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, taskDao.calls.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFailedLoadIsNotCached() {
+        taskDao.fail = true;
+        try {
+            service.getRecentStats();
+            fail("Expected the load to fail");
+        } catch (IllegalStateException expected) {
+            // expected
+        }
+
+        taskDao.fail = false;
+        assertNotNull(service.getRecentStats());
+        assertEquals(2, taskDao.calls.get());
+    }
+
+    private static Object[] row(String taskType, String status, Date created, long startOffset, long durationMillis) {
+        Date start = durationMillis > 0 ? new Date(created.getTime() + startOffset) : null;
+        Date end = durationMillis > 0 ? new Date(start.getTime() + durationMillis) : null;
+        return new Object[] {taskType, status, created, start, end};
+    }
+
+    private static class CountingTaskDao extends TaskDao {
+        final AtomicInteger calls = new AtomicInteger();
+        volatile CountDownLatch gate;
+        volatile boolean fail;
+
+        @Override
+        public List<Object[]> getTaskStatRows(Date cutoffDate) {
+            calls.incrementAndGet();
+            if (fail) {
+                throw new IllegalStateException("database unavailable");
+            }
+            if (gate != null) {
+                try {
+                    gate.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return Collections.singletonList(new Object[] {"SALES_UPLOAD", "COMPLETED", new Date(), null, null});
+        }
+    }
+}
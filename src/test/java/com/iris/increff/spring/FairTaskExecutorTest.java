@@ -0,0 +1,145 @@
+package com.iris.increff.spring;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class FairTaskExecutorTest {
+
+    private FairTaskExecutor executor;
+
+    @After
+    public void shutdown() throws InterruptedException {
+        if (executor != null) {
+            executor.destroy();
+        }
+    }
+
+    @Test
+    public void testHigherPriorityTypeRunsFirst() throws InterruptedException {
+        Map<String, FairTaskExecutor.TaskClass> classes = new HashMap<>();
+        classes.put("SALES_UPLOAD", new FairTaskExecutor.TaskClass(1, 1, 1));
+        classes.put("STYLES_DOWNLOAD", new FairTaskExecutor.TaskClass(2, 1, 1));
+        executor = newExecutor(1, 10, classes);
+
+        CountDownLatch release = blockWorker();
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(2);
+        submit("SALES_UPLOAD", order, done);
+        submit("STYLES_DOWNLOAD", order, done);
+        release.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals("STYLES_DOWNLOAD", order.get(0));
+        assertEquals("SALES_UPLOAD", order.get(1));
+    }
+
+    @Test
+    public void testEqualPrioritySharesByWeight() throws InterruptedException {
+        Map<String, FairTaskExecutor.TaskClass> classes = new HashMap<>();
+        classes.put("SKUS_UPLOAD", new FairTaskExecutor.TaskClass(1, 2, 1));
+        classes.put("SALES_UPLOAD", new FairTaskExecutor.TaskClass(1, 1, 1));
+        executor = newExecutor(1, 20, classes);
+
+        CountDownLatch release = blockWorker();
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(12);
+        for (int i = 0; i < 6; i++) {
+            submit("SALES_UPLOAD", order, done);
+        }
+        for (int i = 0; i < 6; i++) {
+            submit("SKUS_UPLOAD", order, done);
+        }
+        release.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        // Sales was queued first, yet SKUs get two of every three slots while both wait
+        assertEquals(6, Collections.frequency(order.subList(0, 9), "SKUS_UPLOAD"));
+    }
+
+    @Test
+    public void testRunningCapLeavesWorkersForOtherTypes() throws InterruptedException {
+        Map<String, FairTaskExecutor.TaskClass> classes = new HashMap<>();
+        classes.put("SALES_UPLOAD", new FairTaskExecutor.TaskClass(1, 1, 1));
+        executor = newExecutor(2, 10, classes);
+
+        CountDownLatch salesRelease = new CountDownLatch(1);
+        CountDownLatch firstSalesStarted = new CountDownLatch(1);
+        CountDownLatch downloadDone = new CountDownLatch(1);
+        FairTaskExecutor.submitAs("SALES_UPLOAD", () -> executor.execute(() -> {
+            firstSalesStarted.countDown();
+            awaitQuietly(salesRelease);
+        }));
+        assertTrue(firstSalesStarted.await(5, TimeUnit.SECONDS));
+        FairTaskExecutor.submitAs("SALES_UPLOAD", () -> executor.execute(() -> awaitQuietly(salesRelease)));
+        FairTaskExecutor.submitAs("STYLES_DOWNLOAD", () -> executor.execute(downloadDone::countDown));
+
+        // The second sales upload waits for its slot; the download takes the free worker
+        assertTrue(downloadDone.await(5, TimeUnit.SECONDS));
+        Map<?, ?> sales = (Map<?, ?>) ((Map<?, ?>) executor.getStats().get("types")).get("SALES_UPLOAD");
+        assertEquals(1, sales.get("queued"));
+        assertEquals(1, sales.get("running"));
+        salesRelease.countDown();
+    }
+
+    @Test
+    public void testRejectsBeyondMaxQueued() {
+        executor = newExecutor(1, 2, new HashMap<>());
+        CountDownLatch release = blockWorker();
+        try {
+            executor.execute(() -> { });
+            executor.execute(() -> { });
+            try {
+                executor.execute(() -> { });
+                fail("Expected TaskRejectedException");
+            } catch (TaskRejectedException e) {
+                assertEquals(2, executor.getStats().get("queued"));
+            }
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private FairTaskExecutor newExecutor(int threads, int maxQueued, Map<String, FairTaskExecutor.TaskClass> classes) {
+        return new FairTaskExecutor("TEST", threads, maxQueued, 0, classes, new FairTaskExecutor.TaskClass(1, 1, threads));
+    }
+
+    /**
+     * Occupy the single worker until the returned latch is released
+     */
+    private CountDownLatch blockWorker() {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FairTaskExecutor.submitAs("BLOCKER", () -> executor.execute(() -> {
+            started.countDown();
+            awaitQuietly(release);
+        }));
+        awaitQuietly(started);
+        return release;
+    }
+
+    private void submit(String type, List<String> order, CountDownLatch done) {
+        FairTaskExecutor.submitAs(type, () -> executor.execute(() -> {
+            order.add(type);
+            done.countDown();
+        }));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.iris.increff.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CodeIdMapTest {
+
+    @Test
+    public void testPutAndGet() {
+        CodeIdMap map = new CodeIdMap(2);
+        map.putIfAbsent("SKU001", 10);
+        map.putIfAbsent("SKU002", 20);
+
+        assertEquals(10, map.get("SKU001"));
+        assertEquals(20, map.get("SKU002"));
+        assertEquals(2, map.size());
+        assertTrue(map.contains("SKU001"));
+    }
+
+    @Test
+    public void testMissingAndNullKeys() {
+        CodeIdMap map = new CodeIdMap(0);
+        map.putIfAbsent("STORE_A", 1);
+
+        assertEquals(CodeIdMap.NOT_FOUND, map.get("STORE_B"));
+        assertEquals(CodeIdMap.NOT_FOUND, map.get(null));
+        assertFalse(map.contains("STORE_AB"));
+    }
+
+    @Test
+    public void testMixedCaseCodesMatchIgnoringCase() {
+        CodeIdMap map = new CodeIdMap(4);
+        map.putIfAbsent("Sku001", 7);
+        map.putIfAbsent("SKU001", 8);
+
+        assertEquals(7, map.get("SKU001"));
+        assertEquals(7, map.get("sku001"));
+        assertTrue(map.contains("sKu001"));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testFirstIdWinsForDuplicateCode() {
+        CodeIdMap map = new CodeIdMap(4);
+        map.putIfAbsent("BRANCH", 5);
+        map.putIfAbsent("BRANCH", 9);
+
+        assertEquals(5, map.get("BRANCH"));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testGrowsBeyondExpectedSize() {
+        CodeIdMap map = new CodeIdMap(1);
+        for (int i = 0; i < 10000; i++) {
+            map.putIfAbsent("SKU" + i, i);
+        }
+
+        assertEquals(10000, map.size());
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(i, map.get("SKU" + i));
+        }
+        assertEquals(CodeIdMap.NOT_FOUND, map.get("SKU10000"));
+    }
+}
@@ -0,0 +1,29 @@
+package com.iris.increff.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DuplicateKeyTrackerTest {
+
+    @Test
+    public void testNewKeysAreRecorded() {
+        DuplicateKeyTracker tracker = new DuplicateKeyTracker();
+
+        assertEquals(DuplicateKeyTracker.NOT_SEEN, tracker.checkAndRecord("STYLE001", 2));
+        assertEquals(DuplicateKeyTracker.NOT_SEEN, tracker.checkAndRecord("STYLE002", 3));
+        assertEquals(2, tracker.size());
+    }
+
+    @Test
+    public void testDuplicateReturnsFirstSeenRow() {
+        DuplicateKeyTracker tracker = new DuplicateKeyTracker(4);
+        tracker.checkAndRecord("SKU001", 2);
+        tracker.checkAndRecord("SKU002", 3);
+
+        assertEquals(2, tracker.checkAndRecord("SKU001", 7));
+        // Later repeats still point at the first occurrence
+        assertEquals(2, tracker.checkAndRecord("SKU001", 9));
+        assertEquals(2, tracker.size());
+    }
+}
@@ -0,0 +1,106 @@
+package com.iris.increff.util;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class EpochDaySetTest {
+
+    @Test
+    public void testCountsDistinctDays() {
+        EpochDaySet days = new EpochDaySet();
+        int day = (int) LocalDate.of(2019, 2, 15).toEpochDay();
+
+        assertTrue(days.add(day));
+        assertFalse(days.add(day));
+        assertTrue(days.add(day + 1));
+
+        assertEquals(2, days.size());
+        assertTrue(days.contains(day));
+        assertFalse(days.contains(day + 2));
+        assertFalse(new EpochDaySet().contains(day));
+    }
+
+    @Test
+    public void testGrowsInBothDirections() {
+        EpochDaySet days = new EpochDaySet();
+        int base = (int) LocalDate.of(2019, 6, 1).toEpochDay();
+
+        days.add(base);
+        days.add(base + 5000); // far past the initial window
+        days.add(base - 3000); // before the base
+        days.add(base - 3000);
+
+        assertEquals(3, days.size());
+        assertTrue(days.contains(base));
+        assertTrue(days.contains(base + 5000));
+        assertTrue(days.contains(base - 3000));
+        assertFalse(days.contains(base - 2999));
+    }
+
+    @Test
+    public void testAddAllMergesSets() {
+        EpochDaySet left = new EpochDaySet();
+        EpochDaySet right = new EpochDaySet();
+        left.add(18000);
+        left.add(18001);
+        right.add(18001);
+        right.add(16000);
+
+        left.addAll(right);
+        left.addAll(new EpochDaySet());
+
+        assertEquals(3, left.size());
+        assertTrue(left.contains(16000));
+        assertTrue(left.contains(18000));
+    }
+
+    @Test
+    public void testMatchesHashSetSemantics() {
+        Random random = new Random(42);
+        EpochDaySet days = new EpochDaySet();
+        Set<Integer> expected = new HashSet<>();
+        for (int i = 0; i < 20000; i++) {
+            int day = 17000 + random.nextInt(3000) - 1500;
+            assertEquals(expected.add(day), days.add(day));
+        }
+        assertEquals(expected.size(), days.size());
+    }
+
+    /**
+     * Allocation check in place of a JMH benchmark: once the window covers the
+     * data, adding days allocates nothing, where the previous HashSet<String>
+     * allocated a String (and usually a hash node) per sale.
+     */
+    @Test
+    public void testAddDoesNotAllocateWithinWindow() {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threadBean;
+        Assume.assumeTrue(allocations.isThreadAllocatedMemorySupported() && allocations.isThreadAllocatedMemoryEnabled());
+        long threadId = Thread.currentThread().getId();
+
+        EpochDaySet days = new EpochDaySet();
+        int first = (int) LocalDate.of(2019, 1, 1).toEpochDay();
+        days.add(first);
+        days.add(first + 364);
+
+        long before = allocations.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 1000000; i++) {
+            days.add(first + (i % 365));
+        }
+        long allocated = allocations.getThreadAllocatedBytes(threadId) - before;
+
+        assertEquals(365, days.size());
+        // Allow for the measurement itself; a per-add allocation would be megabytes
+        assertTrue("Allocated " + allocated + " bytes for 1M adds", allocated < 64 * 1024);
+    }
+}
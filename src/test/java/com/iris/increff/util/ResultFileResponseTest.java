@@ -0,0 +1,144 @@
+package com.iris.increff.util;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+
+public class ResultFileResponseTest {
+
+    private File file;
+    private byte[] stored;
+
+    @Before
+    public void setUp() throws IOException {
+        file = new File(Files.createTempDirectory("results").toFile(), "sales_data_1.tsv.gz");
+        try (TsvExportWriter writer = TsvExportWriter.toGzipFile(file)) {
+            writer.writeHeader("day", "sku", "channel");
+            for (int i = 0; i < 500; i++) {
+                writer.writeRow("2024-01-01", "SKU" + i, "BRANCH_001");
+            }
+        }
+        stored = Files.readAllBytes(file.toPath());
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+        file.getParentFile().delete();
+    }
+
+    @Test
+    public void testSendsStoredGzipWithLengthAndEtag() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Accept-Encoding", "deflate, gzip;q=0.8");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        ResultFileResponse.send(file, request, response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        assertEquals("bytes", response.getHeader("Accept-Ranges"));
+        assertEquals(String.valueOf(stored.length), response.getHeader("Content-Length"));
+        assertEquals("attachment; filename=sales_data_1.tsv", response.getHeader("Content-Disposition"));
+        assertNotNull(response.getHeader("ETag"));
+        assertArrayEquals(stored, response.getContentAsByteArray());
+    }
+
+    @Test
+    public void testResumesFromRange() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Accept-Encoding", "gzip");
+        request.addHeader("Range", "bytes=10-");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        ResultFileResponse.send(file, request, response);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 10-" + (stored.length - 1) + "/" + stored.length, response.getHeader("Content-Range"));
+        assertArrayEquals(Arrays.copyOfRange(stored, 10, stored.length), response.getContentAsByteArray());
+    }
+
+    @Test
+    public void testIgnoresRangeWhenIfRangeIsStale() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Accept-Encoding", "gzip");
+        request.addHeader("Range", "bytes=10-");
+        request.addHeader("If-Range", "\"stale\"");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        ResultFileResponse.send(file, request, response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals(stored.length, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    public void testRejectsRangePastEnd() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Accept-Encoding", "gzip");
+        request.addHeader("Range", "bytes=" + stored.length + "-");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        ResultFileResponse.send(file, request, response);
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */" + stored.length, response.getHeader("Content-Range"));
+    }
+
+    @Test
+    public void testNotModifiedWhenEtagMatches() throws IOException {
+        MockHttpServletRequest first = new MockHttpServletRequest();
+        first.addHeader("Accept-Encoding", "gzip");
+        MockHttpServletResponse firstResponse = new MockHttpServletResponse();
+        ResultFileResponse.send(file, first, firstResponse);
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Accept-Encoding", "gzip");
+        request.addHeader("If-None-Match", firstResponse.getHeader("ETag"));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        ResultFileResponse.send(file, request, response);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    public void testDecompressesForClientsWithoutGzip() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Accept-Encoding", "gzip;q=0, identity");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        ResultFileResponse.send(file, request, response);
+
+        assertEquals(200, response.getStatus());
+        assertNull(response.getHeader("Content-Encoding"));
+        assertEquals("none", response.getHeader("Accept-Ranges"));
+        byte[] expected = IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(stored)));
+        assertArrayEquals(expected, response.getContentAsByteArray());
+        assertTrue(new String(expected, StandardCharsets.UTF_8).startsWith("day\tsku\tchannel\n"));
+    }
+
+    @Test
+    public void testParseRange() {
+        assertArrayEquals(new long[]{0, 99}, ResultFileResponse.parseRange("bytes=0-99", 1000));
+        assertArrayEquals(new long[]{900, 999}, ResultFileResponse.parseRange("bytes=-100", 1000));
+        assertArrayEquals(new long[]{500, 999}, ResultFileResponse.parseRange("bytes=500-5000", 1000));
+        assertEquals(0, ResultFileResponse.parseRange("bytes=0-1,5-9", 1000).length);
+        assertEquals(0, ResultFileResponse.parseRange("items=0-1", 1000).length);
+        assertNull(ResultFileResponse.parseRange("bytes=1000-", 1000));
+    }
+}
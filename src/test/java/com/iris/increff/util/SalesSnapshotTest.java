@@ -0,0 +1,56 @@
+package com.iris.increff.util;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+
+import static org.junit.Assert.*;
+
+public class SalesSnapshotTest {
+
+    @Test
+    public void testBuilderGrowsAndKeepsColumns() {
+        SalesSnapshot.Builder builder = new SalesSnapshot.Builder(1);
+        for (int i = 0; i < 100; i++) {
+            builder.add(18000 + i, i, i * 2, i + 1, 1000L + i, 50L);
+        }
+        SalesSnapshot snapshot = builder.build(250);
+
+        assertEquals(100, snapshot.size());
+        assertEquals(18042, snapshot.day(42));
+        assertEquals(42, snapshot.skuId(42));
+        assertEquals(84, snapshot.storeId(42));
+        assertEquals(43, snapshot.quantity(42));
+        assertEquals(1042L, snapshot.revenueCents(42));
+        assertEquals(50L, snapshot.discountCents(42));
+    }
+
+    @Test
+    public void testMatchesStamp() {
+        SalesSnapshot snapshot = new SalesSnapshot.Builder(2).add(1, 1, 1, 1, 100, 0).build(7);
+
+        assertTrue(snapshot.matches(1, 7));
+        assertFalse(snapshot.matches(1, 8));
+        assertFalse(snapshot.matches(2, 7));
+    }
+
+    @Test
+    public void testToCents() {
+        assertEquals(1025L, SalesSnapshot.toCents(new BigDecimal("10.25")));
+        assertEquals(1000L, SalesSnapshot.toCents(new BigDecimal("10")));
+        assertEquals(0L, SalesSnapshot.toCents(new BigDecimal("0.00")));
+        assertEquals(999999999999L, SalesSnapshot.toCents(new BigDecimal("9999999999.99")));
+    }
+
+    @Test
+    public void testToEpochDayIgnoresTimeOfDay() throws Exception {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+        int expected = (int) LocalDate.of(2019, 2, 15).toEpochDay();
+
+        assertEquals(expected, SalesSnapshot.toEpochDay(format.parse("2019-02-15 00:00")));
+        assertEquals(expected, SalesSnapshot.toEpochDay(format.parse("2019-02-15 23:59")));
+        assertEquals(expected, SalesSnapshot.toEpochDay(java.sql.Date.valueOf("2019-02-15")));
+    }
+}
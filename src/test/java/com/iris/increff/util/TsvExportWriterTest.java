@@ -0,0 +1,62 @@
+package com.iris.increff.util;
+
+import com.iris.increff.exception.TaskCancelledException;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class TsvExportWriterTest {
+
+    @Test
+    public void testWritesRowsAndCountsThemWithoutHeader() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (TsvExportWriter writer = new TsvExportWriter(out)) {
+            writer.writeHeader("style", "brand", "mrp");
+            writer.writeRow("S1", "Nike", new BigDecimal("499.50"));
+            writer.writeRow("S2", null, 12);
+            assertEquals(2, writer.getRowCount());
+        }
+        assertEquals("style\tbrand\tmrp\nS1\tNike\t499.50\nS2\t\t12\n", new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testWritesUtf8ToFile() throws IOException {
+        File file = File.createTempFile("export", ".tsv");
+        try {
+            try (TsvExportWriter writer = TsvExportWriter.toFile(file)) {
+                writer.writeHeader("branch", "city");
+                writer.writeRow("Café", "München");
+            }
+            assertEquals("branch\tcity\nCafé\tMünchen\n", new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testStopsWhenBoundTokenIsCancelled() throws IOException {
+        CancellationToken token = new CancellationToken(7L);
+        CancellationToken.bind(token);
+        int written = 0;
+        try (TsvExportWriter writer = new TsvExportWriter(new ByteArrayOutputStream())) {
+            for (int i = 0; i < 3000; i++) {
+                writer.writeRow("row", i);
+                if (++written == 100) {
+                    token.cancel();
+                }
+            }
+            fail("Expected the writer to stop on cancellation");
+        } catch (TaskCancelledException e) {
+            assertTrue(written <= 1024);
+        } finally {
+            CancellationToken.bind(null);
+        }
+    }
+}
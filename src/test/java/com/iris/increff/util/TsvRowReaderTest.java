@@ -0,0 +1,149 @@
+package com.iris.increff.util;
+
+import com.iris.increff.exception.ApiException;
+import com.iris.increff.exception.TaskCancelledException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class TsvRowReaderTest {
+
+    private static final String[] HEADERS = {"name", "age", "city"};
+
+    @Test
+    public void testStreamsNormalizedRowsWithRowNumbers() throws ApiException {
+        String tsvContent = "name\tage\tcity\n John \t25\tNew York\nJane\t30\tLos Angeles";
+
+        try (TsvRowReader reader = TsvRowReader.open(tsvContent.getBytes(), "test.tsv", HEADERS)) {
+            assertTrue(reader.next());
+            TsvRow row = reader.row();
+            assertEquals(2, row.getRowNumber());
+            assertTrue(row.isComplete());
+            assertEquals("john", row.get("name"));
+            assertEquals("25", row.get(1));
+            assertEquals("new york", row.get("city"));
+
+            assertTrue(reader.next());
+            assertSame(row, reader.row()); // view is reused
+            assertEquals(3, row.getRowNumber());
+            assertEquals("jane", row.get("name"));
+
+            assertFalse(reader.next());
+            assertEquals(2, reader.getRowCount());
+        }
+    }
+
+    @Test
+    public void testMismatchedColumnsExposedAsEmptyRow() throws ApiException {
+        String tsvContent = "name\tage\tcity\nJohn\t25\nJane\t30\tLA";
+
+        try (TsvRowReader reader = TsvRowReader.open(tsvContent.getBytes(), "test.tsv", HEADERS)) {
+            assertTrue(reader.next());
+            assertFalse(reader.row().isComplete());
+            assertTrue(reader.row().isEmpty());
+            assertNull(reader.row().get("name"));
+
+            assertTrue(reader.next());
+            assertEquals(3, reader.row().size());
+        }
+    }
+
+    @Test
+    public void testResetRereadsFromFirstDataRow() throws ApiException {
+        String tsvContent = "name\tage\tcity\nJohn\t25\tNY\nJane\t30\tLA";
+
+        try (TsvRowReader reader = TsvRowReader.open(tsvContent.getBytes(), "test.tsv", HEADERS)) {
+            List<String> firstPass = readNames(reader);
+            reader.reset();
+            List<String> secondPass = readNames(reader);
+
+            assertEquals(2, firstPass.size());
+            assertEquals(firstPass, secondPass);
+        }
+    }
+
+    @Test
+    public void testRowCopyIsIndependentOfCursor() throws ApiException {
+        String tsvContent = "name\tage\tcity\nJohn\t25\tNY\nJane\t30\tLA";
+
+        try (TsvRowReader reader = TsvRowReader.open(tsvContent.getBytes(), "test.tsv", HEADERS)) {
+            reader.next();
+            Map<String, String> copy = new HashMap<>(reader.row());
+            reader.next();
+
+            assertEquals("john", copy.get("name"));
+            assertEquals(3, copy.size());
+        }
+    }
+
+    @Test(expected = ApiException.class)
+    public void testRejectsNonTsvFile() throws ApiException {
+        TsvRowReader.open("name,age\nJohn,25".getBytes(), "test.csv", HEADERS);
+    }
+
+    @Test(expected = ApiException.class)
+    public void testRejectsHeaderMismatch() throws ApiException {
+        TsvRowReader.open("name\tage\nJohn\t25".getBytes(), "test.tsv", HEADERS);
+    }
+
+    @Test
+    public void testListCursorMatchesFileConvention() throws ApiException {
+        ArrayList<HashMap<String, String>> rows = new ArrayList<>();
+        HashMap<String, String> first = new HashMap<>();
+        first.put("name", "john");
+        first.put("age", "25");
+        first.put("city", "ny");
+        rows.add(first);
+        rows.add(new HashMap<>());
+
+        TsvRowCursor cursor = TsvRowCursor.of(rows, HEADERS);
+        assertTrue(cursor.next());
+        assertEquals(2, cursor.row().getRowNumber());
+        assertEquals("john", cursor.row().get("name"));
+        assertTrue(cursor.next());
+        assertEquals(3, cursor.row().getRowNumber());
+        assertFalse(cursor.row().isComplete());
+        assertFalse(cursor.next());
+
+        cursor.reset();
+        assertTrue(cursor.next());
+        assertEquals(2, cursor.row().getRowNumber());
+    }
+
+    @Test
+    public void testStopsWhenBoundTokenIsCancelled() throws ApiException {
+        StringBuilder tsvContent = new StringBuilder("name\tage\tcity\n");
+        for (int i = 0; i < 3000; i++) {
+            tsvContent.append("user").append(i).append("\t").append(i).append("\tcity\n");
+        }
+
+        CancellationToken token = new CancellationToken(7L);
+        CancellationToken.bind(token);
+        int read = 0;
+        try (TsvRowReader reader = TsvRowReader.open(tsvContent.toString().getBytes(), "test.tsv", HEADERS)) {
+            while (reader.next()) {
+                if (++read == 100) {
+                    token.cancel();
+                }
+            }
+            fail("Expected the reader to stop on cancellation");
+        } catch (TaskCancelledException e) {
+            assertTrue(read < 1024);
+        } finally {
+            CancellationToken.bind(null);
+        }
+    }
+
+    private List<String> readNames(TsvRowCursor cursor) throws ApiException {
+        List<String> names = new ArrayList<>();
+        while (cursor.next()) {
+            names.add(cursor.row().get("name"));
+        }
+        return names;
+    }
+}